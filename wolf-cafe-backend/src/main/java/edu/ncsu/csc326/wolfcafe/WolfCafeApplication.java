@@ -1,9 +1,7 @@
 package edu.ncsu.csc326.wolfcafe;
 
-import org.modelmapper.ModelMapper;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
-import org.springframework.context.annotation.Bean;
 
 /**
  * Main class for the WolfCafe application.
@@ -11,15 +9,6 @@ import org.springframework.context.annotation.Bean;
 @SpringBootApplication
 public class WolfCafeApplication {
 
-	/**
-	 * Returns the ModelMapper.
-	 * @return the ModelMapper for the application.
-	 */
-	@Bean
-	public ModelMapper modelMapper() {
-		return new ModelMapper();
-	}
-
 	/**
 	 * Starts the WolfCafe application.
 	 * @param args command line arguments
@@ -0,0 +1,508 @@
+package edu.ncsu.csc326.wolfcafe.archive;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+import org.roaringbitmap.longlong.Roaring64Bitmap;
+
+import edu.ncsu.csc326.wolfcafe.dto.OrderDto;
+import edu.ncsu.csc326.wolfcafe.entity.OrderStatus;
+
+/**
+ * One read-only segment file of the order archive, mapped into memory. A
+ * segment holds the orders of one archival run, oldest first, in blocks of up
+ * to BLOCK_SIZE orders that are each compressed on their own. The footer at
+ * the end of the file is a sparse index with one entry per block (where the
+ * block starts and the range of creation times in it) followed by a bitmap of
+ * every order id in the segment. Only the footer is read when a segment is
+ * opened; blocks are decompressed straight from the mapped file when a query
+ * needs them, and blocks outside the requested range of creation times are
+ * never touched. Counting orders reads a block once; after that its count
+ * comes from a summary of which orders in it have each status and item.
+ *
+ * <pre>
+ * file    := MAGIC VERSION block* footer footerOffset:long MAGIC
+ * footer  := blockCount:int entry* idsLength:int ids
+ * entry   := offset:long length:int rawLength:int orders:int minCreatedAt:long maxCreatedAt:long
+ * order   := id:long customerId:long hasName:boolean [customerName:utf] status:utf createdAt:long
+ *            totalPrice:double tip:double itemCount:int (name:utf quantity:int)*
+ * </pre>
+ *
+ * Creation times are stored as microseconds since the epoch, read as UTC.
+ */
+final class ArchiveSegment {
+
+    /** Marks the start and the end of a segment file */
+    static final int                  MAGIC      = 0x57434153;
+
+    /** Version of the file layout */
+    static final int                  VERSION    = 1;
+
+    /** Most orders compressed together in one block */
+    static final int                  BLOCK_SIZE = 512;
+
+    /** Bytes at the end of the file that locate the footer */
+    static final int                  TRAILER    = Long.BYTES + Integer.BYTES;
+
+    /** The file this segment was read from */
+    private final Path                path;
+
+    /** The whole file, mapped into memory */
+    private final MappedByteBuffer    data;
+
+    /** One entry per block, in file order */
+    private final List<Block>         blocks;
+
+    /** Ids of every order in the segment */
+    private final Roaring64Bitmap     ids;
+
+    /** Summary of each block that has been counted */
+    private final Map<Block, Summary> summaries  = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a segment from its parts.
+     *
+     * @param path
+     *            the file the segment was read from
+     * @param data
+     *            the mapped file
+     * @param blocks
+     *            the sparse index
+     * @param ids
+     *            ids of every order in the segment
+     */
+    private ArchiveSegment ( final Path path, final MappedByteBuffer data, final List<Block> blocks,
+            final Roaring64Bitmap ids ) {
+        this.path = path;
+        this.data = data;
+        this.blocks = blocks;
+        this.ids = ids;
+    }
+
+    /**
+     * Maps a segment file into memory and reads its footer.
+     *
+     * @param path
+     *            the segment file
+     * @return the segment
+     * @throws IOException
+     *             if the file cannot be read or is not a complete segment
+     */
+    static ArchiveSegment open ( final Path path ) throws IOException {
+        final MappedByteBuffer data;
+        try ( FileChannel channel = FileChannel.open( path, StandardOpenOption.READ ) ) {
+            // The mapping stays valid after the channel is closed
+            data = channel.map( FileChannel.MapMode.READ_ONLY, 0, channel.size() );
+        }
+
+        final int size = data.capacity();
+        if ( size < 2 * Integer.BYTES + TRAILER || data.getInt( 0 ) != MAGIC
+                || data.getInt( size - Integer.BYTES ) != MAGIC ) {
+            throw new IOException( "Not a complete archive segment: " + path );
+        }
+        if ( data.getInt( Integer.BYTES ) != VERSION ) {
+            throw new IOException( "Unsupported archive segment version in " + path );
+        }
+
+        final int footerOffset = (int) data.getLong( size - TRAILER );
+        final ByteBuffer footer = data.slice( footerOffset, size - TRAILER - footerOffset );
+        final int blockCount = footer.getInt();
+        final List<Block> blocks = new ArrayList<>( blockCount );
+        for ( int i = 0; i < blockCount; i++ ) {
+            blocks.add( new Block( footer.getLong(), footer.getInt(), footer.getInt(), footer.getInt(),
+                    footer.getLong(), footer.getLong() ) );
+        }
+        final byte[] idBytes = new byte[footer.getInt()];
+        footer.get( idBytes );
+        final Roaring64Bitmap ids = new Roaring64Bitmap();
+        ids.deserialize( new DataInputStream( new ByteArrayInputStream( idBytes ) ) );
+
+        return new ArchiveSegment( path, data, Collections.unmodifiableList( blocks ), ids );
+    }
+
+    /**
+     * Gets the file this segment was read from.
+     *
+     * @return the segment file
+     */
+    Path getPath () {
+        return path;
+    }
+
+    /**
+     * Gets the ids of every order in the segment. The bitmap must not be
+     * changed.
+     *
+     * @return the order ids
+     */
+    Roaring64Bitmap getIds () {
+        return ids;
+    }
+
+    /**
+     * Gets the sparse index of the segment.
+     *
+     * @return one entry per block, oldest first
+     */
+    List<Block> getBlocks () {
+        return blocks;
+    }
+
+    /**
+     * Reads the orders of one block created in a range that pass a filter.
+     *
+     * @param block
+     *            the block to read
+     * @param from
+     *            earliest creation time to include, or null
+     * @param to
+     *            creation time to stop before, or null
+     * @param filter
+     *            which of the orders in the range to return
+     * @return the matching orders, oldest first
+     */
+    List<OrderDto> read ( final Block block, final LocalDateTime from, final LocalDateTime to,
+            final Predicate<OrderDto> filter ) {
+        final long start = from == null ? Long.MIN_VALUE : toMicros( from );
+        final long end = to == null ? Long.MAX_VALUE : toMicros( to );
+        final List<OrderDto> matching = new ArrayList<>();
+        for ( final OrderDto order : decode( block ) ) {
+            final long createdAt = toMicros( order.getCreatedAt() );
+            if ( createdAt >= start && createdAt < end && filter.test( order ) ) {
+                matching.add( order );
+            }
+        }
+        return matching;
+    }
+
+    /**
+     * Counts the orders created in a range that have a status and contain
+     * every one of the items. Blocks entirely inside the range are counted
+     * from their summary; only the blocks at the edges of the range are read.
+     *
+     * @param from
+     *            earliest creation time to include, or null
+     * @param to
+     *            creation time to stop before, or null
+     * @param status
+     *            status the orders must have
+     * @param itemNames
+     *            names of the items the orders must all contain
+     * @return the number of matching orders
+     */
+    long count ( final LocalDateTime from, final LocalDateTime to, final OrderStatus status,
+            final Collection<String> itemNames ) {
+        final long start = from == null ? Long.MIN_VALUE : toMicros( from );
+        final long end = to == null ? Long.MAX_VALUE : toMicros( to );
+        long count = 0;
+        for ( final Block block : blocks ) {
+            if ( block.maxCreatedAt < start || block.minCreatedAt >= end ) {
+                continue;
+            }
+            if ( block.minCreatedAt >= start && block.maxCreatedAt < end ) {
+                count += summaries.computeIfAbsent( block, this::summarize ).count( status, itemNames );
+            }
+            else {
+                count += read( block, from, to, order -> order.getStatus() == status
+                        && order.getItems().keySet().containsAll( itemNames ) ).size();
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Reads a block and notes which of its orders have each status and item.
+     *
+     * @param block
+     *            the block to summarize
+     * @return the summary of the block
+     */
+    private Summary summarize ( final Block block ) {
+        final Summary summary = new Summary();
+        final List<OrderDto> orders = decode( block );
+        for ( int i = 0; i < orders.size(); i++ ) {
+            summary.statuses.computeIfAbsent( orders.get( i ).getStatus(), status -> new BitSet() ).set( i );
+            for ( final String name : orders.get( i ).getItems().keySet() ) {
+                summary.items.computeIfAbsent( name, item -> new BitSet() ).set( i );
+            }
+        }
+        return summary;
+    }
+
+    /**
+     * Reads the orders created in a range that pass a filter, oldest first.
+     * Blocks are decompressed one at a time as the orders are read.
+     *
+     * @param from
+     *            earliest creation time to include, or null
+     * @param to
+     *            creation time to stop before, or null
+     * @param filter
+     *            which of the orders in the range to return
+     * @return the matching orders
+     */
+    Iterator<OrderDto> read ( final LocalDateTime from, final LocalDateTime to, final Predicate<OrderDto> filter ) {
+        final long start = from == null ? Long.MIN_VALUE : toMicros( from );
+        final long end = to == null ? Long.MAX_VALUE : toMicros( to );
+        final Iterator<Block> candidates = blocks.stream()
+                .filter( block -> block.maxCreatedAt >= start && block.minCreatedAt < end ).iterator();
+
+        return new Iterator<OrderDto>() {
+
+            /** Orders of the block being read */
+            private Iterator<OrderDto> current = Collections.emptyIterator();
+
+            /** The next matching order, if it has been found */
+            private OrderDto           next;
+
+            @Override
+            public boolean hasNext () {
+                while ( next == null ) {
+                    if ( current.hasNext() ) {
+                        final OrderDto order = current.next();
+                        final long createdAt = toMicros( order.getCreatedAt() );
+                        if ( createdAt >= start && createdAt < end && filter.test( order ) ) {
+                            next = order;
+                        }
+                    }
+                    else if ( candidates.hasNext() ) {
+                        current = decode( candidates.next() ).iterator();
+                    }
+                    else {
+                        return false;
+                    }
+                }
+                return true;
+            }
+
+            @Override
+            public OrderDto next () {
+                if ( !hasNext() ) {
+                    throw new NoSuchElementException();
+                }
+                final OrderDto order = next;
+                next = null;
+                return order;
+            }
+        };
+    }
+
+    /**
+     * Decompresses a block straight from the mapped file and decodes its
+     * orders.
+     *
+     * @param block
+     *            the block to read
+     * @return the orders in the block, oldest first
+     */
+    private List<OrderDto> decode ( final Block block ) {
+        final byte[] raw = new byte[block.rawLength];
+        final Inflater inflater = new Inflater();
+        try {
+            inflater.setInput( data.slice( (int) block.offset, block.length ) );
+            int read = 0;
+            while ( read < raw.length && !inflater.finished() ) {
+                final int inflated = inflater.inflate( raw, read, raw.length - read );
+                if ( inflated == 0 && inflater.needsInput() ) {
+                    break;
+                }
+                read += inflated;
+            }
+            if ( read != raw.length ) {
+                throw new IOException( "Truncated block at " + block.offset + " in " + path );
+            }
+
+            final DataInputStream in = new DataInputStream( new ByteArrayInputStream( raw ) );
+            final List<OrderDto> orders = new ArrayList<>( block.orders );
+            for ( int i = 0; i < block.orders; i++ ) {
+                final long id = in.readLong();
+                final long customerId = in.readLong();
+                final String customerName = in.readBoolean() ? in.readUTF() : null;
+                final OrderStatus status = OrderStatus.valueOf( in.readUTF() );
+                final LocalDateTime createdAt = fromMicros( in.readLong() );
+                final double totalPrice = in.readDouble();
+                final double tip = in.readDouble();
+                final int itemCount = in.readInt();
+                final Map<String, Integer> items = new HashMap<>();
+                for ( int j = 0; j < itemCount; j++ ) {
+                    items.put( in.readUTF(), in.readInt() );
+                }
+                orders.add( new OrderDto( id, customerId, items, status, customerName, createdAt, totalPrice, tip ) );
+            }
+            return orders;
+        }
+        catch ( final IOException e ) {
+            throw new UncheckedIOException( e );
+        }
+        catch ( final DataFormatException e ) {
+            throw new UncheckedIOException( new IOException( "Corrupt block at " + block.offset + " in " + path, e ) );
+        }
+        finally {
+            inflater.end();
+        }
+    }
+
+    /**
+     * Converts a creation time to the microseconds stored in a segment.
+     *
+     * @param time
+     *            the creation time
+     * @return microseconds since the epoch, reading the time as UTC
+     */
+    static long toMicros ( final LocalDateTime time ) {
+        return ChronoUnit.MICROS.between( LocalDateTime.ofEpochSecond( 0, 0, ZoneOffset.UTC ), time );
+    }
+
+    /**
+     * Converts microseconds stored in a segment back to a creation time.
+     *
+     * @param micros
+     *            microseconds since the epoch, read as UTC
+     * @return the creation time
+     */
+    static LocalDateTime fromMicros ( final long micros ) {
+        return LocalDateTime.ofEpochSecond( Math.floorDiv( micros, 1_000_000L ),
+                (int) Math.floorMod( micros, 1_000_000L ) * 1000, ZoneOffset.UTC );
+    }
+
+    /**
+     * Which orders of a block, by position, have each status and contain each
+     * item.
+     */
+    private static final class Summary {
+
+        /** Positions of the orders with each status */
+        private final Map<OrderStatus, BitSet> statuses = new EnumMap<>( OrderStatus.class );
+
+        /** Positions of the orders containing each item */
+        private final Map<String, BitSet>      items    = new HashMap<>();
+
+        /**
+         * Counts the orders of the block that have a status and contain every
+         * one of the items.
+         *
+         * @param status
+         *            status the orders must have
+         * @param itemNames
+         *            names of the items the orders must all contain
+         * @return the number of matching orders
+         */
+        private int count ( final OrderStatus status, final Collection<String> itemNames ) {
+            final BitSet matching = (BitSet) statuses.getOrDefault( status, new BitSet() ).clone();
+            for ( final String name : itemNames ) {
+                matching.and( items.getOrDefault( name, new BitSet() ) );
+            }
+            return matching.cardinality();
+        }
+
+    }
+
+    /**
+     * Entry of the sparse index: where a block is and which creation times it
+     * covers.
+     */
+    static final class Block {
+
+        /** Bytes an entry takes up in the footer */
+        static final int   BYTES = 3 * Long.BYTES + 3 * Integer.BYTES;
+
+        /** Where the compressed block starts in the file */
+        private final long offset;
+
+        /** Length of the compressed block */
+        private final int  length;
+
+        /** Length of the block once decompressed */
+        private final int  rawLength;
+
+        /** Number of orders in the block */
+        private final int  orders;
+
+        /** Creation time of the oldest order in the block, in microseconds */
+        private final long minCreatedAt;
+
+        /** Creation time of the newest order in the block, in microseconds */
+        private final long maxCreatedAt;
+
+        /**
+         * Creates an index entry.
+         *
+         * @param offset
+         *            where the compressed block starts in the file
+         * @param length
+         *            length of the compressed block
+         * @param rawLength
+         *            length of the block once decompressed
+         * @param orders
+         *            number of orders in the block
+         * @param minCreatedAt
+         *            creation time of the oldest order, in microseconds
+         * @param maxCreatedAt
+         *            creation time of the newest order, in microseconds
+         */
+        Block ( final long offset, final int length, final int rawLength, final int orders, final long minCreatedAt,
+                final long maxCreatedAt ) {
+            this.offset = offset;
+            this.length = length;
+            this.rawLength = rawLength;
+            this.orders = orders;
+            this.minCreatedAt = minCreatedAt;
+            this.maxCreatedAt = maxCreatedAt;
+        }
+
+        /**
+         * Gets the creation time of the oldest order in the block.
+         *
+         * @return the creation time, in microseconds
+         */
+        long getMinCreatedAt () {
+            return minCreatedAt;
+        }
+
+        /**
+         * Gets the creation time of the newest order in the block.
+         *
+         * @return the creation time, in microseconds
+         */
+        long getMaxCreatedAt () {
+            return maxCreatedAt;
+        }
+
+        /**
+         * Writes the entry to a footer.
+         *
+         * @param out
+         *            the footer being written
+         */
+        void writeTo ( final ByteBuffer out ) {
+            out.putLong( offset ).putInt( length ).putInt( rawLength ).putInt( orders ).putLong( minCreatedAt )
+                    .putLong( maxCreatedAt );
+        }
+
+    }
+
+}
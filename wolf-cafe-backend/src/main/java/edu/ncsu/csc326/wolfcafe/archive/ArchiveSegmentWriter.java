@@ -0,0 +1,237 @@
+package edu.ncsu.csc326.wolfcafe.archive;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.Deflater;
+
+import org.roaringbitmap.longlong.Roaring64Bitmap;
+
+import edu.ncsu.csc326.wolfcafe.dto.OrderDto;
+
+/**
+ * Writes a new segment file for the order archive, in the layout described on
+ * ArchiveSegment. Orders must be added oldest first. Orders are gathered into
+ * blocks that are compressed and appended to the file as they fill, so only
+ * one block is held in memory; the sparse index and the bitmap of order ids
+ * are written as the footer when the segment is finished, and the file is
+ * forced to disk before it is handed to the archive.
+ */
+final class ArchiveSegmentWriter implements AutoCloseable {
+
+    /** The file being written */
+    private final Path                       path;
+
+    /** Channel the file is written through */
+    private final FileChannel                channel;
+
+    /** Index entries of the blocks written so far */
+    private final List<ArchiveSegment.Block> blocks        = new ArrayList<>();
+
+    /** Ids of the orders written so far */
+    private final Roaring64Bitmap            ids           = new Roaring64Bitmap();
+
+    /** Orders of the block being filled, encoded */
+    private final ByteArrayOutputStream      block         = new ByteArrayOutputStream();
+
+    /** Encodes orders into the block being filled */
+    private final DataOutputStream           out           = new DataOutputStream( block );
+
+    /** Compresses each block */
+    private final Deflater                   deflater      = new Deflater();
+
+    /** Orders in the block being filled */
+    private int                              blockOrders;
+
+    /** Creation time of the first order in the block being filled */
+    private long                             blockMinCreatedAt;
+
+    /** Creation time of the last order added, in microseconds */
+    private long                             lastCreatedAt = Long.MIN_VALUE;
+
+    /** Id of the last order added */
+    private long                             lastId        = Long.MIN_VALUE;
+
+    /** Whether the footer has been written */
+    private boolean                          finished;
+
+    /**
+     * Creates a new, empty segment file.
+     *
+     * @param path
+     *            the file to create; it must not exist
+     * @throws IOException
+     *             if the file cannot be created
+     */
+    ArchiveSegmentWriter ( final Path path ) throws IOException {
+        this.path = path;
+        this.channel = FileChannel.open( path, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE );
+        write( ByteBuffer.allocate( 2 * Integer.BYTES ).putInt( ArchiveSegment.MAGIC )
+                .putInt( ArchiveSegment.VERSION ).flip() );
+    }
+
+    /**
+     * Gets the file being written.
+     *
+     * @return the segment file
+     */
+    Path getPath () {
+        return path;
+    }
+
+    /**
+     * Gets the ids of the orders written so far.
+     *
+     * @return the order ids
+     */
+    Roaring64Bitmap getIds () {
+        return ids;
+    }
+
+    /**
+     * Adds an order to the segment.
+     *
+     * @param order
+     *            the order to add; it must not be older than the order added
+     *            before it
+     * @throws IOException
+     *             if a full block cannot be written
+     */
+    void add ( final OrderDto order ) throws IOException {
+        final long createdAt = ArchiveSegment.toMicros( order.getCreatedAt() );
+        if ( createdAt < lastCreatedAt || createdAt == lastCreatedAt && order.getId() <= lastId ) {
+            throw new IllegalArgumentException( "Orders must be archived oldest first; order " + order.getId()
+                    + " is out of place." );
+        }
+        lastCreatedAt = createdAt;
+        lastId = order.getId();
+
+        if ( blockOrders == 0 ) {
+            blockMinCreatedAt = createdAt;
+        }
+        out.writeLong( order.getId() );
+        out.writeLong( order.getCustomerId() );
+        out.writeBoolean( order.getCustomerName() != null );
+        if ( order.getCustomerName() != null ) {
+            out.writeUTF( order.getCustomerName() );
+        }
+        out.writeUTF( order.getStatus().name() );
+        out.writeLong( createdAt );
+        out.writeDouble( order.getTotalPrice() );
+        out.writeDouble( order.getTip() != null ? order.getTip() : 0.0 );
+        out.writeInt( order.getItems().size() );
+        for ( final Map.Entry<String, Integer> item : order.getItems().entrySet() ) {
+            out.writeUTF( item.getKey() );
+            out.writeInt( item.getValue() );
+        }
+        ids.addLong( order.getId() );
+
+        if ( ++blockOrders == ArchiveSegment.BLOCK_SIZE ) {
+            flushBlock();
+        }
+    }
+
+    /**
+     * Checks whether any order has been added.
+     *
+     * @return true if the segment holds no orders
+     */
+    boolean isEmpty () {
+        return ids.isEmpty();
+    }
+
+    /**
+     * Writes the last block and the footer and forces the file to disk.
+     *
+     * @throws IOException
+     *             if the file cannot be written
+     */
+    void finish () throws IOException {
+        flushBlock();
+        ids.runOptimize();
+
+        final ByteArrayOutputStream idBytes = new ByteArrayOutputStream();
+        ids.serialize( new DataOutputStream( idBytes ) );
+
+        final long footerOffset = channel.position();
+        final ByteBuffer footer = ByteBuffer.allocate( Integer.BYTES + blocks.size() * ArchiveSegment.Block.BYTES
+                + Integer.BYTES + idBytes.size() + ArchiveSegment.TRAILER );
+        footer.putInt( blocks.size() );
+        for ( final ArchiveSegment.Block entry : blocks ) {
+            entry.writeTo( footer );
+        }
+        footer.putInt( idBytes.size() ).put( idBytes.toByteArray() );
+        footer.putLong( footerOffset ).putInt( ArchiveSegment.MAGIC );
+        write( footer.flip() );
+        channel.force( true );
+        finished = true;
+    }
+
+    /**
+     * Closes the file. A segment that was not finished is deleted.
+     *
+     * @throws IOException
+     *             if the file cannot be closed or deleted
+     */
+    @Override
+    public void close () throws IOException {
+        deflater.end();
+        channel.close();
+        if ( !finished ) {
+            Files.deleteIfExists( path );
+        }
+    }
+
+    /**
+     * Compresses the block being filled, appends it to the file and adds its
+     * entry to the sparse index.
+     *
+     * @throws IOException
+     *             if the block cannot be written
+     */
+    private void flushBlock () throws IOException {
+        if ( blockOrders == 0 ) {
+            return;
+        }
+        out.flush();
+        final byte[] raw = block.toByteArray();
+        deflater.reset();
+        deflater.setInput( raw );
+        deflater.finish();
+        final ByteArrayOutputStream compressed = new ByteArrayOutputStream( raw.length / 2 );
+        final byte[] buffer = new byte[8192];
+        while ( !deflater.finished() ) {
+            compressed.write( buffer, 0, deflater.deflate( buffer ) );
+        }
+
+        final long offset = channel.position();
+        write( ByteBuffer.wrap( compressed.toByteArray() ) );
+        blocks.add( new ArchiveSegment.Block( offset, compressed.size(), raw.length, blockOrders, blockMinCreatedAt,
+                lastCreatedAt ) );
+        block.reset();
+        blockOrders = 0;
+    }
+
+    /**
+     * Writes all of a buffer to the file.
+     *
+     * @param buffer
+     *            the bytes to write
+     * @throws IOException
+     *             if the bytes cannot be written
+     */
+    private void write ( final ByteBuffer buffer ) throws IOException {
+        while ( buffer.hasRemaining() ) {
+            channel.write( buffer );
+        }
+    }
+
+}
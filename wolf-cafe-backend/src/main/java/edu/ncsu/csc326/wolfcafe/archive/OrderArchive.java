@@ -0,0 +1,395 @@
+package edu.ncsu.csc326.wolfcafe.archive;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+import org.roaringbitmap.longlong.Roaring64Bitmap;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+
+import edu.ncsu.csc326.wolfcafe.dto.OrderDto;
+import edu.ncsu.csc326.wolfcafe.entity.OrderStatus;
+import edu.ncsu.csc326.wolfcafe.export.OrderStreams;
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Cold storage for orders that are done with: picked up and cancelled orders
+ * that the OrderArchiver has moved out of the customer_order table. Each
+ * archival run appends one segment file (see ArchiveSegment) to the archive
+ * directory; a segment is written under a temporary name and only renamed
+ * into place once it is complete and on disk, and is never changed after
+ * that. Every segment is memory-mapped when it is opened, so reads go
+ * straight to the page cache without copying files into the heap. Segments
+ * are published in a single volatile write, so readers never lock.
+ */
+@Component
+public class OrderArchive {
+
+    /** Statuses of the orders that are archived */
+    public static final Set<OrderStatus>  ARCHIVED_STATUSES = Collections
+            .unmodifiableSet( EnumSet.of( OrderStatus.PICKED_UP, OrderStatus.CANCELLED ) );
+
+    /** Name of every segment file starts with this */
+    private static final String           PREFIX            = "segment-";
+
+    /** Name of every complete segment file ends with this */
+    private static final String           SUFFIX            = ".seg";
+
+    /** Name of a segment file still being written ends with this */
+    private static final String           TEMPORARY_SUFFIX  = ".tmp";
+
+    /** Directory the segment files are kept in */
+    @Value ( "${app.orders.archive.directory:archive}" )
+    private String                        directory;
+
+    /** Published segments, oldest first */
+    private volatile List<ArchiveSegment> segments          = List.of();
+
+    /** Ids of every archived order */
+    private volatile Roaring64Bitmap      ids               = new Roaring64Bitmap();
+
+    /** Serializes appending segments */
+    private final ReentrantLock           lock              = new ReentrantLock();
+
+    /**
+     * Opens every segment in the archive directory, creating the directory if
+     * needed. Segments left half written by a run that did not finish are
+     * deleted.
+     *
+     * @throws IOException
+     *             if the directory or a segment cannot be read
+     */
+    @PostConstruct
+    public void open () throws IOException {
+        final Path dir = Paths.get( directory );
+        Files.createDirectories( dir );
+
+        final List<Path> files = new ArrayList<>();
+        try ( DirectoryStream<Path> stream = Files.newDirectoryStream( dir, PREFIX + "*" ) ) {
+            for ( final Path file : stream ) {
+                if ( file.getFileName().toString().endsWith( TEMPORARY_SUFFIX ) ) {
+                    Files.delete( file );
+                }
+                else if ( file.getFileName().toString().endsWith( SUFFIX ) ) {
+                    files.add( file );
+                }
+            }
+        }
+        Collections.sort( files );
+
+        final List<ArchiveSegment> opened = new ArrayList<>();
+        final Roaring64Bitmap all = new Roaring64Bitmap();
+        for ( final Path file : files ) {
+            final ArchiveSegment segment = ArchiveSegment.open( file );
+            opened.add( segment );
+            all.or( segment.getIds() );
+        }
+        segments = Collections.unmodifiableList( opened );
+        ids = all;
+    }
+
+    /**
+     * Checks whether the archive may hold orders in a status.
+     *
+     * @param status
+     *            the status of the orders
+     * @return false if no archived order can have the status
+     */
+    public boolean mayHold ( final OrderStatus status ) {
+        return ARCHIVED_STATUSES.contains( status ) && !segments.isEmpty();
+    }
+
+    /**
+     * Checks whether an order has been archived.
+     *
+     * @param id
+     *            id of the order
+     * @return true if the order is in the archive
+     */
+    public boolean contains ( final long id ) {
+        return ids.contains( id );
+    }
+
+    /**
+     * Gets the ids of the orders in the newest segment, so an archival run
+     * that stopped after writing the segment can finish removing its orders
+     * from the live table.
+     *
+     * @return the ids of the orders in the newest segment, or an empty bitmap
+     */
+    public Roaring64Bitmap newestSegmentIds () {
+        final List<ArchiveSegment> current = segments;
+        return current.isEmpty() ? new Roaring64Bitmap() : current.get( current.size() - 1 ).getIds().clone();
+    }
+
+    /**
+     * Hands every archived order that matches the filters to the consumer.
+     * Orders come segment by segment, oldest first within each segment.
+     *
+     * @param itemNames
+     *            names of the items the orders must all contain
+     * @param status
+     *            status the orders must have
+     * @param from
+     *            earliest creation time to include, or null
+     * @param to
+     *            creation time to stop before, or null
+     * @param consumer
+     *            receives each matching order
+     * @return the number of matching orders
+     */
+    public long forEach ( final Collection<String> itemNames, final OrderStatus status, final LocalDateTime from,
+            final LocalDateTime to, final Consumer<OrderDto> consumer ) {
+        long count = 0;
+        for ( final Iterator<OrderDto> it : read( itemNames, status, from, to ) ) {
+            while ( it.hasNext() ) {
+                consumer.accept( it.next() );
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Counts the archived orders that match the filters. Each block is read
+     * the first time it is counted; later counts of blocks inside the range
+     * use what was noted about them then.
+     *
+     * @param itemNames
+     *            names of the items the orders must all contain
+     * @param status
+     *            status the orders must have
+     * @param from
+     *            earliest creation time to include, or null
+     * @param to
+     *            creation time to stop before, or null
+     * @return the number of matching orders
+     */
+    public long count ( final Collection<String> itemNames, final OrderStatus status, final LocalDateTime from,
+            final LocalDateTime to ) {
+        long count = 0;
+        if ( ARCHIVED_STATUSES.contains( status ) ) {
+            for ( final ArchiveSegment segment : segments ) {
+                count += segment.count( from, to, status, itemNames );
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Finds the first archived orders that match the filters in the given
+     * order, such as those on and before one page of the order history. When
+     * the orders are sorted by creation time first, blocks are read from the
+     * end the page starts at, and reading stops as soon as the sparse index
+     * shows that no block left can hold an order that comes before the ones
+     * already found. Otherwise every block in the range is read.
+     *
+     * @param itemNames
+     *            names of the items the orders must all contain
+     * @param status
+     *            status the orders must have
+     * @param from
+     *            earliest creation time to include, or null
+     * @param to
+     *            creation time to stop before, or null
+     * @param comparator
+     *            the order to return the orders in
+     * @param byCreatedAt
+     *            the direction of creation time if the comparator sorts by it
+     *            first, or null
+     * @param limit
+     *            the most orders to return
+     * @return the first matching orders, in the comparator's order
+     */
+    public List<OrderDto> first ( final Collection<String> itemNames, final OrderStatus status,
+            final LocalDateTime from, final LocalDateTime to, final Comparator<OrderDto> comparator,
+            final Sort.Direction byCreatedAt, final long limit ) {
+        final long start = from == null ? Long.MIN_VALUE : ArchiveSegment.toMicros( from );
+        final long end = to == null ? Long.MAX_VALUE : ArchiveSegment.toMicros( to );
+        final List<SegmentBlock> candidates = new ArrayList<>();
+        if ( ARCHIVED_STATUSES.contains( status ) ) {
+            for ( final ArchiveSegment segment : segments ) {
+                for ( final ArchiveSegment.Block block : segment.getBlocks() ) {
+                    if ( block.getMaxCreatedAt() >= start && block.getMinCreatedAt() < end ) {
+                        candidates.add( new SegmentBlock( segment, block ) );
+                    }
+                }
+            }
+        }
+        if ( byCreatedAt == Sort.Direction.ASC ) {
+            candidates.sort( ( a, b ) -> Long.compare( a.block.getMinCreatedAt(), b.block.getMinCreatedAt() ) );
+        }
+        else if ( byCreatedAt == Sort.Direction.DESC ) {
+            candidates.sort( ( a, b ) -> Long.compare( b.block.getMaxCreatedAt(), a.block.getMaxCreatedAt() ) );
+        }
+
+        final Predicate<OrderDto> filter = order -> order.getStatus() == status
+                && order.getItems().keySet().containsAll( itemNames );
+        // Holds the first orders found so far, the one that comes last on top
+        final PriorityQueue<OrderDto> found = new PriorityQueue<>( comparator.reversed() );
+        for ( final SegmentBlock candidate : candidates ) {
+            if ( byCreatedAt != null && found.size() >= limit ) {
+                final long last = ArchiveSegment.toMicros( found.peek().getCreatedAt() );
+                if ( byCreatedAt == Sort.Direction.ASC ? candidate.block.getMinCreatedAt() > last
+                        : candidate.block.getMaxCreatedAt() < last ) {
+                    break;
+                }
+            }
+            for ( final OrderDto order : candidate.segment.read( candidate.block, from, to, filter ) ) {
+                found.add( order );
+                if ( found.size() > limit ) {
+                    found.poll();
+                }
+            }
+        }
+
+        final List<OrderDto> first = new ArrayList<>( found );
+        first.sort( comparator );
+        return first;
+    }
+
+    /**
+     * Reads every archived order that matches the filters, oldest first. The
+     * segments are merged as they are read, so one block of each segment is
+     * held in memory at a time.
+     *
+     * @param itemNames
+     *            names of the items the orders must all contain
+     * @param status
+     *            status the orders must have
+     * @param from
+     *            earliest creation time to include, or null
+     * @param to
+     *            creation time to stop before, or null
+     * @return the matching orders, oldest first
+     */
+    public Iterator<OrderDto> oldestFirst ( final Collection<String> itemNames, final OrderStatus status,
+            final LocalDateTime from, final LocalDateTime to ) {
+        return OrderStreams.merge( read( itemNames, status, from, to ), OrderStreams.OLDEST_FIRST );
+    }
+
+    /**
+     * Writes orders to a new segment and publishes it.
+     *
+     * @param orders
+     *            the orders to archive, oldest first
+     * @return the ids of the archived orders, empty if there were none
+     * @throws IOException
+     *             if the segment cannot be written
+     */
+    public Roaring64Bitmap append ( final Iterator<OrderDto> orders ) throws IOException {
+        lock.lock();
+        try {
+            final List<ArchiveSegment> current = segments;
+            final long sequence = current.isEmpty() ? 1 : sequenceOf( current.get( current.size() - 1 ) ) + 1;
+            final Path file = Paths.get( directory ).resolve( String.format( "%s%010d%s", PREFIX, sequence, SUFFIX ) );
+            final Path temporary = file.resolveSibling( file.getFileName() + TEMPORARY_SUFFIX );
+
+            try ( ArchiveSegmentWriter writer = new ArchiveSegmentWriter( temporary ) ) {
+                while ( orders.hasNext() ) {
+                    writer.add( orders.next() );
+                }
+                if ( writer.isEmpty() ) {
+                    return new Roaring64Bitmap();
+                }
+                writer.finish();
+            }
+            Files.move( temporary, file, StandardCopyOption.ATOMIC_MOVE );
+
+            final ArchiveSegment segment = ArchiveSegment.open( file );
+            final List<ArchiveSegment> published = new ArrayList<>( current );
+            published.add( segment );
+            final Roaring64Bitmap all = ids.clone();
+            all.or( segment.getIds() );
+            ids = all;
+            segments = Collections.unmodifiableList( published );
+            return segment.getIds().clone();
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Gets the sequence number of a segment from its file name.
+     *
+     * @param segment
+     *            the segment
+     * @return the sequence number of the segment
+     */
+    private static long sequenceOf ( final ArchiveSegment segment ) {
+        final String name = segment.getPath().getFileName().toString();
+        return Long.parseLong( name.substring( PREFIX.length(), name.length() - SUFFIX.length() ) );
+    }
+
+    /**
+     * Starts reading every segment with the given filters.
+     *
+     * @param itemNames
+     *            names of the items the orders must all contain
+     * @param status
+     *            status the orders must have
+     * @param from
+     *            earliest creation time to include, or null
+     * @param to
+     *            creation time to stop before, or null
+     * @return one iterator per segment, each oldest first
+     */
+    private List<Iterator<OrderDto>> read ( final Collection<String> itemNames, final OrderStatus status,
+            final LocalDateTime from, final LocalDateTime to ) {
+        final Predicate<OrderDto> filter = order -> order.getStatus() == status
+                && order.getItems().keySet().containsAll( itemNames );
+        final List<Iterator<OrderDto>> sources = new ArrayList<>();
+        if ( ARCHIVED_STATUSES.contains( status ) ) {
+            for ( final ArchiveSegment segment : segments ) {
+                sources.add( segment.read( from, to, filter ) );
+            }
+        }
+        return sources;
+    }
+
+    /**
+     * A block of the sparse index and the segment it belongs to.
+     */
+    private static final class SegmentBlock {
+
+        /** The segment the block is in */
+        private final ArchiveSegment       segment;
+
+        /** The block */
+        private final ArchiveSegment.Block block;
+
+        /**
+         * Pairs a block with its segment.
+         *
+         * @param segment
+         *            the segment the block is in
+         * @param block
+         *            the block
+         */
+        private SegmentBlock ( final ArchiveSegment segment, final ArchiveSegment.Block block ) {
+            this.segment = segment;
+            this.block = block;
+        }
+
+    }
+
+}
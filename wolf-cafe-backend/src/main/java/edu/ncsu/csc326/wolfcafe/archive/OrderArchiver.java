@@ -0,0 +1,192 @@
+package edu.ncsu.csc326.wolfcafe.archive;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.roaringbitmap.longlong.LongIterator;
+import org.roaringbitmap.longlong.Roaring64Bitmap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import edu.ncsu.csc326.wolfcafe.cache.CustomerOrderCache;
+import edu.ncsu.csc326.wolfcafe.cache.OrderItemIndex;
+import edu.ncsu.csc326.wolfcafe.dto.OrderExportRow;
+import edu.ncsu.csc326.wolfcafe.entity.OrderStatus;
+import edu.ncsu.csc326.wolfcafe.export.OrderStreams;
+import edu.ncsu.csc326.wolfcafe.repository.OrderRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Optional background job that moves picked up and cancelled orders older
+ * than min-age-days out of the customer_order table and into the OrderArchive.
+ * Each run streams the orders of one status at a time into a new segment,
+ * oldest first, and only deletes them from the database once the segment is
+ * on disk, a batch of ids per transaction. A run that stops half way leaves
+ * its orders in both places; the next run first finishes deleting the orders
+ * of the newest segment, and reads skip live orders that are already in the
+ * archive in the meantime.
+ */
+@Component
+public class OrderArchiver {
+
+    /** Logger for runs that fail */
+    private static final Logger        logger            = LoggerFactory.getLogger( OrderArchiver.class );
+
+    /** Most archived orders deleted from the database in one transaction */
+    private static final int           DELETE_BATCH_SIZE = 1000;
+
+    /** Connection to the order repository */
+    @Autowired
+    private OrderRepository            orderRepository;
+
+    /** Where the orders are moved to */
+    @Autowired
+    private OrderArchive               orderArchive;
+
+    /** Told about the orders removed from the live table */
+    @Autowired
+    private OrderItemIndex             orderItemIndex;
+
+    /** Drops the cached order lists that still show the removed orders */
+    @Autowired
+    private CustomerOrderCache         customerOrderCache;
+
+    /** Runs the reads and the deletes in their own transactions */
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    /** Whether the job runs */
+    @Value ( "${app.orders.archive.enabled:false}" )
+    private boolean                    enabled;
+
+    /** Age in days an order must reach before it is archived */
+    @Value ( "${app.orders.archive.min-age-days:90}" )
+    private long                       minAgeDays;
+
+    /** Time between the end of one run and the start of the next */
+    @Value ( "${app.orders.archive.interval-minutes:60}" )
+    private long                       intervalMinutes;
+
+    /** Runs the job, or null if it is disabled */
+    private ScheduledExecutorService   executor;
+
+    /**
+     * Schedules the job if it is enabled.
+     */
+    @PostConstruct
+    public void start () {
+        if ( !enabled ) {
+            return;
+        }
+        executor = Executors.newSingleThreadScheduledExecutor( task -> {
+            final Thread thread = new Thread( task, "order-archiver" );
+            thread.setDaemon( true );
+            return thread;
+        } );
+        executor.scheduleWithFixedDelay( this::runSafely, intervalMinutes, intervalMinutes, TimeUnit.MINUTES );
+    }
+
+    /**
+     * Stops the job when the application shuts down.
+     */
+    @PreDestroy
+    public void stop () {
+        if ( executor != null ) {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Archives every picked up or cancelled order created more than
+     * min-age-days ago.
+     *
+     * @return the number of orders archived
+     */
+    public long archive () {
+        return archive( LocalDateTime.now().minusDays( minAgeDays ) );
+    }
+
+    /**
+     * Archives every picked up or cancelled order created before the cutoff.
+     *
+     * @param cutoff
+     *            creation time to stop before
+     * @return the number of orders archived
+     */
+    public long archive ( final LocalDateTime cutoff ) {
+        removeFromLive( orderArchive.newestSegmentIds() );
+
+        final TransactionTemplate read = new TransactionTemplate( transactionManager );
+        read.setReadOnly( true );
+        long archived = 0;
+        for ( final OrderStatus status : OrderArchive.ARCHIVED_STATUSES ) {
+            final Roaring64Bitmap ids = read.execute( transaction -> {
+                try ( Stream<OrderExportRow> rows = orderRepository.streamHistory( status, List.of(), 0, null,
+                        cutoff ) ) {
+                    return orderArchive.append( OrderStreams.group( rows.iterator() ) );
+                }
+                catch ( final IOException e ) {
+                    throw new UncheckedIOException( e );
+                }
+            } );
+            removeFromLive( ids );
+            archived += ids.getLongCardinality();
+        }
+        return archived;
+    }
+
+    /**
+     * Deletes archived orders from the live table, a batch per transaction.
+     *
+     * @param ids
+     *            ids of the orders to delete
+     */
+    private void removeFromLive ( final Roaring64Bitmap ids ) {
+        final TransactionTemplate write = new TransactionTemplate( transactionManager );
+        final List<Long> batch = new ArrayList<>( DELETE_BATCH_SIZE );
+        for ( final LongIterator it = ids.getLongIterator(); it.hasNext(); ) {
+            batch.add( it.next() );
+            if ( batch.size() == DELETE_BATCH_SIZE || !it.hasNext() ) {
+                write.executeWithoutResult( transaction -> {
+                    orderRepository.deleteItemsOfOrders( batch );
+                    orderRepository.deleteOrders( batch );
+                } );
+                batch.clear();
+            }
+        }
+        orderItemIndex.removeAll( ids );
+        if ( !ids.isEmpty() ) {
+            customerOrderCache.invalidateAll();
+        }
+    }
+
+    /**
+     * Runs the job from the executor, logging rather than throwing so later
+     * runs still happen.
+     */
+    private void runSafely () {
+        try {
+            final long archived = archive();
+            if ( archived > 0 ) {
+                logger.info( "Archived {} orders", archived );
+            }
+        }
+        catch ( final RuntimeException e ) {
+            logger.error( "Archiving orders failed", e );
+        }
+    }
+
+}
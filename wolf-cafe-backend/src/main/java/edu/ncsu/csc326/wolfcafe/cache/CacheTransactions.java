@@ -0,0 +1,102 @@
+package edu.ncsu.csc326.wolfcafe.cache;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Helpers for tying the in-memory caches to the outcome of the current
+ * transaction.
+ */
+final class CacheTransactions {
+
+    /**
+     * Not meant to be constructed.
+     */
+    private CacheTransactions () {
+    }
+
+    /**
+     * Runs the given action once the current transaction ends without
+     * committing. The action is registered at most once per key and
+     * transaction, and does nothing when no transaction is active.
+     *
+     * @param key
+     *            the cache registering the action
+     * @param action
+     *            what to do if the transaction rolls back
+     */
+    static void onRollback ( final Object key, final Runnable action ) {
+        if ( !TransactionSynchronizationManager.isSynchronizationActive()
+                || TransactionSynchronizationManager.hasResource( key ) ) {
+            return;
+        }
+        TransactionSynchronizationManager.bindResource( key, Boolean.TRUE );
+        TransactionSynchronizationManager.registerSynchronization( new TransactionSynchronization() {
+            @Override
+            public void afterCompletion ( final int status ) {
+                TransactionSynchronizationManager.unbindResourceIfPossible( key );
+                if ( status != STATUS_COMMITTED ) {
+                    action.run();
+                }
+            }
+        } );
+    }
+
+    /**
+     * Runs the given undo action if the current transaction ends without
+     * committing. Undo actions registered under the same key in a transaction
+     * run in the reverse of the order they were registered, so a cache can
+     * take back several changes to the same entry one step at a time. Does
+     * nothing when no transaction is active.
+     *
+     * @param key
+     *            the cache registering the action
+     * @param undo
+     *            what to do if the transaction rolls back
+     */
+    @SuppressWarnings ( "unchecked" )
+    static void undoOnRollback ( final Object key, final Runnable undo ) {
+        if ( !TransactionSynchronizationManager.isSynchronizationActive() ) {
+            return;
+        }
+        Deque<Runnable> undos = (Deque<Runnable>) TransactionSynchronizationManager.getResource( key );
+        if ( undos == null ) {
+            final Deque<Runnable> registered = new ArrayDeque<>();
+            TransactionSynchronizationManager.bindResource( key, registered );
+            TransactionSynchronizationManager.registerSynchronization( new TransactionSynchronization() {
+                @Override
+                public void afterCompletion ( final int status ) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible( key );
+                    if ( status != STATUS_COMMITTED ) {
+                        registered.forEach( Runnable::run );
+                    }
+                }
+            } );
+            undos = registered;
+        }
+        undos.push( undo );
+    }
+
+    /**
+     * Runs the given action once the current transaction ends, whether it
+     * committed or not. Does nothing when no transaction is active.
+     *
+     * @param action
+     *            what to do when the transaction ends
+     */
+    static void afterCompletion ( final Runnable action ) {
+        if ( !TransactionSynchronizationManager.isSynchronizationActive() ) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization( new TransactionSynchronization() {
+            @Override
+            public void afterCompletion ( final int status ) {
+                action.run();
+            }
+        } );
+    }
+
+}
@@ -0,0 +1,314 @@
+package edu.ncsu.csc326.wolfcafe.cache;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import edu.ncsu.csc326.wolfcafe.dto.OrderPageDto;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Bounded in-memory cache of the pages of "My Orders" each customer has
+ * recently looked at, so a customer refreshing the page while they wait does
+ * not read their orders from the database every time. Customers are dropped
+ * least recently used first once there are more than max-customers of them,
+ * and a customer's pages are read again once they are older than the TTL.
+ * Placing, fulfilling, picking up or cancelling an order drops the pages of
+ * that order's customer straight away and again once the transaction ends, and
+ * a page read while that customer's pages were being dropped is not kept, so a
+ * page read before a change commits never outlives it. Drops are counted per
+ * customer in a fixed number of stripes, so changes to other customers' orders
+ * almost never stop a page from being kept. The cache reports the following
+ * metrics:
+ * <ul>
+ * <li>wolfcafe.customer.orders.cache: lookups, tagged with result hit or
+ * miss</li>
+ * <li>wolfcafe.customer.orders.cache.invalidations: customers whose pages were
+ * dropped because an order changed</li>
+ * <li>wolfcafe.customer.orders.cache.size: customers with pages cached</li>
+ * </ul>
+ * The share of refreshes that did not reach the database is hits divided by
+ * hits plus misses.
+ */
+@Component
+public class CustomerOrderCache {
+
+    /** Most pages kept for one customer */
+    private static final int        MAX_PAGES_PER_CUSTOMER = 8;
+
+    /** Number of counters the customers' invalidations are spread over */
+    private static final int        INVALIDATION_STRIPES   = 1024;
+
+    /** Records hits, misses and invalidations */
+    @Autowired
+    private MeterRegistry           meterRegistry;
+
+    /** Most customers whose pages are kept */
+    @Value ( "${app.orders.customer-cache.max-customers:10000}" )
+    private int                     maxCustomers;
+
+    /** How long a page is trusted before it is read again */
+    @Value ( "${app.orders.customer-cache.ttl-milliseconds:30000}" )
+    private long                    ttlMilliseconds;
+
+    /**
+     * Pages of each customer, least recently used first, guarded by lock
+     */
+    private final Map<Long, Entry>  entries                = new LinkedHashMap<>( 16, 0.75f, true );
+
+    /**
+     * Customer id of each username or email looked up, least recently used
+     * first, guarded by lock
+     */
+    private final Map<String, Long> customerIds            = new LinkedHashMap<>( 16, 0.75f, true );
+
+    /** Guards entries and customerIds */
+    private final ReentrantLock     lock                   = new ReentrantLock();
+
+    /**
+     * Counts the invalidations of the customers in each stripe, so a page read
+     * across an invalidation of its customer is not kept
+     */
+    private final AtomicLongArray   invalidations          = new AtomicLongArray( INVALIDATION_STRIPES );
+
+    /** Counts the times every page was dropped, so a page read across one is not kept */
+    private final AtomicLong        clears                 = new AtomicLong();
+
+    /** Lookups answered from memory */
+    private Counter                 hits;
+
+    /** Lookups that read the database */
+    private Counter                 misses;
+
+    /** Customers whose pages were dropped */
+    private Counter                 invalidated;
+
+    /**
+     * Registers the metrics.
+     */
+    @PostConstruct
+    public void registerMetrics () {
+        hits = meterRegistry.counter( "wolfcafe.customer.orders.cache", "result", "hit" );
+        misses = meterRegistry.counter( "wolfcafe.customer.orders.cache", "result", "miss" );
+        invalidated = meterRegistry.counter( "wolfcafe.customer.orders.cache.invalidations" );
+        meterRegistry.gaugeMapSize( "wolfcafe.customer.orders.cache.size", Tags.empty(), entries );
+    }
+
+    /**
+     * Gets the id of the customer with a username or email, loading it only
+     * the first time it is asked for. Ids never change, so they are kept until
+     * they are pushed out by newer ones or the transaction that read them rolls
+     * back.
+     *
+     * @param username
+     *            username or email of the customer
+     * @param loader
+     *            reads the id from the database
+     * @return the id of the customer
+     */
+    public Long customerId ( final String username, final Supplier<Long> loader ) {
+        lock.lock();
+        try {
+            final Long id = customerIds.get( username );
+            if ( id != null ) {
+                return id;
+            }
+        }
+        finally {
+            lock.unlock();
+        }
+
+        final Long id = loader.get();
+        CacheTransactions.onRollback( this, this::clear );
+        lock.lock();
+        try {
+            customerIds.put( username, id );
+            if ( customerIds.size() > maxCustomers ) {
+                customerIds.remove( customerIds.keySet().iterator().next() );
+            }
+        }
+        finally {
+            lock.unlock();
+        }
+        return id;
+    }
+
+    /**
+     * Gets one page of a customer's orders, loading it only if it is not
+     * cached or has expired. Pages read in a transaction that rolls back are
+     * forgotten. The page returned is shared with other callers and must not
+     * be changed.
+     *
+     * @param customerId
+     *            id of the customer
+     * @param cursor
+     *            the cursor the page starts after, or null for the first page
+     * @param size
+     *            the largest number of orders on the page
+     * @param loader
+     *            reads the page from the database
+     * @return the page
+     */
+    public OrderPageDto get ( final Long customerId, final String cursor, final int size,
+            final Supplier<OrderPageDto> loader ) {
+        final String key = ( cursor == null ? "" : cursor ) + "/" + size;
+        final long now = System.currentTimeMillis();
+        lock.lock();
+        try {
+            final Entry entry = entries.get( customerId );
+            if ( entry != null && entry.expiresAt > now ) {
+                final OrderPageDto page = entry.pages.get( key );
+                if ( page != null ) {
+                    hits.increment();
+                    return page;
+                }
+            }
+        }
+        finally {
+            lock.unlock();
+        }
+
+        misses.increment();
+        final int stripe = stripe( customerId );
+        final long seenClears = clears.get();
+        final long seen = invalidations.get( stripe );
+        final OrderPageDto page = loader.get();
+        CacheTransactions.onRollback( this, this::clear );
+        lock.lock();
+        try {
+            if ( clears.get() == seenClears && invalidations.get( stripe ) == seen ) {
+                Entry entry = entries.get( customerId );
+                if ( entry == null || entry.expiresAt <= now ) {
+                    entry = new Entry( now + ttlMilliseconds );
+                    entries.put( customerId, entry );
+                    if ( entries.size() > maxCustomers ) {
+                        entries.remove( entries.keySet().iterator().next() );
+                    }
+                }
+                entry.pages.put( key, page );
+            }
+        }
+        finally {
+            lock.unlock();
+        }
+        return page;
+    }
+
+    /**
+     * Drops the cached pages of a customer whose orders have changed. The
+     * pages are dropped now and again once the current transaction ends, so a
+     * page read before the change committed is not served afterwards.
+     *
+     * @param customerId
+     *            id of the customer
+     */
+    public void invalidate ( final Long customerId ) {
+        evict( customerId );
+        CacheTransactions.afterCompletion( () -> evict( customerId ) );
+    }
+
+    /**
+     * Drops every cached page, such as after orders were removed from the
+     * database in bulk.
+     */
+    public void invalidateAll () {
+        clears.incrementAndGet();
+        lock.lock();
+        try {
+            invalidated.increment( entries.size() );
+            entries.clear();
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Forgets everything, such as when a transaction that read into the cache
+     * rolls back.
+     */
+    private void clear () {
+        clears.incrementAndGet();
+        lock.lock();
+        try {
+            entries.clear();
+            customerIds.clear();
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Drops the cached pages of a customer and makes sure any page being read
+     * at the same time is not kept.
+     *
+     * @param customerId
+     *            id of the customer
+     */
+    private void evict ( final Long customerId ) {
+        invalidations.incrementAndGet( stripe( customerId ) );
+        lock.lock();
+        try {
+            if ( entries.remove( customerId ) != null ) {
+                invalidated.increment();
+            }
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Finds the stripe whose counter records the invalidations of a customer.
+     *
+     * @param customerId
+     *            id of the customer
+     * @return index of the stripe
+     */
+    private static int stripe ( final Long customerId ) {
+        return Math.floorMod( Long.hashCode( customerId ), INVALIDATION_STRIPES );
+    }
+
+    /**
+     * The cached pages of one customer.
+     */
+    private static final class Entry {
+
+        /** When the pages stop being trusted, in epoch milliseconds */
+        private final long                      expiresAt;
+
+        /** Pages by cursor and size, least recently used first */
+        private final Map<String, OrderPageDto> pages = new LinkedHashMap<>( 16, 0.75f, true ) {
+
+            /** Serial version */
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry ( final Map.Entry<String, OrderPageDto> eldest ) {
+                return size() > MAX_PAGES_PER_CUSTOMER;
+            }
+        };
+
+        /**
+         * Creates an empty entry.
+         *
+         * @param expiresAt
+         *            when the pages stop being trusted
+         */
+        private Entry ( final long expiresAt ) {
+            this.expiresAt = expiresAt;
+        }
+    }
+
+}
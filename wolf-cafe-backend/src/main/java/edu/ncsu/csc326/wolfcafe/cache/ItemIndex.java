@@ -0,0 +1,255 @@
+package edu.ncsu.csc326.wolfcafe.cache;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import edu.ncsu.csc326.wolfcafe.entity.Item;
+import edu.ncsu.csc326.wolfcafe.repository.ItemRepository;
+
+/**
+ * Read-mostly index of the WolfCafe menu by item name and by item id. Readers
+ * never lock: every change builds a new snapshot of both maps and publishes it
+ * in a single volatile write (copy-on-write). The index is loaded from the
+ * database on first use and kept up to date by the ItemIndexListener whenever
+ * an item is added, updated or deleted. If a transaction that touched the
+ * index rolls back, the index is dropped and reloaded on next use. Writers
+ * take a ReentrantLock rather than a monitor, so loading the index from the
+ * database does not pin a virtual thread's carrier.
+ */
+@Component
+public class ItemIndex {
+
+    /** Connection to the item repository */
+    @Autowired
+    private ItemRepository      itemRepository;
+
+    /** Current snapshot of the menu, or null if it has not been loaded */
+    private volatile Snapshot   snapshot;
+
+    /** Serializes writers and the initial load */
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /**
+     * Finds the items with the given names. Names missing from the index are
+     * looked up in the database with a single query, so an order costs at
+     * most one SELECT no matter how many lines it has.
+     *
+     * @param names
+     *            names of the items to find
+     * @return map from name to item for every name that exists; names that do
+     *         not match an item are left out
+     */
+    public Map<String, Item> findAllByName ( final Collection<String> names ) {
+        final Snapshot current = snapshot();
+        final Map<String, Item> found = new LinkedHashMap<>();
+        final List<String> missing = new ArrayList<>();
+        for ( final String name : names ) {
+            final Item item = current.byName.get( name );
+            if ( item != null ) {
+                found.put( name, item );
+            }
+            else {
+                missing.add( name );
+            }
+        }
+
+        if ( !missing.isEmpty() ) {
+            for ( final Item item : itemRepository.findByNameIn( missing ) ) {
+                put( item );
+                found.put( item.getName(), copyOf( item ) );
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Finds the item with the given name.
+     *
+     * @param name
+     *            name of the item
+     * @return the item, or empty if no item has that name
+     */
+    public Optional<Item> findByName ( final String name ) {
+        return Optional.ofNullable( findAllByName( List.of( name ) ).get( name ) );
+    }
+
+    /**
+     * Finds the item with the given id.
+     *
+     * @param id
+     *            id of the item
+     * @return the item, or empty if no item has that id
+     */
+    public Optional<Item> findById ( final Long id ) {
+        final Item item = snapshot().byId.get( id );
+        if ( item != null ) {
+            return Optional.of( item );
+        }
+        return itemRepository.findById( id ).map( found -> {
+            put( found );
+            return copyOf( found );
+        } );
+    }
+
+    /**
+     * Adds or replaces an item in the index.
+     *
+     * @param item
+     *            the item that was saved
+     */
+    public void put ( final Item item ) {
+        lock.lock();
+        try {
+            final Snapshot current = snapshot;
+            if ( current == null ) {
+                return;
+            }
+            invalidateOnRollback();
+
+            final Map<Long, Item> byId = new TreeMap<>( current.byId );
+            final Map<String, Item> byName = new HashMap<>( current.byName );
+
+            final Item previous = byId.remove( item.getId() );
+            if ( previous != null ) {
+                byName.remove( previous.getName() );
+            }
+            final Item sameName = byName.remove( item.getName() );
+            if ( sameName != null ) {
+                byId.remove( sameName.getId() );
+            }
+
+            final Item copy = copyOf( item );
+            byId.put( copy.getId(), copy );
+            byName.put( copy.getName(), copy );
+            snapshot = new Snapshot( byId, byName );
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes an item from the index. The name is only dropped if it still
+     * belongs to the removed item, since a new item may already have taken it.
+     *
+     * @param item
+     *            the item that was deleted
+     */
+    public void remove ( final Item item ) {
+        lock.lock();
+        try {
+            final Snapshot current = snapshot;
+            if ( current == null || !current.byId.containsKey( item.getId() ) ) {
+                return;
+            }
+            invalidateOnRollback();
+
+            final Map<Long, Item> byId = new TreeMap<>( current.byId );
+            final Map<String, Item> byName = new HashMap<>( current.byName );
+
+            final Item removed = byId.remove( item.getId() );
+            if ( byName.get( removed.getName() ) == removed ) {
+                byName.remove( removed.getName() );
+            }
+            snapshot = new Snapshot( byId, byName );
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Drops the index so it is reloaded from the database on next use.
+     */
+    public void invalidate () {
+        snapshot = null;
+    }
+
+    /**
+     * Returns the current snapshot, loading it from the database if needed.
+     *
+     * @return the current snapshot
+     */
+    private Snapshot snapshot () {
+        Snapshot current = snapshot;
+        if ( current == null ) {
+            lock.lock();
+            try {
+                current = snapshot;
+                if ( current == null ) {
+                    invalidateOnRollback();
+                    final Map<Long, Item> byId = new TreeMap<>();
+                    final Map<String, Item> byName = new HashMap<>();
+                    for ( final Item item : itemRepository.findAll() ) {
+                        final Item copy = copyOf( item );
+                        byId.put( copy.getId(), copy );
+                        byName.put( copy.getName(), copy );
+                    }
+                    current = new Snapshot( byId, byName );
+                    snapshot = current;
+                }
+            }
+            finally {
+                lock.unlock();
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Makes sure the index is dropped if the current transaction rolls back,
+     * since it may have seen items that were never committed.
+     */
+    private void invalidateOnRollback () {
+        CacheTransactions.onRollback( this, this::invalidate );
+    }
+
+    /**
+     * Copies an item so the index never shares an instance with a persistence
+     * context.
+     *
+     * @param item
+     *            item to copy
+     * @return detached copy of the item
+     */
+    private static Item copyOf ( final Item item ) {
+        return new Item( item.getId(), item.getName(), item.getDescription(), item.getPrice() );
+    }
+
+    /**
+     * Immutable view of the menu. Once published a snapshot is never changed.
+     */
+    private static final class Snapshot {
+
+        /** Items by id, in id order */
+        private final Map<Long, Item>   byId;
+
+        /** Items by name */
+        private final Map<String, Item> byName;
+
+        /**
+         * Creates a snapshot from the given maps.
+         *
+         * @param byId
+         *            items by id
+         * @param byName
+         *            items by name
+         */
+        private Snapshot ( final Map<Long, Item> byId, final Map<String, Item> byName ) {
+            this.byId = Collections.unmodifiableMap( byId );
+            this.byName = Collections.unmodifiableMap( byName );
+        }
+    }
+
+}
@@ -0,0 +1,49 @@
+package edu.ncsu.csc326.wolfcafe.cache;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import edu.ncsu.csc326.wolfcafe.entity.Item;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+
+/**
+ * JPA entity listener that keeps the ItemIndex in step with every item that is
+ * saved or deleted, whether through the ItemService or directly through the
+ * repository. When only the JPA layer is loaded, as in repository tests, there
+ * is no index and the listener does nothing.
+ */
+public class ItemIndexListener {
+
+    /**
+     * The index to keep up to date; looked up when used since listeners are
+     * built with JPA
+     */
+    @Autowired
+    private ObjectProvider<ItemIndex> itemIndex;
+
+    /**
+     * Adds or replaces the item in the index after it is written.
+     *
+     * @param item
+     *            the item that was saved
+     */
+    @PostPersist
+    @PostUpdate
+    public void itemSaved ( final Item item ) {
+        itemIndex.ifAvailable( index -> index.put( item ) );
+    }
+
+    /**
+     * Removes the item from the index after it is deleted.
+     *
+     * @param item
+     *            the item that was deleted
+     */
+    @PostRemove
+    public void itemRemoved ( final Item item ) {
+        itemIndex.ifAvailable( index -> index.remove( item ) );
+    }
+
+}
@@ -0,0 +1,331 @@
+package edu.ncsu.csc326.wolfcafe.cache;
+
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.roaringbitmap.longlong.Roaring64Bitmap;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import edu.ncsu.csc326.wolfcafe.entity.Order;
+import edu.ncsu.csc326.wolfcafe.entity.OrderStatus;
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Inverted index from item name to the ids of the orders that contain the
+ * item, alongside the ids of the orders in each status. Ids are held in
+ * compressed (Roaring) bitmaps, so the orders in a status that contain every
+ * one of a set of items are found by intersecting a few bitmaps in memory
+ * instead of by searching the order_items table. The index is built from the
+ * database at startup and kept up to date by the OrderItemIndexListener as
+ * orders are placed, change status or are deleted. Each change is applied
+ * straight away and taken back step by step if its transaction rolls back, so
+ * the index never has to be rebuilt while orders are being written. Orders
+ * that are still being written can show up in the index before they are
+ * committed, so callers use it to narrow a query down to candidate ids and
+ * still let the database have the final say.
+ */
+@Component
+@DependsOn ( "entityManagerFactory" )
+public class OrderItemIndex {
+
+    /** Rows read from the database at a time while building the index */
+    private static final int                        REBUILD_FETCH_SIZE = 1000;
+
+    /** Reads the orders and their items when building the index */
+    @Autowired
+    private JdbcTemplate                            jdbcTemplate;
+
+    /** Ids of the orders containing each item, by item name */
+    private final Map<String, Roaring64Bitmap>      byItem             = new HashMap<>();
+
+    /** Ids of the orders in each status */
+    private final Map<OrderStatus, Roaring64Bitmap> byStatus           = new EnumMap<>( OrderStatus.class );
+
+    /**
+     * Lets any number of queries read the bitmaps at once while changes and
+     * rebuilds have them to themselves
+     */
+    private final ReentrantReadWriteLock            lock               = new ReentrantReadWriteLock();
+
+    /**
+     * Builds the index from the orders in the database. Runs before the
+     * application takes requests, so no order is being written meanwhile.
+     */
+    @PostConstruct
+    public void rebuild () {
+        lock.writeLock().lock();
+        try {
+            load();
+        }
+        finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Finds the ids of the orders in the given status that contain every one
+     * of the given items.
+     *
+     * @param itemNames
+     *            names of the items the orders must contain; if empty, every
+     *            order in the status matches
+     * @param status
+     *            status the orders must have
+     * @return a new bitmap of the matching order ids, which the caller may
+     *         change
+     */
+    public Roaring64Bitmap find ( final Collection<String> itemNames, final OrderStatus status ) {
+        lock.readLock().lock();
+        try {
+            return intersect( itemNames, status );
+        }
+        finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Adds a newly placed order to the index. The order is taken back out if
+     * the current transaction rolls back.
+     *
+     * @param order
+     *            the order that was saved
+     */
+    public void add ( final Order order ) {
+        final long id = order.getId();
+        final OrderStatus status = order.getStatus();
+        final List<String> itemNames = new ArrayList<>( order.getItems().keySet() );
+        lock.writeLock().lock();
+        try {
+            index( id, status, itemNames );
+            undoOnRollback( () -> unindex( id, itemNames ) );
+        }
+        finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Moves an order to the bitmap of its current status. The items of an
+     * order never change once it is placed, so only the status is updated. The
+     * order is moved back to the status it had if the current transaction
+     * rolls back.
+     *
+     * @param order
+     *            the order that was updated
+     */
+    public void statusChanged ( final Order order ) {
+        final long id = order.getId();
+        final OrderStatus status = order.getStatus();
+        lock.writeLock().lock();
+        try {
+            final OrderStatus previous = moveTo( id, status );
+            undoOnRollback( () -> moveTo( id, previous ) );
+        }
+        finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes a deleted order from the index. The order is put back if the
+     * current transaction rolls back.
+     *
+     * @param order
+     *            the order that was deleted
+     */
+    public void remove ( final Order order ) {
+        final long id = order.getId();
+        final List<String> itemNames = new ArrayList<>( order.getItems().keySet() );
+        lock.writeLock().lock();
+        try {
+            final OrderStatus previous = moveTo( id, null );
+            unindex( id, itemNames );
+            undoOnRollback( () -> index( id, previous, itemNames ) );
+        }
+        finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes orders that were deleted in bulk, such as by the OrderArchiver,
+     * without going through the entity listener.
+     *
+     * @param ids
+     *            ids of the orders that were deleted
+     */
+    public void removeAll ( final Roaring64Bitmap ids ) {
+        lock.writeLock().lock();
+        try {
+            for ( final Roaring64Bitmap bitmap : byStatus.values() ) {
+                bitmap.andNot( ids );
+            }
+            for ( final Roaring64Bitmap bitmap : byItem.values() ) {
+                bitmap.andNot( ids );
+            }
+        }
+        finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Adds an order to the bitmaps of its status and items. Must be called
+     * holding the write lock.
+     *
+     * @param id
+     *            id of the order
+     * @param status
+     *            status of the order, or null to leave it out of every status
+     * @param itemNames
+     *            names of the items in the order
+     */
+    private void index ( final long id, final OrderStatus status, final Collection<String> itemNames ) {
+        if ( status != null ) {
+            byStatus.computeIfAbsent( status, key -> new Roaring64Bitmap() ).addLong( id );
+        }
+        for ( final String itemName : itemNames ) {
+            byItem.computeIfAbsent( itemName, name -> new Roaring64Bitmap() ).addLong( id );
+        }
+    }
+
+    /**
+     * Takes an order out of the bitmaps of every status and of its items. Must
+     * be called holding the write lock.
+     *
+     * @param id
+     *            id of the order
+     * @param itemNames
+     *            names of the items in the order
+     */
+    private void unindex ( final long id, final Collection<String> itemNames ) {
+        moveTo( id, null );
+        for ( final String itemName : itemNames ) {
+            final Roaring64Bitmap ids = byItem.get( itemName );
+            if ( ids != null ) {
+                ids.removeLong( id );
+            }
+        }
+    }
+
+    /**
+     * Moves an order to the bitmap of the given status. Must be called holding
+     * the write lock.
+     *
+     * @param id
+     *            id of the order
+     * @param status
+     *            the new status, or null to leave the order out of every
+     *            status
+     * @return the status the order was in before, or null if it was in none
+     */
+    private OrderStatus moveTo ( final long id, final OrderStatus status ) {
+        OrderStatus previous = null;
+        for ( final Map.Entry<OrderStatus, Roaring64Bitmap> entry : byStatus.entrySet() ) {
+            if ( entry.getValue().contains( id ) ) {
+                previous = entry.getKey();
+                entry.getValue().removeLong( id );
+            }
+        }
+        if ( status != null ) {
+            byStatus.computeIfAbsent( status, key -> new Roaring64Bitmap() ).addLong( id );
+        }
+        return previous;
+    }
+
+    /**
+     * Takes a change back, holding the write lock, if the current transaction
+     * rolls back. Changes made in the same transaction are taken back newest
+     * first.
+     *
+     * @param undo
+     *            the change that reverses the one just made
+     */
+    private void undoOnRollback ( final Runnable undo ) {
+        CacheTransactions.undoOnRollback( this, () -> {
+            lock.writeLock().lock();
+            try {
+                undo.run();
+            }
+            finally {
+                lock.writeLock().unlock();
+            }
+        } );
+    }
+
+    /**
+     * Intersects the bitmap of the status with the bitmaps of the items,
+     * smallest first so the result shrinks as early as possible. Must be
+     * called holding the lock.
+     *
+     * @param itemNames
+     *            names of the items the orders must contain
+     * @param status
+     *            status the orders must have
+     * @return a new bitmap of the matching order ids
+     */
+    private Roaring64Bitmap intersect ( final Collection<String> itemNames, final OrderStatus status ) {
+        final List<Roaring64Bitmap> bitmaps = new ArrayList<>();
+        for ( final String itemName : itemNames ) {
+            final Roaring64Bitmap ids = byItem.get( itemName );
+            if ( ids == null ) {
+                return new Roaring64Bitmap();
+            }
+            bitmaps.add( ids );
+        }
+        final Roaring64Bitmap inStatus = byStatus.get( status );
+        if ( inStatus == null ) {
+            return new Roaring64Bitmap();
+        }
+        bitmaps.add( inStatus );
+        bitmaps.sort( Comparator.comparingLong( Roaring64Bitmap::getLongCardinality ) );
+
+        final Roaring64Bitmap result = bitmaps.get( 0 ).clone();
+        for ( int i = 1; i < bitmaps.size() && !result.isEmpty(); i++ ) {
+            result.and( bitmaps.get( i ) );
+        }
+        return result;
+    }
+
+    /**
+     * Reads every order id with its status and items from the database and
+     * builds the bitmaps from them. The rows are streamed, so the build only
+     * holds the bitmaps in memory. Must be called holding the write lock.
+     */
+    private void load () {
+        byItem.clear();
+        byStatus.clear();
+
+        jdbcTemplate.query( connection -> {
+            final PreparedStatement statement = connection.prepareStatement( "SELECT o.id, o.status, oi.item_name "
+                    + "FROM customer_order o LEFT JOIN order_items oi ON oi.order_id = o.id" );
+            statement.setFetchSize( REBUILD_FETCH_SIZE );
+            return statement;
+        }, row -> {
+            final long id = row.getLong( 1 );
+            final String status = row.getString( 2 );
+            final String itemName = row.getString( 3 );
+            if ( status != null ) {
+                byStatus.computeIfAbsent( OrderStatus.valueOf( status ), key -> new Roaring64Bitmap() ).addLong( id );
+            }
+            if ( itemName != null ) {
+                byItem.computeIfAbsent( itemName, key -> new Roaring64Bitmap() ).addLong( id );
+            }
+        } );
+
+        byItem.values().forEach( Roaring64Bitmap::runOptimize );
+        byStatus.values().forEach( Roaring64Bitmap::runOptimize );
+    }
+
+}
@@ -0,0 +1,61 @@
+package edu.ncsu.csc326.wolfcafe.cache;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import edu.ncsu.csc326.wolfcafe.entity.Order;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+
+/**
+ * JPA entity listener that keeps the OrderItemIndex in step with every order
+ * that is placed, updated or deleted, whether through the OrderService or
+ * directly through the repository. Status transitions are run as update
+ * statements that bypass the listener, so the OrderService tells the index
+ * about them itself. When only the JPA layer is loaded, as in repository
+ * tests, there is no index and the listener does nothing.
+ */
+public class OrderItemIndexListener {
+
+    /**
+     * The index to keep up to date; looked up when used since listeners are
+     * built with JPA
+     */
+    @Autowired
+    private ObjectProvider<OrderItemIndex> orderItemIndex;
+
+    /**
+     * Adds the order to the index after it is inserted.
+     *
+     * @param order
+     *            the order that was placed
+     */
+    @PostPersist
+    public void orderPlaced ( final Order order ) {
+        orderItemIndex.ifAvailable( index -> index.add( order ) );
+    }
+
+    /**
+     * Updates the status of the order in the index after it is written.
+     *
+     * @param order
+     *            the order that was updated
+     */
+    @PostUpdate
+    public void orderUpdated ( final Order order ) {
+        orderItemIndex.ifAvailable( index -> index.statusChanged( order ) );
+    }
+
+    /**
+     * Removes the order from the index after it is deleted.
+     *
+     * @param order
+     *            the order that was deleted
+     */
+    @PostRemove
+    public void orderRemoved ( final Order order ) {
+        orderItemIndex.ifAvailable( index -> index.remove( order ) );
+    }
+
+}
@@ -0,0 +1,211 @@
+package edu.ncsu.csc326.wolfcafe.cache;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.stereotype.Component;
+
+import edu.ncsu.csc326.wolfcafe.dto.ItemSalesDto;
+import edu.ncsu.csc326.wolfcafe.dto.SalesStatsDto;
+import edu.ncsu.csc326.wolfcafe.entity.DailySales;
+import edu.ncsu.csc326.wolfcafe.entity.ItemSales;
+import edu.ncsu.csc326.wolfcafe.repository.DailySalesRepository;
+import edu.ncsu.csc326.wolfcafe.repository.ItemSalesRepository;
+import jakarta.annotation.PostConstruct;
+
+/**
+ * In-memory mirror of the daily_sales and item_sales rollup tables, so sales
+ * over any range of days are added up from one entry per day instead of from
+ * the orders themselves. The mirror is loaded once at startup, after
+ * SalesRollupSeeder has filled the tables, and every change made to the
+ * tables is applied to it in the same call. If the transaction that made the
+ * change rolls back, the change is taken back out of the mirror.
+ */
+@Component
+@DependsOn ( "salesRollupSeeder" )
+public class SalesRollup {
+
+    /** Connection to the daily sales rollup */
+    @Autowired
+    private DailySalesRepository          dailySalesRepository;
+
+    /** Connection to the per-item sales rollup */
+    @Autowired
+    private ItemSalesRepository           itemSalesRepository;
+
+    /** Sales by day */
+    private final TreeMap<LocalDate, Day> days = new TreeMap<>();
+
+    /** Guards the days */
+    private final ReentrantLock           lock = new ReentrantLock();
+
+    /**
+     * Loads the mirror from the rollup tables.
+     */
+    @PostConstruct
+    public void reload () {
+        lock.lock();
+        try {
+            days.clear();
+            for ( final DailySales sales : dailySalesRepository.findAll() ) {
+                final Day day = day( sales.getSaleDate() );
+                day.orders = sales.getOrders();
+                day.revenue = sales.getRevenue();
+                day.tips = sales.getTips();
+            }
+            for ( final ItemSales sales : itemSalesRepository.findAll() ) {
+                final Totals totals = day( sales.getSaleDate() ).items.computeIfAbsent( sales.getItemName(),
+                        name -> new Totals() );
+                totals.units = sales.getUnits();
+                totals.revenue = sales.getRevenue();
+            }
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Adds a change that was just written to the rollup tables. The change is
+     * taken back out if the current transaction rolls back.
+     *
+     * @param sales
+     *            what to add to the day's totals
+     * @param items
+     *            what to add to the totals of each item on that day
+     */
+    public void add ( final DailySales sales, final List<ItemSales> items ) {
+        apply( sales, items, 1 );
+        CacheTransactions.onRollback( new Object(), () -> apply( sales, items, -1 ) );
+    }
+
+    /**
+     * Adds up the sales over a range of days.
+     *
+     * @param from
+     *            first day to include, or null to start with the first sale
+     * @param to
+     *            last day to include, or null to end with the last sale
+     * @return the sales over the range, best selling items first
+     */
+    public SalesStatsDto summarize ( final LocalDate from, final LocalDate to ) {
+        long orders = 0;
+        double revenue = 0;
+        double tips = 0;
+        final Map<String, Totals> items = new HashMap<>();
+
+        lock.lock();
+        try {
+            NavigableMap<LocalDate, Day> range = days;
+            if ( from != null ) {
+                range = range.tailMap( from, true );
+            }
+            if ( to != null ) {
+                range = range.headMap( to, true );
+            }
+            for ( final Day day : range.values() ) {
+                orders += day.orders;
+                revenue += day.revenue;
+                tips += day.tips;
+                for ( final Map.Entry<String, Totals> entry : day.items.entrySet() ) {
+                    final Totals totals = items.computeIfAbsent( entry.getKey(), name -> new Totals() );
+                    totals.units += entry.getValue().units;
+                    totals.revenue += entry.getValue().revenue;
+                }
+            }
+        }
+        finally {
+            lock.unlock();
+        }
+
+        final List<ItemSalesDto> itemSales = new ArrayList<>();
+        for ( final Map.Entry<String, Totals> entry : items.entrySet() ) {
+            if ( entry.getValue().units != 0 ) {
+                itemSales.add( new ItemSalesDto( entry.getKey(), entry.getValue().units, entry.getValue().revenue ) );
+            }
+        }
+        itemSales.sort( Comparator.comparingLong( ItemSalesDto::getUnits ).reversed()
+                .thenComparing( ItemSalesDto::getName ) );
+        return new SalesStatsDto( from, to, orders, revenue, tips, itemSales );
+    }
+
+    /**
+     * Adds a change to the mirror, or takes it back out.
+     *
+     * @param sales
+     *            what to add to the day's totals
+     * @param items
+     *            what to add to the totals of each item on that day
+     * @param sign
+     *            1 to add the change, -1 to take it out
+     */
+    private void apply ( final DailySales sales, final List<ItemSales> items, final int sign ) {
+        lock.lock();
+        try {
+            final Day day = day( sales.getSaleDate() );
+            day.orders += sign * sales.getOrders();
+            day.revenue += sign * sales.getRevenue();
+            day.tips += sign * sales.getTips();
+            for ( final ItemSales item : items ) {
+                final Totals totals = day.items.computeIfAbsent( item.getItemName(), name -> new Totals() );
+                totals.units += sign * item.getUnits();
+                totals.revenue += sign * item.getRevenue();
+            }
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the totals of a day, creating them if needed. Must be called
+     * holding the lock.
+     *
+     * @param date
+     *            the day
+     * @return the day's totals
+     */
+    private Day day ( final LocalDate date ) {
+        return days.computeIfAbsent( date, d -> new Day() );
+    }
+
+    /**
+     * Sales on one day.
+     */
+    private static final class Day {
+
+        /** Number of orders picked up */
+        private long                      orders;
+
+        /** Total price of the orders */
+        private double                    revenue;
+
+        /** Tips on the orders */
+        private double                    tips;
+
+        /** Sales of each item, by name */
+        private final Map<String, Totals> items = new HashMap<>();
+    }
+
+    /**
+     * Sales of one item.
+     */
+    private static final class Totals {
+
+        /** Units sold */
+        private long   units;
+
+        /** Revenue from the item */
+        private double revenue;
+    }
+
+}
@@ -0,0 +1,133 @@
+package edu.ncsu.csc326.wolfcafe.cache;
+
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import edu.ncsu.csc326.wolfcafe.entity.TaxRate;
+import edu.ncsu.csc326.wolfcafe.repository.TaxRateRepository;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Versioned in-memory snapshot of the system tax rate, so pricing an order
+ * does not need to read the database. The snapshot is replaced atomically when
+ * the rate is set, dropped whenever a tax rate row is written some other way,
+ * and reloaded after a configurable age so a change made on another node is
+ * picked up.
+ */
+@Component
+public class TaxRateCache {
+
+    /** Connection to the tax rate repository */
+    @Autowired
+    private TaxRateRepository                 taxRateRepository;
+
+    /** How long a snapshot is trusted before it is read again */
+    @Value ( "${app.tax-rate-cache-ttl-milliseconds:60000}" )
+    private long                              ttlMilliseconds;
+
+    /** Current snapshot, or null if it must be loaded */
+    private final AtomicReference<Snapshot> snapshot = new AtomicReference<>();
+
+    /**
+     * Returns the current tax rate, reading the database only if there is no
+     * fresh snapshot.
+     *
+     * @return the current tax rate, or empty if none exists in the system
+     */
+    public Optional<Snapshot> get () {
+        final Snapshot current = snapshot.get();
+        if ( current != null && !current.isExpired( ttlMilliseconds ) ) {
+            return Optional.of( current );
+        }
+
+        final Optional<TaxRate> rate = taxRateRepository.findAll().stream().findFirst();
+        if ( rate.isEmpty() ) {
+            return Optional.empty();
+        }
+
+        final Snapshot loaded = Snapshot.of( rate.get() );
+        CacheTransactions.onRollback( this, this::invalidate );
+        snapshot.compareAndSet( current, loaded );
+        return Optional.of( loaded );
+    }
+
+    /**
+     * Replaces the snapshot with a rate that was just written, unless the
+     * snapshot already holds the same or a later version of that rate. When
+     * two updates race, the one that saved the older version can get here
+     * last, and must not overwrite the newer rate until the snapshot expires.
+     *
+     * @param rate
+     *            the saved tax rate
+     */
+    public void set ( final TaxRate rate ) {
+        CacheTransactions.onRollback( this, this::invalidate );
+        final Snapshot written = Snapshot.of( rate );
+        Snapshot current;
+        do {
+            current = snapshot.get();
+            if ( current != null && current.getId().equals( written.getId() )
+                    && current.getVersion() >= written.getVersion() ) {
+                return;
+            }
+        }
+        while ( !snapshot.compareAndSet( current, written ) );
+    }
+
+    /**
+     * Drops the snapshot so it is reloaded on next use.
+     */
+    public void invalidate () {
+        snapshot.set( null );
+    }
+
+    /**
+     * An immutable reading of the tax rate together with its version. The
+     * version goes up by one every time the rate is set.
+     */
+    @Getter
+    @AllArgsConstructor
+    public static final class Snapshot {
+
+        /** Unique identifier of the tax rate */
+        private final Long   id;
+
+        /** The rate of the tax */
+        private final double rate;
+
+        /** Version of the rate, increased on every change */
+        private final long   version;
+
+        /** When this snapshot was read, from System.nanoTime() */
+        private final long   loadedAt;
+
+        /**
+         * Creates a snapshot of the given tax rate.
+         *
+         * @param rate
+         *            tax rate to snapshot
+         * @return the new snapshot
+         */
+        static Snapshot of ( final TaxRate rate ) {
+            final long version = rate.getVersion() != null ? rate.getVersion() : 0L;
+            return new Snapshot( rate.getId(), rate.getRate(), version, System.nanoTime() );
+        }
+
+        /**
+         * Checks whether this snapshot is older than the given age.
+         *
+         * @param ttlMilliseconds
+         *            the maximum age
+         * @return true if the snapshot should be read again
+         */
+        boolean isExpired ( final long ttlMilliseconds ) {
+            return System.nanoTime() - loadedAt > ttlMilliseconds * 1_000_000L;
+        }
+    }
+
+}
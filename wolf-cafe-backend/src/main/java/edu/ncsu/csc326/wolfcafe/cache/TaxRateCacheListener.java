@@ -0,0 +1,36 @@
+package edu.ncsu.csc326.wolfcafe.cache;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import edu.ncsu.csc326.wolfcafe.entity.TaxRate;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+
+/**
+ * JPA entity listener that drops the TaxRateCache whenever a tax rate row is
+ * written, so a rate changed outside of the TaxRateService is never served
+ * stale. When only the JPA layer is loaded, as in repository tests, there is
+ * no cache and the listener does nothing.
+ */
+public class TaxRateCacheListener {
+
+    /** The cache to drop; looked up when used since listeners are built with JPA */
+    @Autowired
+    private ObjectProvider<TaxRateCache> taxRateCache;
+
+    /**
+     * Drops the cached tax rate after a tax rate row is written.
+     *
+     * @param rate
+     *            the tax rate that was written
+     */
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void taxRateChanged ( final TaxRate rate ) {
+        taxRateCache.ifAvailable( TaxRateCache::invalidate );
+    }
+
+}
@@ -0,0 +1,47 @@
+package edu.ncsu.csc326.wolfcafe.config;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import edu.ncsu.csc326.wolfcafe.entity.IdAllocation;
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Moves each id allocation row past the largest id already stored in its
+ * table. Databases created while ids were IDENTITY columns already hold rows,
+ * and a freshly created allocation row would otherwise hand out ids that are
+ * taken. Runs once the schema has been updated and before SetupDataLoader
+ * inserts anything.
+ */
+@Component
+@DependsOn ( "entityManagerFactory" )
+public class IdAllocationSeeder {
+
+    /** Runs the seeding statements */
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * Raises every allocation row so that the lowest id the pooled generator
+     * can hand out is above the largest id in the matching table.
+     */
+    @PostConstruct
+    public void seed () {
+        for ( final String key : IdAllocation.KEYS ) {
+            final Long max = jdbcTemplate.queryForObject( "SELECT COALESCE(MAX(id), 0) FROM " + key, Long.class );
+            final long floor = max + IdAllocation.ALLOCATION_SIZE + 1;
+
+            final int updated = jdbcTemplate.update(
+                    "UPDATE " + IdAllocation.TABLE + " SET " + IdAllocation.VALUE_COLUMN + " = GREATEST("
+                            + IdAllocation.VALUE_COLUMN + ", ?) WHERE " + IdAllocation.KEY_COLUMN + " = ?",
+                    floor, key );
+            if ( updated == 0 ) {
+                jdbcTemplate.update( "INSERT INTO " + IdAllocation.TABLE + " (" + IdAllocation.KEY_COLUMN + ", "
+                        + IdAllocation.VALUE_COLUMN + ") VALUES (?, ?)", key, floor );
+            }
+        }
+    }
+
+}
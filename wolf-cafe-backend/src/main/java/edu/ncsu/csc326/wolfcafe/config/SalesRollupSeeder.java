@@ -0,0 +1,54 @@
+package edu.ncsu.csc326.wolfcafe.config;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Fills the sales rollup tables from the orders already picked up when the
+ * tables are still empty, which is the case the first time the application
+ * starts on a database created before the rollups existed. From then on the
+ * rollups are kept up to date as orders are picked up and the orders are not
+ * read again.
+ */
+@Component
+@DependsOn ( "entityManagerFactory" )
+public class SalesRollupSeeder {
+
+    /** Runs the seeding statements */
+    @Autowired
+    private JdbcTemplate               jdbcTemplate;
+
+    /** Runs both statements in one transaction */
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    /**
+     * Rolls up the picked up orders by day and by item if no day has been
+     * rolled up yet.
+     */
+    @PostConstruct
+    public void seed () {
+        final Long days = jdbcTemplate.queryForObject( "SELECT COUNT(*) FROM daily_sales", Long.class );
+        if ( days != null && days > 0 ) {
+            return;
+        }
+
+        new TransactionTemplate( transactionManager ).executeWithoutResult( status -> {
+            jdbcTemplate.update( "INSERT INTO daily_sales (sale_date, orders, revenue, tips) "
+                    + "SELECT DATE(created_at), COUNT(*), SUM(total_price), SUM(tip) FROM customer_order "
+                    + "WHERE status = 'PICKED_UP' GROUP BY DATE(created_at)" );
+            jdbcTemplate.update( "INSERT INTO item_sales (sale_date, item_name, units, revenue) "
+                    + "SELECT DATE(o.created_at), oi.item_name, SUM(oi.quantity), "
+                    + "SUM(oi.quantity * COALESCE(i.price, 0)) FROM customer_order o "
+                    + "JOIN order_items oi ON oi.order_id = o.id LEFT JOIN items i ON i.name = oi.item_name "
+                    + "WHERE o.status = 'PICKED_UP' GROUP BY DATE(o.created_at), oi.item_name" );
+        } );
+    }
+
+}
@@ -17,7 +17,7 @@ import org.springframework.web.bind.annotation.RestController;
 import edu.ncsu.csc326.wolfcafe.dto.JwtAuthResponse;
 import edu.ncsu.csc326.wolfcafe.dto.LoginDto;
 import edu.ncsu.csc326.wolfcafe.dto.RegisterDto;
-import edu.ncsu.csc326.wolfcafe.entity.User;
+import edu.ncsu.csc326.wolfcafe.dto.UserDto;
 import edu.ncsu.csc326.wolfcafe.service.AuthService;
 import lombok.AllArgsConstructor;
 
@@ -111,8 +111,8 @@ public class AuthController {
      */
     @PreAuthorize ( "hasRole('ADMIN')" )
     @GetMapping
-    public ResponseEntity<List<User>> getAllUsers () {
-        final List<User> users = authService.getAllUsers();
+    public ResponseEntity<List<UserDto>> getAllUsers () {
+        final List<UserDto> users = authService.getAllUsers();
         return ResponseEntity.ok( users ); // 200 OK
     }
 }
@@ -1,8 +1,19 @@
 package edu.ncsu.csc326.wolfcafe.controller;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
 
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.web.PageableDefault;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.CrossOrigin;
@@ -12,12 +23,29 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
 
 import edu.ncsu.csc326.wolfcafe.dto.OrderDto;
+import edu.ncsu.csc326.wolfcafe.dto.OrderPageDto;
+import edu.ncsu.csc326.wolfcafe.dto.OrderTransitionResultDto;
+import edu.ncsu.csc326.wolfcafe.dto.SalesStatsDto;
+import edu.ncsu.csc326.wolfcafe.entity.OrderStatus;
+import edu.ncsu.csc326.wolfcafe.entity.OrderTransition;
+import edu.ncsu.csc326.wolfcafe.events.OrderEventHub;
+import edu.ncsu.csc326.wolfcafe.export.OrderExportFormat;
+import edu.ncsu.csc326.wolfcafe.export.OrderExportWriter;
+import edu.ncsu.csc326.wolfcafe.pipeline.OrderPlacementPipeline;
+import edu.ncsu.csc326.wolfcafe.service.IdempotencyService;
 import edu.ncsu.csc326.wolfcafe.service.OrderService;
+import edu.ncsu.csc326.wolfcafe.service.SalesStatsService;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.AllArgsConstructor;
 
 /**
@@ -26,52 +54,135 @@ import lombok.AllArgsConstructor;
 @RestController
 @RequestMapping ( "/api/orders" )
 @AllArgsConstructor
-@CrossOrigin ( "*" )
+@CrossOrigin ( origins = "*", exposedHeaders = { OrderController.TOTAL_COUNT_HEADER,
+        OrderController.NEXT_CURSOR_HEADER } )
 public class OrderController {
 
+    /** Response header carrying the number of orders across all pages */
+    public static final String           TOTAL_COUNT_HEADER = "X-Total-Count";
+
+    /** Response header carrying the cursor for the next page of orders */
+    public static final String           NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    /** Number of orders on a page unless the client asks for another size */
+    private static final String          DEFAULT_PAGE_SIZE  = "50";
+
     /** Service for order operations */
-    private final OrderService orderService;
+    private final OrderService           orderService;
+
+    /** Places orders, in batches when group commit is enabled */
+    private final OrderPlacementPipeline orderPlacementPipeline;
+
+    /** Answers retried requests with the order they already placed */
+    private final IdempotencyService     idempotencyService;
+
+    /** Writes exported orders as JSON the same way responses are written */
+    private final ObjectMapper           objectMapper;
+
+    /** Answers sales questions from the sales rollups */
+    private final SalesStatsService      salesStatsService;
+
+    /** Pushes committed order changes to the staff order board */
+    private final OrderEventHub          orderEventHub;
 
     /**
      * Places a new order in the system. Only customers are allowed to access
-     * this endpoint. Customers can place an order
+     * this endpoint. Customers can place an order. When group commit is
+     * enabled the order is placed together with other concurrent orders. A
+     * request sent again with the same Idempotency-Key gets the original order
+     * back instead of placing a new one.
      *
      * @param orderDto
      *            the order to place
+     * @param idempotencyKey
+     *            optional key identifying retries of the same request
      * @return ResponseEntity containing the placed order or an error status
      */
     @PostMapping
     @PreAuthorize ( "hasRole('CUSTOMER')" )
-    public ResponseEntity<OrderDto> placeOrder ( @RequestBody final OrderDto orderDto ) {
-        final OrderDto savedOrderDto = orderService.placeOrder( orderDto );
+    public ResponseEntity<OrderDto> placeOrder ( @RequestBody final OrderDto orderDto,
+            @RequestHeader ( value = "Idempotency-Key", required = false ) final String idempotencyKey ) {
+        final OrderDto savedOrderDto = idempotencyKey == null ? orderPlacementPipeline.place( orderDto )
+                : idempotencyService.placeOnce( idempotencyKey, orderDto,
+                        key -> orderPlacementPipeline.place( orderDto, key ) );
         return ResponseEntity.status( HttpStatus.CREATED ).body( savedOrderDto ); // 201
                                                                                   // Created
     }
 
     /**
-     * Retrieves a list of all orders in the system. Accessible through the
-     * STAFF roles.
+     * Retrieves one page of all orders in the system, newest first.
+     * Accessible through the STAFF roles. The response body is the page of
+     * orders; if there are more, the cursor for the next page is sent in the
+     * X-Next-Cursor header.
      *
+     * @param cursor
+     *            the cursor from the previous page, omitted for the first page
+     * @param size
+     *            the largest number of orders to return
      * @return ResponseEntity containing a list of orders
      */
     @GetMapping
     @PreAuthorize ( "hasRole('STAFF')" )
-    public ResponseEntity<List<OrderDto>> getAllOrders () {
-        final List<OrderDto> orders = orderService.getAllOrders();
-        return ResponseEntity.ok( orders );
+    public ResponseEntity<List<OrderDto>> getAllOrders ( @RequestParam ( required = false ) final String cursor,
+            @RequestParam ( defaultValue = DEFAULT_PAGE_SIZE ) final int size ) {
+        return toResponse( orderService.getAllOrders( cursor, size ) );
     }
 
     /**
-     * Retrieves a list of all orders for a particular user. Customers see their
-     * own orders
+     * Retrieves one page of the orders for a particular user, newest first.
+     * Customers see their own orders. If there are more, the cursor for the
+     * next page is sent in the X-Next-Cursor header.
      *
+     * @param cursor
+     *            the cursor from the previous page, omitted for the first page
+     * @param size
+     *            the largest number of orders to return
      * @return ResponseEntity containing the list of customer orders
      */
     @GetMapping ( "/customer" )
     @PreAuthorize ( "hasRole('CUSTOMER')" )
-    public ResponseEntity<List<OrderDto>> getOrdersForCurrentUser () {
-        final List<OrderDto> orders = orderService.getOrdersForCurrentUser();
-        return ResponseEntity.ok( orders );
+    public ResponseEntity<List<OrderDto>> getOrdersForCurrentUser (
+            @RequestParam ( required = false ) final String cursor,
+            @RequestParam ( defaultValue = DEFAULT_PAGE_SIZE ) final int size ) {
+        return toResponse( orderService.getOrdersForCurrentUser( cursor, size ) );
+    }
+
+    /**
+     * Waits for one of the current customer's orders to change status, so a
+     * customer waiting for pickup does not have to keep reloading their
+     * orders. The request is held, without holding a thread, until the
+     * order's status differs from the one the client last saw, and is then
+     * answered with the order. If nothing changes before the poll timeout the
+     * response is 204 No Content and the client should ask again.
+     *
+     * @param id
+     *            the ID of the order to wait on
+     * @param since
+     *            the status the client last saw, omitted to get the order
+     *            straight away
+     * @return the order once its status differs, or no content on timeout
+     */
+    @GetMapping ( "/customer/{id}/status" )
+    @PreAuthorize ( "hasRole('CUSTOMER')" )
+    public DeferredResult<ResponseEntity<OrderDto>> waitForOrderStatus ( @PathVariable final Long id,
+            @RequestParam ( required = false ) final OrderStatus since ) {
+        return orderEventHub.awaitChange( id, since, () -> orderService.getOrderForCurrentUser( id ) );
+    }
+
+    /**
+     * Helper method to send a page of orders, with the cursor for the next
+     * page in a header.
+     *
+     * @param page
+     *            the page of orders
+     * @return ResponseEntity containing the orders on the page
+     */
+    private ResponseEntity<List<OrderDto>> toResponse ( final OrderPageDto page ) {
+        final ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if ( page.getNextCursor() != null ) {
+            response.header( NEXT_CURSOR_HEADER, page.getNextCursor() );
+        }
+        return response.body( page.getOrders() );
     }
 
     /**
@@ -89,6 +200,26 @@ public class OrderController {
         return ResponseEntity.ok( order );
     }
 
+    /**
+     * Streams the changes to orders as server-sent events, for the staff
+     * order board. An "order" event carrying the order is sent each time an
+     * order is placed, fulfilled, picked up or cancelled, once the change has
+     * committed. A client that reconnects with the Last-Event-ID header is
+     * first sent the changes it missed, or a "reset" event if they are too old
+     * and it should reload the orders. Only accessible by staff.
+     *
+     * @param lastEventId
+     *            the id of the last event the client saw, omitted when it
+     *            first connects
+     * @return the stream of events
+     */
+    @GetMapping ( value = "/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE )
+    @PreAuthorize ( "hasRole('STAFF')" )
+    public SseEmitter streamOrderEvents (
+            @RequestHeader ( value = "Last-Event-ID", required = false ) final String lastEventId ) {
+        return orderEventHub.subscribe( lastEventId );
+    }
+
     /**
      * Cancels an order by its ID. Only accessible by users with the STAFF role.
      *
@@ -106,6 +237,22 @@ public class OrderController {
         return ResponseEntity.badRequest().body( "Failed to cancel the order." );
     }
 
+    /**
+     * Claims the order that has waited longest to be made, so two staff
+     * members are never given the same order. The order should then be
+     * fulfilled with /fulfill/{id}; if it is not fulfilled or cancelled within
+     * the lease it goes back in the queue. Only accessible by staff.
+     *
+     * @return ResponseEntity with the claimed order, or 204 No Content if no
+     *         order is waiting
+     */
+    @PostMapping ( "/claim" )
+    @PreAuthorize ( "hasRole('STAFF')" )
+    public ResponseEntity<OrderDto> claimNextOrder () {
+        return orderService.claimNextOrder().map( ResponseEntity::ok )
+                .orElseGet( () -> ResponseEntity.noContent().build() );
+    }
+
     /**
      * Fulfills an order by its ID. Only accessible by staff.
      *
@@ -143,22 +290,146 @@ public class OrderController {
     }
 
     /**
-     * Retrieves order history with an optional filter by item name. Only orders
-     * with the PICKED_UP status are included. Accessible by staff only.
+     * Fulfills a batch of orders in one request. Only accessible by staff.
+     *
+     * @param ids
+     *            the IDs of the orders to fulfill
+     * @return ResponseEntity with whether each order was fulfilled
+     */
+    @PutMapping ( "/fulfill" )
+    @PreAuthorize ( "hasRole('STAFF')" )
+    public ResponseEntity<List<OrderTransitionResultDto>> fulfillOrders ( @RequestBody final List<Long> ids ) {
+        return ResponseEntity.ok( orderService.transitionOrders( ids, OrderTransition.FULFILL ) );
+    }
+
+    /**
+     * Sets the status of a batch of orders to PICKED UP in one request, for
+     * example at closing time. Only accessible by staff.
      *
-     * The itemName is an optional query parameter used to filter results. Thats
-     * why we are using RequestParam
+     * @param ids
+     *            the IDs of the orders that were picked up
+     * @return ResponseEntity with whether each order was picked up
+     */
+    @PutMapping ( "/pickup" )
+    @PreAuthorize ( "hasRole('STAFF')" )
+    public ResponseEntity<List<OrderTransitionResultDto>> pickupOrders ( @RequestBody final List<Long> ids ) {
+        return ResponseEntity.ok( orderService.transitionOrders( ids, OrderTransition.PICK_UP ) );
+    }
+
+    /**
+     * Cancels a batch of orders in one request and returns their items to the
+     * inventory. Only accessible by staff.
+     *
+     * @param ids
+     *            the IDs of the orders to cancel
+     * @return ResponseEntity with whether each order was cancelled
+     */
+    @PutMapping ( "/cancel" )
+    @PreAuthorize ( "hasRole('STAFF')" )
+    public ResponseEntity<List<OrderTransitionResultDto>> cancelOrders ( @RequestBody final List<Long> ids ) {
+        return ResponseEntity.ok( orderService.transitionOrders( ids, OrderTransition.CANCEL ) );
+    }
+
+    /**
+     * Retrieves one page of the order history. Only orders with the PICKED_UP
+     * status are included unless another status is asked for. Orders can be
+     * filtered by item name and by a range of creation times, and are sorted
+     * newest first unless another sort is given. The itemName parameter can
+     * be repeated to find the orders containing all of the items. The response body is the
+     * page of orders; the number of matching orders across all pages is sent
+     * in the X-Total-Count header. Accessible by staff only.
      *
      * @param itemName
-     *            The name of the item to filter orders by.
+     *            The names of the items the orders must all contain.
+     * @param status
+     *            The status of the orders to include, PICKED_UP by default.
+     * @param from
+     *            The earliest creation time to include.
+     * @param to
+     *            The creation time to stop before.
+     * @param pageable
+     *            The page, page size and sort, from the page, size and sort
+     *            request parameters.
      * @return ResponseEntity containing the order history or an error status.
      */
     @GetMapping ( "/history" )
     @PreAuthorize ( "hasRole('STAFF')" )
     public ResponseEntity<List<OrderDto>> viewOrderHistory (
-            @RequestParam ( required = false ) final String itemName ) {
-        final List<OrderDto> orderHistory = orderService.viewOrderHistory( itemName );
-        return ResponseEntity.ok( orderHistory );
+            @RequestParam ( required = false ) final List<String> itemName,
+            @RequestParam ( required = false ) final OrderStatus status,
+            @RequestParam ( required = false ) @DateTimeFormat (
+                    iso = DateTimeFormat.ISO.DATE_TIME ) final LocalDateTime from,
+            @RequestParam ( required = false ) @DateTimeFormat (
+                    iso = DateTimeFormat.ISO.DATE_TIME ) final LocalDateTime to,
+            @PageableDefault ( size = 50, sort = "createdAt",
+                    direction = Sort.Direction.DESC ) final Pageable pageable ) {
+        final Page<OrderDto> orderHistory = orderService.viewOrderHistory( itemName, status, from, to, pageable );
+        return ResponseEntity.ok().header( TOTAL_COUNT_HEADER, String.valueOf( orderHistory.getTotalElements() ) )
+                .body( orderHistory.getContent() );
+    }
+
+    /**
+     * Exports the order history, oldest first, as newline-delimited JSON or
+     * CSV. Orders are written to the response as they are read from the
+     * database, so exports of any size run in constant memory. Takes the same
+     * filters as the order history. Accessible by staff only.
+     *
+     * @param itemName
+     *            The names of the items the orders must all contain.
+     * @param status
+     *            The status of the orders to include, PICKED_UP by default.
+     * @param from
+     *            The earliest creation time to include.
+     * @param to
+     *            The creation time to stop before.
+     * @param format
+     *            ndjson (the default) or csv.
+     * @param response
+     *            The response the orders are written to.
+     * @throws IOException
+     *             if the response cannot be written
+     */
+    @GetMapping ( "/history/export" )
+    @PreAuthorize ( "hasRole('STAFF')" )
+    public void exportOrderHistory ( @RequestParam ( required = false ) final List<String> itemName,
+            @RequestParam ( required = false ) final OrderStatus status,
+            @RequestParam ( required = false ) @DateTimeFormat (
+                    iso = DateTimeFormat.ISO.DATE_TIME ) final LocalDateTime from,
+            @RequestParam ( required = false ) @DateTimeFormat (
+                    iso = DateTimeFormat.ISO.DATE_TIME ) final LocalDateTime to,
+            @RequestParam ( defaultValue = "ndjson" ) final String format, final HttpServletResponse response )
+            throws IOException {
+        final OrderExportFormat exportFormat = OrderExportFormat.of( format );
+        final OrderExportWriter writer = new OrderExportWriter( exportFormat, () -> {
+            response.setContentType( exportFormat.getContentType() );
+            response.setCharacterEncoding( StandardCharsets.UTF_8.name() );
+            response.setHeader( HttpHeaders.CONTENT_DISPOSITION,
+                    "attachment; filename=\"order-history." + exportFormat.getExtension() + "\"" );
+            return response.getOutputStream();
+        }, objectMapper );
+        orderService.exportOrderHistory( itemName, status, from, to, writer::write );
+        writer.finish();
+    }
+
+    /**
+     * Reports sales over a range of days: the number of orders picked up,
+     * their revenue and tips, and the units and revenue of each item, best
+     * sellers first. Answered from the sales rollups, so the cost does not
+     * depend on how many orders have been placed. Orders count towards the
+     * day they were placed. Accessible by staff only.
+     *
+     * @param from
+     *            The first day to include, from the first sale if omitted.
+     * @param to
+     *            The last day to include, up to the last sale if omitted.
+     * @return ResponseEntity containing the sales over the range
+     */
+    @GetMapping ( "/stats" )
+    @PreAuthorize ( "hasRole('STAFF')" )
+    public ResponseEntity<SalesStatsDto> getSalesStats (
+            @RequestParam ( required = false ) @DateTimeFormat ( iso = DateTimeFormat.ISO.DATE ) final LocalDate from,
+            @RequestParam ( required = false ) @DateTimeFormat ( iso = DateTimeFormat.ISO.DATE ) final LocalDate to ) {
+        return ResponseEntity.ok( salesStatsService.getStats( from, to ) );
     }
 
 }
@@ -1,6 +1,8 @@
 package edu.ncsu.csc326.wolfcafe.controller;
 
 import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -10,7 +12,9 @@ import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
+import edu.ncsu.csc326.wolfcafe.dto.TaxRateDto;
 import edu.ncsu.csc326.wolfcafe.service.TaxRateService;
 import lombok.AllArgsConstructor;
 
@@ -28,15 +32,27 @@ public class TaxRateController {
 
     /**
      * Returns the tax rate. Any one can do this since it needs to be called in
-     * the frontend (to add to the total) no matter who the user is
+     * the frontend (to add to the total) no matter who the user is. The
+     * rate's version is returned in the body and as the ETag, so a client that
+     * sends it back in If-None-Match gets a 304 until the rate changes.
      *
-     * @return a the current tax rate
+     * @param request
+     *            the current request, used for the If-None-Match check
+     * @return a the current tax rate and its version
      */
     @GetMapping
     @PreAuthorize ( "hasAnyRole('STAFF', 'CUSTOMER', 'ADMIN')" )
-    public ResponseEntity< ? > getTaxRate () {
-        final double rate = taxRateService.getTaxRate();
-        return ResponseEntity.ok( Collections.singletonMap( "rate", rate ) );
+    public ResponseEntity< ? > getTaxRate ( final WebRequest request ) {
+        final TaxRateDto taxRate = taxRateService.getCurrentTaxRate();
+        final String eTag = "\"" + taxRate.getVersion() + "\"";
+        if ( request.checkNotModified( eTag ) ) {
+            return null; // 304 Not Modified
+        }
+
+        final Map<String, Object> body = new LinkedHashMap<>();
+        body.put( "rate", taxRate.getRate() );
+        body.put( "version", taxRate.getVersion() );
+        return ResponseEntity.ok().eTag( eTag ).body( body );
     }
 
     /**
@@ -27,4 +27,21 @@ public class InventoryDto {
 	 * A map that holds the item names and their quantities in the inventory
 	 */
 	private Map<String, Integer> items = new HashMap<>();
+
+	/**
+	 * The version of the inventory the client read. When sent with an update,
+	 * the update is rejected if the inventory has changed since.
+	 */
+	private Long version;
+
+	/**
+	 * Constructor for an InventoryDto without a version
+	 *
+	 * @param id    the unique identifier for the inventory
+	 * @param items the item names and their quantities
+	 */
+	public InventoryDto(final Long id, final Map<String, Integer> items) {
+		this.id = id;
+		this.items = items;
+	}
 }
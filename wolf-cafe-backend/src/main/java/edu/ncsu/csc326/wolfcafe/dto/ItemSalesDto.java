@@ -0,0 +1,24 @@
+package edu.ncsu.csc326.wolfcafe.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Sales of one item over a range of days.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ItemSalesDto {
+
+    /** Name of the item */
+    private String name;
+
+    /** Units sold */
+    private long   units;
+
+    /** Revenue from the item, before tax and tips */
+    private double revenue;
+
+}
@@ -0,0 +1,21 @@
+package edu.ncsu.csc326.wolfcafe.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A committed change to an order, as pushed to the staff order board.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderEventDto {
+
+    /** Position of the change among all changes since startup, from 1 */
+    private long     id;
+
+    /** The order as it was when the change committed */
+    private OrderDto order;
+
+}
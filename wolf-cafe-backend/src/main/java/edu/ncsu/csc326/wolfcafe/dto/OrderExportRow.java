@@ -0,0 +1,46 @@
+package edu.ncsu.csc326.wolfcafe.dto;
+
+import java.time.LocalDateTime;
+
+import edu.ncsu.csc326.wolfcafe.entity.OrderStatus;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * One line of an order as read for an export or a listing: the order's own
+ * columns repeated next to one of its items. Rows are read straight into this
+ * class rather than into entities, so only the columns that are returned are
+ * selected and nothing is kept in the persistence context.
+ */
+@Getter
+@AllArgsConstructor
+public class OrderExportRow {
+
+    /** Id of the order */
+    private final Long          orderId;
+
+    /** Id of the customer who placed the order */
+    private final Long          customerId;
+
+    /** Name of the customer who placed the order */
+    private final String        customerName;
+
+    /** Status of the order */
+    private final OrderStatus   status;
+
+    /** When the order was placed */
+    private final LocalDateTime createdAt;
+
+    /** Tip on the order */
+    private final Double        tip;
+
+    /** Total price of the order */
+    private final Double        totalPrice;
+
+    /** Name of the item on this line */
+    private final String        itemName;
+
+    /** Quantity of the item on this line */
+    private final Integer       quantity;
+
+}
@@ -0,0 +1,24 @@
+package edu.ncsu.csc326.wolfcafe.dto;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One page of an order listing, together with the cursor that fetches the
+ * page after it.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderPageDto {
+
+    /** Orders on this page, newest first */
+    private List<OrderDto> orders;
+
+    /** Opaque cursor for the next page, or null if this is the last page */
+    private String         nextCursor;
+
+}
@@ -0,0 +1,28 @@
+package edu.ncsu.csc326.wolfcafe.dto;
+
+import edu.ncsu.csc326.wolfcafe.entity.OrderStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * The outcome of changing the status of one order in a batch.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderTransitionResultDto {
+
+    /** Id of the order */
+    private Long        id;
+
+    /** Whether the order was moved to the new status */
+    private boolean     success;
+
+    /** Status of the order after the batch, or null if there is no order */
+    private OrderStatus status;
+
+    /** Why the order was not moved, or null if it was */
+    private String      message;
+
+}
@@ -0,0 +1,21 @@
+package edu.ncsu.csc326.wolfcafe.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A role held by a user, as listed to admins.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RoleDto {
+
+    /** Id of the role */
+    private Long   id;
+
+    /** Name of the role, such as ROLE_STAFF */
+    private String name;
+
+}
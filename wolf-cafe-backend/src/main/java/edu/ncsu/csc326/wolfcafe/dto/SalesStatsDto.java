@@ -0,0 +1,36 @@
+package edu.ncsu.csc326.wolfcafe.dto;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Sales over a range of days, counting orders that have been picked up.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SalesStatsDto {
+
+    /** First day of the range, or null if the range has no start */
+    private LocalDate          from;
+
+    /** Last day of the range, or null if the range has no end */
+    private LocalDate          to;
+
+    /** Number of orders picked up */
+    private long               orders;
+
+    /** Total price of the orders, including tax and tips */
+    private double             revenue;
+
+    /** Tips on the orders */
+    private double             tips;
+
+    /** Sales of each item, best sellers first */
+    private List<ItemSalesDto> items;
+
+}
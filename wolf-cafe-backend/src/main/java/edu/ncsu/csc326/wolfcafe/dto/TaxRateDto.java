@@ -26,5 +26,9 @@ public class TaxRateDto {
      * The rate of the tax
      */
     private double rate;
+    /*
+     * Version of the rate, increased every time the rate is set
+     */
+    private long   version;
 
 }
@@ -0,0 +1,34 @@
+package edu.ncsu.csc326.wolfcafe.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A user as listed to admins. Holds only what the user list shows, so the
+ * password hash is never sent.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserDto {
+
+    /** Id of the user */
+    private Long          id;
+
+    /** Name of the user */
+    private String        name;
+
+    /** Username of the user */
+    private String        username;
+
+    /** Email of the user */
+    private String        email;
+
+    /** Roles the user holds */
+    private List<RoleDto> roles = new ArrayList<>();
+
+}
@@ -0,0 +1,33 @@
+package edu.ncsu.csc326.wolfcafe.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * One role of a user as read for the user list: the user's own columns
+ * repeated next to one of the roles. Rows are read straight into this class
+ * rather than into entities, so the password hash is never selected.
+ */
+@Getter
+@AllArgsConstructor
+public class UserRoleRow {
+
+    /** Id of the user */
+    private final Long   userId;
+
+    /** Name of the user */
+    private final String name;
+
+    /** Username of the user */
+    private final String username;
+
+    /** Email of the user */
+    private final String email;
+
+    /** Id of the role on this row, or null if the user has no role */
+    private final Long   roleId;
+
+    /** Name of the role on this row, or null if the user has no role */
+    private final String roleName;
+
+}
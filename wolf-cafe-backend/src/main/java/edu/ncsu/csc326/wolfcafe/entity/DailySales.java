@@ -0,0 +1,44 @@
+package edu.ncsu.csc326.wolfcafe.entity;
+
+import java.time.LocalDate;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Rollup of the orders picked up for one day of sales, kept up to date as
+ * orders are picked up so revenue can be reported without reading the
+ * orders themselves. A day is the day the order was placed.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table ( name = "daily_sales" )
+public class DailySales {
+
+    /** The day of sales */
+    @Id
+    @Column ( name = "sale_date" )
+    private LocalDate saleDate;
+
+    /** Number of orders picked up */
+    @Column ( nullable = false )
+    private long      orders;
+
+    /** Total price of the orders, including tax and tips */
+    @Column ( nullable = false )
+    private double    revenue;
+
+    /** Tips on the orders */
+    @Column ( nullable = false )
+    private double    tips;
+
+}
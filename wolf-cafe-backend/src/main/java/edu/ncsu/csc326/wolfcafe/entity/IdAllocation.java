@@ -0,0 +1,43 @@
+package edu.ncsu.csc326.wolfcafe.entity;
+
+import java.util.List;
+
+/**
+ * Shared settings for the pooled id generators used by orders, items and
+ * users. Ids are handed out from blocks reserved in the id_allocation table,
+ * so Hibernate knows an entity's id before the insert and can send inserts
+ * in JDBC batches, which it cannot do with IDENTITY columns.
+ */
+public final class IdAllocation {
+
+    /** Table holding the next block of ids for each entity */
+    public static final String       TABLE           = "id_allocation";
+
+    /** Column naming the entity a row allocates ids for */
+    public static final String       KEY_COLUMN      = "sequence_name";
+
+    /** Column holding the next value to allocate */
+    public static final String       VALUE_COLUMN    = "next_val";
+
+    /** Number of ids reserved per round trip to the allocation table */
+    public static final int          ALLOCATION_SIZE = 50;
+
+    /** Allocation key for orders, which is also the order table name */
+    public static final String       ORDER           = "customer_order";
+
+    /** Allocation key for items, which is also the item table name */
+    public static final String       ITEM            = "items";
+
+    /** Allocation key for users, which is also the user table name */
+    public static final String       USER            = "users";
+
+    /** Every allocation key, each matching the table it allocates ids for */
+    public static final List<String> KEYS            = List.of( ORDER, ITEM, USER );
+
+    /**
+     * Not instantiable
+     */
+    private IdAllocation () {
+    }
+
+}
@@ -0,0 +1,39 @@
+package edu.ncsu.csc326.wolfcafe.entity;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Entity class recording which order an Idempotency-Key produced, so a retry
+ * can be answered after a restart or by another server.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table ( name = "idempotency_keys" )
+public class IdempotencyRecord {
+
+    /** The client's key, prefixed with the username that sent it */
+    @Id
+    @Column ( name = "idempotency_key", length = 512 )
+    private String        key;
+
+    /** The order placed by the first request with this key */
+    @Column ( name = "order_id", nullable = false )
+    private Long          orderId;
+
+    /** When the first request with this key was completed */
+    @Column ( name = "created_at", nullable = false )
+    private LocalDateTime createdAt;
+
+}
@@ -17,6 +17,7 @@ import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.MapKeyJoinColumn;
+import jakarta.persistence.Version;
 import jakarta.validation.constraints.PositiveOrZero;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
@@ -48,4 +49,12 @@ public class Inventory {
     @PositiveOrZero // Ensure quantity is zero or positive
     private Map<Item, Integer> items = new HashMap<>();
 
+    /**
+     * Version of the inventory, increased by every change made through this
+     * entity. A write based on an older version is rejected.
+     */
+    @Version
+    @Column ( nullable = false )
+    private Long               version;
+
 }
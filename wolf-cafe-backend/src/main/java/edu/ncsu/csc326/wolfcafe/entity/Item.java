@@ -1,11 +1,14 @@
 package edu.ncsu.csc326.wolfcafe.entity;
 
+import edu.ncsu.csc326.wolfcafe.cache.ItemIndexListener;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.Table;
+import jakarta.persistence.TableGenerator;
 import jakarta.validation.constraints.Positive;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
@@ -23,11 +26,15 @@ import lombok.Setter;
 @AllArgsConstructor
 @Entity
 @Table ( name = "items" )
+@EntityListeners ( ItemIndexListener.class )
 public class Item {
 
     /** Unique identifier for the item entry */
     @Id
-    @GeneratedValue ( strategy = GenerationType.IDENTITY )
+    @GeneratedValue ( strategy = GenerationType.TABLE, generator = "item_id" )
+    @TableGenerator ( name = "item_id", table = IdAllocation.TABLE, pkColumnName = IdAllocation.KEY_COLUMN,
+            valueColumnName = IdAllocation.VALUE_COLUMN, pkColumnValue = IdAllocation.ITEM,
+            allocationSize = IdAllocation.ALLOCATION_SIZE )
     private Long   id;
 
     /** Name of the item entry */
@@ -0,0 +1,52 @@
+package edu.ncsu.csc326.wolfcafe.entity;
+
+import java.time.LocalDate;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Rollup of the sales of one item on one day of sales, kept up to date as
+ * orders are picked up. Revenue is the item's price at pickup times the units
+ * sold, before tax and tips.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table ( name = "item_sales", uniqueConstraints = @UniqueConstraint ( name = "uk_item_sales_day_item",
+        columnNames = { "sale_date", "item_name" } ) )
+public class ItemSales {
+
+    /** Unique identifier for the row */
+    @Id
+    @GeneratedValue ( strategy = GenerationType.IDENTITY )
+    private Long      id;
+
+    /** The day of sales */
+    @Column ( name = "sale_date", nullable = false )
+    private LocalDate saleDate;
+
+    /** Name of the item sold */
+    @Column ( name = "item_name", nullable = false )
+    private String    itemName;
+
+    /** Units of the item sold */
+    @Column ( nullable = false )
+    private long      units;
+
+    /** Revenue from the item, before tax and tips */
+    @Column ( nullable = false )
+    private double    revenue;
+
+}
@@ -4,10 +4,14 @@ import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.Map;
 
+import org.hibernate.annotations.BatchSize;
+
+import edu.ncsu.csc326.wolfcafe.cache.OrderItemIndexListener;
 import jakarta.persistence.CollectionTable;
 import jakarta.persistence.Column;
 import jakarta.persistence.ElementCollection;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.EnumType;
 import jakarta.persistence.Enumerated;
 import jakarta.persistence.FetchType;
@@ -18,6 +22,7 @@ import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.MapKeyColumn;
 import jakarta.persistence.Table;
+import jakarta.persistence.TableGenerator;
 import jakarta.validation.constraints.NotEmpty;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -28,40 +33,55 @@ import lombok.NoArgsConstructor;
  */
 @Entity
 @Table ( name = "customer_order" )
+@EntityListeners ( OrderItemIndexListener.class )
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class Order {
 
+    /**
+     * Most orders or customers whose collections are loaded together in one
+     * query, so a listing page of up to this many orders reads their items
+     * and their customers' roles with one query each
+     */
+    public static final int      FETCH_BATCH_SIZE = 500;
+
     /** Unique identifier for the order. */
     @Id
-    @GeneratedValue ( strategy = GenerationType.IDENTITY )
+    @GeneratedValue ( strategy = GenerationType.TABLE, generator = "order_id" )
+    @TableGenerator ( name = "order_id", table = IdAllocation.TABLE, pkColumnName = IdAllocation.KEY_COLUMN,
+            valueColumnName = IdAllocation.VALUE_COLUMN, pkColumnValue = IdAllocation.ORDER,
+            allocationSize = IdAllocation.ALLOCATION_SIZE )
     private Long                 id;
 
-    /** The customer who placed the order. */
-    @ManyToOne ( fetch = FetchType.EAGER )
+    /**
+     * The customer who placed the order. Loaded only when used; listings
+     * fetch it in the same query as the orders.
+     */
+    @ManyToOne ( fetch = FetchType.LAZY )
     @JoinColumn ( name = "customer_id", nullable = false )
     private User                 customer;
 
     /** The tip the customer gives on the order. */
     @Column ( name = "tip", nullable = false )
-    private Double               tip    = 0.0;
+    private Double               tip              = 0.0;
 
     /**
      * Map storing the items and their quantities in the order. The key is the
      * item's name, and the value is the quantity.
      */
     @ElementCollection
+    @BatchSize ( size = FETCH_BATCH_SIZE )
     @CollectionTable ( name = "order_items", joinColumns = @JoinColumn ( name = "order_id" ) )
     @MapKeyColumn ( name = "item_name" )
     @Column ( name = "quantity" )
     @NotEmpty ( message = "The order must contain at least one item." )
-    private Map<String, Integer> items  = new HashMap<>();
+    private Map<String, Integer> items            = new HashMap<>();
 
     /** Status of the order (PLACED, READY, COMPLETED, or CANCELLED). */
     @Enumerated ( EnumType.STRING )
-    private OrderStatus          status = OrderStatus.PLACED; // Default to
-                                                              // PLACED
+    private OrderStatus          status           = OrderStatus.PLACED; // Default to
+                                                                        // PLACED
 
     /** keep track of the date of purchase for order history */
     @Column ( name = "created_at", nullable = false, updatable = false )
@@ -71,4 +91,25 @@ public class Order {
     @Column ( name = "total_price", nullable = false )
     private Double               totalPrice;
 
+    /**
+     * When the order was fulfilled, or null if it has not been. Only written
+     * by the statement that changes the status.
+     */
+    @Column ( name = "fulfilled_at", insertable = false, updatable = false )
+    private LocalDateTime        fulfilledAt;
+
+    /**
+     * When the order was picked up, or null if it has not been. Only written
+     * by the statement that changes the status.
+     */
+    @Column ( name = "picked_up_at", insertable = false, updatable = false )
+    private LocalDateTime        pickedUpAt;
+
+    /**
+     * When the order was cancelled, or null if it has not been. Only written
+     * by the statement that changes the status.
+     */
+    @Column ( name = "cancelled_at", insertable = false, updatable = false )
+    private LocalDateTime        cancelledAt;
+
 }
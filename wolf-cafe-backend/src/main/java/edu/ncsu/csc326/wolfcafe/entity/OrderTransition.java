@@ -0,0 +1,74 @@
+package edu.ncsu.csc326.wolfcafe.entity;
+
+import java.time.LocalDateTime;
+
+/**
+ * The changes of status an order may go through. Each transition moves an
+ * order from one status to another and is only allowed while the order is
+ * still in the status it starts from. The status it ends in decides which
+ * status-change time is recorded.
+ */
+public enum OrderTransition {
+
+    /** The order has been made */
+    FULFILL ( OrderStatus.PLACED, OrderStatus.FULFILLED ),
+
+    /** The customer has collected the order */
+    PICK_UP ( OrderStatus.FULFILLED, OrderStatus.PICKED_UP ),
+
+    /** The order will not be made */
+    CANCEL ( OrderStatus.PLACED, OrderStatus.CANCELLED );
+
+    /** Status the order must be in */
+    private final OrderStatus from;
+
+    /** Status the order is moved to */
+    private final OrderStatus to;
+
+    /**
+     * Creates a transition.
+     *
+     * @param from
+     *            status the order must be in
+     * @param to
+     *            status the order is moved to
+     */
+    OrderTransition ( final OrderStatus from, final OrderStatus to ) {
+        this.from = from;
+        this.to = to;
+    }
+
+    /**
+     * Gets the status the order must be in.
+     *
+     * @return the status the transition starts from
+     */
+    public OrderStatus getFrom () {
+        return from;
+    }
+
+    /**
+     * Gets the status the order is moved to.
+     *
+     * @return the status the transition ends in
+     */
+    public OrderStatus getTo () {
+        return to;
+    }
+
+    /**
+     * Gets the time this transition records for an order reaching a status.
+     * Only the time of the status the transition ends in is recorded.
+     *
+     * @param status
+     *            the status whose time is asked for
+     * @param at
+     *            the time of the change
+     * @return the time of the change if the transition ends in the status,
+     *         or null to leave the time recorded for it as it is
+     */
+    public LocalDateTime timeReached ( final OrderStatus status, final LocalDateTime at ) {
+        return status == to ? at : null;
+    }
+
+}
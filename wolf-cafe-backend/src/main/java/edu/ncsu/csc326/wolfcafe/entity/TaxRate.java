@@ -1,6 +1,9 @@
 package edu.ncsu.csc326.wolfcafe.entity;
 
+import edu.ncsu.csc326.wolfcafe.cache.TaxRateCacheListener;
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
@@ -20,6 +23,7 @@ import lombok.Setter;
 @AllArgsConstructor
 @Entity
 @Table ( name = "tax_rate" )
+@EntityListeners ( TaxRateCacheListener.class )
 public class TaxRate {
     /** Unique identifier for the tax rate in the system. */
     @Id
@@ -28,5 +32,8 @@ public class TaxRate {
     private Long   id;
     /** The rate of the tax */
     private Double rate;
+    /** Version of the rate, increased by one every time the rate is set */
+    @Column ( name = "rate_version" )
+    private Long   version;
 
 }
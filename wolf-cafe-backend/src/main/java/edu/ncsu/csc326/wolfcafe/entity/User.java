@@ -2,6 +2,8 @@ package edu.ncsu.csc326.wolfcafe.entity;
 
 import java.util.Collection;
 
+import org.hibernate.annotations.BatchSize;
+
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.FetchType;
@@ -12,6 +14,7 @@ import jakarta.persistence.JoinColumn;
 import jakarta.persistence.JoinTable;
 import jakarta.persistence.ManyToMany;
 import jakarta.persistence.Table;
+import jakarta.persistence.TableGenerator;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
@@ -29,7 +32,10 @@ import lombok.Setter;
 public class User {
     /** Unique identifier for a user in the system. */
     @Id
-    @GeneratedValue ( strategy = GenerationType.IDENTITY )
+    @GeneratedValue ( strategy = GenerationType.TABLE, generator = "user_id" )
+    @TableGenerator ( name = "user_id", table = IdAllocation.TABLE, pkColumnName = IdAllocation.KEY_COLUMN,
+            valueColumnName = IdAllocation.VALUE_COLUMN, pkColumnValue = IdAllocation.USER,
+            allocationSize = IdAllocation.ALLOCATION_SIZE )
     private Long             id;
     /** Name of the user */
     private String           name;
@@ -44,6 +50,7 @@ public class User {
     private String           password;
     /** The specific role that the user possesses (STAFF, CUSTOMER, ADMIN) */
     @ManyToMany ( fetch = FetchType.EAGER )
+    @BatchSize ( size = Order.FETCH_BATCH_SIZE )
     @JoinTable ( name = "users_roles", joinColumns = @JoinColumn ( name = "user_id", referencedColumnName = "id" ),
             inverseJoinColumns = @JoinColumn ( name = "role_id", referencedColumnName = "id" ) )
     private Collection<Role> roles;
@@ -0,0 +1,535 @@
+package edu.ncsu.csc326.wolfcafe.events;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import edu.ncsu.csc326.wolfcafe.dto.OrderDto;
+import edu.ncsu.csc326.wolfcafe.dto.OrderEventDto;
+import edu.ncsu.csc326.wolfcafe.entity.OrderStatus;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Pushes committed order changes to the screens subscribed to the staff order
+ * board as server-sent events. A change is published only once the transaction
+ * that made it commits, and changes that roll back are never seen. Each change
+ * gets the next event id and is kept in a bounded replay buffer, so a screen
+ * that reconnects with Last-Event-ID is sent the changes it missed; if they
+ * are no longer in the buffer it is sent a reset event instead and should
+ * reload the board. Ids start again from 1 when the application restarts, so
+ * the id sent to screens is prefixed with an epoch picked at startup, and a
+ * screen that reconnects with an id from an earlier start is sent a reset
+ * event too. Each subscriber has its own queue of at most
+ * subscriber-queue-size events, written in order by a daemon thread that is
+ * only held while there is something to write, so a slow screen never holds
+ * up the others or the commit that published the change; a screen that falls
+ * so far behind that its queue fills is dropped and reconnects with
+ * Last-Event-ID. A comment is queued every heartbeat-seconds so proxies keep
+ * the connections open. Customers waiting on one order can
+ * instead park a request until that order's status changes: the request is
+ * answered by the commit that changes it, or with no content once
+ * poll-timeout-milliseconds pass, and holds no thread in between. The number
+ * of subscribers and of orders being waited on are reported as
+ * wolfcafe.orders.events.subscribers and wolfcafe.orders.events.waiters. Other
+ * components can also register a listener to be told about every committed
+ * change.
+ */
+@Component
+public class OrderEventHub {
+
+    /** Name of the event carrying a changed order */
+    public static final String                        ORDER_EVENT = "order";
+
+    /** Name of the event telling a subscriber it missed changes */
+    public static final String                        RESET_EVENT = "reset";
+
+    /** Separates the epoch from the id in the ids sent to subscribers */
+    private static final char                         SEPARATOR   = '-';
+
+    /** Records the number of subscribers and waiters */
+    @Autowired
+    private MeterRegistry                             meterRegistry;
+
+    /** Most changes kept for subscribers that reconnect */
+    @Value ( "${app.orders.events.replay-size:1000}" )
+    private int                                       replaySize;
+
+    /** How long a subscription lasts before the client has to reconnect */
+    @Value ( "${app.orders.events.timeout-milliseconds:1800000}" )
+    private long                                      timeoutMilliseconds;
+
+    /** Time between heartbeats sent to every subscriber */
+    @Value ( "${app.orders.events.heartbeat-seconds:25}" )
+    private long                                      heartbeatSeconds;
+
+    /** How long a request waiting for an order to change is held */
+    @Value ( "${app.orders.events.poll-timeout-milliseconds:30000}" )
+    private long                                      pollTimeoutMilliseconds;
+
+    /** Most events waiting to be written to one subscriber */
+    @Value ( "${app.orders.events.subscriber-queue-size:256}" )
+    private int                                       subscriberQueueSize;
+
+    /** Open subscriptions */
+    private final List<Subscriber>                    subscribers = new CopyOnWriteArrayList<>();
+
+    /** Told about every committed change */
+    private final List<Consumer<OrderDto>>            listeners   = new CopyOnWriteArrayList<>();
+
+    /** Requests waiting for a change, by the id of the order they wait on */
+    private final Map<Long, List<Consumer<OrderDto>>> waiters     = new ConcurrentHashMap<>();
+
+    /** Latest changes, oldest first, guarded by lock */
+    private final Deque<OrderEventDto>                replay      = new ArrayDeque<>();
+
+    /** Guards replay and lastId, and the order events are queued in */
+    private final ReentrantLock                       lock        = new ReentrantLock();
+
+    /** Id of the latest change, guarded by lock */
+    private long                                      lastId;
+
+    /** Picked at startup and put in front of every id sent to subscribers */
+    private final String                              epoch       = Long
+            .toString( System.currentTimeMillis(), Character.MAX_RADIX );
+
+    /** Queues the heartbeats */
+    private ScheduledExecutorService                  executor;
+
+    /** Writes each subscriber's queue, one thread per subscriber at a time */
+    private ExecutorService                           writers;
+
+    /**
+     * Starts the threads that write to subscribers and registers the metrics.
+     */
+    @PostConstruct
+    public void start () {
+        executor = Executors.newSingleThreadScheduledExecutor( task -> {
+            final Thread thread = new Thread( task, "order-events" );
+            thread.setDaemon( true );
+            return thread;
+        } );
+        writers = Executors.newCachedThreadPool( task -> {
+            final Thread thread = new Thread( task, "order-events-writer" );
+            thread.setDaemon( true );
+            return thread;
+        } );
+        executor.scheduleWithFixedDelay( this::heartbeat, heartbeatSeconds, heartbeatSeconds, TimeUnit.SECONDS );
+        meterRegistry.gaugeCollectionSize( "wolfcafe.orders.events.subscribers", Tags.empty(), subscribers );
+        meterRegistry.gaugeMapSize( "wolfcafe.orders.events.waiters", Tags.empty(), waiters );
+    }
+
+    /**
+     * Closes every subscription when the application shuts down.
+     */
+    @PreDestroy
+    public void stop () {
+        executor.shutdownNow();
+        writers.shutdownNow();
+        for ( final Subscriber subscriber : subscribers ) {
+            subscriber.emitter.complete();
+        }
+        subscribers.clear();
+    }
+
+    /**
+     * Opens a subscription to the order changes. A subscriber that passes the
+     * id of the last event it saw is first sent the changes since, or a reset
+     * event if they are no longer kept or the id is from an earlier start.
+     *
+     * @param lastEventId
+     *            the Last-Event-ID sent by a reconnecting client, or null for
+     *            a new subscriber
+     * @return the subscription to send to the client
+     */
+    public SseEmitter subscribe ( final String lastEventId ) {
+        final SseEmitter emitter = new SseEmitter( timeoutMilliseconds );
+        final Subscriber subscriber = new Subscriber( emitter, subscriberQueueSize );
+        emitter.onCompletion( () -> subscribers.remove( subscriber ) );
+        emitter.onTimeout( emitter::complete );
+        emitter.onError( e -> subscribers.remove( subscriber ) );
+
+        lock.lock();
+        try {
+            subscribers.add( subscriber );
+            if ( lastEventId != null ) {
+                final Optional<List<OrderEventDto>> missed = eventsAfter( parseId( lastEventId ) );
+                if ( missed.isEmpty() ) {
+                    enqueue( subscriber, SseEmitter.event().name( RESET_EVENT ).data( "" ) );
+                }
+                else {
+                    for ( final OrderEventDto event : missed.get() ) {
+                        enqueue( subscriber, toEvent( event ) );
+                    }
+                }
+            }
+        }
+        finally {
+            lock.unlock();
+        }
+        return emitter;
+    }
+
+    /**
+     * Registers a listener to be told about every change to an order once it
+     * has committed, on the thread that committed it. Listeners must be quick
+     * and must not throw.
+     *
+     * @param listener
+     *            receives each changed order
+     */
+    public void addListener ( final Consumer<OrderDto> listener ) {
+        listeners.add( listener );
+    }
+
+    /**
+     * Parks a request until an order's status differs from the one the client
+     * last saw. The request is registered before the current order is read, so
+     * a change that commits in between is not missed. If the status already
+     * differs, the request is answered straight away.
+     *
+     * @param orderId
+     *            id of the order to wait on
+     * @param seen
+     *            the status the client last saw, or null to answer with the
+     *            current order
+     * @param current
+     *            reads the order as it is now, throwing if the caller may not
+     *            see it
+     * @return the parked request, answered with the order once its status
+     *         differs, or with no content once the poll timeout passes
+     */
+    public DeferredResult<ResponseEntity<OrderDto>> awaitChange ( final Long orderId, final OrderStatus seen,
+            final Supplier<OrderDto> current ) {
+        final DeferredResult<ResponseEntity<OrderDto>> result = new DeferredResult<>( pollTimeoutMilliseconds,
+                ResponseEntity.noContent().build() );
+        final Consumer<OrderDto> waiter = order -> {
+            if ( order.getStatus() != seen ) {
+                result.setResult( ResponseEntity.ok( order ) );
+            }
+        };
+        waiters.compute( orderId, ( id, waiting ) -> {
+            final List<Consumer<OrderDto>> list = waiting == null ? new CopyOnWriteArrayList<>() : waiting;
+            list.add( waiter );
+            return list;
+        } );
+        result.onCompletion( () -> removeWaiter( orderId, waiter ) );
+
+        try {
+            waiter.accept( current.get() );
+        }
+        catch ( final RuntimeException e ) {
+            removeWaiter( orderId, waiter );
+            throw e;
+        }
+        return result;
+    }
+
+    /**
+     * Publishes a change to an order once the current transaction commits, or
+     * straight away when no transaction is active. The order must already be
+     * mapped, since the entity may not be readable after the commit.
+     *
+     * @param order
+     *            the order as changed
+     */
+    public void publish ( final OrderDto order ) {
+        if ( !TransactionSynchronizationManager.isSynchronizationActive() ) {
+            append( order );
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization( new TransactionSynchronization() {
+            @Override
+            public void afterCommit () {
+                append( order );
+            }
+        } );
+    }
+
+    /**
+     * Gets the id of the latest change published.
+     *
+     * @return the id, or 0 if nothing has been published since startup
+     */
+    public long lastEventId () {
+        lock.lock();
+        try {
+            return lastId;
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Gets the id sent to subscribers for a change: the change's id prefixed
+     * with the epoch of this start.
+     *
+     * @param id
+     *            id of the change
+     * @return the id sent as the server-sent event id
+     */
+    public String eventId ( final long id ) {
+        return epoch + SEPARATOR + id;
+    }
+
+    /**
+     * Gets the changes published after an event, oldest first.
+     *
+     * @param lastEventId
+     *            id of the last event already seen, 0 for none
+     * @return the changes after the event, or empty if some of them are no
+     *         longer kept or the id was never handed out
+     */
+    public Optional<List<OrderEventDto>> eventsAfter ( final long lastEventId ) {
+        lock.lock();
+        try {
+            final long oldestId = replay.isEmpty() ? lastId + 1 : replay.peekFirst().getId();
+            if ( lastEventId < oldestId - 1 || lastEventId > lastId ) {
+                return Optional.empty();
+            }
+            final List<OrderEventDto> events = new ArrayList<>();
+            for ( final OrderEventDto event : replay ) {
+                if ( event.getId() > lastEventId ) {
+                    events.add( event );
+                }
+            }
+            return Optional.of( events );
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Gives a committed change the next id, keeps it for replay, queues it for
+     * every subscriber, tells the listeners and answers the requests waiting
+     * on the order.
+     *
+     * @param order
+     *            the order as changed
+     */
+    private void append ( final OrderDto order ) {
+        lock.lock();
+        try {
+            final OrderEventDto event = new OrderEventDto( ++lastId, order );
+            replay.addLast( event );
+            if ( replay.size() > replaySize ) {
+                replay.removeFirst();
+            }
+            for ( final Subscriber subscriber : subscribers ) {
+                enqueue( subscriber, toEvent( event ) );
+            }
+        }
+        finally {
+            lock.unlock();
+        }
+
+        for ( final Consumer<OrderDto> listener : listeners ) {
+            listener.accept( order );
+        }
+        final List<Consumer<OrderDto>> waiting = waiters.get( order.getId() );
+        if ( waiting != null ) {
+            for ( final Consumer<OrderDto> waiter : waiting ) {
+                waiter.accept( order );
+            }
+        }
+    }
+
+    /**
+     * Stops a request waiting on an order, forgetting the order once nobody
+     * waits on it.
+     *
+     * @param orderId
+     *            id of the order
+     * @param waiter
+     *            the request's waiter
+     */
+    private void removeWaiter ( final Long orderId, final Consumer<OrderDto> waiter ) {
+        waiters.computeIfPresent( orderId, ( id, waiting ) -> {
+            waiting.remove( waiter );
+            return waiting.isEmpty() ? null : waiting;
+        } );
+    }
+
+    /**
+     * Queues a comment for every subscriber so idle connections are not closed
+     * by proxies, and so subscribers that went away are noticed.
+     */
+    private void heartbeat () {
+        for ( final Subscriber subscriber : subscribers ) {
+            enqueue( subscriber, SseEmitter.event().comment( "heartbeat" ) );
+        }
+    }
+
+    /**
+     * Queues an event for one subscriber without waiting, and starts writing
+     * its queue unless that is already under way. A subscriber whose queue is
+     * full has fallen too far behind and is dropped: it stops being sent
+     * events and its subscription is completed once any write in progress
+     * returns, so the client reconnects and catches up from the replay buffer.
+     *
+     * @param subscriber
+     *            the subscription to write to
+     * @param event
+     *            the event to write
+     */
+    private void enqueue ( final Subscriber subscriber, final SseEmitter.SseEventBuilder event ) {
+        if ( subscriber.closed.get() ) {
+            return;
+        }
+        if ( !subscriber.queue.offer( event ) ) {
+            subscribers.remove( subscriber );
+            subscriber.closed.set( true );
+            subscriber.queue.clear();
+        }
+        if ( subscriber.writing.compareAndSet( false, true ) ) {
+            try {
+                writers.execute( () -> write( subscriber ) );
+            }
+            catch ( final RejectedExecutionException e ) {
+                // Shutting down; the subscriptions are being closed anyway
+            }
+        }
+    }
+
+    /**
+     * Writes a subscriber's queued events in order until the queue is empty,
+     * then completes the subscription if it was dropped. Only one thread
+     * writes to a subscriber at a time.
+     *
+     * @param subscriber
+     *            the subscription to write to
+     */
+    private void write ( final Subscriber subscriber ) {
+        do {
+            SseEmitter.SseEventBuilder event;
+            while ( !subscriber.closed.get() && ( event = subscriber.queue.poll() ) != null ) {
+                send( subscriber, event );
+            }
+            if ( subscriber.closed.get() ) {
+                subscriber.emitter.complete();
+                return;
+            }
+            subscriber.writing.set( false );
+        }
+        while ( !subscriber.queue.isEmpty() && subscriber.writing.compareAndSet( false, true ) );
+    }
+
+    /**
+     * Writes an event to one subscriber, dropping the subscriber if it has
+     * gone away. The container completes the subscription itself.
+     *
+     * @param subscriber
+     *            the subscription to write to
+     * @param event
+     *            the event to write
+     */
+    private void send ( final Subscriber subscriber, final SseEmitter.SseEventBuilder event ) {
+        try {
+            subscriber.emitter.send( event );
+        }
+        catch ( final IOException | IllegalStateException e ) {
+            subscribers.remove( subscriber );
+            subscriber.closed.set( true );
+            subscriber.queue.clear();
+        }
+    }
+
+    /**
+     * Builds the server-sent event for a change.
+     *
+     * @param event
+     *            the change
+     * @return the event, with the change's id and the order as JSON
+     */
+    private SseEmitter.SseEventBuilder toEvent ( final OrderEventDto event ) {
+        return SseEmitter.event().id( eventId( event.getId() ) ).name( ORDER_EVENT ).data( event.getOrder(),
+                MediaType.APPLICATION_JSON );
+    }
+
+    /**
+     * Reads a Last-Event-ID, treating one from an earlier start or that is not
+     * an id at all as never handed out.
+     *
+     * @param lastEventId
+     *            the header value
+     * @return the id of the change, or -1 if it was not handed out by this
+     *         start
+     */
+    private long parseId ( final String lastEventId ) {
+        final String prefix = epoch + SEPARATOR;
+        final String value = lastEventId.trim();
+        if ( !value.startsWith( prefix ) ) {
+            return -1;
+        }
+        try {
+            return Long.parseLong( value.substring( prefix.length() ) );
+        }
+        catch ( final NumberFormatException e ) {
+            return -1;
+        }
+    }
+
+    /**
+     * An open subscription and the events waiting to be written to it.
+     */
+    private static final class Subscriber {
+
+        /** The subscription */
+        private final SseEmitter                                emitter;
+
+        /** Events not yet written, oldest first */
+        private final BlockingQueue<SseEmitter.SseEventBuilder> queue;
+
+        /** Whether a thread is writing the queue */
+        private final AtomicBoolean                             writing = new AtomicBoolean();
+
+        /** Whether the subscriber was dropped or went away */
+        private final AtomicBoolean                             closed  = new AtomicBoolean();
+
+        /**
+         * Creates a subscriber with an empty queue.
+         *
+         * @param emitter
+         *            the subscription
+         * @param queueSize
+         *            most events waiting to be written
+         */
+        private Subscriber ( final SseEmitter emitter, final int queueSize ) {
+            this.emitter = emitter;
+            this.queue = new ArrayBlockingQueue<>( queueSize );
+        }
+
+    }
+
+}
@@ -2,6 +2,7 @@ package edu.ncsu.csc326.wolfcafe.exception;
 
 import java.time.LocalDateTime;
 
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.AccessDeniedException;
@@ -121,4 +122,23 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>( errorDetails, HttpStatus.CONFLICT ); // 409
                                                                           // Conflict
     }
+
+    /**
+     * Handles OptimisticLockingFailureException and returns a Conflict
+     * response.
+     *
+     * @param ex
+     *            The exception that was thrown.
+     * @param request
+     *            The current web request details.
+     * @return A ResponseEntity containing the error details and HTTP status.
+     */
+    @ExceptionHandler ( OptimisticLockingFailureException.class )
+    public ResponseEntity<ErrorDetails> handleOptimisticLockingFailureException (
+            final OptimisticLockingFailureException ex, final WebRequest request ) {
+        final ErrorDetails errorDetails = new ErrorDetails( LocalDateTime.now(),
+                "The resource was changed by another request. Please try again.", request.getDescription( false ) );
+        return new ResponseEntity<>( errorDetails, HttpStatus.CONFLICT ); // 409
+                                                                          // Conflict
+    }
 }
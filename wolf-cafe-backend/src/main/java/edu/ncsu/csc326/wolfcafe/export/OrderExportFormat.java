@@ -0,0 +1,73 @@
+package edu.ncsu.csc326.wolfcafe.export;
+
+import org.springframework.http.HttpStatus;
+
+import edu.ncsu.csc326.wolfcafe.exception.WolfCafeAPIException;
+
+/**
+ * Formats the order history can be exported in.
+ */
+public enum OrderExportFormat {
+
+    /** One JSON order per line */
+    NDJSON ( "application/x-ndjson", "ndjson" ),
+
+    /** One CSV row per order, after a header row */
+    CSV ( "text/csv", "csv" );
+
+    /** Content type of a response in this format */
+    private final String contentType;
+
+    /** Extension of a file in this format */
+    private final String extension;
+
+    /**
+     * Creates a format.
+     *
+     * @param contentType
+     *            content type of a response in this format
+     * @param extension
+     *            extension of a file in this format
+     */
+    OrderExportFormat ( final String contentType, final String extension ) {
+        this.contentType = contentType;
+        this.extension = extension;
+    }
+
+    /**
+     * Returns the content type of a response in this format.
+     *
+     * @return the content type
+     */
+    public String getContentType () {
+        return contentType;
+    }
+
+    /**
+     * Returns the extension of a file in this format.
+     *
+     * @return the extension
+     */
+    public String getExtension () {
+        return extension;
+    }
+
+    /**
+     * Finds the format with the given name, ignoring case.
+     *
+     * @param name
+     *            name of the format, such as ndjson or csv
+     * @return the format
+     * @throws WolfCafeAPIException
+     *             if there is no format with that name
+     */
+    public static OrderExportFormat of ( final String name ) {
+        for ( final OrderExportFormat format : values() ) {
+            if ( format.name().equalsIgnoreCase( name ) ) {
+                return format;
+            }
+        }
+        throw new WolfCafeAPIException( HttpStatus.BAD_REQUEST, "Unsupported export format: " + name );
+    }
+
+}
@@ -0,0 +1,224 @@
+package edu.ncsu.csc326.wolfcafe.export;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import edu.ncsu.csc326.wolfcafe.dto.OrderDto;
+
+/**
+ * Writes exported orders to a stream one at a time. Each order is written as
+ * soon as it is handed over, so nothing but the current order is held in
+ * memory. CSV output starts with a header row; the items of an order go in a
+ * single column as name:quantity pairs separated by semicolons. Text that a
+ * spreadsheet would run as a formula is prefixed with a quote. The
+ * destination is only opened once there is something to write, so a request
+ * that fails before the first order can still be answered with an error.
+ */
+public class OrderExportWriter {
+
+    /**
+     * Opens the destination of an export.
+     */
+    @FunctionalInterface
+    public interface Target {
+
+        /**
+         * Opens the destination.
+         *
+         * @return the stream to write the export to
+         * @throws IOException
+         *             if the destination cannot be opened
+         */
+        OutputStream open () throws IOException;
+    }
+
+    /** Header row of a CSV export */
+    private static final String     CSV_HEADER     = "id,customerId,customerName,status,createdAt,tip,totalPrice,items";
+
+    /** Characters that make a spreadsheet read a cell as a formula */
+    private static final String     FORMULA_STARTS = "=+-@\t\r";
+
+    /** Format to write */
+    private final OrderExportFormat format;
+
+    /** Opens the destination of the export */
+    private final Target            target;
+
+    /**
+     * Writes orders as JSON without closing or flushing the destination, so
+     * orders go out as the response buffer fills
+     */
+    private final ObjectWriter      json;
+
+    /** Destination of the export, or null until it is opened */
+    private Writer                  out;
+
+    /** Whether the CSV header row has been written */
+    private boolean                 headerWritten;
+
+    /**
+     * Creates a writer.
+     *
+     * @param format
+     *            format to write
+     * @param target
+     *            opens the destination of the export
+     * @param objectMapper
+     *            writes orders as JSON the same way responses are written
+     */
+    public OrderExportWriter ( final OrderExportFormat format, final Target target,
+            final ObjectMapper objectMapper ) {
+        this.format = format;
+        this.target = target;
+        this.json = objectMapper.writer().without( JsonGenerator.Feature.AUTO_CLOSE_TARGET )
+                .without( SerializationFeature.FLUSH_AFTER_WRITE_VALUE );
+    }
+
+    /**
+     * Writes one order.
+     *
+     * @param order
+     *            the order to write
+     * @throws UncheckedIOException
+     *             if the order cannot be written, for example because the
+     *             client went away
+     */
+    public void write ( final OrderDto order ) {
+        try {
+            open();
+            if ( format == OrderExportFormat.NDJSON ) {
+                json.writeValue( out, order );
+                out.write( '\n' );
+            }
+            else {
+                writeHeader();
+                writeCsv( order );
+            }
+        }
+        catch ( final IOException e ) {
+            throw new UncheckedIOException( e );
+        }
+    }
+
+    /**
+     * Finishes the export, writing the CSV header row if no orders were
+     * written, and flushes what is left.
+     *
+     * @throws IOException
+     *             if the export cannot be written
+     */
+    public void finish () throws IOException {
+        open();
+        if ( format == OrderExportFormat.CSV ) {
+            writeHeader();
+        }
+        out.flush();
+    }
+
+    /**
+     * Opens the destination if it has not been opened yet.
+     *
+     * @throws IOException
+     *             if the destination cannot be opened
+     */
+    private void open () throws IOException {
+        if ( out == null ) {
+            out = new OutputStreamWriter( target.open(), StandardCharsets.UTF_8 );
+        }
+    }
+
+    /**
+     * Writes the CSV header row if it has not been written yet.
+     *
+     * @throws IOException
+     *             if the row cannot be written
+     */
+    private void writeHeader () throws IOException {
+        if ( !headerWritten ) {
+            out.write( CSV_HEADER );
+            out.write( "\r\n" );
+            headerWritten = true;
+        }
+    }
+
+    /**
+     * Writes one order as a CSV row.
+     *
+     * @param order
+     *            the order to write
+     * @throws IOException
+     *             if the row cannot be written
+     */
+    private void writeCsv ( final OrderDto order ) throws IOException {
+        final StringBuilder items = new StringBuilder();
+        for ( final Map.Entry<String, Integer> entry : order.getItems().entrySet() ) {
+            if ( items.length() > 0 ) {
+                items.append( ';' );
+            }
+            items.append( entry.getKey() ).append( ':' ).append( entry.getValue() );
+        }
+
+        out.write( field( order.getId() ) );
+        out.write( ',' );
+        out.write( field( order.getCustomerId() ) );
+        out.write( ',' );
+        out.write( field( text( order.getCustomerName() ) ) );
+        out.write( ',' );
+        out.write( field( order.getStatus() ) );
+        out.write( ',' );
+        out.write( field( order.getCreatedAt() ) );
+        out.write( ',' );
+        out.write( field( order.getTip() ) );
+        out.write( ',' );
+        out.write( field( order.getTotalPrice() ) );
+        out.write( ',' );
+        out.write( field( text( items.toString() ) ) );
+        out.write( "\r\n" );
+    }
+
+    /**
+     * Stops a spreadsheet from running text entered by users as a formula, by
+     * prefixing text that starts with a formula character with a quote.
+     *
+     * @param value
+     *            the text, or null
+     * @return the text, safe to open in a spreadsheet
+     */
+    private static String text ( final String value ) {
+        if ( value == null || value.isEmpty() || FORMULA_STARTS.indexOf( value.charAt( 0 ) ) < 0 ) {
+            return value;
+        }
+        return '\'' + value;
+    }
+
+    /**
+     * Formats a value as a CSV field, quoting it if it contains a comma,
+     * quote or line break.
+     *
+     * @param value
+     *            the value, or null for an empty field
+     * @return the field
+     */
+    private static String field ( final Object value ) {
+        if ( value == null ) {
+            return "";
+        }
+        final String text = value.toString();
+        if ( text.indexOf( ',' ) < 0 && text.indexOf( '"' ) < 0 && text.indexOf( '\n' ) < 0
+                && text.indexOf( '\r' ) < 0 ) {
+            return text;
+        }
+        return '"' + text.replace( "\"", "\"\"" ) + '"';
+    }
+
+}
@@ -0,0 +1,135 @@
+package edu.ncsu.csc326.wolfcafe.export;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+
+import edu.ncsu.csc326.wolfcafe.dto.OrderDto;
+import edu.ncsu.csc326.wolfcafe.dto.OrderExportRow;
+
+/**
+ * Helpers for reading orders one at a time from sources that are already in
+ * order, such as the item lines streamed from the database and the segments of
+ * the order archive. Only the next order of each source is held in memory.
+ */
+public final class OrderStreams {
+
+    /** Oldest order first, and lowest id first among orders created together */
+    public static final Comparator<OrderDto> OLDEST_FIRST = Comparator.comparing( OrderDto::getCreatedAt )
+            .thenComparing( OrderDto::getId );
+
+    /**
+     * Not meant to be constructed.
+     */
+    private OrderStreams () {
+    }
+
+    /**
+     * Groups item lines back into orders. The lines of each order must be next
+     * to each other; an order is returned once the line after its last one has
+     * been read.
+     *
+     * @param rows
+     *            the item lines, grouped by order
+     * @return the orders, in the order their lines were read
+     */
+    public static Iterator<OrderDto> group ( final Iterator<OrderExportRow> rows ) {
+        return new Iterator<OrderDto>() {
+
+            /** First line of the next order, already read */
+            private OrderExportRow pending = rows.hasNext() ? rows.next() : null;
+
+            @Override
+            public boolean hasNext () {
+                return pending != null;
+            }
+
+            @Override
+            public OrderDto next () {
+                if ( pending == null ) {
+                    throw new NoSuchElementException();
+                }
+                final OrderExportRow first = pending;
+                final OrderDto order = new OrderDto( first.getOrderId(), first.getCustomerId(), new HashMap<>(),
+                        first.getStatus(), first.getCustomerName(), first.getCreatedAt(), first.getTotalPrice(),
+                        first.getTip() );
+                OrderExportRow row = first;
+                while ( row != null && row.getOrderId().equals( first.getOrderId() ) ) {
+                    order.getItems().put( row.getItemName(), row.getQuantity() );
+                    row = rows.hasNext() ? rows.next() : null;
+                }
+                pending = row;
+                return order;
+            }
+        };
+    }
+
+    /**
+     * Merges sources that are each sorted into one sorted sequence.
+     *
+     * @param sources
+     *            the sources, each sorted by the comparator
+     * @param comparator
+     *            the order of the sources and of the result
+     * @return the orders of all the sources, sorted by the comparator
+     */
+    public static Iterator<OrderDto> merge ( final List<Iterator<OrderDto>> sources,
+            final Comparator<OrderDto> comparator ) {
+        final PriorityQueue<Head> heads = new PriorityQueue<>( Math.max( 1, sources.size() ),
+                ( a, b ) -> comparator.compare( a.order, b.order ) );
+        for ( final Iterator<OrderDto> source : sources ) {
+            if ( source.hasNext() ) {
+                heads.add( new Head( source.next(), source ) );
+            }
+        }
+
+        return new Iterator<OrderDto>() {
+
+            @Override
+            public boolean hasNext () {
+                return !heads.isEmpty();
+            }
+
+            @Override
+            public OrderDto next () {
+                final Head head = heads.poll();
+                if ( head == null ) {
+                    throw new NoSuchElementException();
+                }
+                if ( head.source.hasNext() ) {
+                    heads.add( new Head( head.source.next(), head.source ) );
+                }
+                return head.order;
+            }
+        };
+    }
+
+    /**
+     * The next order of one source being merged.
+     */
+    private static final class Head {
+
+        /** The next order of the source */
+        private final OrderDto           order;
+
+        /** The rest of the source */
+        private final Iterator<OrderDto> source;
+
+        /**
+         * Creates the head of a source.
+         *
+         * @param order
+         *            the next order of the source
+         * @param source
+         *            the rest of the source
+         */
+        private Head ( final OrderDto order, final Iterator<OrderDto> source ) {
+            this.order = order;
+            this.source = source;
+        }
+    }
+
+}
@@ -0,0 +1,199 @@
+package edu.ncsu.csc326.wolfcafe.kitchen;
+
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import edu.ncsu.csc326.wolfcafe.dto.OrderDto;
+import edu.ncsu.csc326.wolfcafe.entity.OrderStatus;
+import edu.ncsu.csc326.wolfcafe.events.OrderEventHub;
+import edu.ncsu.csc326.wolfcafe.repository.OrderRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * In-memory first-in first-out queue of the orders waiting to be made, so
+ * staff can claim the next order instead of choosing from the whole list. The
+ * queue is rebuilt from the PLACED orders in the database at startup and kept
+ * up to date from the committed changes published by the OrderEventHub: a
+ * placed order joins the back of the queue, and an order that is fulfilled or
+ * cancelled leaves it. Claiming takes the order at the front without locking,
+ * so two staff members never get the same order. A claim is a lease: if the
+ * order is not fulfilled or cancelled within lease-milliseconds it goes back
+ * to the front of the queue for someone else. The queue reports the following
+ * metrics:
+ * <ul>
+ * <li>wolfcafe.kitchen.orders: orders waiting to be made, claimed or not</li>
+ * <li>wolfcafe.kitchen.claims: orders currently claimed</li>
+ * <li>wolfcafe.kitchen.claims.expired: claims that ran out and were put back
+ * in the queue</li>
+ * </ul>
+ */
+@Component
+public class KitchenQueue {
+
+    /** Connection to the order repository */
+    @Autowired
+    private OrderRepository          orderRepository;
+
+    /** Publishes the committed order changes the queue follows */
+    @Autowired
+    private OrderEventHub            orderEventHub;
+
+    /** Records the size of the queue and the expired claims */
+    @Autowired
+    private MeterRegistry            meterRegistry;
+
+    /** How long a claim lasts before the order goes back in the queue */
+    @Value ( "${app.orders.kitchen.lease-milliseconds:300000}" )
+    private long                     leaseMilliseconds;
+
+    /** Time between checks for expired claims */
+    @Value ( "${app.orders.kitchen.reap-interval-milliseconds:1000}" )
+    private long                     reapIntervalMilliseconds;
+
+    /** Ids of the orders waiting to be made, claimed or not */
+    private final Set<Long>          placed = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Ids of the orders waiting to be claimed, oldest first. Orders that have
+     * since left are skipped when they reach the front.
+     */
+    private final Deque<Long>        queue  = new ConcurrentLinkedDeque<>();
+
+    /** When the claim on each order being made runs out, by order id */
+    private final Map<Long, Long>    claims = new ConcurrentHashMap<>();
+
+    /** Claims that ran out */
+    private Counter                  expired;
+
+    /** Puts the orders of expired claims back in the queue */
+    private ScheduledExecutorService executor;
+
+    /**
+     * Follows the committed order changes, loads the orders already placed and
+     * starts checking for expired claims. The changes are followed before the
+     * orders are loaded, so an order placed in between is not missed.
+     */
+    @PostConstruct
+    public void start () {
+        orderEventHub.addListener( this::onChange );
+        for ( final Long id : orderRepository.findIdsByStatus( OrderStatus.PLACED ) ) {
+            add( id );
+        }
+
+        expired = meterRegistry.counter( "wolfcafe.kitchen.claims.expired" );
+        meterRegistry.gaugeCollectionSize( "wolfcafe.kitchen.orders", Tags.empty(), placed );
+        meterRegistry.gaugeMapSize( "wolfcafe.kitchen.claims", Tags.empty(), claims );
+
+        executor = Executors.newSingleThreadScheduledExecutor( task -> {
+            final Thread thread = new Thread( task, "kitchen-queue" );
+            thread.setDaemon( true );
+            return thread;
+        } );
+        executor.scheduleWithFixedDelay( () -> releaseExpiredClaims( System.currentTimeMillis() ),
+                reapIntervalMilliseconds, reapIntervalMilliseconds, TimeUnit.MILLISECONDS );
+    }
+
+    /**
+     * Stops checking for expired claims when the application shuts down.
+     */
+    @PreDestroy
+    public void stop () {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Claims the order at the front of the queue. Each order is handed to one
+     * caller at a time.
+     *
+     * @return the id of the claimed order, or null if no order is waiting
+     */
+    public Long claim () {
+        final Long expiresAt = System.currentTimeMillis() + leaseMilliseconds;
+        for ( Long id = queue.pollFirst(); id != null; id = queue.pollFirst() ) {
+            if ( placed.contains( id ) && claims.putIfAbsent( id, expiresAt ) == null ) {
+                return id;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Forgets an order that was claimed but turned out not to be waiting to
+     * be made any more.
+     *
+     * @param id
+     *            id of the order
+     */
+    public void remove ( final Long id ) {
+        placed.remove( id );
+        claims.remove( id );
+    }
+
+    /**
+     * Puts the orders whose claims ran out before the given time back at the
+     * front of the queue.
+     *
+     * @param now
+     *            the current time, in epoch milliseconds
+     * @return the number of orders put back
+     */
+    public int releaseExpiredClaims ( final long now ) {
+        final List<Long> ids = new ArrayList<>();
+        for ( final Map.Entry<Long, Long> entry : claims.entrySet() ) {
+            if ( entry.getValue() <= now && claims.remove( entry.getKey(), entry.getValue() )
+                    && placed.contains( entry.getKey() ) ) {
+                ids.add( entry.getKey() );
+            }
+        }
+        // They were at the front when they were claimed, so they go back there
+        for ( final Long id : ids ) {
+            queue.offerFirst( id );
+        }
+        expired.increment( ids.size() );
+        return ids.size();
+    }
+
+    /**
+     * Follows a committed change to an order.
+     *
+     * @param order
+     *            the order as changed
+     */
+    private void onChange ( final OrderDto order ) {
+        if ( order.getStatus() == OrderStatus.PLACED ) {
+            add( order.getId() );
+        }
+        else {
+            remove( order.getId() );
+        }
+    }
+
+    /**
+     * Adds an order to the back of the queue unless it is already there.
+     *
+     * @param id
+     *            id of the order
+     */
+    private void add ( final Long id ) {
+        if ( placed.add( id ) ) {
+            queue.offerLast( id );
+        }
+    }
+
+}
@@ -3,11 +3,11 @@ package edu.ncsu.csc326.wolfcafe.mapper;
 import java.util.HashMap;
 import java.util.Map;
 
+import edu.ncsu.csc326.wolfcafe.cache.ItemIndex;
 import edu.ncsu.csc326.wolfcafe.dto.InventoryDto;
 import edu.ncsu.csc326.wolfcafe.entity.Inventory;
 import edu.ncsu.csc326.wolfcafe.entity.Item;
 import edu.ncsu.csc326.wolfcafe.exception.ResourceNotFoundException;
-import edu.ncsu.csc326.wolfcafe.repository.ItemRepository;
 
 /**
  * Converts between InventoryDto and Inventory entity.
@@ -36,6 +36,7 @@ public class InventoryMapper {
 
 		// Set the converted item map to the DTO
 		inventoryDto.setItems(itemMap);
+		inventoryDto.setVersion(inventory.getVersion());
 
 		return inventoryDto;
 	}
@@ -43,24 +44,27 @@ public class InventoryMapper {
 	/**
 	 * Converts an InventoryDto to an Inventory entity.
 	 *
-	 * @param inventoryDto   InventoryDto to convert
-	 * @param itemRepository is an instance of the current item repository to get
-	 *                       items from
+	 * @param inventoryDto InventoryDto to convert
+	 * @param itemIndex    is the menu index to resolve all item names from in a
+	 *                     single pass
 	 * @return Inventory entity
 	 */
-	public static Inventory mapToInventory(final InventoryDto inventoryDto, final ItemRepository itemRepository) {
+	public static Inventory mapToInventory(final InventoryDto inventoryDto, final ItemIndex itemIndex) {
 		final Inventory inventory = new Inventory();
 		inventory.setId(inventoryDto.getId());
 
+		final Map<String, Item> menu = itemIndex.findAllByName(inventoryDto.getItems().keySet());
+
 		// Convert the Map<String, Integer> to Map<Item, Integer>
 		final Map<Item, Integer> itemMap = new HashMap<>();
 		for (final Map.Entry<String, Integer> entry : inventoryDto.getItems().entrySet()) {
 			final String itemName = entry.getKey();
 			final Integer amount = entry.getValue();
 
-			// Fetch the item from the repository by name to ensure persistence
-			final Item item = itemRepository.findByName(itemName)
-					.orElseThrow(() -> new ResourceNotFoundException("Item not found: " + itemName));
+			final Item item = menu.get(itemName);
+			if (item == null) {
+				throw new ResourceNotFoundException("Item not found: " + itemName);
+			}
 
 			itemMap.put(item, amount);
 		}
@@ -0,0 +1,75 @@
+package edu.ncsu.csc326.wolfcafe.mapper;
+
+import java.util.HashMap;
+
+import edu.ncsu.csc326.wolfcafe.dto.OrderDto;
+import edu.ncsu.csc326.wolfcafe.entity.Order;
+import edu.ncsu.csc326.wolfcafe.entity.User;
+
+/**
+ * Converts between OrderDto and Order entity. Fields are copied directly, so
+ * mapping a page of orders costs no reflection or type-map lookups.
+ */
+public class OrderMapper {
+
+	/**
+	 * Converts an Order entity to OrderDto.
+	 *
+	 * @param order Order to convert
+	 * @return OrderDto object
+	 */
+	public static OrderDto mapToOrderDto(final Order order) {
+		final OrderDto orderDto = new OrderDto();
+		orderDto.setId(order.getId());
+
+		final User customer = order.getCustomer();
+		if (customer != null) {
+			orderDto.setCustomerId(customer.getId());
+			orderDto.setCustomerName(customer.getName());
+		}
+
+		// Copy the items so the DTO never holds a persistent collection
+		if (order.getItems() != null) {
+			orderDto.setItems(new HashMap<>(order.getItems()));
+		}
+		orderDto.setStatus(order.getStatus());
+		orderDto.setCreatedAt(order.getCreatedAt());
+		orderDto.setTotalPrice(order.getTotalPrice());
+		orderDto.setTip(order.getTip());
+
+		return orderDto;
+	}
+
+	/**
+	 * Converts an OrderDto to an Order entity. Every field is copied as sent,
+	 * including nulls. The customer only carries the id and name from the DTO;
+	 * callers set the real customer.
+	 *
+	 * @param orderDto OrderDto to convert
+	 * @return Order entity
+	 */
+	public static Order mapToOrder(final OrderDto orderDto) {
+		final Order order = new Order();
+		order.setId(orderDto.getId());
+
+		if (orderDto.getCustomerId() != null || orderDto.getCustomerName() != null) {
+			final User customer = new User();
+			customer.setId(orderDto.getCustomerId());
+			customer.setName(orderDto.getCustomerName());
+			order.setCustomer(customer);
+		}
+
+		if (orderDto.getItems() != null) {
+			order.setItems(new HashMap<>(orderDto.getItems()));
+		}
+		else {
+			order.setItems(null);
+		}
+		order.setStatus(orderDto.getStatus());
+		order.setCreatedAt(orderDto.getCreatedAt());
+		order.setTotalPrice(orderDto.getTotalPrice());
+		order.setTip(orderDto.getTip());
+
+		return order;
+	}
+}
@@ -0,0 +1,57 @@
+package edu.ncsu.csc326.wolfcafe.mapper;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import edu.ncsu.csc326.wolfcafe.dto.RegisterDto;
+import edu.ncsu.csc326.wolfcafe.dto.RoleDto;
+import edu.ncsu.csc326.wolfcafe.dto.UserDto;
+import edu.ncsu.csc326.wolfcafe.dto.UserRoleRow;
+import edu.ncsu.csc326.wolfcafe.entity.User;
+
+/**
+ * Converts a RegisterDto to a User entity, and rows of the user list to
+ * UserDtos.
+ */
+public class UserMapper {
+
+	/**
+	 * Converts a RegisterDto to a User entity. The password is copied as given
+	 * and roles are left unset; callers encode the password and assign roles.
+	 *
+	 * @param registerDto RegisterDto to convert
+	 * @return User entity
+	 */
+	public static User mapToUser(final RegisterDto registerDto) {
+		final User user = new User();
+		user.setId(registerDto.getId());
+		user.setName(registerDto.getName());
+		user.setUsername(registerDto.getUsername());
+		user.setEmail(registerDto.getEmail());
+		user.setPassword(registerDto.getPassword());
+		return user;
+	}
+
+	/**
+	 * Groups the rows of the user list into one UserDto per user. The rows of
+	 * each user must be next to each other.
+	 *
+	 * @param rows one row per user and role, grouped by user
+	 * @return the users, in the order of their rows
+	 */
+	public static List<UserDto> mapToUserDtos(final List<UserRoleRow> rows) {
+		final List<UserDto> users = new ArrayList<>();
+		UserDto user = null;
+		for (final UserRoleRow row : rows) {
+			if (user == null || !user.getId().equals(row.getUserId())) {
+				user = new UserDto(row.getUserId(), row.getName(), row.getUsername(), row.getEmail(),
+						new ArrayList<>());
+				users.add(user);
+			}
+			if (row.getRoleId() != null) {
+				user.getRoles().add(new RoleDto(row.getRoleId(), row.getRoleName()));
+			}
+		}
+		return users;
+	}
+}
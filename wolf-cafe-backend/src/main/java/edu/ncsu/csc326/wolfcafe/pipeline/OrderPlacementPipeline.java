@@ -0,0 +1,225 @@
+package edu.ncsu.csc326.wolfcafe.pipeline;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+
+import edu.ncsu.csc326.wolfcafe.dto.OrderDto;
+import edu.ncsu.csc326.wolfcafe.exception.WolfCafeAPIException;
+import edu.ncsu.csc326.wolfcafe.service.OrderService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Optional group-commit mode for placing orders. When enabled, concurrent
+ * placeOrder calls are queued and a single worker collects them for up to
+ * max-wait-milliseconds or max-batch-size orders, whichever comes first. Each
+ * batch is placed by OrderService.placeOrders in one transaction, and every
+ * caller still gets back its own order or its own error. A caller never waits
+ * longer than result-timeout-milliseconds, and orders still queued when the
+ * application shuts down are failed rather than left waiting. When disabled,
+ * orders go straight to OrderService.placeOrder as before.
+ */
+@Component
+public class OrderPlacementPipeline {
+
+    /** Logger for batches that fail as a whole */
+    private static final Logger         logger = LoggerFactory.getLogger( OrderPlacementPipeline.class );
+
+    /** Service that places each batch */
+    @Autowired
+    private OrderService                orderService;
+
+    /** Whether orders are collected into batches */
+    @Value ( "${app.orders.group-commit.enabled:false}" )
+    private boolean                     enabled;
+
+    /** Longest time the first order of a batch waits for others to join */
+    @Value ( "${app.orders.group-commit.max-wait-milliseconds:5}" )
+    private long                        maxWaitMilliseconds;
+
+    /** Most orders placed in one batch */
+    @Value ( "${app.orders.group-commit.max-batch-size:32}" )
+    private int                         maxBatchSize;
+
+    /** Longest time a caller waits for its order to be queued and placed */
+    @Value ( "${app.orders.group-commit.result-timeout-milliseconds:30000}" )
+    private long                        resultTimeoutMilliseconds;
+
+    /** Set once the application starts shutting down */
+    private volatile boolean            stopped;
+
+    /** Orders waiting to be collected into a batch */
+    private BlockingQueue<PendingOrder> queue;
+
+    /** Thread that collects and places batches */
+    private Thread                      worker;
+
+    /**
+     * Starts the worker if group commit is enabled.
+     */
+    @PostConstruct
+    public void start () {
+        if ( !enabled ) {
+            return;
+        }
+        queue = new LinkedBlockingQueue<>( maxBatchSize * 64 );
+        worker = new Thread( this::run, "order-group-commit" );
+        worker.setDaemon( true );
+        worker.start();
+    }
+
+    /**
+     * Stops the worker when the application shuts down and fails the orders
+     * still waiting in the queue, so their callers are not left hanging.
+     */
+    @PreDestroy
+    public void stop () {
+        stopped = true;
+        if ( worker != null ) {
+            worker.interrupt();
+        }
+        if ( queue != null ) {
+            final List<PendingOrder> waiting = new ArrayList<>();
+            queue.drainTo( waiting );
+            for ( final PendingOrder pending : waiting ) {
+                pending.fail( shuttingDown() );
+            }
+        }
+    }
+
+    /**
+     * Places an order for the authenticated user, through a batch if group
+     * commit is enabled.
+     *
+     * @param orderDto
+     *            the order to place
+     * @return the saved order
+     */
+    public OrderDto place ( final OrderDto orderDto ) {
+        return place( orderDto, null );
+    }
+
+    /**
+     * Places an order for the authenticated user, through a batch if group
+     * commit is enabled, storing its Idempotency-Key in the transaction that
+     * saves the order.
+     *
+     * @param orderDto
+     *            the order to place
+     * @param idempotencyKey
+     *            the key to store with the order, prefixed with the username,
+     *            or null to store none
+     * @return the saved order
+     */
+    public OrderDto place ( final OrderDto orderDto, final String idempotencyKey ) {
+        if ( !enabled ) {
+            return idempotencyKey == null ? orderService.placeOrder( orderDto )
+                    : orderService.placeOrder( orderDto, idempotencyKey );
+        }
+
+        final String username = SecurityContextHolder.getContext().getAuthentication().getName();
+        final PendingOrder pending = new PendingOrder( orderDto, username, idempotencyKey );
+        try {
+            final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos( resultTimeoutMilliseconds );
+            if ( stopped || !queue.offer( pending, resultTimeoutMilliseconds, TimeUnit.MILLISECONDS ) ) {
+                throw new WolfCafeAPIException( HttpStatus.SERVICE_UNAVAILABLE,
+                        "Too many orders are being placed. Try again later." );
+            }
+            return pending.getResult().get( deadline - System.nanoTime(), TimeUnit.NANOSECONDS );
+        }
+        catch ( final TimeoutException e ) {
+            throw new WolfCafeAPIException( HttpStatus.SERVICE_UNAVAILABLE,
+                    "Order placement timed out. The order may still be placed; check your orders before retrying." );
+        }
+        catch ( final InterruptedException e ) {
+            Thread.currentThread().interrupt();
+            throw new WolfCafeAPIException( HttpStatus.SERVICE_UNAVAILABLE, "Order placement was interrupted." );
+        }
+        catch ( final ExecutionException e ) {
+            if ( e.getCause() instanceof RuntimeException ) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new WolfCafeAPIException( HttpStatus.INTERNAL_SERVER_ERROR,
+                    "An unexpected error occurred while placing the order." );
+        }
+    }
+
+    /**
+     * Worker loop: waits for an order, gathers a batch behind it and places
+     * the batch.
+     */
+    private void run () {
+        final List<PendingOrder> batch = new ArrayList<>( maxBatchSize );
+        while ( !Thread.currentThread().isInterrupted() ) {
+            try {
+                batch.add( queue.take() );
+                final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos( maxWaitMilliseconds );
+                while ( batch.size() < maxBatchSize ) {
+                    final PendingOrder next = queue.poll( deadline - System.nanoTime(), TimeUnit.NANOSECONDS );
+                    if ( next == null ) {
+                        break;
+                    }
+                    batch.add( next );
+                }
+                placeBatch( batch );
+            }
+            catch ( final InterruptedException e ) {
+                Thread.currentThread().interrupt();
+                for ( final PendingOrder pending : batch ) {
+                    pending.fail( shuttingDown() );
+                }
+            }
+            finally {
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * Places one batch and tells every caller the outcome. If the batch
+     * transaction itself fails, every order still waiting fails with it. Any
+     * throwable is caught so the worker keeps running for later orders.
+     *
+     * @param batch
+     *            the orders to place
+     */
+    private void placeBatch ( final List<PendingOrder> batch ) {
+        try {
+            orderService.placeOrders( batch );
+            batch.forEach( PendingOrder::complete );
+        }
+        catch ( final Throwable e ) {
+            logger.warn( "Order batch of {} failed", batch.size(), e );
+            final RuntimeException error = e instanceof RuntimeException ? (RuntimeException) e
+                    : new WolfCafeAPIException( HttpStatus.INTERNAL_SERVER_ERROR,
+                            "An unexpected error occurred while placing the order." );
+            for ( final PendingOrder pending : batch ) {
+                pending.fail( error );
+            }
+        }
+    }
+
+    /**
+     * The error given to orders that cannot be placed because the application
+     * is shutting down.
+     *
+     * @return the error
+     */
+    private static WolfCafeAPIException shuttingDown () {
+        return new WolfCafeAPIException( HttpStatus.SERVICE_UNAVAILABLE, "Order placement is shutting down." );
+    }
+
+}
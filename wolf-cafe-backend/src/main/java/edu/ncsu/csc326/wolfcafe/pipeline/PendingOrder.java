@@ -0,0 +1,90 @@
+package edu.ncsu.csc326.wolfcafe.pipeline;
+
+import java.util.concurrent.CompletableFuture;
+
+import edu.ncsu.csc326.wolfcafe.dto.OrderDto;
+import lombok.Getter;
+
+/**
+ * An order waiting in the OrderPlacementPipeline, together with the customer
+ * who placed it and the result its caller is waiting for.
+ */
+@Getter
+public class PendingOrder {
+
+    /** The order as sent by the customer */
+    private final OrderDto                    order;
+
+    /** Username or email of the customer placing the order */
+    private final String                      username;
+
+    /** Idempotency-Key stored with the order, or null */
+    private final String                      idempotencyKey;
+
+    /** Completed once the order is placed or has failed */
+    private final CompletableFuture<OrderDto> result = new CompletableFuture<>();
+
+    /** The saved order, held until its batch commits */
+    private OrderDto                          placed;
+
+    /**
+     * Creates a pending order.
+     *
+     * @param order
+     *            the order as sent by the customer
+     * @param username
+     *            username or email of the customer placing the order
+     */
+    public PendingOrder ( final OrderDto order, final String username ) {
+        this( order, username, null );
+    }
+
+    /**
+     * Creates a pending order whose Idempotency-Key is stored in the same
+     * transaction as the order.
+     *
+     * @param order
+     *            the order as sent by the customer
+     * @param username
+     *            username or email of the customer placing the order
+     * @param idempotencyKey
+     *            the key to store with the order, prefixed with the username,
+     *            or null to store none
+     */
+    public PendingOrder ( final OrderDto order, final String username, final String idempotencyKey ) {
+        this.order = order;
+        this.username = username;
+        this.idempotencyKey = idempotencyKey;
+    }
+
+    /**
+     * Records the saved order. The caller is only told once the batch commits.
+     *
+     * @param savedOrder
+     *            the saved order
+     */
+    public void accept ( final OrderDto savedOrder ) {
+        this.placed = savedOrder;
+    }
+
+    /**
+     * Fails this order with its own error. Nothing was written for it, so the
+     * caller is told straight away.
+     *
+     * @param error
+     *            why the order could not be placed
+     */
+    public void fail ( final RuntimeException error ) {
+        result.completeExceptionally( error );
+    }
+
+    /**
+     * Tells the caller its order was placed, once the batch has committed.
+     */
+    void complete () {
+        if ( placed != null ) {
+            result.complete( placed );
+        }
+    }
+
+}
@@ -0,0 +1,39 @@
+package edu.ncsu.csc326.wolfcafe.repository;
+
+import java.time.LocalDate;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import edu.ncsu.csc326.wolfcafe.entity.DailySales;
+
+/**
+ * Repository for the daily sales rollup.
+ */
+public interface DailySalesRepository extends JpaRepository<DailySales, LocalDate> {
+
+    /**
+     * Adds to the rollup of a day, creating the day's row if it does not
+     * exist yet. Done in one statement so concurrent pickups never lose an
+     * update.
+     *
+     * @param saleDate
+     *            the day of sales
+     * @param orders
+     *            number of orders to add, negative to take orders away
+     * @param revenue
+     *            revenue to add
+     * @param tips
+     *            tips to add
+     * @return the number of rows changed
+     */
+    @Modifying ( flushAutomatically = true )
+    @Query ( value = "INSERT INTO daily_sales (sale_date, orders, revenue, tips) VALUES (:saleDate, :orders, "
+            + ":revenue, :tips) ON DUPLICATE KEY UPDATE orders = orders + :orders, revenue = revenue + :revenue, "
+            + "tips = tips + :tips", nativeQuery = true )
+    int addSales ( @Param ( "saleDate" ) LocalDate saleDate, @Param ( "orders" ) long orders,
+            @Param ( "revenue" ) double revenue, @Param ( "tips" ) double tips );
+
+}
@@ -0,0 +1,13 @@
+package edu.ncsu.csc326.wolfcafe.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import edu.ncsu.csc326.wolfcafe.entity.IdempotencyRecord;
+
+/**
+ * IdempotencyRecordRepository for working with the DB through the
+ * JpaRepository.
+ */
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, String> {
+
+}
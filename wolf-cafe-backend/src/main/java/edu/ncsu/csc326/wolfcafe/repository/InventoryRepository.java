@@ -1,6 +1,13 @@
 package edu.ncsu.csc326.wolfcafe.repository;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import edu.ncsu.csc326.wolfcafe.entity.Inventory;
 
@@ -9,4 +16,122 @@ import edu.ncsu.csc326.wolfcafe.entity.Inventory;
  */
 public interface InventoryRepository extends JpaRepository<Inventory, Long> {
 
+    /**
+     * Returns the id of the single inventory without loading its items.
+     *
+     * @return id of the inventory, or empty if no inventory exists
+     */
+    @Query ( "SELECT MIN(i.id) FROM Inventory i" )
+    Optional<Long> findInventoryId ();
+
+    /**
+     * Reads the stock version of the inventory: the version of the inventory
+     * row plus the versions of its stock rows. Every change to the inventory
+     * or to the stock of any of its items increases it.
+     *
+     * @param inventoryId
+     *            id of the inventory
+     * @return the stock version, or empty if there is no such inventory
+     */
+    @Query ( value = "SELECT i.version + COALESCE((SELECT SUM(ii.version) FROM inventory_items ii "
+            + "WHERE ii.inventory_id = i.id), 0) FROM inventory i WHERE i.id = :inventoryId", nativeQuery = true )
+    Optional<Long> findStockVersion ( @Param ( "inventoryId" ) Long inventoryId );
+
+    /**
+     * Increases the version of the inventory row by the given amount. Used
+     * when a change to the whole inventory removes stock rows, so the stock
+     * version still goes up.
+     *
+     * @param inventoryId
+     *            id of the inventory
+     * @param amount
+     *            amount to add to the version
+     * @return the number of rows updated, 0 if there is no such inventory
+     */
+    @Modifying ( flushAutomatically = true )
+    @Query ( value = "UPDATE inventory SET version = version + :amount WHERE id = :inventoryId", nativeQuery = true )
+    int advanceVersion ( @Param ( "inventoryId" ) Long inventoryId, @Param ( "amount" ) long amount );
+
+    /**
+     * Takes the given amount of an item out of the inventory, but only if at
+     * least that much is in stock, and increases the version of the item's
+     * stock row. Only the row for the one item is touched, so orders for
+     * different items never wait on each other.
+     *
+     * @param inventoryId
+     *            id of the inventory
+     * @param itemId
+     *            id of the item to take stock from
+     * @param amount
+     *            amount to take
+     * @return the number of rows updated, 0 if there was not enough stock
+     */
+    @Modifying ( flushAutomatically = true )
+    @Query ( value = "UPDATE inventory_items SET quantity = quantity - :amount, version = version + 1 "
+            + "WHERE inventory_id = :inventoryId AND item_id = :itemId AND quantity >= :amount", nativeQuery = true )
+    int reserveStock ( @Param ( "inventoryId" ) Long inventoryId, @Param ( "itemId" ) Long itemId,
+            @Param ( "amount" ) int amount );
+
+    /**
+     * Puts the given amount of an item back into the inventory and increases
+     * the version of the item's stock row.
+     *
+     * @param inventoryId
+     *            id of the inventory
+     * @param itemId
+     *            id of the item to return stock to
+     * @param amount
+     *            amount to return
+     * @return the number of rows updated, 0 if the item is not in the
+     *         inventory
+     */
+    @Modifying ( flushAutomatically = true )
+    @Query ( value = "UPDATE inventory_items SET quantity = quantity + :amount, version = version + 1 "
+            + "WHERE inventory_id = :inventoryId AND item_id = :itemId", nativeQuery = true )
+    int releaseStock ( @Param ( "inventoryId" ) Long inventoryId, @Param ( "itemId" ) Long itemId,
+            @Param ( "amount" ) int amount );
+
+    /**
+     * Reads the quantity of a single item in the inventory.
+     *
+     * @param inventoryId
+     *            id of the inventory
+     * @param itemId
+     *            id of the item
+     * @return the quantity in stock, or empty if the item is not in the
+     *         inventory
+     */
+    @Query ( value = "SELECT quantity FROM inventory_items WHERE inventory_id = :inventoryId AND item_id = :itemId",
+            nativeQuery = true )
+    Optional<Integer> findStock ( @Param ( "inventoryId" ) Long inventoryId, @Param ( "itemId" ) Long itemId );
+
+    /**
+     * Reads and locks the stock rows of the given items until the current
+     * transaction ends. Rows are locked in item id order.
+     *
+     * @param inventoryId
+     *            id of the inventory
+     * @param itemIds
+     *            ids of the items
+     * @return one [item_id, quantity] pair per item that is in the inventory
+     */
+    @Query ( value = "SELECT item_id, quantity FROM inventory_items "
+            + "WHERE inventory_id = :inventoryId AND item_id IN (:itemIds) ORDER BY item_id FOR UPDATE",
+            nativeQuery = true )
+    List<Object[]> lockStock ( @Param ( "inventoryId" ) Long inventoryId,
+            @Param ( "itemIds" ) Collection<Long> itemIds );
+
+    /**
+     * Locks every stock row of the inventory until the current transaction
+     * ends, so no order takes or returns stock while the whole inventory is
+     * changed. Rows are locked in item id order, as orders lock them.
+     *
+     * @param inventoryId
+     *            id of the inventory
+     * @return the ids of the items in the inventory
+     */
+    @Query ( value = "SELECT item_id FROM inventory_items WHERE inventory_id = :inventoryId "
+            + "ORDER BY item_id FOR UPDATE", nativeQuery = true )
+    List<Long> lockAllStock ( @Param ( "inventoryId" ) Long inventoryId );
+
 }
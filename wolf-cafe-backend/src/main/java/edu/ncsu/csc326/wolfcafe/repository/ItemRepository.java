@@ -1,5 +1,7 @@
 package edu.ncsu.csc326.wolfcafe.repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -20,4 +22,12 @@ public interface ItemRepository extends JpaRepository<Item, Long> {
 	 * @return Found Item, null if none.
 	 */
 	Optional<Item> findByName(String name);
+
+	/**
+	 * Finds all Items whose names are in the given collection with one query.
+	 *
+	 * @param names Names of the Items
+	 * @return Found Items, names with no Item are left out
+	 */
+	List<Item> findByNameIn(Collection<String> names);
 }
@@ -0,0 +1,39 @@
+package edu.ncsu.csc326.wolfcafe.repository;
+
+import java.time.LocalDate;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import edu.ncsu.csc326.wolfcafe.entity.ItemSales;
+
+/**
+ * Repository for the per-item daily sales rollup.
+ */
+public interface ItemSalesRepository extends JpaRepository<ItemSales, Long> {
+
+    /**
+     * Adds to the sales of an item on a day, creating the row if it does not
+     * exist yet. Done in one statement so concurrent pickups never lose an
+     * update.
+     *
+     * @param saleDate
+     *            the day of sales
+     * @param itemName
+     *            name of the item
+     * @param units
+     *            units to add, negative to take units away
+     * @param revenue
+     *            revenue to add
+     * @return the number of rows changed
+     */
+    @Modifying ( flushAutomatically = true )
+    @Query ( value = "INSERT INTO item_sales (sale_date, item_name, units, revenue) VALUES (:saleDate, :itemName, "
+            + ":units, :revenue) ON DUPLICATE KEY UPDATE units = units + :units, revenue = revenue + :revenue",
+            nativeQuery = true )
+    int addSales ( @Param ( "saleDate" ) LocalDate saleDate, @Param ( "itemName" ) String itemName,
+            @Param ( "units" ) long units, @Param ( "revenue" ) double revenue );
+
+}
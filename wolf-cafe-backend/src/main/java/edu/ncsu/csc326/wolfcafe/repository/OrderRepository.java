@@ -1,19 +1,46 @@
 package edu.ncsu.csc326.wolfcafe.repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import edu.ncsu.csc326.wolfcafe.dto.OrderExportRow;
 import edu.ncsu.csc326.wolfcafe.entity.Order;
+import edu.ncsu.csc326.wolfcafe.entity.OrderStatus;
+import edu.ncsu.csc326.wolfcafe.entity.OrderTransition;
+import jakarta.persistence.QueryHint;
 
 /**
  * Repository interface for Order entities. Provides methods for CRUD operations
- * and data access related to orders in the database.
+ * and data access related to orders in the database. The keyset listings
+ * read the ids of a page and then only the columns they return. Queries that
+ * load orders as entities fetch their customers in the same query through an
+ * entity graph; the items of the orders and the roles of the customers are
+ * collections, which cannot be fetched in a paged query without paging in
+ * memory, so they are loaded in batches of Order.FETCH_BATCH_SIZE instead. A
+ * page of orders therefore takes the same few queries however many orders it
+ * holds.
  */
 @Repository
 public interface OrderRepository extends JpaRepository<Order, Long> {
 
+    /** Rows fetched from the database at a time while streaming an export */
+    String EXPORT_FETCH_SIZE = "500";
+
     /**
      * Finds the list of orders by the customer id.
      *
@@ -21,5 +48,289 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
      *            id of the customer orders we want
      * @return List of orders for that customer
      */
+    @EntityGraph ( attributePaths = "customer" )
     List<Order> findByCustomerId ( Long customerId );
+
+    /**
+     * Finds one page of the order history. All filtering, sorting and paging
+     * is done by the database, so only the orders on the requested page are
+     * loaded. Filters that are null are not applied.
+     *
+     * @param status
+     *            status the orders must have
+     * @param itemNames
+     *            distinct names of the items the orders must all contain
+     * @param itemCount
+     *            the number of item names, or 0 to not filter by item
+     * @param from
+     *            earliest creation time to include, or null
+     * @param to
+     *            creation time to stop before, or null
+     * @param pageable
+     *            the page to return and how to sort the orders
+     * @return the page of matching orders
+     */
+    @EntityGraph ( attributePaths = "customer" )
+    @Query ( "SELECT o FROM Order o WHERE o.status = :status"
+            + " AND ( :from IS NULL OR o.createdAt >= :from ) AND ( :to IS NULL OR o.createdAt < :to )"
+            + " AND ( :itemCount = 0 OR ( SELECT COUNT(i) FROM Order h JOIN h.items i"
+            + " WHERE h = o AND KEY(i) IN :itemNames ) = :itemCount )" )
+    Page<Order> findHistory ( @Param ( "status" ) OrderStatus status,
+            @Param ( "itemNames" ) Collection<String> itemNames, @Param ( "itemCount" ) long itemCount,
+            @Param ( "from" ) LocalDateTime from, @Param ( "to" ) LocalDateTime to, Pageable pageable );
+
+    /**
+     * Finds one page of the order history among the given orders, as picked
+     * out by the OrderItemIndex. The orders are looked up by primary key and
+     * the status is checked again, since the index may be ahead of what has
+     * been committed.
+     *
+     * @param ids
+     *            ids of the orders to choose from
+     * @param status
+     *            status the orders must have
+     * @param from
+     *            earliest creation time to include, or null
+     * @param to
+     *            creation time to stop before, or null
+     * @param pageable
+     *            the page to return and how to sort the orders
+     * @return the page of matching orders
+     */
+    @EntityGraph ( attributePaths = "customer" )
+    @Query ( "SELECT o FROM Order o WHERE o.id IN :ids AND o.status = :status"
+            + " AND ( :from IS NULL OR o.createdAt >= :from ) AND ( :to IS NULL OR o.createdAt < :to )" )
+    Page<Order> findHistoryByIds ( @Param ( "ids" ) Collection<Long> ids, @Param ( "status" ) OrderStatus status,
+            @Param ( "from" ) LocalDateTime from, @Param ( "to" ) LocalDateTime to, Pageable pageable );
+
+    /**
+     * Counts the orders among the given ones that are in a status and were
+     * created in a range, such as the orders of an unfinished archival run
+     * that are still in the database.
+     *
+     * @param ids
+     *            ids of the orders to count among
+     * @param status
+     *            status the orders must have
+     * @param from
+     *            earliest creation time to include, or null
+     * @param to
+     *            creation time to stop before, or null
+     * @return the number of matching orders
+     */
+    @Query ( "SELECT COUNT(o) FROM Order o WHERE o.id IN :ids AND o.status = :status"
+            + " AND ( :from IS NULL OR o.createdAt >= :from ) AND ( :to IS NULL OR o.createdAt < :to )" )
+    long countHistoryByIds ( @Param ( "ids" ) Collection<Long> ids, @Param ( "status" ) OrderStatus status,
+            @Param ( "from" ) LocalDateTime from, @Param ( "to" ) LocalDateTime to );
+
+    /**
+     * Finds the ids of the newest orders created before the given position,
+     * newest first. Orders are compared on creation time and then on id, so
+     * the query seeks straight to the position instead of skipping the orders
+     * before it and every page costs the same no matter how deep it is. Only
+     * the ids are read; findListingRows reads the orders on the page.
+     *
+     * @param createdAt
+     *            creation time of the last order already seen, or null to
+     *            start with the newest order
+     * @param id
+     *            id of the last order already seen
+     * @param limit
+     *            the largest number of orders to return
+     * @return the ids of the orders after the position
+     */
+    @Query ( "SELECT o.id FROM Order o WHERE ( :createdAt IS NULL OR o.createdAt < :createdAt"
+            + " OR ( o.createdAt = :createdAt AND o.id < :id ) ) ORDER BY o.createdAt DESC, o.id DESC" )
+    List<Long> findPageIdsBefore ( @Param ( "createdAt" ) LocalDateTime createdAt, @Param ( "id" ) Long id,
+            Limit limit );
+
+    /**
+     * Finds the ids of the newest orders of a customer created before the
+     * given position, newest first, the same way as findPageIdsBefore.
+     *
+     * @param customerId
+     *            id of the customer whose orders to find
+     * @param createdAt
+     *            creation time of the last order already seen, or null to
+     *            start with the newest order
+     * @param id
+     *            id of the last order already seen
+     * @param limit
+     *            the largest number of orders to return
+     * @return the ids of the customer's orders after the position
+     */
+    @Query ( "SELECT o.id FROM Order o WHERE o.customer.id = :customerId AND ( :createdAt IS NULL"
+            + " OR o.createdAt < :createdAt OR ( o.createdAt = :createdAt AND o.id < :id ) )"
+            + " ORDER BY o.createdAt DESC, o.id DESC" )
+    List<Long> findCustomerPageIdsBefore ( @Param ( "customerId" ) Long customerId,
+            @Param ( "createdAt" ) LocalDateTime createdAt, @Param ( "id" ) Long id, Limit limit );
+
+    /**
+     * Finds the ids of every order in a status, oldest first, such as to
+     * rebuild the KitchenQueue.
+     *
+     * @param status
+     *            status of the orders to find
+     * @return the ids of the orders in the status
+     */
+    @Query ( "SELECT o.id FROM Order o WHERE o.status = :status ORDER BY o.createdAt, o.id" )
+    List<Long> findIdsByStatus ( @Param ( "status" ) OrderStatus status );
+
+    /**
+     * Reads the given orders one item line at a time, newest order first,
+     * with the lines of each order next to each other. Only the columns a
+     * listing returns are selected, straight into rows rather than entities,
+     * so neither the customers (with their password hashes and roles) nor the
+     * orders are hydrated.
+     *
+     * @param ids
+     *            ids of the orders on a page
+     * @return the item lines of the orders
+     */
+    @QueryHints ( @QueryHint ( name = HibernateHints.HINT_READ_ONLY, value = "true" ) )
+    @Query ( "SELECT new edu.ncsu.csc326.wolfcafe.dto.OrderExportRow( o.id, c.id, c.name, o.status, o.createdAt,"
+            + " o.tip, o.totalPrice, KEY(i), VALUE(i) ) FROM Order o JOIN o.customer c JOIN o.items i"
+            + " WHERE o.id IN :ids ORDER BY o.createdAt DESC, o.id DESC" )
+    List<OrderExportRow> findListingRows ( @Param ( "ids" ) Collection<Long> ids );
+
+    /**
+     * Finds one order together with its customer and its items, in one query.
+     *
+     * @param id
+     *            id of the order
+     * @return the order, or empty if there is none with the id
+     */
+    @EntityGraph ( attributePaths = { "customer", "items" } )
+    Optional<Order> findDetailedById ( Long id );
+
+    /**
+     * Finds the given orders together with their customers and items in one
+     * query.
+     *
+     * @param ids
+     *            ids of the orders
+     * @return the orders that exist, in no particular order
+     */
+    @EntityGraph ( attributePaths = { "customer", "items" } )
+    List<Order> findDetailedByIdIn ( Collection<Long> ids );
+
+    /**
+     * Reads and locks the status of the given orders until the current
+     * transaction ends, so a batch of transitions knows which orders its
+     * update will change. Rows are locked in id order.
+     *
+     * @param ids
+     *            ids of the orders
+     * @return one [id, status] pair per order that exists
+     */
+    @Query ( value = "SELECT id, status FROM customer_order WHERE id IN (:ids) ORDER BY id FOR UPDATE",
+            nativeQuery = true )
+    List<Object[]> lockStatuses ( @Param ( "ids" ) Collection<Long> ids );
+
+    /**
+     * Streams the order history one item line at a time, oldest order first,
+     * with the lines of each order next to each other. Rows are fetched from
+     * the database in chunks as the stream is read, so an export of any size
+     * runs in constant memory. Must be called inside a transaction and the
+     * stream must be closed. Filters that are null are not applied.
+     *
+     * @param status
+     *            status the orders must have
+     * @param itemNames
+     *            distinct names of the items the orders must all contain
+     * @param itemCount
+     *            the number of item names, or 0 to not filter by item
+     * @param from
+     *            earliest creation time to include, or null
+     * @param to
+     *            creation time to stop before, or null
+     * @return the item lines of the matching orders
+     */
+    @QueryHints ( { @QueryHint ( name = HibernateHints.HINT_FETCH_SIZE, value = EXPORT_FETCH_SIZE ),
+        @QueryHint ( name = HibernateHints.HINT_READ_ONLY, value = "true" ) } )
+    @Query ( "SELECT new edu.ncsu.csc326.wolfcafe.dto.OrderExportRow( o.id, c.id, c.name, o.status, o.createdAt,"
+            + " o.tip, o.totalPrice, KEY(i), VALUE(i) ) FROM Order o JOIN o.customer c JOIN o.items i"
+            + " WHERE o.status = :status"
+            + " AND ( :from IS NULL OR o.createdAt >= :from ) AND ( :to IS NULL OR o.createdAt < :to )"
+            + " AND ( :itemCount = 0 OR ( SELECT COUNT(hi) FROM Order h JOIN h.items hi"
+            + " WHERE h = o AND KEY(hi) IN :itemNames ) = :itemCount ) ORDER BY o.createdAt, o.id" )
+    Stream<OrderExportRow> streamHistory ( @Param ( "status" ) OrderStatus status,
+            @Param ( "itemNames" ) Collection<String> itemNames, @Param ( "itemCount" ) long itemCount,
+            @Param ( "from" ) LocalDateTime from, @Param ( "to" ) LocalDateTime to );
+
+    /**
+     * Moves the given orders through a transition in one statement, recording
+     * when each reached the new status. Only orders still in the status the
+     * transition starts from are changed, so of two concurrent transitions of
+     * an order only one succeeds; the number of orders changed tells which.
+     * The statement bypasses the persistence context, so orders it already
+     * holds keep their old status until they are refreshed.
+     *
+     * @param ids
+     *            ids of the orders to move
+     * @param transition
+     *            the change of status
+     * @param at
+     *            the time of the change
+     * @return the number of orders changed
+     */
+    default int updateStatus ( final Collection<Long> ids, final OrderTransition transition,
+            final LocalDateTime at ) {
+        return updateStatus( ids, transition.getFrom(), transition.getTo(),
+                transition.timeReached( OrderStatus.FULFILLED, at ),
+                transition.timeReached( OrderStatus.PICKED_UP, at ),
+                transition.timeReached( OrderStatus.CANCELLED, at ) );
+    }
+
+    /**
+     * Moves the given orders from one status to another in one statement,
+     * setting each status-change time that is given and leaving the others
+     * as they are. Used by updateStatus with an OrderTransition, which picks
+     * the times.
+     *
+     * @param ids
+     *            ids of the orders to move
+     * @param from
+     *            the status the orders must be in
+     * @param to
+     *            the status to move them to
+     * @param fulfilledAt
+     *            when the orders were fulfilled, or null to leave it
+     * @param pickedUpAt
+     *            when the orders were picked up, or null to leave it
+     * @param cancelledAt
+     *            when the orders were cancelled, or null to leave it
+     * @return the number of orders changed
+     */
+    @Modifying ( flushAutomatically = true )
+    @Query ( "UPDATE Order o SET o.status = :to, o.fulfilledAt = COALESCE( :fulfilledAt, o.fulfilledAt ),"
+            + " o.pickedUpAt = COALESCE( :pickedUpAt, o.pickedUpAt ),"
+            + " o.cancelledAt = COALESCE( :cancelledAt, o.cancelledAt ) WHERE o.id IN :ids AND o.status = :from" )
+    int updateStatus ( @Param ( "ids" ) Collection<Long> ids, @Param ( "from" ) OrderStatus from,
+            @Param ( "to" ) OrderStatus to, @Param ( "fulfilledAt" ) LocalDateTime fulfilledAt,
+            @Param ( "pickedUpAt" ) LocalDateTime pickedUpAt, @Param ( "cancelledAt" ) LocalDateTime cancelledAt );
+
+    /**
+     * Deletes the item lines of the given orders. Used with deleteOrders to
+     * remove archived orders from the live table without loading them.
+     *
+     * @param ids
+     *            ids of the orders whose items to delete
+     * @return the number of item lines deleted
+     */
+    @Modifying
+    @Query ( value = "DELETE FROM order_items WHERE order_id IN :ids", nativeQuery = true )
+    int deleteItemsOfOrders ( @Param ( "ids" ) Collection<Long> ids );
+
+    /**
+     * Deletes the given orders. Their item lines must be deleted first with
+     * deleteItemsOfOrders.
+     *
+     * @param ids
+     *            ids of the orders to delete
+     * @return the number of orders deleted
+     */
+    @Modifying
+    @Query ( value = "DELETE FROM customer_order WHERE id IN :ids", nativeQuery = true )
+    int deleteOrders ( @Param ( "ids" ) Collection<Long> ids );
 }
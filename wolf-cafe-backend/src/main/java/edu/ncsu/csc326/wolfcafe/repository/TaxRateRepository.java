@@ -1,6 +1,10 @@
 package edu.ncsu.csc326.wolfcafe.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import edu.ncsu.csc326.wolfcafe.entity.TaxRate;
 
@@ -9,4 +13,19 @@ import edu.ncsu.csc326.wolfcafe.entity.TaxRate;
  */
 public interface TaxRateRepository extends JpaRepository<TaxRate, Long> {
 
+    /**
+     * Sets the rate and increases its version in a single statement, so two
+     * changes can never end up with the same version.
+     *
+     * @param id
+     *            id of the tax rate to update
+     * @param rate
+     *            the new rate
+     * @return the number of rows updated
+     */
+    @Transactional
+    @Modifying ( flushAutomatically = true, clearAutomatically = true )
+    @Query ( "UPDATE TaxRate t SET t.rate = :rate, t.version = COALESCE(t.version, 0) + 1 WHERE t.id = :id" )
+    int updateRate ( @Param ( "id" ) Long id, @Param ( "rate" ) double rate );
+
 }
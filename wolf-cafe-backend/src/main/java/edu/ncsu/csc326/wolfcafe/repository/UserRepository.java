@@ -1,13 +1,20 @@
 package edu.ncsu.csc326.wolfcafe.repository;
 
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import edu.ncsu.csc326.wolfcafe.dto.UserRoleRow;
 import edu.ncsu.csc326.wolfcafe.entity.User;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 /**
- * Repository interface for users.
+ * Repository interface for users. Lookups that go on to use the roles of the
+ * users fetch them in the same query through an entity graph.
  */
 public interface UserRepository extends JpaRepository<User, Long> {
 
@@ -31,12 +38,41 @@ public interface UserRepository extends JpaRepository<User, Long> {
      * @param email user's email
      * @return User object or exception on error
      */
+    @EntityGraph(attributePaths = "roles")
     Optional<User> findByUsernameOrEmail(String username, String email);
 
+    /**
+     * Returns every user whose username or email is in the given collections
+     * with one query
+     * @param usernames usernames to search
+     * @param emails emails to search
+     * @return the matching users
+     */
+    @EntityGraph(attributePaths = "roles")
+    List<User> findByUsernameInOrEmailIn(Collection<String> usernames, Collection<String> emails);
+
     /**
      * Returns true if a user exists with the given username.
      * @param username username to search
      * @return true if username exists for a user
      */
     Boolean existsByUsername(String username);
+
+    /**
+     * Returns the id of the user with the given username or email, without
+     * loading the user
+     * @param usernameOrEmail user's username or email
+     * @return id of the user, or empty if there is none
+     */
+    @Query("SELECT u.id FROM User u WHERE u.username = :usernameOrEmail OR u.email = :usernameOrEmail")
+    Optional<Long> findIdByUsernameOrEmail(@Param("usernameOrEmail") String usernameOrEmail);
+
+    /**
+     * Returns one row per user and role with only the columns the user list
+     * shows, ordered by user id; a user without roles has one row with no role
+     * @return the rows of every user
+     */
+    @Query("SELECT new edu.ncsu.csc326.wolfcafe.dto.UserRoleRow( u.id, u.name, u.username, u.email, r.id, r.name )"
+            + " FROM User u LEFT JOIN u.roles r ORDER BY u.id, r.id")
+    List<UserRoleRow> findAllRoleRows();
 }
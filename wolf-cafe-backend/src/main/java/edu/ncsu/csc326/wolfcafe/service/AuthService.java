@@ -6,7 +6,7 @@ import java.util.List;
 import edu.ncsu.csc326.wolfcafe.dto.JwtAuthResponse;
 import edu.ncsu.csc326.wolfcafe.dto.LoginDto;
 import edu.ncsu.csc326.wolfcafe.dto.RegisterDto;
-import edu.ncsu.csc326.wolfcafe.entity.User;
+import edu.ncsu.csc326.wolfcafe.dto.UserDto;
 
 /**
  * Authorization service
@@ -57,9 +57,9 @@ public interface AuthService {
     String createStaff ( RegisterDto registerDto );
 
     /**
-     * Gets all the users in the system
+     * Gets all the users in the system, without their passwords
      *
      * @return list of all the users in the system
      */
-    List<User> getAllUsers ();
+    List<UserDto> getAllUsers ();
 }
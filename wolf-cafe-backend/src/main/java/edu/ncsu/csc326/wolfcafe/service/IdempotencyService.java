@@ -0,0 +1,32 @@
+package edu.ncsu.csc326.wolfcafe.service;
+
+import java.util.function.Function;
+
+import edu.ncsu.csc326.wolfcafe.dto.OrderDto;
+
+/**
+ * Remembers the result of order requests sent with an Idempotency-Key so that
+ * a retried request is answered with the original order instead of being
+ * placed again.
+ */
+public interface IdempotencyService {
+
+    /**
+     * Places the order once per key for the authenticated user. The first
+     * request with a key runs placeOrder; later requests with the same key get
+     * the same order back, and requests that arrive while the first is still
+     * running wait for it.
+     *
+     * @param idempotencyKey
+     *            the key sent by the client
+     * @param orderDto
+     *            the order in the request
+     * @param placeOrder
+     *            places the order the first time the key is seen, storing the
+     *            key it is given, if not null, in the same transaction as the
+     *            order
+     * @return the order placed by the first request with this key
+     */
+    OrderDto placeOnce ( String idempotencyKey, OrderDto orderDto, Function<String, OrderDto> placeOrder );
+
+}
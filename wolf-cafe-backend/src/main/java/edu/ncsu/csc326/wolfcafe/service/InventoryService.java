@@ -46,4 +46,14 @@ public interface InventoryService {
 	 */
 	void updateItemInInventory(Item updatedItem);
 
+	/**
+	 * Removes an item and its stock from the inventory, working on the current
+	 * inventory rather than an earlier reading of it.
+	 *
+	 * @param item the item to remove
+	 * @return true if the item was removed, false if it was not in the
+	 *         inventory
+	 */
+	boolean removeItemFromInventory(Item item);
+
 }
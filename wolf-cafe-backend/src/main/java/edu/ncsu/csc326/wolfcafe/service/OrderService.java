@@ -1,8 +1,20 @@
 package edu.ncsu.csc326.wolfcafe.service;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 
 import edu.ncsu.csc326.wolfcafe.dto.OrderDto;
+import edu.ncsu.csc326.wolfcafe.dto.OrderPageDto;
+import edu.ncsu.csc326.wolfcafe.dto.OrderTransitionResultDto;
+import edu.ncsu.csc326.wolfcafe.entity.OrderStatus;
+import edu.ncsu.csc326.wolfcafe.entity.OrderTransition;
+import edu.ncsu.csc326.wolfcafe.exception.ResourceNotFoundException;
+import edu.ncsu.csc326.wolfcafe.pipeline.PendingOrder;
 
 /**
  * Service interface for handling order-related operations in the WolfCafe
@@ -18,6 +30,29 @@ public interface OrderService {
      */
     OrderDto placeOrder ( OrderDto orderDto );
 
+    /**
+     * Places a new order in the system, storing the Idempotency-Key that
+     * produced it in the same transaction, so the key is stored if and only if
+     * the order is.
+     *
+     * @param orderDto
+     *            The data transfer object containing order details.
+     * @param idempotencyKey
+     *            the key to store with the order, prefixed with the username,
+     *            or null to store none
+     * @return the saved order
+     */
+    OrderDto placeOrder ( OrderDto orderDto, String idempotencyKey );
+
+    /**
+     * Places a batch of orders in one transaction. Each pending order is
+     * either accepted with its saved order or failed with its own error.
+     *
+     * @param pendingOrders
+     *            the orders to place, each with the username of its customer
+     */
+    void placeOrders ( List<PendingOrder> pendingOrders );
+
     // /**
     // * Marks an order as complete.
     // *
@@ -46,11 +81,16 @@ public interface OrderService {
     // boolean pickupOrder ( Long id );
 
     /**
-     * Retrieves a list of all orders in the system.
+     * Retrieves one page of all orders in the system, newest first.
      *
-     * @return A list of all orders as OrderDto objects.
+     * @param cursor
+     *            The cursor returned with the previous page, or null for the
+     *            first page.
+     * @param size
+     *            The largest number of orders to return.
+     * @return The page of orders and the cursor for the next page.
      */
-    List<OrderDto> getAllOrders ();
+    OrderPageDto getAllOrders ( String cursor, int size );
 
     /**
      * Retrieves a specific order by its ID.
@@ -62,11 +102,37 @@ public interface OrderService {
     OrderDto getOrder ( Long id );
 
     /**
-     * Retrieves all orders for the currently authenticated user.
+     * Retrieves one of the currently authenticated user's orders.
+     *
+     * @param id
+     *            the ID of the order to retrieve
+     * @return the order
+     * @throws ResourceNotFoundException
+     *             if there is no such order or it belongs to another customer
+     */
+    OrderDto getOrderForCurrentUser ( Long id );
+
+    /**
+     * Retrieves one page of the orders for the currently authenticated user,
+     * newest first.
      *
-     * @return List of OrderDto objects representing the user's orders
+     * @param cursor
+     *            the cursor returned with the previous page, or null for the
+     *            first page
+     * @param size
+     *            the largest number of orders to return
+     * @return the page of the user's orders and the cursor for the next page
      */
-    List<OrderDto> getOrdersForCurrentUser ();
+    OrderPageDto getOrdersForCurrentUser ( String cursor, int size );
+
+    /**
+     * Claims the order that has waited longest to be made, so each staff
+     * member is given a different order. The claim lapses, and the order goes
+     * back in the queue, if the order is not fulfilled or cancelled in time.
+     *
+     * @return the claimed order, or empty if no order is waiting
+     */
+    Optional<OrderDto> claimNextOrder ();
 
     /**
      * Fulfills an order if it is in PLACED status. Updates the order status to
@@ -89,11 +155,55 @@ public interface OrderService {
     boolean pickupOrder ( Long id );
 
     /**
-     * Retrieves order history with optional filtering by item name.
+     * Applies the same change of status to a batch of orders at once, for
+     * example to mark every order collected at closing time as picked up. An
+     * order that cannot make the change does not stop the others.
+     *
+     * @param ids
+     *            IDs of the orders to change; repeated IDs are applied once
+     * @param transition
+     *            the change of status
+     * @return the outcome for each distinct ID, in the order given
+     */
+    List<OrderTransitionResultDto> transitionOrders ( List<Long> ids, OrderTransition transition );
+
+    /**
+     * Retrieves one page of the order history, filtered by status and
+     * optionally by the items the orders contain and their creation time.
+     *
+     * @param itemNames
+     *            (Optional) The names of the items the orders must all
+     *            contain.
+     * @param status
+     *            (Optional) The status of the orders, PICKED_UP if null.
+     * @param from
+     *            (Optional) The earliest creation time to include.
+     * @param to
+     *            (Optional) The creation time to stop before.
+     * @param pageable
+     *            The page to return and how to sort it.
+     * @return A page of OrderDto objects representing the order history.
+     */
+    Page<OrderDto> viewOrderHistory ( List<String> itemNames, OrderStatus status, LocalDateTime from,
+            LocalDateTime to, Pageable pageable );
+
+    /**
+     * Streams the order history, oldest first, handing each order to the
+     * sink as soon as it has been read. Orders are never collected in memory,
+     * so the history can be exported no matter how large it is.
      *
-     * @param itemName
-     *            (Optional) The name of the item to filter the orders by.
-     * @return A list of OrderDto objects representing the order history.
+     * @param itemNames
+     *            (Optional) The names of the items the orders must all
+     *            contain.
+     * @param status
+     *            (Optional) The status of the orders, PICKED_UP if null.
+     * @param from
+     *            (Optional) The earliest creation time to include.
+     * @param to
+     *            (Optional) The creation time to stop before.
+     * @param sink
+     *            Receives each order in turn.
      */
-    List<OrderDto> viewOrderHistory ( String itemName );
+    void exportOrderHistory ( List<String> itemNames, OrderStatus status, LocalDateTime from, LocalDateTime to,
+            Consumer<OrderDto> sink );
 }
@@ -0,0 +1,34 @@
+package edu.ncsu.csc326.wolfcafe.service;
+
+import java.time.LocalDate;
+
+import edu.ncsu.csc326.wolfcafe.dto.SalesStatsDto;
+import edu.ncsu.csc326.wolfcafe.entity.Order;
+
+/**
+ * Keeps the sales rollups up to date and answers sales questions from them.
+ */
+public interface SalesStatsService {
+
+    /**
+     * Adds an order that has just been picked up to the sales of the day it
+     * was placed.
+     *
+     * @param order
+     *            the order that was picked up
+     */
+    void recordPickup ( Order order );
+
+    /**
+     * Adds up the sales over a range of days.
+     *
+     * @param from
+     *            first day to include, or null to start with the first sale
+     * @param to
+     *            last day to include, or null to end with the last sale
+     * @return the orders, revenue and tips over the range and the units and
+     *         revenue of each item, best sellers first
+     */
+    SalesStatsDto getStats ( LocalDate from, LocalDate to );
+
+}
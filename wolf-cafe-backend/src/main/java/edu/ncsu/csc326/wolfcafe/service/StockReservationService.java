@@ -0,0 +1,42 @@
+package edu.ncsu.csc326.wolfcafe.service;
+
+import java.util.Collection;
+import java.util.Map;
+
+import edu.ncsu.csc326.wolfcafe.entity.Item;
+
+/**
+ * Service interface for taking stock out of and putting stock back into the
+ * WolfCafe inventory by amount, one item at a time.
+ */
+public interface StockReservationService {
+
+    /**
+     * Takes the given amounts out of the inventory. Either every item is
+     * reserved or, when one of them is short, an exception is thrown and the
+     * surrounding transaction rolls the others back.
+     *
+     * @param amounts
+     *            the items to reserve and how many of each
+     */
+    void reserve ( Map<Item, Integer> amounts );
+
+    /**
+     * Puts the given amounts back into the inventory.
+     *
+     * @param amounts
+     *            the items to release and how many of each
+     */
+    void release ( Map<Item, Integer> amounts );
+
+    /**
+     * Reads the stock of the given items and locks it until the surrounding
+     * transaction ends, so a batch of orders can be checked against it.
+     *
+     * @param items
+     *            the items to lock
+     * @return the quantity in stock by item id; items not in the inventory
+     *         are left out
+     */
+    Map<Long, Integer> lockStock ( Collection<Item> items );
+}
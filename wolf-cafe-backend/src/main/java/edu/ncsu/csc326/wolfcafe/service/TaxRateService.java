@@ -1,6 +1,8 @@
 
 package edu.ncsu.csc326.wolfcafe.service;
 
+import edu.ncsu.csc326.wolfcafe.dto.TaxRateDto;
+
 /**
  * Tax Rate service
  */
@@ -21,4 +23,11 @@ public interface TaxRateService {
      */
     double getTaxRate ();
 
+    /**
+     * Gets the current tax rate of the system together with its version
+     *
+     * @return the current tax rate and its version
+     */
+    TaxRateDto getCurrentTaxRate ();
+
 }
@@ -4,7 +4,6 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 
-import org.modelmapper.ModelMapper;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
@@ -16,10 +15,12 @@ import org.springframework.stereotype.Service;
 import edu.ncsu.csc326.wolfcafe.dto.JwtAuthResponse;
 import edu.ncsu.csc326.wolfcafe.dto.LoginDto;
 import edu.ncsu.csc326.wolfcafe.dto.RegisterDto;
+import edu.ncsu.csc326.wolfcafe.dto.UserDto;
 import edu.ncsu.csc326.wolfcafe.entity.Role;
 import edu.ncsu.csc326.wolfcafe.entity.User;
 import edu.ncsu.csc326.wolfcafe.exception.ResourceNotFoundException;
 import edu.ncsu.csc326.wolfcafe.exception.WolfCafeAPIException;
+import edu.ncsu.csc326.wolfcafe.mapper.UserMapper;
 import edu.ncsu.csc326.wolfcafe.repository.RoleRepository;
 import edu.ncsu.csc326.wolfcafe.repository.UserRepository;
 import edu.ncsu.csc326.wolfcafe.security.JwtTokenProvider;
@@ -38,7 +39,6 @@ public class AuthServiceImpl implements AuthService {
 	private final PasswordEncoder passwordEncoder;
 	private final AuthenticationManager authenticationManager;
 	private final JwtTokenProvider jwtTokenProvider;
-	private final ModelMapper modelMapper;
 
 	/**
 	 * Registers the given user
@@ -194,7 +194,7 @@ public class AuthServiceImpl implements AuthService {
 		}
 
 		// Create and save staff user
-		User staff = modelMapper.map(registerDto, User.class);
+		User staff = UserMapper.mapToUser(registerDto);
 		staff.setPassword(passwordEncoder.encode(registerDto.getPassword()));
 		staff.setRoles(Set.of(staffRole));
 
@@ -207,14 +207,15 @@ public class AuthServiceImpl implements AuthService {
 	}
 
 	/**
-	 * Returns all items
+	 * Returns all users. Only the columns the user list shows are read, so
+	 * password hashes are never loaded.
 	 *
-	 * @return all items
+	 * @return all users
 	 */
 	@Override
-	public List<User> getAllUsers() {
+	public List<UserDto> getAllUsers() {
 		try {
-			return userRepository.findAll();
+			return UserMapper.mapToUserDtos(userRepository.findAllRoleRows());
 		} catch (Exception ex) {
 			throw new WolfCafeAPIException(HttpStatus.INTERNAL_SERVER_ERROR,
 					"Failed to retrieve users: " + ex.getMessage());
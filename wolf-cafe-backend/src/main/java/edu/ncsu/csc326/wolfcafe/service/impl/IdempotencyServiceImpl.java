@@ -0,0 +1,252 @@
+package edu.ncsu.csc326.wolfcafe.service.impl;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+
+import edu.ncsu.csc326.wolfcafe.dto.OrderDto;
+import edu.ncsu.csc326.wolfcafe.exception.WolfCafeAPIException;
+import edu.ncsu.csc326.wolfcafe.repository.IdempotencyRecordRepository;
+import edu.ncsu.csc326.wolfcafe.service.IdempotencyService;
+import edu.ncsu.csc326.wolfcafe.service.OrderService;
+
+/**
+ * Implementation of the IdempotencyService interface. Keys are kept in a
+ * bounded in-memory map that drops the oldest key when full and forgets keys
+ * once they expire. When the database store is enabled, keys are also written
+ * to the idempotency_keys table, in the transaction that saves the order, and
+ * looked up there on a memory miss.
+ */
+@Service
+public class IdempotencyServiceImpl implements IdempotencyService {
+
+    /** Longest Idempotency-Key accepted */
+    private static final int            MAX_KEY_LENGTH = 255;
+
+    /** Link to the stored keys, used when the database store is enabled */
+    @Autowired
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+
+    /** Loads the original order for a key found in the database */
+    @Autowired
+    private OrderService                orderService;
+
+    /** How long a key is remembered */
+    @Value ( "${app.orders.idempotency.ttl-milliseconds:86400000}" )
+    private long                        ttlMilliseconds;
+
+    /** Most keys kept in memory */
+    @Value ( "${app.orders.idempotency.max-entries:10000}" )
+    private int                         maxEntries;
+
+    /** Whether completed keys are also stored in the database */
+    @Value ( "${app.orders.idempotency.database-enabled:false}" )
+    private boolean                     databaseEnabled;
+
+    /** Keys in the order they were first seen, guarded by lock */
+    private final Map<String, Entry>    entries        = new LinkedHashMap<>();
+
+    /** Guards entries */
+    private final ReentrantLock         lock           = new ReentrantLock();
+
+    /**
+     * Places the order once per key for the authenticated user. The first
+     * request with a key runs placeOrder; later requests with the same key get
+     * the same order back, and requests that arrive while the first is still
+     * running wait for it.
+     *
+     * @param idempotencyKey
+     *            the key sent by the client
+     * @param orderDto
+     *            the order in the request
+     * @param placeOrder
+     *            places the order the first time the key is seen, storing the
+     *            key it is given, if not null, in the same transaction as the
+     *            order
+     * @return the order placed by the first request with this key
+     */
+    @Override
+    public OrderDto placeOnce ( final String idempotencyKey, final OrderDto orderDto,
+            final Function<String, OrderDto> placeOrder ) {
+        if ( idempotencyKey.isBlank() || idempotencyKey.length() > MAX_KEY_LENGTH ) {
+            throw new WolfCafeAPIException( HttpStatus.BAD_REQUEST,
+                    "Idempotency-Key must be between 1 and " + MAX_KEY_LENGTH + " characters." );
+        }
+        final String username = SecurityContextHolder.getContext().getAuthentication().getName();
+        final String key = username + ":" + idempotencyKey;
+        final long now = System.currentTimeMillis();
+
+        final Entry entry;
+        final boolean first;
+        lock.lock();
+        try {
+            removeExpired( now );
+            final Entry existing = entries.get( key );
+            first = existing == null;
+            if ( !first ) {
+                entry = existing;
+            }
+            else {
+                entry = new Entry( orderDto, now + ttlMilliseconds );
+                entries.put( key, entry );
+                if ( entries.size() > maxEntries ) {
+                    entries.remove( entries.keySet().iterator().next() );
+                }
+            }
+        }
+        finally {
+            lock.unlock();
+        }
+
+        if ( !first ) {
+            if ( !entry.matches( orderDto ) ) {
+                throw new WolfCafeAPIException( HttpStatus.UNPROCESSABLE_ENTITY,
+                        "Idempotency-Key was already used for a different order." );
+            }
+            return await( entry );
+        }
+
+        final OrderDto placed;
+        try {
+            // The key is stored with the order, so a crash before the commit
+            // loses both and a retry places the order once
+            final Optional<OrderDto> stored = findStored( key );
+            placed = stored.isPresent() ? stored.get() : placeOrder.apply( databaseEnabled ? key : null );
+        }
+        catch ( final RuntimeException e ) {
+            // No order was placed, so forget the key and let the client retry
+            // once the problem is fixed
+            lock.lock();
+            try {
+                entries.remove( key, entry );
+            }
+            finally {
+                lock.unlock();
+            }
+            entry.result.completeExceptionally( e );
+            throw e;
+        }
+
+        // The order exists from here on, so the key is never forgotten early
+        // and the client always gets the order back
+        entry.result.complete( placed );
+        return placed;
+    }
+
+    /**
+     * Looks for the key in the database when the database store is enabled.
+     *
+     * @param key
+     *            the key, prefixed with the username
+     * @return the original order, if the key was stored and has not expired
+     */
+    private Optional<OrderDto> findStored ( final String key ) {
+        if ( !databaseEnabled ) {
+            return Optional.empty();
+        }
+        final LocalDateTime cutoff = LocalDateTime.now().minus( ttlMilliseconds, ChronoUnit.MILLIS );
+        return idempotencyRecordRepository.findById( key ).filter( record -> record.getCreatedAt().isAfter( cutoff ) )
+                .map( record -> orderService.getOrder( record.getOrderId() ) );
+    }
+
+    /**
+     * Waits for the first request with the same key to finish.
+     *
+     * @param entry
+     *            the first request's entry
+     * @return the order the first request placed
+     */
+    private OrderDto await ( final Entry entry ) {
+        try {
+            return entry.result.get( ttlMilliseconds, TimeUnit.MILLISECONDS );
+        }
+        catch ( final InterruptedException e ) {
+            Thread.currentThread().interrupt();
+            throw new WolfCafeAPIException( HttpStatus.SERVICE_UNAVAILABLE, "Order placement was interrupted." );
+        }
+        catch ( final ExecutionException e ) {
+            if ( e.getCause() instanceof RuntimeException ) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new WolfCafeAPIException( HttpStatus.INTERNAL_SERVER_ERROR,
+                    "An unexpected error occurred while placing the order." );
+        }
+        catch ( final TimeoutException e ) {
+            throw new WolfCafeAPIException( HttpStatus.CONFLICT,
+                    "A request with this Idempotency-Key is still being processed." );
+        }
+    }
+
+    /**
+     * Drops expired keys. Every key lives for the same time, so expired keys
+     * are always at the front of the map.
+     *
+     * @param now
+     *            the current time in milliseconds
+     */
+    private void removeExpired ( final long now ) {
+        final Iterator<Entry> iterator = entries.values().iterator();
+        while ( iterator.hasNext() && iterator.next().expiresAt <= now ) {
+            iterator.remove();
+        }
+    }
+
+    /**
+     * A key and the outcome of the first request that used it.
+     */
+    private static final class Entry {
+
+        /** The first request with this key */
+        private final OrderDto                    request;
+
+        /** Completed with the placed order, or the error, of the first request */
+        private final CompletableFuture<OrderDto> result = new CompletableFuture<>();
+
+        /** When the key is forgotten, in milliseconds */
+        private final long                        expiresAt;
+
+        /**
+         * Creates an entry for the first request with a key.
+         *
+         * @param request
+         *            the first request
+         * @param expiresAt
+         *            when the key is forgotten, in milliseconds
+         */
+        private Entry ( final OrderDto request, final long expiresAt ) {
+            this.request = request;
+            this.expiresAt = expiresAt;
+        }
+
+        /**
+         * Checks whether a retried request asks for the same order as the
+         * first one.
+         *
+         * @param retry
+         *            the retried request
+         * @return true if the items and tip are the same
+         */
+        private boolean matches ( final OrderDto retry ) {
+            return Objects.equals( request.getItems(), retry.getItems() )
+                    && Objects.equals( request.getTip(), retry.getTip() );
+        }
+
+    }
+
+}
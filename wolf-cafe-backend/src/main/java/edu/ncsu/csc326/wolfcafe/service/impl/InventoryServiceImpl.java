@@ -1,22 +1,29 @@
 package edu.ncsu.csc326.wolfcafe.service.impl;
 
-import java.util.HashMap;
 import java.util.List;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import edu.ncsu.csc326.wolfcafe.cache.ItemIndex;
 import edu.ncsu.csc326.wolfcafe.dto.InventoryDto;
 import edu.ncsu.csc326.wolfcafe.entity.Inventory;
 import edu.ncsu.csc326.wolfcafe.entity.Item;
 import edu.ncsu.csc326.wolfcafe.exception.ResourceNotFoundException;
+import edu.ncsu.csc326.wolfcafe.exception.WolfCafeAPIException;
 import edu.ncsu.csc326.wolfcafe.mapper.InventoryMapper;
 import edu.ncsu.csc326.wolfcafe.repository.InventoryRepository;
-import edu.ncsu.csc326.wolfcafe.repository.ItemRepository;
 import edu.ncsu.csc326.wolfcafe.service.InventoryService;
+import jakarta.persistence.EntityManager;
 
 /**
- * Implementation of the InventoryService interface.
+ * Implementation of the InventoryService interface. Changes to the inventory
+ * are checked against its version when they commit and are retried by
+ * OptimisticRetry when another change got there first. Each change first
+ * locks the stock rows, so orders cannot take or return stock while it runs,
+ * and leaves the stock version of the inventory higher than it found it.
  */
 @Service
 public class InventoryServiceImpl implements InventoryService {
@@ -25,49 +32,63 @@ public class InventoryServiceImpl implements InventoryService {
     @Autowired
     private InventoryRepository inventoryRepository;
 
-    /** Connection to the item repository */
+    /** In-memory index of the menu used to resolve item names */
     @Autowired
-    private ItemRepository      itemRepository;
+    private ItemIndex           itemIndex;
+
+    /** Retries inventory changes that lose to a concurrent change */
+    @Autowired
+    private OptimisticRetry     optimisticRetry;
+
+    /** Holds the entities the current transaction has loaded */
+    @Autowired
+    private EntityManager       entityManager;
 
     /**
-     * Creates the single inventory if it doesn't already exist.
+     * Creates the single inventory if it doesn't already exist. The id is
+     * generated by the database, so any id in the DTO is ignored.
      *
      * @param inventoryDto
      *            inventory to create
      * @return updated inventory after creation
      */
     @Override
+    @Transactional
     public InventoryDto createInventory ( final InventoryDto inventoryDto ) {
         final List<Inventory> inventories = inventoryRepository.findAll();
         if ( !inventories.isEmpty() ) {
             throw new IllegalStateException( "Cannot create inventory: An inventory already exists." );
         }
 
-        final Inventory inventory = InventoryMapper.mapToInventory( inventoryDto, itemRepository );
+        final Inventory inventory = InventoryMapper.mapToInventory( inventoryDto, itemIndex );
+        inventory.setId( null );
         final Inventory savedInventory = inventoryRepository.save( inventory );
-        return InventoryMapper.mapToInventoryDto( savedInventory );
+        return mapToInventoryDto( savedInventory );
     }
 
     /**
      * Returns the single inventory. If none exists, creates a new empty
-     * inventory.
+     * inventory. Runs in a transaction so the items of the inventory can be
+     * loaded while it is converted.
      *
      * @return the single inventory
      */
     @Override
+    @Transactional
     public InventoryDto getInventory () {
         final List<Inventory> inventories = inventoryRepository.findAll();
         if ( inventories.isEmpty() ) {
-            final InventoryDto newInventoryDto = new InventoryDto( 1L, new HashMap<>() );
-            return createInventory( newInventoryDto );
+            return createInventory( new InventoryDto() );
         }
 
-        return InventoryMapper.mapToInventoryDto( inventories.get( 0 ) );
+        return mapToInventoryDto( inventories.get( 0 ) );
     }
 
     /**
      * Updates the contents of the single inventory. If the inventory does not
-     * exist, throws an error.
+     * exist, throws an error. If the update carries the version the client
+     * read and the inventory or the stock of any of its items has changed
+     * since, the update is rejected.
      *
      * @param inventoryDto
      *            values to update
@@ -75,14 +96,22 @@ public class InventoryServiceImpl implements InventoryService {
      */
     @Override
     public InventoryDto updateInventory ( final InventoryDto inventoryDto ) {
-        final Inventory inventory = inventoryRepository.findById( inventoryDto.getId() ).orElseThrow(
-                () -> new ResourceNotFoundException( "Inventory not found with id: " + inventoryDto.getId() ) );
+        return optimisticRetry.run( "updateInventory", () -> {
+            final long stockVersion = lockStock( inventoryDto.getId() );
+            final Inventory inventory = inventoryRepository.findById( inventoryDto.getId() ).orElseThrow(
+                    () -> new ResourceNotFoundException( "Inventory not found with id: " + inventoryDto.getId() ) );
+            if ( inventoryDto.getVersion() != null && inventoryDto.getVersion() != stockVersion ) {
+                throw new WolfCafeAPIException( HttpStatus.CONFLICT,
+                        "The inventory has changed since it was read. Reload it and try again." );
+            }
 
-        final Inventory updatedInventory = InventoryMapper.mapToInventory( inventoryDto, itemRepository );
-        updatedInventory.setId( inventory.getId() );
+            final Inventory updatedInventory = InventoryMapper.mapToInventory( inventoryDto, itemIndex );
+            updatedInventory.setId( inventory.getId() );
+            updatedInventory.setVersion( inventory.getVersion() );
 
-        final Inventory savedInventory = inventoryRepository.save( updatedInventory );
-        return InventoryMapper.mapToInventoryDto( savedInventory );
+            final Inventory savedInventory = save( updatedInventory, stockVersion );
+            return mapToInventoryDto( savedInventory );
+        } );
     }
 
     /**
@@ -96,20 +125,24 @@ public class InventoryServiceImpl implements InventoryService {
     @Override
     public boolean addItemToInventory ( final Item item ) {
         // Retrieve or create the inventory if it doesn’t exist
-        final InventoryDto inventoryDto = getInventory();
-        final Inventory inventory = inventoryRepository.findById( inventoryDto.getId() )
-                .orElseThrow( () -> new IllegalStateException( "Cannot add item: No inventory found." ) );
+        final Long inventoryId = findInventoryId();
+        return optimisticRetry.run( "addItemToInventory", () -> {
+            final long stockVersion = lockStock( inventoryId );
+            final Inventory inventory = inventoryRepository.findById( inventoryId )
+                    .orElseThrow( () -> new IllegalStateException( "Cannot add item: No inventory found." ) );
 
-        // Check if the item already exists in the inventory
-        if ( inventory.getItems().containsKey( item ) ) {
-            throw new IllegalStateException( "Item with ID " + item.getId() + " already exists in the inventory." );
-        }
+            // Check if the item already exists in the inventory
+            if ( inventory.getItems().containsKey( item ) ) {
+                throw new IllegalStateException(
+                        "Item with ID " + item.getId() + " already exists in the inventory." );
+            }
 
-        // Add item with quantity 0 and save the inventory
-        inventory.getItems().put( item, 0 );
-        inventoryRepository.save( inventory );
+            // Add item with quantity 0 and save the inventory
+            inventory.getItems().put( item, 0 );
+            save( inventory, stockVersion );
 
-        return true; // Item successfully added to the inventory
+            return true; // Item successfully added to the inventory
+        } );
     }
 
     /**
@@ -120,19 +153,117 @@ public class InventoryServiceImpl implements InventoryService {
      */
     @Override
     public void updateItemInInventory ( final Item updatedItem ) {
-        final InventoryDto inventoryDto = getInventory();
-        final Inventory inventory = inventoryRepository.findById( inventoryDto.getId() )
-                .orElseThrow( () -> new ResourceNotFoundException( "Cannot update item: No inventory found." ) );
+        final Long inventoryId = findInventoryId();
+        optimisticRetry.run( "updateItemInInventory", () -> {
+            final long stockVersion = lockStock( inventoryId );
+            final Inventory inventory = inventoryRepository.findById( inventoryId )
+                    .orElseThrow( () -> new ResourceNotFoundException( "Cannot update item: No inventory found." ) );
 
-        if ( !inventory.getItems().containsKey( updatedItem ) ) {
-            throw new ResourceNotFoundException(
-                    "Cannot update item: Item with ID " + updatedItem.getId() + " not found in the inventory." );
+            if ( !inventory.getItems().containsKey( updatedItem ) ) {
+                throw new ResourceNotFoundException( "Cannot update item: Item with ID " + updatedItem.getId()
+                        + " not found in the inventory." );
+            }
+
+            final Integer currentQuantity = inventory.getItems().get( updatedItem );
+            inventory.getItems().remove( updatedItem );
+            inventory.getItems().put( updatedItem, currentQuantity );
+            return save( inventory, stockVersion );
+        } );
+    }
+
+    /**
+     * Removes an item and its stock from the inventory. The inventory is read
+     * and written in the same retried transaction, so stock taken or returned
+     * by orders meanwhile is never overwritten.
+     *
+     * @param item
+     *            the item to remove
+     * @return true if the item was removed, false if it was not in the
+     *         inventory
+     */
+    @Override
+    public boolean removeItemFromInventory ( final Item item ) {
+        final Long inventoryId = findInventoryId();
+        return optimisticRetry.run( "removeItemFromInventory", () -> {
+            final long stockVersion = lockStock( inventoryId );
+            final Inventory inventory = inventoryRepository.findById( inventoryId )
+                    .orElseThrow( () -> new ResourceNotFoundException( "Cannot remove item: No inventory found." ) );
+
+            // Matched by id, since the item may have been loaded in another
+            // transaction
+            if ( !inventory.getItems().keySet().removeIf( stocked -> stocked.getId().equals( item.getId() ) ) ) {
+                return false;
+            }
+            save( inventory, stockVersion );
+            return true;
+        } );
+    }
+
+    /**
+     * Helper method to find the id of the single inventory, creating an empty
+     * inventory if none exists. Only the id is read, so the items are not
+     * loaded.
+     *
+     * @return id of the inventory
+     */
+    private Long findInventoryId () {
+        return inventoryRepository.findInventoryId().orElseGet( () -> createInventory( new InventoryDto() ).getId() );
+    }
+
+    /**
+     * Helper method to lock every stock row of the inventory until the
+     * current transaction ends and read its stock version. Orders that take
+     * or return stock wait for the transaction, so the version read stays
+     * current while the whole inventory is changed.
+     *
+     * @param inventoryId
+     *            id of the inventory
+     * @return the stock version of the inventory, 0 if there is no such
+     *         inventory
+     */
+    private long lockStock ( final Long inventoryId ) {
+        inventoryRepository.lockAllStock( inventoryId );
+        return inventoryRepository.findStockVersion( inventoryId ).orElse( 0L );
+    }
+
+    /**
+     * Helper method to save a change to the whole inventory. Saving increases
+     * the version of the inventory row, but stock rows that are removed or
+     * rewritten take their versions out of the stock version, so the inventory
+     * row is advanced by whatever is missing for the stock version to end up
+     * above the one read before the change.
+     *
+     * @param inventory
+     *            the changed inventory
+     * @param stockVersion
+     *            the stock version read before the change
+     * @return the saved inventory
+     */
+    private Inventory save ( final Inventory inventory, final long stockVersion ) {
+        final Inventory savedInventory = inventoryRepository.saveAndFlush( inventory );
+        final long shortfall = stockVersion + 1
+                - inventoryRepository.findStockVersion( savedInventory.getId() ).orElse( 0L );
+        if ( shortfall > 0 ) {
+            inventoryRepository.advanceVersion( savedInventory.getId(), shortfall );
+            entityManager.refresh( savedInventory );
         }
+        return savedInventory;
+    }
 
-        final Integer currentQuantity = inventory.getItems().get( updatedItem );
-        inventory.getItems().remove( updatedItem );
-        inventory.getItems().put( updatedItem, currentQuantity );
-        inventoryRepository.save( inventory );
+    /**
+     * Helper method to convert the inventory to a DTO. The DTO carries the
+     * stock version of the inventory rather than the version of its row, so
+     * an update sent back with it is also rejected once orders have taken or
+     * returned stock.
+     *
+     * @param inventory
+     *            the inventory to convert
+     * @return the inventory DTO
+     */
+    private InventoryDto mapToInventoryDto ( final Inventory inventory ) {
+        final InventoryDto inventoryDto = InventoryMapper.mapToInventoryDto( inventory );
+        inventoryDto.setVersion( inventoryRepository.findStockVersion( inventory.getId() ).orElse( 0L ) );
+        return inventoryDto;
     }
 
 }
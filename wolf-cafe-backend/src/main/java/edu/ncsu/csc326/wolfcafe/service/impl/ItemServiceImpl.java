@@ -3,17 +3,16 @@ package edu.ncsu.csc326.wolfcafe.service.impl;
 import java.util.List;
 import java.util.stream.Collectors;
 
-import org.modelmapper.ModelMapper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 
-import edu.ncsu.csc326.wolfcafe.dto.InventoryDto;
 import edu.ncsu.csc326.wolfcafe.dto.ItemDto;
 import edu.ncsu.csc326.wolfcafe.entity.Item;
 import edu.ncsu.csc326.wolfcafe.exception.ResourceNotFoundException;
 import edu.ncsu.csc326.wolfcafe.exception.WolfCafeAPIException;
+import edu.ncsu.csc326.wolfcafe.mapper.ItemMapper;
 import edu.ncsu.csc326.wolfcafe.repository.ItemRepository;
 import edu.ncsu.csc326.wolfcafe.service.InventoryService;
 import edu.ncsu.csc326.wolfcafe.service.ItemService;
@@ -32,10 +31,6 @@ public class ItemServiceImpl implements ItemService {
     @Autowired
     private InventoryService inventoryService;
 
-    /** This is used to help map to item dtos */
-    @Autowired
-    private ModelMapper      modelMapper;
-
     /**
      * Adds given item and initializes it in the inventory with quantity 0.
      *
@@ -46,7 +41,7 @@ public class ItemServiceImpl implements ItemService {
     @Override
     public ItemDto addItem ( final ItemDto itemDto ) {
         // Map the DTO to the entity
-        final Item item = modelMapper.map( itemDto, Item.class );
+        final Item item = ItemMapper.mapToItem( itemDto );
 
         if ( item.getPrice() <= 0 ) {
             throw new WolfCafeAPIException( HttpStatus.BAD_REQUEST, "Price must be non-zero and positive." );
@@ -60,7 +55,7 @@ public class ItemServiceImpl implements ItemService {
             inventoryService.addItemToInventory( savedItem );
 
             // Return the saved item as a DTO
-            return modelMapper.map( savedItem, ItemDto.class );
+            return ItemMapper.mapToItemDto( savedItem );
 
         }
         catch ( final DataIntegrityViolationException e ) {
@@ -86,7 +81,7 @@ public class ItemServiceImpl implements ItemService {
     public ItemDto getItem ( final Long id ) {
         final Item item = itemRepository.findById( id )
                 .orElseThrow( () -> new ResourceNotFoundException( "Item with ID " + id + "not found." ) );
-        return modelMapper.map( item, ItemDto.class );
+        return ItemMapper.mapToItemDto( item );
     }
 
     /**
@@ -97,7 +92,7 @@ public class ItemServiceImpl implements ItemService {
     @Override
     public List<ItemDto> getAllItems () {
         final List<Item> items = itemRepository.findAll();
-        return items.stream().map( ( item ) -> modelMapper.map( item, ItemDto.class ) ).collect( Collectors.toList() );
+        return items.stream().map( ItemMapper::mapToItemDto ).collect( Collectors.toList() );
     }
 
     /**
@@ -124,7 +119,7 @@ public class ItemServiceImpl implements ItemService {
             // Sync changes with inventory
             inventoryService.updateItemInInventory( updatedItem );
 
-            return modelMapper.map( updatedItem, ItemDto.class );
+            return ItemMapper.mapToItemDto( updatedItem );
         }
         catch ( final ResourceNotFoundException e ) {
             throw new WolfCafeAPIException( HttpStatus.CONFLICT,
@@ -152,18 +147,15 @@ public class ItemServiceImpl implements ItemService {
 
         // Now, attempt to update the inventory and delete the item
         try {
-            final InventoryDto updated = inventoryService.getInventory();
-
-            if ( updated.getItems().remove( item.getName() ) == null ) {
+            // Remove the item from the current inventory, so stock changed by
+            // orders since it was read is not overwritten
+            if ( !inventoryService.removeItemFromInventory( item ) ) {
                 // If the item does not exist in the inventory, throw a conflict
                 // exception
                 throw new WolfCafeAPIException( HttpStatus.CONFLICT,
                         "Item with name '" + item.getName() + "' does not exist in the inventory." );
             }
 
-            // Update inventory after removing the item
-            inventoryService.updateInventory( updated );
-
             // Delete the item from the repository
             itemRepository.delete( item );
 
@@ -0,0 +1,109 @@
+package edu.ncsu.csc326.wolfcafe.service.impl;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import edu.ncsu.csc326.wolfcafe.exception.WolfCafeAPIException;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Runs a read-modify-write on a versioned entity in its own transaction and
+ * runs it again when the commit loses to a concurrent change. Attempts are
+ * bounded and spaced with exponential backoff and full jitter, so writers that
+ * collided do not collide again in lockstep. Each operation reports the
+ * following metrics, tagged with its name:
+ * <ul>
+ * <li>wolfcafe.optimistic.attempts: transactions started</li>
+ * <li>wolfcafe.optimistic.conflicts: transactions rejected by a version
+ * check</li>
+ * <li>wolfcafe.optimistic.retries: retries needed per successful call</li>
+ * <li>wolfcafe.optimistic.exhausted: calls that gave up</li>
+ * </ul>
+ * The conflict rate is conflicts divided by attempts.
+ */
+@Component
+public class OptimisticRetry {
+
+    /** Starts a transaction for every attempt */
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    /** Records attempts, conflicts and retries */
+    @Autowired
+    private MeterRegistry              meterRegistry;
+
+    /** Most attempts made before giving up */
+    @Value ( "${app.optimistic-retry.max-attempts:5}" )
+    private int                        maxAttempts;
+
+    /** Upper bound of the wait before the first retry */
+    @Value ( "${app.optimistic-retry.base-backoff-milliseconds:5}" )
+    private long                       baseBackoffMilliseconds;
+
+    /** Upper bound of the wait before any retry */
+    @Value ( "${app.optimistic-retry.max-backoff-milliseconds:100}" )
+    private long                       maxBackoffMilliseconds;
+
+    /**
+     * Runs the attempt until it commits or the attempts run out. When called
+     * inside a transaction that is already running, the attempt joins it and
+     * a conflict cannot be retried, so it is reported straight away.
+     *
+     * @param <T>
+     *            type of the result
+     * @param operation
+     *            name of the operation, used to tag the metrics
+     * @param attempt
+     *            reads, changes and saves the entity
+     * @return the result of the attempt that committed
+     */
+    public <T> T run ( final String operation, final Supplier<T> attempt ) {
+        final TransactionTemplate transaction = new TransactionTemplate( transactionManager );
+        final boolean joined = TransactionSynchronizationManager.isActualTransactionActive();
+        for ( int attempts = 1;; attempts++ ) {
+            meterRegistry.counter( "wolfcafe.optimistic.attempts", "operation", operation ).increment();
+            try {
+                final T result = transaction.execute( status -> attempt.get() );
+                meterRegistry.summary( "wolfcafe.optimistic.retries", "operation", operation )
+                        .record( attempts - 1 );
+                return result;
+            }
+            catch ( final OptimisticLockingFailureException e ) {
+                meterRegistry.counter( "wolfcafe.optimistic.conflicts", "operation", operation ).increment();
+                if ( joined || attempts >= maxAttempts ) {
+                    meterRegistry.counter( "wolfcafe.optimistic.exhausted", "operation", operation ).increment();
+                    throw new WolfCafeAPIException( HttpStatus.CONFLICT,
+                            "The inventory was changed by another request. Please try again." );
+                }
+                backOff( attempts );
+            }
+        }
+    }
+
+    /**
+     * Waits a random time between zero and an exponentially growing bound.
+     *
+     * @param attempts
+     *            number of attempts made so far
+     */
+    private void backOff ( final int attempts ) {
+        final long bound = Math.min( maxBackoffMilliseconds, baseBackoffMilliseconds << Math.min( attempts - 1, 20 ) );
+        try {
+            Thread.sleep( ThreadLocalRandom.current().nextLong( bound + 1 ) );
+        }
+        catch ( final InterruptedException e ) {
+            Thread.currentThread().interrupt();
+            throw new WolfCafeAPIException( HttpStatus.SERVICE_UNAVAILABLE, "Inventory update was interrupted." );
+        }
+    }
+
+}
@@ -0,0 +1,79 @@
+package edu.ncsu.csc326.wolfcafe.service.impl;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+import org.springframework.http.HttpStatus;
+
+import edu.ncsu.csc326.wolfcafe.dto.OrderDto;
+import edu.ncsu.csc326.wolfcafe.exception.WolfCafeAPIException;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Position in an order listing sorted by creation time and id, newest first.
+ * A cursor holds the creation time and id of the last order on a page, so the
+ * next page starts right after it without counting the orders before it.
+ * Clients see the cursor only as an opaque URL-safe string.
+ */
+@Getter
+@AllArgsConstructor
+final class OrderCursor {
+
+    /** Separates the creation time from the id in the encoded cursor */
+    private static final char   SEPARATOR = '|';
+
+    /** Creation time of the last order on the page */
+    private final LocalDateTime createdAt;
+
+    /** Id of the last order on the page */
+    private final Long          id;
+
+    /**
+     * Creates the cursor that continues after the given order.
+     *
+     * @param order
+     *            the last order on a page
+     * @return the cursor
+     */
+    static OrderCursor after ( final OrderDto order ) {
+        return new OrderCursor( order.getCreatedAt(), order.getId() );
+    }
+
+    /**
+     * Reads a cursor sent by a client.
+     *
+     * @param cursor
+     *            the encoded cursor
+     * @return the cursor
+     * @throws WolfCafeAPIException
+     *             if the cursor was not created by encode
+     */
+    static OrderCursor decode ( final String cursor ) {
+        try {
+            final String value = new String( Base64.getUrlDecoder().decode( cursor ), StandardCharsets.UTF_8 );
+            final int separator = value.indexOf( SEPARATOR );
+            if ( separator < 0 ) {
+                throw new IllegalArgumentException( "Missing separator" );
+            }
+            return new OrderCursor( LocalDateTime.parse( value.substring( 0, separator ) ),
+                    Long.valueOf( value.substring( separator + 1 ) ) );
+        }
+        catch ( final IllegalArgumentException | DateTimeParseException e ) {
+            throw new WolfCafeAPIException( HttpStatus.BAD_REQUEST, "Invalid cursor: " + cursor );
+        }
+    }
+
+    /**
+     * Encodes the cursor for a client.
+     *
+     * @return the encoded cursor
+     */
+    String encode () {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString( ( createdAt.toString() + SEPARATOR + id ).getBytes( StandardCharsets.UTF_8 ) );
+    }
+
+}
@@ -0,0 +1,70 @@
+package edu.ncsu.csc326.wolfcafe.service.impl;
+
+import java.util.Map;
+
+import edu.ncsu.csc326.wolfcafe.entity.Item;
+import edu.ncsu.csc326.wolfcafe.exception.ResourceNotFoundException;
+
+/**
+ * Prices the items of an order. Kept out of OrderServiceImpl so the pricing
+ * loop can be benchmarked without a database.
+ */
+public final class OrderPricing {
+
+    /**
+     * Not meant to be constructed.
+     */
+    private OrderPricing () {
+    }
+
+    /**
+     * Adds up the price of every requested item and records the amount of each
+     * item the order needs.
+     *
+     * @param requested
+     *            quantity of each item, by name, as sent by the customer
+     * @param menu
+     *            the items the order may refer to, by name
+     * @param amounts
+     *            filled with the amount of each item the order needs
+     * @return the subtotal of the order before tax and tip
+     * @throws ResourceNotFoundException
+     *             if an item is not on the menu
+     */
+    public static double subtotal ( final Map<String, Integer> requested, final Map<String, Item> menu,
+            final Map<Item, Integer> amounts ) {
+        double subtotal = 0.0;
+
+        for ( final Map.Entry<String, Integer> entry : requested.entrySet() ) {
+            final String itemName = entry.getKey();
+            final int orderQuantity = entry.getValue();
+
+            final Item item = menu.get( itemName );
+            if ( item == null ) {
+                throw new ResourceNotFoundException( "Item not found: " + itemName );
+            }
+
+            amounts.put( item, orderQuantity );
+
+            subtotal += item.getPrice() * orderQuantity;
+        }
+        return subtotal;
+    }
+
+    /**
+     * Adds tax and tip to a subtotal.
+     *
+     * @param subtotal
+     *            the price of the items
+     * @param taxRate
+     *            the tax rate, between 0 and 1
+     * @param tip
+     *            the tip the customer gives
+     * @return the total price of the order
+     */
+    public static double total ( final double subtotal, final double taxRate, final double tip ) {
+        final double tax = subtotal * taxRate;
+        return subtotal + tax + tip;
+    }
+
+}
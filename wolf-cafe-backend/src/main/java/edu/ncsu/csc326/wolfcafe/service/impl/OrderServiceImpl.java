@@ -1,35 +1,72 @@
 package edu.ncsu.csc326.wolfcafe.service.impl;
 
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
 
-import org.modelmapper.ModelMapper;
+import org.roaringbitmap.longlong.LongIterator;
+import org.roaringbitmap.longlong.Roaring64Bitmap;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import edu.ncsu.csc326.wolfcafe.archive.OrderArchive;
+import edu.ncsu.csc326.wolfcafe.cache.CustomerOrderCache;
+import edu.ncsu.csc326.wolfcafe.cache.ItemIndex;
+import edu.ncsu.csc326.wolfcafe.cache.OrderItemIndex;
+import edu.ncsu.csc326.wolfcafe.cache.TaxRateCache;
 import edu.ncsu.csc326.wolfcafe.dto.OrderDto;
-import edu.ncsu.csc326.wolfcafe.entity.Inventory;
+import edu.ncsu.csc326.wolfcafe.dto.OrderExportRow;
+import edu.ncsu.csc326.wolfcafe.dto.OrderPageDto;
+import edu.ncsu.csc326.wolfcafe.dto.OrderTransitionResultDto;
+import edu.ncsu.csc326.wolfcafe.entity.IdempotencyRecord;
 import edu.ncsu.csc326.wolfcafe.entity.Item;
 import edu.ncsu.csc326.wolfcafe.entity.Order;
 import edu.ncsu.csc326.wolfcafe.entity.OrderStatus;
-import edu.ncsu.csc326.wolfcafe.entity.TaxRate;
+import edu.ncsu.csc326.wolfcafe.entity.OrderTransition;
 import edu.ncsu.csc326.wolfcafe.entity.User;
+import edu.ncsu.csc326.wolfcafe.events.OrderEventHub;
 import edu.ncsu.csc326.wolfcafe.exception.ResourceNotFoundException;
 import edu.ncsu.csc326.wolfcafe.exception.WolfCafeAPIException;
-import edu.ncsu.csc326.wolfcafe.repository.InventoryRepository;
-import edu.ncsu.csc326.wolfcafe.repository.ItemRepository;
+import edu.ncsu.csc326.wolfcafe.export.OrderStreams;
+import edu.ncsu.csc326.wolfcafe.kitchen.KitchenQueue;
+import edu.ncsu.csc326.wolfcafe.mapper.OrderMapper;
+import edu.ncsu.csc326.wolfcafe.pipeline.PendingOrder;
+import edu.ncsu.csc326.wolfcafe.repository.IdempotencyRecordRepository;
 import edu.ncsu.csc326.wolfcafe.repository.OrderRepository;
-import edu.ncsu.csc326.wolfcafe.repository.TaxRateRepository;
 import edu.ncsu.csc326.wolfcafe.repository.UserRepository;
 import edu.ncsu.csc326.wolfcafe.service.OrderService;
+import edu.ncsu.csc326.wolfcafe.service.SalesStatsService;
+import edu.ncsu.csc326.wolfcafe.service.StockReservationService;
+import jakarta.persistence.EntityManager;
 
 /**
  * Implementation of the Order Service interface.
@@ -37,29 +74,82 @@ import edu.ncsu.csc326.wolfcafe.service.OrderService;
 @Service
 public class OrderServiceImpl implements OrderService {
 
+    /** Order properties the order history can be sorted by, in ascending order */
+    private static final Map<String, Comparator<OrderDto>> HISTORY_SORTS   = Map.of(
+            "id", Comparator.comparing( OrderDto::getId ),
+            "createdAt", Comparator.comparing( OrderDto::getCreatedAt ),
+            "totalPrice", Comparator.comparing( OrderDto::getTotalPrice ),
+            "tip", Comparator.comparing( OrderDto::getTip ) );
+
+    /**
+     * Most orders picked out by the order item index that are looked up by id;
+     * above this the database filters by item itself
+     */
+    private static final int                               MAX_INDEXED_IDS = 1000;
+
     /** Connection to the order repository */
     @Autowired
-    private OrderRepository     orderRepository;
+    private OrderRepository                                orderRepository;
 
-    /** Connection to the item repository */
+    /** Holds the entities the current transaction has loaded */
     @Autowired
-    private ItemRepository      itemRepository;
+    private EntityManager                                  entityManager;
 
-    /** Connection to the inventory repository */
+    /** Stores the Idempotency-Keys of orders along with the orders */
     @Autowired
-    private InventoryRepository inventoryRepository;
+    private IdempotencyRecordRepository                    idempotencyRecordRepository;
 
-    /** Connection to the tax rate repository */
+    /** In-memory index of the menu used to resolve item names */
     @Autowired
-    private TaxRateRepository   taxRateRepository;
+    private ItemIndex                                      itemIndex;
 
-    /** This is used to help map to order dtos */
+    /** In-memory index of the orders containing each item */
     @Autowired
-    private ModelMapper         modelMapper;
+    private OrderItemIndex                                 orderItemIndex;
+
+    /** Orders that have been moved out of the database */
+    @Autowired
+    private OrderArchive                                   orderArchive;
+
+    /** Takes stock out of and puts stock back into the inventory */
+    @Autowired
+    private StockReservationService                        stockReservationService;
+
+    /** In-memory snapshot of the tax rate used to price orders */
+    @Autowired
+    private TaxRateCache                                   taxRateCache;
 
     /** Connection to user repository */
     @Autowired
-    private UserRepository      userRepository;
+    private UserRepository                                 userRepository;
+
+    /** Keeps the sales rollups up to date as orders are picked up */
+    @Autowired
+    private SalesStatsService                              salesStatsService;
+
+    /** Recently read pages of each customer's orders */
+    @Autowired
+    private CustomerOrderCache                             customerOrderCache;
+
+    /** Starts the transaction a customer's orders are read in on a cache miss */
+    @Autowired
+    private PlatformTransactionManager                     transactionManager;
+
+    /** Tells the staff order board about committed changes */
+    @Autowired
+    private OrderEventHub                                  orderEventHub;
+
+    /** Hands out the placed orders to staff, oldest first */
+    @Autowired
+    private KitchenQueue                                   kitchenQueue;
+
+    /** Largest number of orders a listing returns at once */
+    @Value ( "${spring.data.web.pageable.max-page-size:500}" )
+    private int                                            maxPageSize;
+
+    /** Largest number of orders that can change status in one batch */
+    @Value ( "${app.orders.transitions.max-batch-size:500}" )
+    private int                                            maxBatchSize;
 
     // private static final Logger logger = LoggerFactory.getLogger(
     // OrderServiceImpl.class );
@@ -67,7 +157,8 @@ public class OrderServiceImpl implements OrderService {
     /**
      * Places a new order for the authenticated user. Verifies item availability
      * in inventory and reduces quantities accordingly. Sets the order status to
-     * PLACED upon successful creation.
+     * PLACED upon successful creation. Stock is reserved item by item, so only
+     * orders that share an item wait on each other.
      *
      * @param orderDto
      *            Data Transfer Object containing order details
@@ -77,64 +168,196 @@ public class OrderServiceImpl implements OrderService {
     @Override
     @Transactional
     public OrderDto placeOrder ( final OrderDto orderDto ) throws ResourceNotFoundException, IllegalStateException {
+        return placeOrder( orderDto, null );
+    }
+
+    /**
+     * Places a new order for the authenticated user, as placeOrder does, and
+     * stores the Idempotency-Key that produced it in the same transaction. A
+     * crash before the commit loses both, so a retry places the order once.
+     *
+     * @param orderDto
+     *            Data Transfer Object containing order details
+     * @param idempotencyKey
+     *            the key to store with the order, prefixed with the username,
+     *            or null to store none
+     * @return OrderDto containing the saved order details
+     */
+    @Override
+    @Transactional
+    public OrderDto placeOrder ( final OrderDto orderDto, final String idempotencyKey ) {
         final Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         final String username = authentication.getName();
 
         final User user = userRepository.findByUsernameOrEmail( username, username )
                 .orElseThrow( () -> new ResourceNotFoundException( "User not found for username: " + username ) );
 
-        final Order order = modelMapper.map( orderDto, Order.class );
-        order.setCustomer( user );
-        order.setStatus( OrderStatus.PLACED );
-        order.setCreatedAt( LocalDateTime.now() );
+        final Map<String, Item> menu = itemIndex.findAllByName( orderDto.getItems().keySet() );
+        final Map<Item, Integer> reservation = new HashMap<>();
+        final Order order = buildOrder( orderDto, user, menu, reservation );
 
-        final Inventory inventory = inventoryRepository.findAll().stream().findFirst()
-                .orElseThrow( () -> new ResourceNotFoundException( "Inventory is empty or not found." ) );
+        stockReservationService.reserve( reservation );
 
-        double subtotal = 0.0;
+        final Order savedOrder = orderRepository.save( order );
+        if ( idempotencyKey != null ) {
+            idempotencyRecordRepository.save( new IdempotencyRecord( idempotencyKey, savedOrder.getId(),
+                    LocalDateTime.now() ) );
+        }
+        customerOrderCache.invalidate( user.getId() );
 
-        for ( final Map.Entry<String, Integer> entry : orderDto.getItems().entrySet() ) {
-            final String itemName = entry.getKey();
-            final int orderQuantity = entry.getValue();
+        final OrderDto savedOrderDto = OrderMapper.mapToOrderDto( savedOrder );
+        savedOrderDto.setCustomerId( user.getId() );
+        orderEventHub.publish( savedOrderDto );
+        return savedOrderDto;
+    }
+
+    /**
+     * Places a batch of orders collected by the OrderPlacementPipeline in one
+     * transaction. Users and items for the whole batch are loaded together and
+     * the stock rows are locked once, then each order is checked against what
+     * the orders before it left. An order that fails is reported to its own
+     * caller and does not affect the others. Stock is taken with one update
+     * per item and the orders are written with batched inserts, along with
+     * the Idempotency-Keys they were sent with.
+     *
+     * @param pendingOrders
+     *            the orders to place, each with the username of its customer
+     */
+    @Override
+    @Transactional
+    public void placeOrders ( final List<PendingOrder> pendingOrders ) {
+        final Set<String> usernames = new HashSet<>();
+        final Set<String> itemNames = new HashSet<>();
+        for ( final PendingOrder pending : pendingOrders ) {
+            usernames.add( pending.getUsername() );
+            itemNames.addAll( pending.getOrder().getItems().keySet() );
+        }
 
-            final Item item = itemRepository.findByName( itemName )
-                    .orElseThrow( () -> new ResourceNotFoundException( "Item not found: " + itemName ) );
+        final Map<String, User> users = new HashMap<>();
+        for ( final User user : userRepository.findByUsernameInOrEmailIn( usernames, usernames ) ) {
+            users.put( user.getUsername(), user );
+            users.put( user.getEmail(), user );
+        }
 
-            final Integer inventoryQuantity = inventory.getItems().get( item );
-            if ( inventoryQuantity == null || inventoryQuantity < orderQuantity ) {
-                throw new IllegalStateException( "Insufficient inventory for item: " + itemName + ". Available: "
-                        + ( inventoryQuantity != null ? inventoryQuantity : 0 ) + ", Required: " + orderQuantity );
+        final Map<String, Item> menu = itemIndex.findAllByName( itemNames );
+        final Map<Long, Integer> stock = stockReservationService.lockStock( menu.values() );
+
+        final Map<Item, Integer> reservation = new HashMap<>();
+        final List<Order> orders = new ArrayList<>();
+        final List<PendingOrder> accepted = new ArrayList<>();
+
+        for ( final PendingOrder pending : pendingOrders ) {
+            try {
+                final User user = users.get( pending.getUsername() );
+                if ( user == null ) {
+                    throw new ResourceNotFoundException( "User not found for username: " + pending.getUsername() );
+                }
+
+                final Map<Item, Integer> amounts = new HashMap<>();
+                final Order order = buildOrder( pending.getOrder(), user, menu, amounts );
+
+                for ( final Map.Entry<Item, Integer> entry : amounts.entrySet() ) {
+                    final int available = stock.getOrDefault( entry.getKey().getId(), 0 );
+                    if ( available < entry.getValue() ) {
+                        throw new IllegalStateException( "Insufficient inventory for item: " + entry.getKey().getName()
+                                + ". Available: " + available + ", Required: " + entry.getValue() );
+                    }
+                }
+                for ( final Map.Entry<Item, Integer> entry : amounts.entrySet() ) {
+                    stock.merge( entry.getKey().getId(), -entry.getValue(), Integer::sum );
+                    reservation.merge( entry.getKey(), entry.getValue(), Integer::sum );
+                }
+
+                orders.add( order );
+                accepted.add( pending );
             }
+            catch ( final RuntimeException e ) {
+                pending.fail( e );
+            }
+        }
 
-            inventory.getItems().put( item, inventoryQuantity - orderQuantity );
-            order.getItems().put( itemName, orderQuantity );
+        if ( !reservation.isEmpty() ) {
+            stockReservationService.reserve( reservation );
+        }
 
-            subtotal += item.getPrice() * orderQuantity;
+        final List<Order> savedOrders = orderRepository.saveAll( orders );
+        final List<IdempotencyRecord> records = new ArrayList<>();
+        for ( int i = 0; i < savedOrders.size(); i++ ) {
+            final Order savedOrder = savedOrders.get( i );
+            if ( accepted.get( i ).getIdempotencyKey() != null ) {
+                records.add( new IdempotencyRecord( accepted.get( i ).getIdempotencyKey(), savedOrder.getId(),
+                        LocalDateTime.now() ) );
+            }
+            customerOrderCache.invalidate( savedOrder.getCustomer().getId() );
+            final OrderDto savedOrderDto = OrderMapper.mapToOrderDto( savedOrder );
+            savedOrderDto.setCustomerId( savedOrder.getCustomer().getId() );
+            orderEventHub.publish( savedOrderDto );
+            accepted.get( i ).accept( savedOrderDto );
         }
+        idempotencyRecordRepository.saveAll( records );
+    }
 
-        // Fetch the tax rate from the repository
-        final Optional<TaxRate> optionalTaxRate = taxRateRepository.findAll().stream().findFirst();
-        final TaxRate taxRate = optionalTaxRate
-                .orElseThrow( () -> new ResourceNotFoundException( "Tax rate not found." ) );
-        final double rate = taxRate.getRate();
+    /**
+     * Helper method to build a new PLACED order for the given user and price
+     * it. The amount of each item the order needs is added to amounts so the
+     * caller can take it from stock.
+     *
+     * @param orderDto
+     *            the order as sent by the customer
+     * @param user
+     *            the customer placing the order
+     * @param menu
+     *            the items the order may refer to, by name
+     * @param amounts
+     *            filled with the amount of each item the order needs
+     * @return the new, unsaved order
+     */
+    private Order buildOrder ( final OrderDto orderDto, final User user, final Map<String, Item> menu,
+            final Map<Item, Integer> amounts ) {
+        final Order order = OrderMapper.mapToOrder( orderDto );
+        order.setCustomer( user );
+        order.setStatus( OrderStatus.PLACED );
+        // Keep only the precision the column stores, so order cursors built
+        // from an order still in memory match the order in the database
+        order.setCreatedAt( LocalDateTime.now().truncatedTo( ChronoUnit.MICROS ) );
+
+        final double subtotal = OrderPricing.subtotal( orderDto.getItems(), menu, amounts );
+
+        // Read the tax rate from the cached snapshot
+        final double rate = taxRateCache.get()
+                .orElseThrow( () -> new ResourceNotFoundException( "Tax rate not found." ) ).getRate();
 
-        final double tax = subtotal * rate;
         final double tip = orderDto.getTip() != null ? orderDto.getTip() : 0.0;
 
-        order.setTotalPrice( subtotal + tax + tip );
+        order.setTotalPrice( OrderPricing.total( subtotal, rate, tip ) );
         order.setTip( tip );
+        return order;
+    }
 
-        inventoryRepository.save( inventory );
-        final Order savedOrder = orderRepository.save( order );
-
-        final OrderDto savedOrderDto = modelMapper.map( savedOrder, OrderDto.class );
-        savedOrderDto.setCustomerId( user.getId() );
-        return savedOrderDto;
+    /**
+     * Claims the order at the front of the KitchenQueue and reads it. An order
+     * the queue still held but that is no longer PLACED in the database is
+     * dropped from the queue and the next one is claimed instead.
+     *
+     * @return the claimed order, or empty if no order is waiting
+     */
+    @Override
+    @Transactional ( readOnly = true )
+    public Optional<OrderDto> claimNextOrder () {
+        for ( Long id = kitchenQueue.claim(); id != null; id = kitchenQueue.claim() ) {
+            final Optional<Order> order = orderRepository.findDetailedById( id );
+            if ( order.isPresent() && order.get().getStatus() == OrderStatus.PLACED ) {
+                return order.map( OrderMapper::mapToOrderDto );
+            }
+            kitchenQueue.remove( id );
+        }
+        return Optional.empty();
     }
 
     /**
      * Fulfills an order if it is in PLACED status. Updates the order status to
-     * FULFILLED.
+     * FULFILLED with a single conditional update, so of two staff members
+     * fulfilling the same order only one succeeds.
      *
      * @param id
      *            ID of the order to fulfill
@@ -143,15 +366,77 @@ public class OrderServiceImpl implements OrderService {
     @Override
     @Transactional
     public boolean fulfillOrder ( final Long id ) throws ResourceNotFoundException {
-        final Order order = findOrderById( id );
+        if ( applyTransition( id, OrderTransition.FULFILL ) == null ) {
+            throw new IllegalStateException(
+                    "Order with ID " + id + " is not in PLACED status and cannot be fulfilled." );
+        }
+        return true;
+    }
 
-        if ( order.getStatus() == OrderStatus.PLACED ) {
-            order.setStatus( OrderStatus.FULFILLED );
-            orderRepository.save( order );
-            return true;
+    /**
+     * Helper method to move an order to another status with one conditional
+     * update, which also records when the order reached the status. Whether
+     * the update changed a row decides whether the transition happened, so
+     * concurrent transitions of the same order cannot both succeed. The order
+     * is then read back, with its customer and items in one query, and the
+     * change is passed on with transitioned.
+     *
+     * @param id
+     *            ID of the order
+     * @param transition
+     *            the change of status
+     * @return the order after the change, or null if it was not in the status
+     *         the transition starts from
+     * @throws ResourceNotFoundException
+     *             if there is no order with the ID
+     */
+    private Order applyTransition ( final Long id, final OrderTransition transition ) {
+        final LocalDateTime now = LocalDateTime.now().truncatedTo( ChronoUnit.MICROS );
+        if ( orderRepository.updateStatus( List.of( id ), transition, now ) == 0 ) {
+            if ( !orderRepository.existsById( id ) ) {
+                throw new ResourceNotFoundException( "Order not found with id: " + id );
+            }
+            return null;
+        }
+
+        final Order order = orderRepository.findDetailedById( id )
+                .orElseThrow( () -> new ResourceNotFoundException( "Order not found with id: " + id ) );
+        refreshIfStale( order, transition );
+        transitioned( order );
+        return order;
+    }
+
+    /**
+     * Helper method to bring an order read back after a status update up to
+     * date. The update bypasses the persistence context, so an order this
+     * transaction had already loaded, such as one it just placed, is read back
+     * as it was before the update. Only such orders are refreshed; every other
+     * entity the caller holds stays managed as it is.
+     *
+     * @param order
+     *            the order read back after the update
+     * @param transition
+     *            the change of status that was applied to it
+     */
+    private void refreshIfStale ( final Order order, final OrderTransition transition ) {
+        if ( order.getStatus() != transition.getTo() ) {
+            entityManager.refresh( order );
         }
+    }
 
-        throw new IllegalStateException( "Order with ID " + id + " is not in PLACED status and cannot be fulfilled." );
+    /**
+     * Helper method to pass on an order's change of status: the
+     * OrderItemIndex is updated, the customer's cached pages are dropped and
+     * the change is published. The status update bypasses the entity
+     * listener, so the index is told here.
+     *
+     * @param order
+     *            the order after the change
+     */
+    private void transitioned ( final Order order ) {
+        orderItemIndex.statusChanged( order );
+        customerOrderCache.invalidate( order.getCustomer().getId() );
+        orderEventHub.publish( OrderMapper.mapToOrderDto( order ) );
     }
 
     /**
@@ -172,132 +457,561 @@ public class OrderServiceImpl implements OrderService {
         userRepository.findByUsernameOrEmail( username, username )
                 .orElseThrow( () -> new ResourceNotFoundException( "User not found for username: " + username ) );
 
-        final Order order = findOrderById( id );
-
-        if ( order.getStatus() == OrderStatus.PLACED ) {
-            final Inventory inventory = inventoryRepository.findAll().stream().findFirst()
-                    .orElseThrow( () -> new ResourceNotFoundException( "Inventory is empty or not found." ) );
+        final Order order = applyTransition( id, OrderTransition.CANCEL );
+        if ( order == null ) {
+            throw new WolfCafeAPIException( HttpStatus.BAD_REQUEST,
+                    "Order with ID " + id + " cannot be canceled as it is not in PLACED status." );
+        }
 
-            for ( final Map.Entry<String, Integer> entry : order.getItems().entrySet() ) {
-                final String itemName = entry.getKey();
-                final int orderQuantity = entry.getValue();
+        // Only the transaction that cancelled the order gets here, so the
+        // stock is released once; a missing item rolls the cancellation back
+        releaseStock( List.of( order ) );
+        return true;
+    }
 
-                final Item item = itemRepository.findByName( itemName ).orElseThrow(
-                        () -> new ResourceNotFoundException( "Item not found in inventory: " + itemName ) );
+    /**
+     * Helper method to put the items of cancelled orders back into the
+     * inventory. The quantities of each item are added up across the orders
+     * first, so the stock of an item is written once however many orders
+     * contain it.
+     *
+     * @param orders
+     *            the orders that were cancelled
+     * @throws ResourceNotFoundException
+     *             if an item is no longer on the menu
+     */
+    private void releaseStock ( final Collection<Order> orders ) {
+        final Set<String> itemNames = new HashSet<>();
+        for ( final Order order : orders ) {
+            itemNames.addAll( order.getItems().keySet() );
+        }
+        final Map<String, Item> menu = itemIndex.findAllByName( itemNames );
+        final Map<Item, Integer> release = new HashMap<>();
 
-                inventory.getItems().put( item, inventory.getItems().getOrDefault( item, 0 ) + orderQuantity );
+        for ( final Order order : orders ) {
+            for ( final Map.Entry<String, Integer> entry : order.getItems().entrySet() ) {
+                final Item item = menu.get( entry.getKey() );
+                if ( item == null ) {
+                    throw new ResourceNotFoundException( "Item not found in inventory: " + entry.getKey() );
+                }
+                release.merge( item, entry.getValue(), Integer::sum );
             }
-
-            order.setStatus( OrderStatus.CANCELLED );
-            inventoryRepository.save( inventory );
-            orderRepository.save( order );
-            return true;
         }
 
-        throw new WolfCafeAPIException( HttpStatus.BAD_REQUEST,
-                "Order with ID " + id + " cannot be canceled as it is not in PLACED status." );
+        stockReservationService.release( release );
     }
 
     /**
-     * Retrieves all orders in the system and converts them to DTO format.
+     * Helper method to find the orders holding an item that is no longer on
+     * the menu, so their stock cannot be returned.
      *
-     * @return List of all orders as OrderDto objects
+     * @param orders
+     *            the orders to check
+     * @return the name of a missing item of each such order, by order id
+     */
+    private Map<Long, String> findMissingItems ( final Collection<Order> orders ) {
+        final Set<String> itemNames = new HashSet<>();
+        for ( final Order order : orders ) {
+            itemNames.addAll( order.getItems().keySet() );
+        }
+        final Map<String, Item> menu = itemIndex.findAllByName( itemNames );
+        final Map<Long, String> missing = new HashMap<>();
+        for ( final Order order : orders ) {
+            order.getItems().keySet().stream().filter( name -> !menu.containsKey( name ) ).findFirst()
+                    .ifPresent( name -> missing.put( order.getId(), name ) );
+        }
+        return missing;
+    }
+
+    /**
+     * Retrieves one page of all orders in the system, newest first, and
+     * converts them to DTO format. Pages are found by seeking to the cursor
+     * rather than by offset, so deep pages cost the same as the first.
+     *
+     * @param cursor
+     *            the cursor returned with the previous page, or null for the
+     *            first page
+     * @param size
+     *            the largest number of orders to return
+     * @return the page of orders and the cursor for the next page
      */
     @Override
-    public List<OrderDto> getAllOrders () {
-        final List<Order> orders = orderRepository.findAll();
-        return orders.stream().map( order -> modelMapper.map( order, OrderDto.class ) ).collect( Collectors.toList() );
+    @Transactional ( readOnly = true )
+    public OrderPageDto getAllOrders ( final String cursor, final int size ) {
+        checkPageSize( size );
+        final OrderCursor after = cursor == null || cursor.isEmpty() ? null : OrderCursor.decode( cursor );
+        final List<Long> ids = orderRepository.findPageIdsBefore( after == null ? null : after.getCreatedAt(),
+                after == null ? null : after.getId(), Limit.of( size + 1 ) );
+        return toPage( ids, size );
     }
 
     /**
-     * Retrieves an order by its ID and converts it to DTO format.
+     * Retrieves an order by its ID, together with its customer and items in
+     * one query, and converts it to DTO format.
      *
      * @param id
      *            ID of the order to retrieve
      * @return OrderDto containing the order details
      */
     @Override
+    @Transactional ( readOnly = true )
     public OrderDto getOrder ( final Long id ) {
-        final Order order = findOrderById( id );
-        return modelMapper.map( order, OrderDto.class );
+        final Order order = orderRepository.findDetailedById( id )
+                .orElseThrow( () -> new ResourceNotFoundException( "Order not found with id: " + id ) );
+        return OrderMapper.mapToOrderDto( order );
     }
 
     /**
-     * Helper method to find an order by ID. Throws ResourceNotFoundException if
-     * the order does not exist.
+     * Retrieves one of the currently authenticated user's orders, together
+     * with its customer and items in one query. An order placed by another
+     * customer is reported as not found, so its existence is not revealed.
      *
      * @param id
-     *            ID of the order to find
-     * @return Order entity if found
+     *            ID of the order to retrieve
+     * @return OrderDto containing the order details
      */
-    private Order findOrderById ( final Long id ) {
-        return orderRepository.findById( id )
+    @Override
+    @Transactional ( readOnly = true )
+    public OrderDto getOrderForCurrentUser ( final Long id ) throws ResourceNotFoundException {
+        final String username = SecurityContextHolder.getContext().getAuthentication().getName();
+        final Order order = orderRepository.findDetailedById( id )
+                .filter( o -> username.equals( o.getCustomer().getUsername() )
+                        || username.equals( o.getCustomer().getEmail() ) )
                 .orElseThrow( () -> new ResourceNotFoundException( "Order not found with id: " + id ) );
+        return OrderMapper.mapToOrderDto( order );
     }
 
     /**
-     * Retrieves all orders for the currently authenticated user.
+     * Retrieves one page of the orders for the currently authenticated user,
+     * newest first. Pages are served from the CustomerOrderCache when they
+     * can be; only a miss starts a transaction and reads the database.
      *
-     * @return List of OrderDto objects representing the user's orders
+     * @param cursor
+     *            the cursor returned with the previous page, or null for the
+     *            first page
+     * @param size
+     *            the largest number of orders to return
+     * @return the page of the user's orders and the cursor for the next page
      */
     @Override
-    public List<OrderDto> getOrdersForCurrentUser () {
+    public OrderPageDto getOrdersForCurrentUser ( final String cursor, final int size ) {
         final Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         final String username = authentication.getName();
 
-        final User user = userRepository.findByUsernameOrEmail( username, username )
-                .orElseThrow( () -> new ResourceNotFoundException( "User not found" ) );
+        final Long customerId = customerOrderCache.customerId( username,
+                () -> userRepository.findIdByUsernameOrEmail( username )
+                        .orElseThrow( () -> new ResourceNotFoundException( "User not found" ) ) );
+
+        checkPageSize( size );
+        final OrderCursor after = cursor == null || cursor.isEmpty() ? null : OrderCursor.decode( cursor );
+        final TransactionTemplate read = new TransactionTemplate( transactionManager );
+        read.setReadOnly( true );
+        return customerOrderCache.get( customerId, cursor, size, () -> read.execute( transaction -> {
+            final List<Long> ids = orderRepository.findCustomerPageIdsBefore( customerId,
+                    after == null ? null : after.getCreatedAt(), after == null ? null : after.getId(),
+                    Limit.of( size + 1 ) );
+            return toPage( ids, size );
+        } ) );
+    }
+
+    /**
+     * Checks that a requested page size is allowed.
+     *
+     * @param size
+     *            the requested page size
+     */
+    private void checkPageSize ( final int size ) {
+        if ( size < 1 || size > maxPageSize ) {
+            throw new WolfCafeAPIException( HttpStatus.BAD_REQUEST,
+                    "Page size must be between 1 and " + maxPageSize + "." );
+        }
+    }
 
-        final List<Order> orders = orderRepository.findByCustomerId( user.getId() );
-        return orders.stream().map( order -> modelMapper.map( order, OrderDto.class ) ).collect( Collectors.toList() );
+    /**
+     * Helper method to turn the result of a keyset query into a page. The
+     * query asks for one order more than the page holds; if it comes back
+     * there is a next page, and it starts after the last order on this one.
+     * The orders on the page are then read as rows of just the columns the
+     * listing returns, with one query.
+     *
+     * @param ids
+     *            ids of the orders found, newest first, at most size + 1 of
+     *            them
+     * @param size
+     *            the number of orders on a page
+     * @return the page
+     */
+    private OrderPageDto toPage ( final List<Long> ids, final int size ) {
+        final boolean hasNext = ids.size() > size;
+        final List<Long> page = hasNext ? ids.subList( 0, size ) : ids;
+        final List<OrderDto> orders = new ArrayList<>( page.size() );
+        if ( !page.isEmpty() ) {
+            OrderStreams.group( orderRepository.findListingRows( page ).iterator() ).forEachRemaining( orders::add );
+        }
+        final OrderDto last = orders.isEmpty() ? null : orders.get( orders.size() - 1 );
+        final String nextCursor = hasNext && last != null ? OrderCursor.after( last ).encode() : null;
+        return new OrderPageDto( orders, nextCursor );
     }
 
     /**
-     * Set the status of order to PICKED_UP
+     * Set the status of order to PICKED_UP and add the order to the sales
+     * rollups in the same transaction
      *
      * @param id
      *            ID of the order that was picked up
      * @return true if the order was successfully picked up, or false upon error
      */
     @Override
+    @Transactional
     public boolean pickupOrder ( final Long id ) throws ResourceNotFoundException {
-        final Order order = findOrderById( id );
+        final Order order = applyTransition( id, OrderTransition.PICK_UP );
+        if ( order == null ) {
+            throw new IllegalStateException(
+                    "Order with ID " + id + " is not in FULFILLED status and cannot be picked up." );
+        }
+
+        salesStatsService.recordPickup( order );
+        return true;
+    }
 
-        if ( order.getStatus() == OrderStatus.FULFILLED ) {
-            order.setStatus( OrderStatus.PICKED_UP );
-            orderRepository.save( order );
-            return true;
+    /**
+     * Applies the same change of status to a batch of orders in one
+     * transaction. The status of the orders is read and locked first, which
+     * tells which of them can make the change; those are then moved with a
+     * single update and read back with one query. Cancelled orders return
+     * their stock in one release for the whole batch, and picked up orders are
+     * added to the sales rollups. An order that is missing, not in the status
+     * the change starts from, or being cancelled with an item that is no
+     * longer on the menu is reported as failed and left as it is.
+     *
+     * @param ids
+     *            IDs of the orders to change; repeated IDs are applied once
+     * @param transition
+     *            the change of status
+     * @return the outcome for each distinct ID, in the order given
+     * @throws WolfCafeAPIException
+     *             if there are no IDs or more than the largest batch
+     */
+    @Override
+    @Transactional
+    public List<OrderTransitionResultDto> transitionOrders ( final List<Long> ids,
+            final OrderTransition transition ) {
+        if ( ids == null || ids.isEmpty() || ids.stream().anyMatch( Objects::isNull ) ) {
+            throw new WolfCafeAPIException( HttpStatus.BAD_REQUEST, "A list of order IDs is required." );
+        }
+        final List<Long> distinct = new ArrayList<>( new LinkedHashSet<>( ids ) );
+        if ( distinct.size() > maxBatchSize ) {
+            throw new WolfCafeAPIException( HttpStatus.BAD_REQUEST,
+                    "At most " + maxBatchSize + " orders can be changed at once." );
+        }
+
+        final Map<Long, OrderStatus> statuses = new HashMap<>();
+        for ( final Object[] row : orderRepository.lockStatuses( distinct ) ) {
+            statuses.put( ( (Number) row[0] ).longValue(), OrderStatus.valueOf( (String) row[1] ) );
         }
+        final List<Long> movable = distinct.stream().filter( id -> statuses.get( id ) == transition.getFrom() )
+                .collect( Collectors.toList() );
+        // Stock cannot be returned for items taken off the menu, so those
+        // orders stay as they are rather than failing the whole batch
+        final Map<Long, String> missingItems = transition == OrderTransition.CANCEL && !movable.isEmpty()
+                ? findMissingItems( orderRepository.findDetailedByIdIn( movable ) ) : Map.of();
+        movable.removeAll( missingItems.keySet() );
+
+        final Map<Long, Order> changed = new HashMap<>();
+        if ( !movable.isEmpty() ) {
+            orderRepository.updateStatus( movable, transition, LocalDateTime.now().truncatedTo( ChronoUnit.MICROS ) );
+            for ( final Order order : orderRepository.findDetailedByIdIn( movable ) ) {
+                refreshIfStale( order, transition );
+                changed.put( order.getId(), order );
+                transitioned( order );
+            }
 
-        throw new IllegalStateException(
-                "Order with ID " + id + " is not in FULFILLED status and cannot be picked up." );
+            if ( transition == OrderTransition.CANCEL ) {
+                releaseStock( changed.values() );
+            }
+            else if ( transition == OrderTransition.PICK_UP ) {
+                changed.values().forEach( salesStatsService::recordPickup );
+            }
+        }
+
+        final List<OrderTransitionResultDto> results = new ArrayList<>( distinct.size() );
+        for ( final Long id : distinct ) {
+            final OrderStatus status = statuses.get( id );
+            if ( changed.containsKey( id ) ) {
+                results.add( new OrderTransitionResultDto( id, true, transition.getTo(), null ) );
+            }
+            else if ( missingItems.containsKey( id ) ) {
+                results.add( new OrderTransitionResultDto( id, false, status,
+                        "Item not found in inventory: " + missingItems.get( id ) ) );
+            }
+            else if ( status == null ) {
+                results.add( new OrderTransitionResultDto( id, false, null, "Order not found with id: " + id ) );
+            }
+            else {
+                results.add( new OrderTransitionResultDto( id, false, status, "Order with ID " + id + " is not in "
+                        + transition.getFrom() + " status and cannot be moved to " + transition.getTo() + "." ) );
+            }
+        }
+        return results;
     }
 
     /**
-     * Retrieves order history with optional filtering by item name.
+     * Retrieves one page of the order history. Orders old enough to have been
+     * moved to the OrderArchive are included as if they were still in the
+     * database: when the archive may hold orders in the status, everything up
+     * to the end of the page is taken from both the database and the archive
+     * and merged, and the total counts both, less the orders an unfinished
+     * archival run left in both. When sorted by creation time, only the
+     * archive blocks that can reach the page are read. When the history is
+     * filtered by item, the OrderItemIndex picks out the live orders in the
+     * status that contain every item by intersecting bitmaps in memory; if
+     * none do, the database is not queried at all, and if only a few do they
+     * are looked up by id. Otherwise filtering, sorting and paging are done by
+     * the database.
      *
-     * @param itemName
-     *            (Optional) The name of the item to filter the orders by.
-     * @return A list of OrderDto objects representing the order history.
+     * @param itemNames
+     *            (Optional) The names of the items the orders must all
+     *            contain.
+     * @param status
+     *            (Optional) The status of the orders, PICKED_UP if null.
+     * @param from
+     *            (Optional) The earliest creation time to include.
+     * @param to
+     *            (Optional) The creation time to stop before.
+     * @param pageable
+     *            The page to return and how to sort it.
+     * @return A page of OrderDto objects representing the order history.
      */
     @Override
-    public List<OrderDto> viewOrderHistory ( final String itemName ) {
-        List<Order> orders;
+    @Transactional ( readOnly = true )
+    public Page<OrderDto> viewOrderHistory ( final List<String> itemNames, final OrderStatus status,
+            final LocalDateTime from, final LocalDateTime to, final Pageable pageable ) {
+        checkRange( from, to );
+        for ( final Sort.Order order : pageable.getSort() ) {
+            if ( !HISTORY_SORTS.containsKey( order.getProperty() ) ) {
+                throw new WolfCafeAPIException( HttpStatus.BAD_REQUEST,
+                        "Cannot sort order history by: " + order.getProperty() );
+            }
+        }
 
-        if ( itemName == null || itemName.isEmpty() ) {
-            // Fetch all orders if no item name is provided
-            orders = orderRepository.findAll().stream().filter( order -> order.getStatus() == OrderStatus.PICKED_UP )
-                    .collect( Collectors.toList() );
+        final List<String> names = distinctNames( itemNames );
+        final OrderStatus wanted = status != null ? status : OrderStatus.PICKED_UP;
+        if ( !orderArchive.mayHold( wanted ) ) {
+            // Map orders to DTOs
+            return findLiveHistory( names, wanted, from, to, pageable ).map( OrderMapper::mapToOrderDto );
         }
-        else {
-            // Fetch orders containing the specified item
-            orders = orderRepository.findAll().stream().filter(
-                    order -> order.getStatus() == OrderStatus.PICKED_UP && order.getItems().containsKey( itemName ) )
-                    .collect( Collectors.toList() );
+
+        // The page can hold orders from both places, so take every order up
+        // to the end of the page from each and merge them
+        final Comparator<OrderDto> comparator = historyComparator( pageable.getSort() );
+        final long end = pageable.isPaged() ? pageable.getOffset() + pageable.getPageSize() : Long.MAX_VALUE;
+        final Page<Order> live = findLiveHistory( names, wanted, from, to,
+                pageable.isPaged() ? PageRequest.of( 0, (int) end, pageable.getSort() ) : pageable );
+        final Sort.Order primary = pageable.getSort().stream().findFirst().orElse( null );
+        final Sort.Direction byCreatedAt = primary != null && "createdAt".equals( primary.getProperty() )
+                ? primary.getDirection() : null;
+
+        final List<OrderDto> merged = new ArrayList<>(
+                orderArchive.first( names, wanted, from, to, comparator, byCreatedAt, end ) );
+        for ( final Order order : live ) {
+            // Left behind by an archival run that has not finished
+            if ( !orderArchive.contains( order.getId() ) ) {
+                merged.add( OrderMapper.mapToOrderDto( order ) );
+            }
         }
+        merged.sort( comparator );
+        final int first = (int) Math.min( pageable.isPaged() ? pageable.getOffset() : 0, merged.size() );
+        return new PageImpl<>( merged.subList( first, (int) Math.min( end, merged.size() ) ), pageable,
+                live.getTotalElements() + orderArchive.count( names, wanted, from, to )
+                        - countLeftBehind( names, wanted, from, to ) );
+    }
 
-        // Map orders to DTOs
-        return orders.stream().map( order -> modelMapper.map( order, OrderDto.class ) ).collect( Collectors.toList() );
+    /**
+     * Helper method to count the orders of the order history that an
+     * unfinished archival run left in the database, so they are not counted
+     * twice. Only the newest segment can have been left unfinished, and its
+     * orders are deleted in id order, so if its last order is gone none are
+     * left.
+     *
+     * @param names
+     *            distinct names of the items the orders must all contain
+     * @param status
+     *            status the orders must have
+     * @param from
+     *            earliest creation time to include, or null
+     * @param to
+     *            creation time to stop before, or null
+     * @return the number of matching orders in both the database and the
+     *         archive
+     */
+    private long countLeftBehind ( final List<String> names, final OrderStatus status, final LocalDateTime from,
+            final LocalDateTime to ) {
+        final Roaring64Bitmap ids = orderArchive.newestSegmentIds();
+        if ( ids.isEmpty() || !orderRepository.existsById( ids.last() ) ) {
+            return 0;
+        }
+        if ( !names.isEmpty() ) {
+            ids.and( findIndexed( names, status ) );
+        }
+        long count = 0;
+        final List<Long> batch = new ArrayList<>( MAX_INDEXED_IDS );
+        for ( final LongIterator it = ids.getLongIterator(); it.hasNext(); ) {
+            batch.add( it.next() );
+            if ( batch.size() == MAX_INDEXED_IDS || !it.hasNext() ) {
+                count += orderRepository.countHistoryByIds( batch, status, from, to );
+                batch.clear();
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Helper method to find one page of the order history in the database.
+     *
+     * @param names
+     *            distinct names of the items the orders must all contain
+     * @param status
+     *            status the orders must have
+     * @param from
+     *            earliest creation time to include, or null
+     * @param to
+     *            creation time to stop before, or null
+     * @param pageable
+     *            the page to return and how to sort it
+     * @return the page of matching orders
+     */
+    private Page<Order> findLiveHistory ( final List<String> names, final OrderStatus status,
+            final LocalDateTime from, final LocalDateTime to, final Pageable pageable ) {
+        if ( names.isEmpty() ) {
+            return orderRepository.findHistory( status, names, 0, from, to, pageable );
+        }
+        final Roaring64Bitmap ids = findIndexed( names, status );
+        if ( ids.isEmpty() ) {
+            return Page.empty( pageable );
+        }
+        if ( ids.getLongCardinality() <= MAX_INDEXED_IDS ) {
+            return orderRepository.findHistoryByIds( LongStream.of( ids.toArray() ).boxed().toList(), status, from,
+                    to, pageable );
+        }
+        return orderRepository.findHistory( status, names, names.size(), from, to, pageable );
+    }
+
+    /**
+     * Helper method to build the comparator matching a sort of the order
+     * history. Orders that compare equal are put in id order, so merged pages
+     * are stable.
+     *
+     * @param sort
+     *            the sort, using only HISTORY_SORTS properties
+     * @return the comparator
+     */
+    private static Comparator<OrderDto> historyComparator ( final Sort sort ) {
+        Comparator<OrderDto> comparator = null;
+        for ( final Sort.Order order : sort ) {
+            final Comparator<OrderDto> next = order.isAscending() ? HISTORY_SORTS.get( order.getProperty() )
+                    : HISTORY_SORTS.get( order.getProperty() ).reversed();
+            comparator = comparator == null ? next : comparator.thenComparing( next );
+        }
+        final Comparator<OrderDto> byId = Comparator.comparing( OrderDto::getId );
+        return comparator == null ? byId : comparator.thenComparing( byId );
+    }
+
+    /**
+     * Streams the order history, oldest first. The item lines of the matching
+     * orders are read from a forward-only stream that the database fills in
+     * chunks; lines are grouped back into orders as they arrive and each order
+     * is handed to the sink as soon as its last line has been read. Orders in
+     * the OrderArchive are merged in by creation time as they are read, so
+     * only the next order of each is held in memory. If the archive cannot
+     * hold the status and the OrderItemIndex shows that no order contains the
+     * items, the database is not read at all.
+     *
+     * @param itemNames
+     *            (Optional) The names of the items the orders must all
+     *            contain.
+     * @param status
+     *            (Optional) The status of the orders, PICKED_UP if null.
+     * @param from
+     *            (Optional) The earliest creation time to include.
+     * @param to
+     *            (Optional) The creation time to stop before.
+     * @param sink
+     *            Receives each order in turn.
+     */
+    @Override
+    @Transactional ( readOnly = true )
+    public void exportOrderHistory ( final List<String> itemNames, final OrderStatus status,
+            final LocalDateTime from, final LocalDateTime to, final Consumer<OrderDto> sink ) {
+        checkRange( from, to );
+        final List<String> names = distinctNames( itemNames );
+        final OrderStatus wanted = status != null ? status : OrderStatus.PICKED_UP;
+        final boolean archived = orderArchive.mayHold( wanted );
+        if ( !archived && !names.isEmpty() && findIndexed( names, wanted ).isEmpty() ) {
+            return;
+        }
+
+        try ( Stream<OrderExportRow> rows = orderRepository.streamHistory( wanted, names, names.size(), from,
+                to ) ) {
+            final Iterator<OrderDto> live = OrderStreams.group( rows.iterator() );
+            final Iterator<OrderDto> orders = archived ? OrderStreams.merge(
+                    List.of( orderArchive.oldestFirst( names, wanted, from, to ), live ), OrderStreams.OLDEST_FIRST )
+                    : live;
+            Long previous = null;
+            while ( orders.hasNext() ) {
+                final OrderDto order = orders.next();
+                // An order left behind by an archival run that has not
+                // finished comes out twice in a row
+                if ( !order.getId().equals( previous ) ) {
+                    sink.accept( order );
+                }
+                previous = order.getId();
+            }
+        }
+    }
+
+    /**
+     * Helper method to find the ids of the orders in a status that contain
+     * every given item. Changes this transaction has made to orders but not
+     * yet written are flushed first, so the index has seen them.
+     *
+     * @param names
+     *            names of the items the orders must contain
+     * @param status
+     *            status the orders must have
+     * @return the ids of the matching orders
+     */
+    private Roaring64Bitmap findIndexed ( final List<String> names, final OrderStatus status ) {
+        orderRepository.flush();
+        return orderItemIndex.find( names, status );
+    }
+
+    /**
+     * Helper method to drop empty and repeated item names from a filter.
+     *
+     * @param itemNames
+     *            the item names asked for, or null
+     * @return the distinct item names to filter by, possibly empty
+     */
+    private static List<String> distinctNames ( final List<String> itemNames ) {
+        if ( itemNames == null ) {
+            return List.of();
+        }
+        return itemNames.stream().filter( name -> name != null && !name.isEmpty() ).distinct()
+                .collect( Collectors.toList() );
+    }
+
+    /**
+     * Checks that a range of creation times is not empty.
+     *
+     * @param from
+     *            the earliest creation time to include, or null
+     * @param to
+     *            the creation time to stop before, or null
+     */
+    private void checkRange ( final LocalDateTime from, final LocalDateTime to ) {
+        if ( from != null && to != null && !from.isBefore( to ) ) {
+            throw new WolfCafeAPIException( HttpStatus.BAD_REQUEST, "The start of the range must be before its end." );
+        }
     }
 
 }
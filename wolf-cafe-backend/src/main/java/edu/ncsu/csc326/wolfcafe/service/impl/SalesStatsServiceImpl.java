@@ -0,0 +1,96 @@
+package edu.ncsu.csc326.wolfcafe.service.impl;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import edu.ncsu.csc326.wolfcafe.cache.ItemIndex;
+import edu.ncsu.csc326.wolfcafe.cache.SalesRollup;
+import edu.ncsu.csc326.wolfcafe.dto.SalesStatsDto;
+import edu.ncsu.csc326.wolfcafe.entity.DailySales;
+import edu.ncsu.csc326.wolfcafe.entity.Item;
+import edu.ncsu.csc326.wolfcafe.entity.ItemSales;
+import edu.ncsu.csc326.wolfcafe.entity.Order;
+import edu.ncsu.csc326.wolfcafe.exception.WolfCafeAPIException;
+import edu.ncsu.csc326.wolfcafe.repository.DailySalesRepository;
+import edu.ncsu.csc326.wolfcafe.repository.ItemSalesRepository;
+import edu.ncsu.csc326.wolfcafe.service.SalesStatsService;
+
+/**
+ * Implementation of the SalesStatsService. Each pickup adds one row change
+ * per item and one for the day, with upserts that cannot lose a concurrent
+ * update, and the same change is applied to the in-memory SalesRollup that
+ * answers the queries.
+ */
+@Service
+public class SalesStatsServiceImpl implements SalesStatsService {
+
+    /** Connection to the daily sales rollup */
+    @Autowired
+    private DailySalesRepository dailySalesRepository;
+
+    /** Connection to the per-item sales rollup */
+    @Autowired
+    private ItemSalesRepository  itemSalesRepository;
+
+    /** In-memory mirror of the rollups */
+    @Autowired
+    private SalesRollup          salesRollup;
+
+    /** In-memory index of the menu used to price the items sold */
+    @Autowired
+    private ItemIndex            itemIndex;
+
+    /**
+     * Adds an order that has just been picked up to the sales of the day it
+     * was placed. Items are valued at their current price; items no longer on
+     * the menu count their units but no revenue.
+     *
+     * @param order
+     *            the order that was picked up
+     */
+    @Override
+    @Transactional
+    public void recordPickup ( final Order order ) {
+        final LocalDate day = order.getCreatedAt().toLocalDate();
+        final Map<String, Item> menu = itemIndex.findAllByName( order.getItems().keySet() );
+
+        final List<ItemSales> items = new ArrayList<>();
+        for ( final Map.Entry<String, Integer> entry : order.getItems().entrySet() ) {
+            final Item item = menu.get( entry.getKey() );
+            final double revenue = item != null ? item.getPrice() * entry.getValue() : 0.0;
+            itemSalesRepository.addSales( day, entry.getKey(), entry.getValue(), revenue );
+            items.add( new ItemSales( null, day, entry.getKey(), entry.getValue(), revenue ) );
+        }
+
+        final double tip = order.getTip() != null ? order.getTip() : 0.0;
+        dailySalesRepository.addSales( day, 1, order.getTotalPrice(), tip );
+        salesRollup.add( new DailySales( day, 1, order.getTotalPrice(), tip ), items );
+    }
+
+    /**
+     * Adds up the sales over a range of days from the in-memory rollup,
+     * without reading any orders.
+     *
+     * @param from
+     *            first day to include, or null to start with the first sale
+     * @param to
+     *            last day to include, or null to end with the last sale
+     * @return the sales over the range
+     */
+    @Override
+    public SalesStatsDto getStats ( final LocalDate from, final LocalDate to ) {
+        if ( from != null && to != null && from.isAfter( to ) ) {
+            throw new WolfCafeAPIException( HttpStatus.BAD_REQUEST,
+                    "The start of the range must not be after its end." );
+        }
+        return salesRollup.summarize( from, to );
+    }
+
+}
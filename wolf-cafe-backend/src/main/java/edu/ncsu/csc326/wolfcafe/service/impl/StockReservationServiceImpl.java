@@ -0,0 +1,156 @@
+package edu.ncsu.csc326.wolfcafe.service.impl;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.hibernate.Hibernate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import edu.ncsu.csc326.wolfcafe.entity.Inventory;
+import edu.ncsu.csc326.wolfcafe.entity.Item;
+import edu.ncsu.csc326.wolfcafe.exception.ResourceNotFoundException;
+import edu.ncsu.csc326.wolfcafe.repository.InventoryRepository;
+import edu.ncsu.csc326.wolfcafe.service.StockReservationService;
+import jakarta.persistence.EntityManager;
+
+/**
+ * Implementation of the StockReservationService interface. Each item's stock
+ * is its own row in inventory_items, so every reservation is a single
+ * conditional update on that row instead of a rewrite of the whole inventory.
+ * Rows are always updated in item id order so two orders that share items
+ * lock them in the same order and cannot deadlock. Every update also
+ * increases the version of the row it changes, which is part of the stock
+ * version of the inventory, so staff editing the whole inventory from an
+ * earlier reading cannot overwrite the stock orders took or returned since,
+ * while orders never write the shared inventory row. The updates bypass the
+ * persistence context, so an inventory the transaction has already loaded is
+ * refreshed afterwards; the rest of the context, such as the order being
+ * placed, is left alone.
+ */
+@Service
+public class StockReservationServiceImpl implements StockReservationService {
+
+    /** Connection to the inventory repository */
+    @Autowired
+    private InventoryRepository inventoryRepository;
+
+    /** Holds the entities the current transaction has loaded */
+    @Autowired
+    private EntityManager       entityManager;
+
+    /**
+     * Takes the given amounts out of the inventory.
+     *
+     * @param amounts
+     *            the items to reserve and how many of each
+     * @throws IllegalStateException
+     *             if any item does not have enough stock
+     */
+    @Override
+    @Transactional
+    public void reserve ( final Map<Item, Integer> amounts ) {
+        final Long inventoryId = findInventoryId();
+
+        for ( final Map.Entry<Item, Integer> entry : inItemOrder( amounts ) ) {
+            final Item item = entry.getKey();
+            final int amount = entry.getValue();
+
+            if ( inventoryRepository.reserveStock( inventoryId, item.getId(), amount ) == 0 ) {
+                final int available = inventoryRepository.findStock( inventoryId, item.getId() ).orElse( 0 );
+                throw new IllegalStateException( "Insufficient inventory for item: " + item.getName()
+                        + ". Available: " + available + ", Required: " + amount );
+            }
+        }
+        refreshLoaded( inventoryId );
+    }
+
+    /**
+     * Puts the given amounts back into the inventory.
+     *
+     * @param amounts
+     *            the items to release and how many of each
+     * @throws ResourceNotFoundException
+     *             if any item is no longer in the inventory
+     */
+    @Override
+    @Transactional
+    public void release ( final Map<Item, Integer> amounts ) {
+        final Long inventoryId = findInventoryId();
+
+        for ( final Map.Entry<Item, Integer> entry : inItemOrder( amounts ) ) {
+            final Item item = entry.getKey();
+
+            if ( inventoryRepository.releaseStock( inventoryId, item.getId(), entry.getValue() ) == 0 ) {
+                throw new ResourceNotFoundException( "Item not found in inventory: " + item.getName() );
+            }
+        }
+        refreshLoaded( inventoryId );
+    }
+
+    /**
+     * Reads and locks the stock of the given items.
+     *
+     * @param items
+     *            the items to lock
+     * @return the quantity in stock by item id
+     */
+    @Override
+    @Transactional
+    public Map<Long, Integer> lockStock ( final Collection<Item> items ) {
+        final Map<Long, Integer> stock = new HashMap<>();
+        if ( items.isEmpty() ) {
+            return stock;
+        }
+
+        final List<Long> itemIds = items.stream().map( Item::getId ).sorted().collect( Collectors.toList() );
+        for ( final Object[] row : inventoryRepository.lockStock( findInventoryId(), itemIds ) ) {
+            stock.put( ( (Number) row[0] ).longValue(), ( (Number) row[1] ).intValue() );
+        }
+        return stock;
+    }
+
+    /**
+     * Helper method to find the id of the inventory. Throws
+     * ResourceNotFoundException if there is no inventory.
+     *
+     * @return id of the inventory
+     */
+    private Long findInventoryId () {
+        return inventoryRepository.findInventoryId()
+                .orElseThrow( () -> new ResourceNotFoundException( "Inventory is empty or not found." ) );
+    }
+
+    /**
+     * Helper method to reread the inventory if the current transaction has
+     * already loaded it, so it shows the stock the updates wrote. An
+     * inventory that has not been loaded is not read.
+     *
+     * @param inventoryId
+     *            id of the inventory
+     */
+    private void refreshLoaded ( final Long inventoryId ) {
+        final Inventory loaded = entityManager.getReference( Inventory.class, inventoryId );
+        if ( Hibernate.isInitialized( loaded ) ) {
+            entityManager.refresh( loaded );
+        }
+    }
+
+    /**
+     * Sorts the amounts by item id so rows are always locked in the same order.
+     *
+     * @param amounts
+     *            the amounts to sort
+     * @return the entries ordered by item id
+     */
+    private static List<Map.Entry<Item, Integer>> inItemOrder ( final Map<Item, Integer> amounts ) {
+        return amounts.entrySet().stream().sorted( Comparator.comparing( entry -> entry.getKey().getId() ) )
+                .collect( Collectors.toList() );
+    }
+
+}
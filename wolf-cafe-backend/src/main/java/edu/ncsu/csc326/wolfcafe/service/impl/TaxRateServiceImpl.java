@@ -4,13 +4,16 @@ import java.util.List;
 
 import org.springframework.stereotype.Service;
 
+import edu.ncsu.csc326.wolfcafe.cache.TaxRateCache;
+import edu.ncsu.csc326.wolfcafe.dto.TaxRateDto;
 import edu.ncsu.csc326.wolfcafe.entity.TaxRate;
 import edu.ncsu.csc326.wolfcafe.repository.TaxRateRepository;
 import edu.ncsu.csc326.wolfcafe.service.TaxRateService;
 import lombok.AllArgsConstructor;
 
 /**
- * Implementation of the TaxRateService Interface
+ * Implementation of the TaxRateService Interface. Reads are served from a
+ * versioned in-memory snapshot of the rate.
  */
 @Service
 @AllArgsConstructor
@@ -19,6 +22,9 @@ public class TaxRateServiceImpl implements TaxRateService {
     /** Connection to the tax rate repository */
     private final TaxRateRepository taxRateRepository;
 
+    /** In-memory snapshot of the current tax rate */
+    private final TaxRateCache      taxRateCache;
+
     /**
      * Sets the Tax Rate of the System
      *
@@ -39,9 +45,12 @@ public class TaxRateServiceImpl implements TaxRateService {
                 throw new IllegalStateException( "No tax rate exists in the system to update." );
             }
 
-            final TaxRate systemRate = rateList.get( 0 );
-            systemRate.setRate( rate );
-            taxRateRepository.save( systemRate );
+            final Long id = rateList.get( 0 ).getId();
+            taxRateRepository.updateRate( id, rate );
+
+            final TaxRate systemRate = taxRateRepository.findById( id )
+                    .orElseThrow( () -> new IllegalStateException( "No tax rate exists in the system to update." ) );
+            taxRateCache.set( systemRate );
 
             return true;
         }
@@ -63,14 +72,21 @@ public class TaxRateServiceImpl implements TaxRateService {
      */
     @Override
     public double getTaxRate () {
-        try {
-            final List<TaxRate> rateList = taxRateRepository.findAll();
+        return getCurrentTaxRate().getRate();
+    }
 
-            if ( rateList.isEmpty() ) {
-                throw new IllegalStateException( "No tax rate exists in the system." );
-            }
+    /**
+     * Gets the current tax rate of the system together with its version
+     *
+     * @return the current tax rate and its version
+     */
+    @Override
+    public TaxRateDto getCurrentTaxRate () {
+        try {
+            final TaxRateCache.Snapshot snapshot = taxRateCache.get()
+                    .orElseThrow( () -> new IllegalStateException( "No tax rate exists in the system." ) );
 
-            return rateList.get( 0 ).getRate();
+            return new TaxRateDto( snapshot.getId(), snapshot.getRate(), snapshot.getVersion() );
         }
         catch ( final IllegalStateException e ) {
             throw new IllegalStateException( "Failed to retrieve tax rate: " + e.getMessage() );
@@ -0,0 +1,107 @@
+-- Schema as it stood when it was still generated by Hibernate. Databases
+-- created that way are baselined at this version and skip it.
+
+CREATE TABLE IF NOT EXISTS id_allocation (
+    sequence_name VARCHAR(255) NOT NULL,
+    next_val      BIGINT,
+    PRIMARY KEY (sequence_name)
+);
+
+CREATE TABLE IF NOT EXISTS roles (
+    id   BIGINT NOT NULL AUTO_INCREMENT,
+    name VARCHAR(255),
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE IF NOT EXISTS users (
+    id       BIGINT       NOT NULL,
+    name     VARCHAR(255),
+    username VARCHAR(255) NOT NULL,
+    email    VARCHAR(255) NOT NULL,
+    password VARCHAR(255) NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_users_username UNIQUE (username),
+    CONSTRAINT uk_users_email UNIQUE (email)
+);
+
+CREATE TABLE IF NOT EXISTS users_roles (
+    user_id BIGINT NOT NULL,
+    role_id BIGINT NOT NULL,
+    CONSTRAINT fk_users_roles_user FOREIGN KEY (user_id) REFERENCES users (id),
+    CONSTRAINT fk_users_roles_role FOREIGN KEY (role_id) REFERENCES roles (id)
+);
+
+CREATE TABLE IF NOT EXISTS items (
+    id          BIGINT       NOT NULL,
+    name        VARCHAR(255) NOT NULL,
+    description VARCHAR(255),
+    price       DOUBLE       NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_items_name UNIQUE (name)
+);
+
+CREATE TABLE IF NOT EXISTS inventory (
+    id      BIGINT NOT NULL AUTO_INCREMENT,
+    version BIGINT NOT NULL,
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE IF NOT EXISTS inventory_items (
+    inventory_id BIGINT NOT NULL,
+    item_id      BIGINT NOT NULL,
+    quantity     INT,
+    PRIMARY KEY (inventory_id, item_id),
+    CONSTRAINT fk_inventory_items_inventory FOREIGN KEY (inventory_id) REFERENCES inventory (id),
+    CONSTRAINT fk_inventory_items_item FOREIGN KEY (item_id) REFERENCES items (id)
+);
+
+CREATE TABLE IF NOT EXISTS tax_rate (
+    id           BIGINT NOT NULL AUTO_INCREMENT,
+    rate         DOUBLE,
+    rate_version BIGINT,
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE IF NOT EXISTS customer_order (
+    id          BIGINT      NOT NULL,
+    customer_id BIGINT      NOT NULL,
+    tip         DOUBLE      NOT NULL,
+    status      ENUM('PLACED', 'FULFILLED', 'PICKED_UP', 'CANCELLED'),
+    created_at  DATETIME(6) NOT NULL,
+    total_price DOUBLE      NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT fk_customer_order_customer FOREIGN KEY (customer_id) REFERENCES users (id)
+);
+
+CREATE TABLE IF NOT EXISTS order_items (
+    order_id  BIGINT       NOT NULL,
+    item_name VARCHAR(255) NOT NULL,
+    quantity  INT,
+    PRIMARY KEY (order_id, item_name),
+    CONSTRAINT fk_order_items_order FOREIGN KEY (order_id) REFERENCES customer_order (id)
+);
+
+CREATE TABLE IF NOT EXISTS idempotency_keys (
+    idempotency_key VARCHAR(512) NOT NULL,
+    order_id        BIGINT       NOT NULL,
+    created_at      DATETIME(6)  NOT NULL,
+    PRIMARY KEY (idempotency_key)
+);
+
+CREATE TABLE IF NOT EXISTS daily_sales (
+    sale_date DATE   NOT NULL,
+    orders    BIGINT NOT NULL,
+    revenue   DOUBLE NOT NULL,
+    tips      DOUBLE NOT NULL,
+    PRIMARY KEY (sale_date)
+);
+
+CREATE TABLE IF NOT EXISTS item_sales (
+    id        BIGINT       NOT NULL AUTO_INCREMENT,
+    sale_date DATE         NOT NULL,
+    item_name VARCHAR(255) NOT NULL,
+    units     BIGINT       NOT NULL,
+    revenue   DOUBLE       NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_item_sales_day_item UNIQUE (sale_date, item_name)
+);
@@ -0,0 +1,12 @@
+-- Indexes for the hot order queries. InnoDB appends the primary key to every
+-- secondary index, so the two customer_order indexes also cover the
+-- (created_at, id) keyset order of the listings.
+
+-- Status boards and the order history: WHERE status = ? ORDER BY created_at
+CREATE INDEX idx_customer_order_status_created_at ON customer_order (status, created_at);
+
+-- A customer's orders: WHERE customer_id = ? ORDER BY created_at
+CREATE INDEX idx_customer_order_customer_created_at ON customer_order (customer_id, created_at);
+
+-- Order history filtered by item: WHERE item_name IN (...)
+CREATE INDEX idx_order_items_item_name ON order_items (item_name);
@@ -0,0 +1,6 @@
+-- When each order reached each status after PLACED (created_at records when it
+-- was placed). Written by the same conditional UPDATE that changes the status,
+-- so they are null for orders that changed status before this migration.
+ALTER TABLE customer_order ADD COLUMN fulfilled_at DATETIME(6) NULL;
+ALTER TABLE customer_order ADD COLUMN picked_up_at DATETIME(6) NULL;
+ALTER TABLE customer_order ADD COLUMN cancelled_at DATETIME(6) NULL;
@@ -0,0 +1,5 @@
+-- The unfiltered order listing: ORDER BY created_at DESC, id DESC, seeking to
+-- the last order seen with created_at < ? OR (created_at = ? AND id < ?). The
+-- status and customer indexes only serve listings filtered on their leading
+-- column, so without this one every page sorted the whole table.
+CREATE INDEX idx_customer_order_created_at_id ON customer_order (created_at DESC, id DESC);
@@ -0,0 +1,5 @@
+-- Each item's stock row carries its own version, increased by the same
+-- conditional UPDATE that takes or returns its stock. Orders therefore never
+-- write the shared inventory row; the version of the whole inventory is the
+-- inventory row's version plus the versions of its stock rows.
+ALTER TABLE inventory_items ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
@@ -0,0 +1,215 @@
+package edu.ncsu.csc326.wolfcafe.benchmark;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import edu.ncsu.csc326.wolfcafe.entity.Order;
+import edu.ncsu.csc326.wolfcafe.entity.User;
+import edu.ncsu.csc326.wolfcafe.repository.OrderRepository;
+import edu.ncsu.csc326.wolfcafe.repository.UserRepository;
+import jakarta.persistence.EntityManagerFactory;
+
+/*
+ * Measures how many JDBC statements it takes to store an order now that order
+ * ids come from a pooled allocator and inserts can be batched, against the
+ * same orders stored in a throwaway table with an IDENTITY key the way
+ * Hibernate stores them there: one insert per order to read back its key,
+ * then the item rows in batches. Not part of the normal test run; run it
+ * with: mvn test -Dtest=IdAllocationBenchmark
+ */
+@SpringBootTest ( properties = "spring.jpa.properties.hibernate.generate_statistics=true" )
+public class IdAllocationBenchmark {
+
+    /*
+     * Number of orders saved in one bulk insert
+     */
+    private static final int                  ORDERS      = 500;
+
+    /*
+     * Distinct items on each order, each stored as its own order_items row
+     */
+    private static final Map<String, Integer> ORDER_ITEMS = Map.of( "Coffee", 1, "Milk", 2, "Muffin", 1 );
+
+    /*
+     * Reference to order repository
+     */
+    @Autowired
+    private OrderRepository                   orderRepository;
+
+    /*
+     * Reference to user repository
+     */
+    @Autowired
+    private UserRepository                    userRepository;
+
+    /*
+     * Used to read Hibernate's statement statistics
+     */
+    @Autowired
+    private EntityManagerFactory              entityManagerFactory;
+
+    /*
+     * Connections for the IDENTITY baseline
+     */
+    @Autowired
+    private DataSource                        dataSource;
+
+    /*
+     * Rows Hibernate sends in one JDBC batch
+     */
+    @Value ( "${spring.jpa.properties.hibernate.jdbc.batch_size:1}" )
+    private int                               batchSize;
+
+    /*
+     * Customer the orders are placed for
+     */
+    private User                              customer;
+
+    /*
+     * Creates the customer and the IDENTITY tables
+     */
+    @BeforeEach
+    public void setUp () throws SQLException {
+        try ( Connection connection = dataSource.getConnection();
+                Statement statement = connection.createStatement() ) {
+            statement.execute( "CREATE TABLE bench_identity_order ( id BIGINT AUTO_INCREMENT PRIMARY KEY,"
+                    + " customer_id BIGINT NOT NULL, tip DOUBLE NOT NULL, status VARCHAR(20) NOT NULL,"
+                    + " created_at DATETIME(6) NOT NULL, total_price DOUBLE NOT NULL )" );
+            statement.execute( "CREATE TABLE bench_identity_order_items ( order_id BIGINT NOT NULL,"
+                    + " item_name VARCHAR(255) NOT NULL, quantity INT, PRIMARY KEY ( order_id, item_name ) )" );
+        }
+
+        customer = new User();
+        customer.setUsername( "bench-ids" );
+        customer.setEmail( "bench-ids@example.com" );
+        customer.setPassword( "password" );
+        customer = userRepository.save( customer );
+    }
+
+    /*
+     * Removes the orders, the customer and the IDENTITY tables
+     */
+    @AfterEach
+    public void tearDown () throws SQLException {
+        orderRepository.deleteAll( orderRepository.findByCustomerId( customer.getId() ) );
+        userRepository.delete( customer );
+        try ( Connection connection = dataSource.getConnection();
+                Statement statement = connection.createStatement() ) {
+            statement.execute( "DROP TABLE bench_identity_order_items" );
+            statement.execute( "DROP TABLE bench_identity_order" );
+        }
+    }
+
+    /*
+     * Saves a bulk of orders and prints the statements and time per order
+     * against the IDENTITY baseline measured in the same run
+     */
+    @Test
+    public void measureStatementsPerOrder () throws SQLException {
+        final List<Order> orders = new ArrayList<>();
+        for ( int i = 0; i < ORDERS; i++ ) {
+            final Order order = new Order();
+            order.setCustomer( customer );
+            order.setItems( new HashMap<>( ORDER_ITEMS ) );
+            order.setCreatedAt( LocalDateTime.now() );
+            order.setTotalPrice( 10.0 );
+            orders.add( order );
+        }
+
+        final Statistics statistics = entityManagerFactory.unwrap( SessionFactory.class ).getStatistics();
+        statistics.clear();
+        final long start = System.nanoTime();
+        orderRepository.saveAll( orders );
+        final long pooledNanos = System.nanoTime() - start;
+        final long statements = statistics.getPrepareStatementCount();
+        final double perOrder = (double) statements / ORDERS;
+
+        final long identityStart = System.nanoTime();
+        final long identityRoundTrips = insertWithIdentity();
+        final long identityNanos = System.nanoTime() - identityStart;
+        final double identityPerOrder = (double) identityRoundTrips / ORDERS;
+
+        System.out.printf( "Bulk insert of %d orders with %d items each:%n", ORDERS, ORDER_ITEMS.size() );
+        System.out.printf( "  pooled ids: %d statements (%.3f per order), %.1f ms%n", statements, perOrder,
+                pooledNanos / 1e6 );
+        System.out.printf( "  IDENTITY:   %d round trips (%.3f per order), %.1f ms%n", identityRoundTrips,
+                identityPerOrder, identityNanos / 1e6 );
+        System.out.printf( "  %.1fx fewer round trips, %.1fx faster%n", identityPerOrder / perOrder,
+                (double) identityNanos / pooledNanos );
+
+        assertTrue( perOrder < 1.0, "Order inserts should be batched" );
+        assertTrue( perOrder < identityPerOrder, "Pooled ids should take fewer statements than IDENTITY" );
+    }
+
+    /*
+     * Stores the same orders in the IDENTITY tables in one transaction, each
+     * order row on its own so its key can be read back and the item rows in
+     * batches, and counts the round trips (helper)
+     */
+    private long insertWithIdentity () throws SQLException {
+        long roundTrips = 0;
+        try ( Connection connection = dataSource.getConnection() ) {
+            connection.setAutoCommit( false );
+            try ( PreparedStatement order = connection.prepareStatement( "INSERT INTO bench_identity_order"
+                    + " ( customer_id, tip, status, created_at, total_price ) VALUES ( ?, 0, 'PLACED', ?, 10 )",
+                    Statement.RETURN_GENERATED_KEYS );
+                    PreparedStatement item = connection.prepareStatement(
+                            "INSERT INTO bench_identity_order_items ( order_id, item_name, quantity )"
+                                    + " VALUES ( ?, ?, ? )" ) ) {
+                int batched = 0;
+                for ( int i = 0; i < ORDERS; i++ ) {
+                    order.setLong( 1, customer.getId() );
+                    order.setTimestamp( 2, Timestamp.valueOf( LocalDateTime.now() ) );
+                    order.executeUpdate();
+                    roundTrips++;
+                    final long id;
+                    try ( ResultSet keys = order.getGeneratedKeys() ) {
+                        keys.next();
+                        id = keys.getLong( 1 );
+                    }
+
+                    for ( final Map.Entry<String, Integer> entry : ORDER_ITEMS.entrySet() ) {
+                        item.setLong( 1, id );
+                        item.setString( 2, entry.getKey() );
+                        item.setInt( 3, entry.getValue() );
+                        item.addBatch();
+                        if ( ++batched == batchSize ) {
+                            item.executeBatch();
+                            roundTrips++;
+                            batched = 0;
+                        }
+                    }
+                }
+                if ( batched > 0 ) {
+                    item.executeBatch();
+                    roundTrips++;
+                }
+            }
+            connection.commit();
+        }
+        return roundTrips;
+    }
+
+}
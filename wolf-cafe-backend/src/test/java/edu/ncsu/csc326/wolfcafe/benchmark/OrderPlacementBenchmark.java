@@ -0,0 +1,187 @@
+package edu.ncsu.csc326.wolfcafe.benchmark;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import edu.ncsu.csc326.wolfcafe.dto.OrderDto;
+import edu.ncsu.csc326.wolfcafe.entity.Inventory;
+import edu.ncsu.csc326.wolfcafe.entity.Item;
+import edu.ncsu.csc326.wolfcafe.entity.User;
+import edu.ncsu.csc326.wolfcafe.pipeline.OrderPlacementPipeline;
+import edu.ncsu.csc326.wolfcafe.repository.InventoryRepository;
+import edu.ncsu.csc326.wolfcafe.repository.ItemRepository;
+import edu.ncsu.csc326.wolfcafe.repository.OrderRepository;
+import edu.ncsu.csc326.wolfcafe.repository.UserRepository;
+import edu.ncsu.csc326.wolfcafe.service.OrderService;
+
+/*
+ * Compares orders per second between placing each order in its own
+ * transaction and the group-commit pipeline. Not part of the normal test run;
+ * run it with: mvn test -Dtest=OrderPlacementBenchmark
+ */
+@SpringBootTest ( properties = "app.orders.group-commit.enabled=true" )
+public class OrderPlacementBenchmark {
+
+    /*
+     * Number of customers placing orders at the same time
+     */
+    private static final int       THREADS           = 16;
+
+    /*
+     * Number of orders each customer places per run
+     */
+    private static final int       ORDERS_PER_THREAD = 50;
+
+    /*
+     * Reference to order service, used for the one-transaction-per-order path
+     */
+    @Autowired
+    private OrderService           orderService;
+
+    /*
+     * Reference to the group-commit pipeline
+     */
+    @Autowired
+    private OrderPlacementPipeline orderPlacementPipeline;
+
+    /*
+     * Reference to order repository
+     */
+    @Autowired
+    private OrderRepository        orderRepository;
+
+    /*
+     * Reference to inventory repository
+     */
+    @Autowired
+    private InventoryRepository    inventoryRepository;
+
+    /*
+     * Reference to item repository
+     */
+    @Autowired
+    private ItemRepository         itemRepository;
+
+    /*
+     * Reference to user repository
+     */
+    @Autowired
+    private UserRepository         userRepository;
+
+    /*
+     * Customers created for the benchmark
+     */
+    private final List<User>       customers         = new ArrayList<>();
+
+    /*
+     * Stocks a menu large enough for every run and creates the customers
+     */
+    @BeforeEach
+    public void setUp () {
+        inventoryRepository.deleteAll();
+        itemRepository.deleteAll();
+
+        final Map<Item, Integer> stock = new HashMap<>();
+        stock.put( itemRepository.save( new Item( null, "Coffee", "Freshly ground coffee", 3.0 ) ), 1_000_000 );
+        stock.put( itemRepository.save( new Item( null, "Milk", "Whole milk", 1.5 ) ), 1_000_000 );
+        stock.put( itemRepository.save( new Item( null, "Muffin", "Blueberry muffin", 2.5 ) ), 1_000_000 );
+
+        final Inventory inventory = new Inventory();
+        inventory.setItems( stock );
+        inventoryRepository.save( inventory );
+
+        for ( int i = 0; i < THREADS; i++ ) {
+            final User customer = new User();
+            customer.setUsername( "bench-customer-" + i );
+            customer.setEmail( "bench-customer-" + i + "@example.com" );
+            customer.setPassword( "password" );
+            customers.add( userRepository.save( customer ) );
+        }
+    }
+
+    /*
+     * Removes the orders and customers created by the benchmark
+     */
+    @AfterEach
+    public void tearDown () {
+        for ( final User customer : customers ) {
+            orderRepository.deleteAll( orderRepository.findByCustomerId( customer.getId() ) );
+        }
+        userRepository.deleteAll( customers );
+        customers.clear();
+    }
+
+    /*
+     * Runs both paths after a warm-up and prints orders per second for each
+     */
+    @Test
+    public void compareOrdersPerSecond () throws Exception {
+        run( orderService::placeOrder );
+        run( orderPlacementPipeline::place );
+
+        final double direct = run( orderService::placeOrder );
+        final double grouped = run( orderPlacementPipeline::place );
+
+        System.out.printf( "Order placement, %d threads x %d orders:%n", THREADS, ORDERS_PER_THREAD );
+        System.out.printf( "  one transaction per order: %10.1f orders/sec%n", direct );
+        System.out.printf( "  group commit:              %10.1f orders/sec (%.2fx)%n", grouped, grouped / direct );
+    }
+
+    /*
+     * Places every order through the given path from all threads at once and
+     * returns the throughput in orders per second
+     */
+    private double run ( final Function<OrderDto, OrderDto> placeOrder ) throws Exception {
+        final ExecutorService executor = Executors.newFixedThreadPool( THREADS );
+        final CountDownLatch start = new CountDownLatch( 1 );
+        final List<Future<Integer>> futures = new ArrayList<>();
+
+        for ( final User customer : customers ) {
+            futures.add( executor.submit( () -> {
+                SecurityContextHolder.getContext().setAuthentication(
+                        new UsernamePasswordAuthenticationToken( customer.getUsername(), "password", List.of() ) );
+                start.await();
+                int placed = 0;
+                for ( int i = 0; i < ORDERS_PER_THREAD; i++ ) {
+                    final OrderDto order = new OrderDto();
+                    order.setItems( Map.of( "Coffee", 1, "Milk", 1 + i % 2, "Muffin", 1 ) );
+                    order.setTip( 1.0 );
+                    placeOrder.apply( order );
+                    placed++;
+                }
+                SecurityContextHolder.clearContext();
+                return placed;
+            } ) );
+        }
+
+        final long begin = System.nanoTime();
+        start.countDown();
+        int placed = 0;
+        for ( final Future<Integer> future : futures ) {
+            placed += future.get();
+        }
+        final long elapsed = System.nanoTime() - begin;
+        executor.shutdown();
+
+        assertEquals( THREADS * ORDERS_PER_THREAD, placed );
+        return placed / ( elapsed / 1_000_000_000.0 );
+    }
+
+}
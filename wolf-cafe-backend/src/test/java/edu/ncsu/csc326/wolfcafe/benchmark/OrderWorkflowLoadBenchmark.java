@@ -0,0 +1,241 @@
+package edu.ncsu.csc326.wolfcafe.benchmark;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import edu.ncsu.csc326.wolfcafe.WolfCafeApplication;
+import edu.ncsu.csc326.wolfcafe.dto.JwtAuthResponse;
+import edu.ncsu.csc326.wolfcafe.dto.LoginDto;
+import edu.ncsu.csc326.wolfcafe.dto.RegisterDto;
+import edu.ncsu.csc326.wolfcafe.entity.Inventory;
+import edu.ncsu.csc326.wolfcafe.entity.Item;
+import edu.ncsu.csc326.wolfcafe.entity.User;
+import edu.ncsu.csc326.wolfcafe.repository.InventoryRepository;
+import edu.ncsu.csc326.wolfcafe.repository.ItemRepository;
+import edu.ncsu.csc326.wolfcafe.repository.OrderRepository;
+import edu.ncsu.csc326.wolfcafe.repository.UserRepository;
+
+/*
+ * Compares latency and throughput of the order workflow (place an order, then
+ * list the customer's orders) over HTTP with request handling on Tomcat's
+ * platform threads and on virtual threads. Each mode starts its own server.
+ * Not part of the normal test run; run it with:
+ * mvn test -Dtest=OrderWorkflowLoadBenchmark
+ * Adding -Djdk.tracePinnedThreads=short to the JVM arguments reports any
+ * virtual thread that blocks while pinned to its carrier.
+ */
+public class OrderWorkflowLoadBenchmark {
+
+    /*
+     * Number of customers sending requests at the same time, more than
+     * Tomcat's default pool of 200 platform threads
+     */
+    private static final int          CLIENTS    = 400;
+
+    /*
+     * Number of place-then-list rounds each customer runs
+     */
+    private static final int          ROUNDS     = 10;
+
+    /*
+     * Reference to mapper to help with dto conversions
+     */
+    private static final ObjectMapper mapper     = new ObjectMapper();
+
+    /*
+     * Client shared by every simulated customer
+     */
+    private final HttpClient          httpClient = HttpClient.newHttpClient();
+
+    /*
+     * Runs the workflow with virtual threads off and on and prints the results
+     */
+    @Test
+    public void compareVirtualThreads () throws Exception {
+        final Result platform = runMode( false );
+        final Result virtual = runMode( true );
+
+        System.out.printf( "Order workflow, %d clients x %d rounds (2 requests per round):%n", CLIENTS, ROUNDS );
+        System.out.println( "  platform threads: " + platform );
+        System.out.println( "  virtual threads:  " + virtual );
+    }
+
+    /*
+     * Starts the application in one mode, warms it up, measures it and shuts
+     * it down again
+     */
+    private Result runMode ( final boolean virtualThreads ) throws Exception {
+        final ConfigurableApplicationContext context = new SpringApplicationBuilder( WolfCafeApplication.class )
+                .properties( "server.port=0", "spring.threads.virtual.enabled=" + virtualThreads ).run();
+        final String prefix = virtualThreads ? "vt" : "pt";
+        final List<String> usernames = new ArrayList<>();
+        try {
+            final String baseUrl = "http://localhost:" + context.getEnvironment().getProperty( "local.server.port" );
+            stockMenu( context );
+
+            final List<String> tokens = new ArrayList<>();
+            for ( int i = 0; i < CLIENTS; i++ ) {
+                final String username = "load-" + prefix + "-" + i;
+                usernames.add( username );
+                tokens.add( registerAndLogin( baseUrl, username ) );
+            }
+
+            runLoad( baseUrl, tokens.subList( 0, CLIENTS / 4 ), 2 );
+            return runLoad( baseUrl, tokens, ROUNDS );
+        }
+        finally {
+            cleanUp( context, usernames );
+            context.close();
+        }
+    }
+
+    /*
+     * Runs every client at once and collects the latency of each request
+     */
+    private Result runLoad ( final String baseUrl, final List<String> tokens, final int rounds ) throws Exception {
+        final CountDownLatch start = new CountDownLatch( 1 );
+        final List<Future<List<Long>>> futures = new ArrayList<>();
+        try ( ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor() ) {
+            for ( final String token : tokens ) {
+                futures.add( clients.submit( () -> {
+                    start.await();
+                    final List<Long> latencies = new ArrayList<>();
+                    for ( int i = 0; i < rounds; i++ ) {
+                        latencies.add( send( baseUrl, token, "POST", "/api/orders",
+                                "{\"items\":{\"Coffee\":1,\"Muffin\":1},\"tip\":1.0}", 201 ) );
+                        latencies.add( send( baseUrl, token, "GET", "/api/orders/customer", null, 200 ) );
+                    }
+                    return latencies;
+                } ) );
+            }
+
+            final long begin = System.nanoTime();
+            start.countDown();
+            final List<Long> latencies = new ArrayList<>();
+            for ( final Future<List<Long>> future : futures ) {
+                latencies.addAll( future.get() );
+            }
+            final long elapsed = System.nanoTime() - begin;
+
+            assertEquals( tokens.size() * rounds * 2, latencies.size() );
+            Collections.sort( latencies );
+            return new Result( percentile( latencies, 0.50 ), percentile( latencies, 0.99 ),
+                    latencies.size() / ( elapsed / 1_000_000_000.0 ) );
+        }
+    }
+
+    /*
+     * Sends one request and returns its latency in nanoseconds
+     */
+    private long send ( final String baseUrl, final String token, final String method, final String path,
+            final String body, final int expectedStatus ) throws Exception {
+        final HttpRequest request = HttpRequest.newBuilder( URI.create( baseUrl + path ) )
+                .header( "Authorization", "Bearer " + token ).header( "Content-Type", "application/json" )
+                .method( method, body == null ? HttpRequest.BodyPublishers.noBody()
+                        : HttpRequest.BodyPublishers.ofString( body ) )
+                .build();
+        final long begin = System.nanoTime();
+        final HttpResponse<String> response = httpClient.send( request, HttpResponse.BodyHandlers.ofString() );
+        final long latency = System.nanoTime() - begin;
+        assertEquals( expectedStatus, response.statusCode(), response.body() );
+        return latency;
+    }
+
+    /*
+     * Registers a customer and returns their access token
+     */
+    private String registerAndLogin ( final String baseUrl, final String username ) throws Exception {
+        final RegisterDto registerDto = new RegisterDto( username, username, username + "@example.com", "password" );
+        httpClient.send(
+                HttpRequest.newBuilder( URI.create( baseUrl + "/api/auth/register" ) )
+                        .header( "Content-Type", "application/json" )
+                        .POST( HttpRequest.BodyPublishers.ofString( mapper.writeValueAsString( registerDto ) ) )
+                        .build(),
+                HttpResponse.BodyHandlers.ofString() );
+
+        final LoginDto loginDto = new LoginDto( username, "password" );
+        final HttpResponse<String> response = httpClient.send(
+                HttpRequest.newBuilder( URI.create( baseUrl + "/api/auth/login" ) )
+                        .header( "Content-Type", "application/json" )
+                        .POST( HttpRequest.BodyPublishers.ofString( mapper.writeValueAsString( loginDto ) ) )
+                        .build(),
+                HttpResponse.BodyHandlers.ofString() );
+        assertEquals( 200, response.statusCode(), response.body() );
+        return mapper.readValue( response.body(), JwtAuthResponse.class ).getAccessToken();
+    }
+
+    /*
+     * Replaces the menu with two items stocked for every run
+     */
+    private void stockMenu ( final ConfigurableApplicationContext context ) {
+        final InventoryRepository inventoryRepository = context.getBean( InventoryRepository.class );
+        final ItemRepository itemRepository = context.getBean( ItemRepository.class );
+        inventoryRepository.deleteAll();
+        itemRepository.deleteAll();
+
+        final Map<Item, Integer> stock = new HashMap<>();
+        stock.put( itemRepository.save( new Item( null, "Coffee", "Freshly ground coffee", 3.0 ) ), 1_000_000 );
+        stock.put( itemRepository.save( new Item( null, "Muffin", "Blueberry muffin", 2.5 ) ), 1_000_000 );
+        final Inventory inventory = new Inventory();
+        inventory.setItems( stock );
+        inventoryRepository.save( inventory );
+    }
+
+    /*
+     * Removes the customers created for a run and their orders
+     */
+    private void cleanUp ( final ConfigurableApplicationContext context, final List<String> usernames ) {
+        final UserRepository userRepository = context.getBean( UserRepository.class );
+        final OrderRepository orderRepository = context.getBean( OrderRepository.class );
+        for ( final String username : usernames ) {
+            final User user = userRepository.findByUsername( username ).orElse( null );
+            if ( user != null ) {
+                orderRepository.deleteAll( orderRepository.findByCustomerId( user.getId() ) );
+                userRepository.delete( user );
+            }
+        }
+    }
+
+    /*
+     * Returns the given percentile of sorted latencies
+     */
+    private static long percentile ( final List<Long> sorted, final double percentile ) {
+        return sorted.get( (int) Math.min( sorted.size() - 1, Math.ceil( percentile * sorted.size() ) - 1 ) );
+    }
+
+    /*
+     * Latency percentiles and throughput of one run
+     */
+    private record Result ( long p50, long p99, double requestsPerSecond ) {
+
+        /*
+         * Formats the result in milliseconds and requests per second
+         */
+        @Override
+        public String toString () {
+            return String.format( "p50 %7.1f ms, p99 %7.1f ms, %8.1f requests/sec", p50 / 1_000_000.0,
+                    p99 / 1_000_000.0, requestsPerSecond );
+        }
+
+    }
+
+}
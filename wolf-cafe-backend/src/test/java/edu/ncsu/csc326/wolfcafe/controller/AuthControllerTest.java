@@ -304,7 +304,9 @@ public class AuthControllerTest {
                 .andExpect( jsonPath( "$", Matchers.hasSize( 2 ) ) ) // Admin +
                                                                      // User1
                 .andExpect( jsonPath( "$[0].username", Matchers.is( "admin" ) ) )
-                .andExpect( jsonPath( "$[1].username", Matchers.is( "user1" ) ) );
+                .andExpect( jsonPath( "$[1].username", Matchers.is( "user1" ) ) )
+                .andExpect( jsonPath( "$[0].roles[0].name", Matchers.is( "ROLE_ADMIN" ) ) )
+                .andExpect( jsonPath( "$[0].password" ).doesNotExist() );
     }
 
     /**
@@ -1,18 +1,28 @@
 package edu.ncsu.csc326.wolfcafe.controller;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
 
+import org.hamcrest.Matchers;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentMatchers;
 import org.mockito.Mockito;
@@ -20,17 +30,31 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 
+import edu.ncsu.csc326.wolfcafe.dto.ItemSalesDto;
 import edu.ncsu.csc326.wolfcafe.dto.OrderDto;
+import edu.ncsu.csc326.wolfcafe.dto.OrderPageDto;
+import edu.ncsu.csc326.wolfcafe.dto.OrderTransitionResultDto;
+import edu.ncsu.csc326.wolfcafe.dto.SalesStatsDto;
 import edu.ncsu.csc326.wolfcafe.entity.OrderStatus;
+import edu.ncsu.csc326.wolfcafe.entity.OrderTransition;
+import edu.ncsu.csc326.wolfcafe.events.OrderEventHub;
 import edu.ncsu.csc326.wolfcafe.exception.ResourceNotFoundException;
+import edu.ncsu.csc326.wolfcafe.exception.WolfCafeAPIException;
 import edu.ncsu.csc326.wolfcafe.service.OrderService;
+import edu.ncsu.csc326.wolfcafe.service.SalesStatsService;
 
 /*
  * Tests the OrderController Class
@@ -51,6 +75,18 @@ public class OrderControllerTest {
     @MockBean
     private OrderService orderService;
 
+    /*
+     * Reference to sales stats service
+     */
+    @MockBean
+    private SalesStatsService salesStatsService;
+
+    /*
+     * Reference to the hub pushing order changes
+     */
+    @Autowired
+    private OrderEventHub orderEventHub;
+
     /*
      * Reference to mapper to help with dto conversions
      */
@@ -112,6 +148,43 @@ public class OrderControllerTest {
                 .andExpect( jsonPath( "$.timeStamp" ).exists() );
     }
 
+    /*
+     * Tests that a retried order with the same Idempotency-Key gets the original
+     * order back without placing it again, and that the key cannot be reused
+     * for a different order
+     */
+    @Test
+    @WithMockUser ( username = "retrying-customer", roles = "CUSTOMER" )
+    public void testPlaceOrderWithIdempotencyKey () throws Exception {
+        final OrderDto orderDto = new OrderDto();
+        orderDto.setCustomerId( 1L );
+        orderDto.setItems( Map.of( "Deluxe Hamburger", 1 ) );
+        orderDto.setStatus( OrderStatus.PLACED );
+
+        final OrderDto placed = new OrderDto();
+        placed.setId( 42L );
+        placed.setCustomerId( 1L );
+        placed.setItems( Map.of( "Deluxe Hamburger", 1 ) );
+        placed.setStatus( OrderStatus.PLACED );
+
+        Mockito.when( orderService.placeOrder( ArgumentMatchers.any() ) ).thenReturn( placed );
+
+        final String json = mapper.writeValueAsString( orderDto );
+
+        for ( int i = 0; i < 2; i++ ) {
+            mvc.perform( post( API_PATH ).header( "Idempotency-Key", "order-key-1" )
+                    .contentType( MediaType.APPLICATION_JSON ).content( json ).accept( MediaType.APPLICATION_JSON ) )
+                    .andExpect( status().isCreated() ).andExpect( jsonPath( "$.id" ).value( 42 ) );
+        }
+        Mockito.verify( orderService, Mockito.times( 1 ) ).placeOrder( ArgumentMatchers.any() );
+
+        orderDto.setItems( Map.of( "Deluxe Hamburger", 2 ) );
+        mvc.perform( post( API_PATH ).header( "Idempotency-Key", "order-key-1" )
+                .contentType( MediaType.APPLICATION_JSON ).content( mapper.writeValueAsString( orderDto ) )
+                .accept( MediaType.APPLICATION_JSON ) ).andExpect( status().isUnprocessableEntity() );
+        Mockito.verify( orderService, Mockito.times( 1 ) ).placeOrder( ArgumentMatchers.any() );
+    }
+
     /*
      * Tests getting all the orders as a staff member
      */
@@ -120,7 +193,7 @@ public class OrderControllerTest {
     public void testGetAllOrdersAsStaff () throws Exception {
         final List<OrderDto> orders = createSampleOrders();
 
-        Mockito.when( orderService.getAllOrders() ).thenReturn( orders );
+        Mockito.when( orderService.getAllOrders( null, 50 ) ).thenReturn( new OrderPageDto( orders, null ) );
 
         mvc.perform( get( API_PATH ).contentType( MediaType.APPLICATION_JSON ) ).andExpect( status().isOk() )
                 .andExpect( jsonPath( "$.size()" ).value( 2 ) ).andExpect( jsonPath( "$[0].customerId" ).value( 1 ) )
@@ -133,6 +206,30 @@ public class OrderControllerTest {
                                                                                                 // status
     }
 
+    /*
+     * Tests that the cursor is passed to the service and the cursor for the
+     * next page is sent in a header
+     */
+    @Test
+    @WithMockUser ( username = "staff", roles = "STAFF" )
+    public void testGetAllOrdersWithCursor () throws Exception {
+        final List<OrderDto> orders = createSampleOrders();
+
+        Mockito.when( orderService.getAllOrders( "page-2", 2 ) ).thenReturn( new OrderPageDto( orders, "page-3" ) );
+
+        mvc.perform( get( API_PATH ).param( "cursor", "page-2" ).param( "size", "2" )
+                .contentType( MediaType.APPLICATION_JSON ) ).andExpect( status().isOk() )
+                .andExpect( header().string( "X-Next-Cursor", "page-3" ) )
+                .andExpect( jsonPath( "$.size()" ).value( 2 ) );
+
+        // No header on the last page
+        Mockito.when( orderService.getAllOrders( "page-3", 2 ) ).thenReturn( new OrderPageDto( orders, null ) );
+
+        mvc.perform( get( API_PATH ).param( "cursor", "page-3" ).param( "size", "2" )
+                .contentType( MediaType.APPLICATION_JSON ) ).andExpect( status().isOk() )
+                .andExpect( header().doesNotExist( "X-Next-Cursor" ) );
+    }
+
     /*
      * Tests getting all the orders for the current customer
      */
@@ -141,7 +238,8 @@ public class OrderControllerTest {
     public void testGetOrdersForCurrentUser () throws Exception {
         final List<OrderDto> orders = createSampleOrders();
 
-        Mockito.when( orderService.getOrdersForCurrentUser() ).thenReturn( orders );
+        Mockito.when( orderService.getOrdersForCurrentUser( null, 50 ) )
+                .thenReturn( new OrderPageDto( orders, null ) );
 
         mvc.perform( get( API_PATH + "/customer" ).contentType( MediaType.APPLICATION_JSON ) )
                 .andExpect( status().isOk() ).andExpect( jsonPath( "$.size()" ).value( 2 ) )
@@ -155,6 +253,63 @@ public class OrderControllerTest {
                                                                                                 // status
     }
 
+    /*
+     * Tests that waiting on an order is answered once the order's status
+     * changes
+     */
+    @Test
+    @WithMockUser ( username = "customer", roles = "CUSTOMER" )
+    public void testWaitForOrderStatus () throws Exception {
+        final OrderDto orderDto = new OrderDto();
+        orderDto.setId( 7L );
+        orderDto.setStatus( OrderStatus.PLACED );
+        Mockito.when( orderService.getOrderForCurrentUser( 7L ) ).thenReturn( orderDto );
+
+        final MvcResult result = mvc.perform( get( API_PATH + "/customer/7/status" ).param( "since", "PLACED" ) )
+                .andExpect( request().asyncStarted() ).andReturn();
+
+        final OrderDto fulfilled = new OrderDto();
+        fulfilled.setId( 7L );
+        fulfilled.setStatus( OrderStatus.FULFILLED );
+        orderEventHub.publish( fulfilled );
+
+        mvc.perform( asyncDispatch( result ) ).andExpect( status().isOk() )
+                .andExpect( jsonPath( "$.id" ).value( 7 ) )
+                .andExpect( jsonPath( "$.status" ).value( OrderStatus.FULFILLED.toString() ) );
+    }
+
+    /*
+     * Tests that waiting on an order whose status already differs from the
+     * one the client saw is answered straight away
+     */
+    @Test
+    @WithMockUser ( username = "customer", roles = "CUSTOMER" )
+    public void testWaitForOrderStatusAlreadyChanged () throws Exception {
+        final OrderDto orderDto = new OrderDto();
+        orderDto.setId( 8L );
+        orderDto.setStatus( OrderStatus.FULFILLED );
+        Mockito.when( orderService.getOrderForCurrentUser( 8L ) ).thenReturn( orderDto );
+
+        final MvcResult result = mvc.perform( get( API_PATH + "/customer/8/status" ).param( "since", "PLACED" ) )
+                .andExpect( request().asyncStarted() ).andReturn();
+        mvc.perform( asyncDispatch( result ) ).andExpect( status().isOk() )
+                .andExpect( jsonPath( "$.status" ).value( OrderStatus.FULFILLED.toString() ) );
+    }
+
+    /*
+     * Tests that waiting on an order the customer cannot see is not found
+     */
+    @Test
+    @WithMockUser ( username = "customer", roles = "CUSTOMER" )
+    public void testWaitForOrderStatusNotFound () throws Exception {
+        Mockito.when( orderService.getOrderForCurrentUser( 9L ) )
+                .thenThrow( new ResourceNotFoundException( "Order not found with id: 9" ) );
+
+        mvc.perform( get( API_PATH + "/customer/9/status" ).param( "since", "PLACED" ) )
+                .andExpect( status().isNotFound() )
+                .andExpect( jsonPath( "$.message" ).value( "Order not found with id: 9" ) );
+    }
+
     /*
      * Tests getting an order by the given id
      */
@@ -247,6 +402,25 @@ public class OrderControllerTest {
         return orders;
     }
 
+    /*
+     * Tests claiming the next order as a staff member
+     */
+    @Test
+    @WithMockUser ( username = "staff", roles = "STAFF" )
+    public void testClaimNextOrder () throws Exception {
+        final OrderDto orderDto = new OrderDto();
+        orderDto.setId( 3L );
+        orderDto.setStatus( OrderStatus.PLACED );
+        Mockito.when( orderService.claimNextOrder() ).thenReturn( Optional.of( orderDto ) );
+
+        mvc.perform( post( API_PATH + "/claim" ) ).andExpect( status().isOk() )
+                .andExpect( jsonPath( "$.id" ).value( 3 ) )
+                .andExpect( jsonPath( "$.status" ).value( OrderStatus.PLACED.toString() ) );
+
+        Mockito.when( orderService.claimNextOrder() ).thenReturn( Optional.empty() );
+        mvc.perform( post( API_PATH + "/claim" ) ).andExpect( status().isNoContent() );
+    }
+
     /*
      * Tests fulfilling an order as a staff
      */
@@ -340,6 +514,36 @@ public class OrderControllerTest {
                 .andExpect( jsonPath( "$" ).value( "Order cannot be picked up." ) );
     }
 
+    /*
+     * Tests picking up a batch of orders, with the outcome reported per order
+     */
+    @Test
+    @WithMockUser ( username = "staff", roles = "STAFF" )
+    public void testPickupOrders () throws Exception {
+        Mockito.when( orderService.transitionOrders( List.of( 1L, 2L ), OrderTransition.PICK_UP ) )
+                .thenReturn( List.of( new OrderTransitionResultDto( 1L, true, OrderStatus.PICKED_UP, null ),
+                        new OrderTransitionResultDto( 2L, false, OrderStatus.PLACED,
+                                "Order with ID 2 is not in FULFILLED status and cannot be moved to PICKED_UP." ) ) );
+
+        mvc.perform( put( API_PATH + "/pickup" ).contentType( MediaType.APPLICATION_JSON )
+                .content( mapper.writeValueAsString( List.of( 1L, 2L ) ) ) ).andExpect( status().isOk() )
+                .andExpect( jsonPath( "$[0].id" ).value( 1 ) ).andExpect( jsonPath( "$[0].success" ).value( true ) )
+                .andExpect( jsonPath( "$[1].success" ).value( false ) )
+                .andExpect( jsonPath( "$[1].status" ).value( "PLACED" ) );
+    }
+
+    /*
+     * Tests that customers cannot cancel orders in bulk
+     */
+    @Test
+    @WithMockUser ( username = "customer", roles = "CUSTOMER" )
+    public void testCancelOrdersAsCustomer () throws Exception {
+        mvc.perform( put( API_PATH + "/cancel" ).contentType( MediaType.APPLICATION_JSON )
+                .content( mapper.writeValueAsString( List.of( 1L ) ) ) ).andExpect( status().isForbidden() );
+        Mockito.verify( orderService, Mockito.never() ).transitionOrders( ArgumentMatchers.anyList(),
+                ArgumentMatchers.any() );
+    }
+
     /*
      * Test viewOrderHistory with the results and the total price
      */
@@ -350,7 +554,9 @@ public class OrderControllerTest {
         final List<OrderDto> orderHistory = createSampleOrdersWithTimeAndPrice();
 
         // Mock service call to return the order history
-        Mockito.when( orderService.viewOrderHistory( ArgumentMatchers.anyString() ) ).thenReturn( orderHistory );
+        Mockito.when( orderService.viewOrderHistory( ArgumentMatchers.anyList(), ArgumentMatchers.any(),
+                ArgumentMatchers.any(), ArgumentMatchers.any(), ArgumentMatchers.any( Pageable.class ) ) )
+                .thenReturn( new PageImpl<>( orderHistory ) );
 
         // Perform GET request to the history endpoint with a query parameter
         mvc.perform( get( API_PATH + "/history" ).param( "itemName", "Deluxe Hamburger" )
@@ -367,6 +573,228 @@ public class OrderControllerTest {
                 .andExpect( jsonPath( "$[1].totalPrice" ).value( 5.99 ) );
     }
 
+    /*
+     * Tests that the history filters and paging parameters are passed to the
+     * service and that the total count is sent in a header
+     */
+    @Test
+    @WithMockUser ( username = "staff", roles = "STAFF" )
+    public void testViewOrderHistoryFiltersAndPaging () throws Exception {
+        final List<OrderDto> orderHistory = createSampleOrdersWithTimeAndPrice();
+        final LocalDateTime from = LocalDateTime.of( 2024, 1, 1, 0, 0 );
+        final LocalDateTime to = LocalDateTime.of( 2024, 2, 1, 0, 0 );
+        final Pageable pageable = PageRequest.of( 1, 2, Sort.by( Sort.Direction.ASC, "totalPrice" ) );
+
+        Mockito.when( orderService.viewOrderHistory( List.of( "Fries" ), OrderStatus.CANCELLED, from, to, pageable ) )
+                .thenReturn( new PageImpl<>( orderHistory, pageable, 7 ) );
+
+        mvc.perform( get( API_PATH + "/history" ).param( "itemName", "Fries" ).param( "status", "CANCELLED" )
+                .param( "from", "2024-01-01T00:00:00" ).param( "to", "2024-02-01T00:00:00" ).param( "page", "1" )
+                .param( "size", "2" ).param( "sort", "totalPrice,asc" ).contentType( MediaType.APPLICATION_JSON ) )
+                .andExpect( status().isOk() ).andExpect( header().string( "X-Total-Count", "7" ) )
+                .andExpect( jsonPath( "$.size()" ).value( 2 ) )
+                .andExpect( jsonPath( "$[1].items['Fries']" ).value( 2 ) );
+    }
+
+    /*
+     * Tests that the order history is sorted newest first and paged by default
+     */
+    @Test
+    @WithMockUser ( username = "staff", roles = "STAFF" )
+    public void testViewOrderHistoryDefaultPage () throws Exception {
+        final Pageable pageable = PageRequest.of( 0, 50, Sort.by( Sort.Direction.DESC, "createdAt" ) );
+
+        Mockito.when( orderService.viewOrderHistory( null, null, null, null, pageable ) )
+                .thenReturn( new PageImpl<>( new ArrayList<>(), pageable, 0 ) );
+
+        mvc.perform( get( API_PATH + "/history" ).contentType( MediaType.APPLICATION_JSON ) )
+                .andExpect( status().isOk() ).andExpect( header().string( "X-Total-Count", "0" ) )
+                .andExpect( jsonPath( "$.size()" ).value( 0 ) );
+    }
+
+    /*
+     * Tests that repeating the itemName parameter asks for the orders
+     * containing all of the items
+     */
+    @Test
+    @WithMockUser ( username = "staff", roles = "STAFF" )
+    public void testViewOrderHistoryContainingAllItems () throws Exception {
+        final List<OrderDto> orderHistory = createSampleOrdersWithTimeAndPrice();
+
+        Mockito.when( orderService.viewOrderHistory( ArgumentMatchers.eq( List.of( "Fries", "Soda" ) ),
+                ArgumentMatchers.isNull(), ArgumentMatchers.isNull(), ArgumentMatchers.isNull(),
+                ArgumentMatchers.any( Pageable.class ) ) ).thenReturn( new PageImpl<>( orderHistory ) );
+
+        mvc.perform( get( API_PATH + "/history" ).param( "itemName", "Fries" ).param( "itemName", "Soda" )
+                .contentType( MediaType.APPLICATION_JSON ) ).andExpect( status().isOk() )
+                .andExpect( jsonPath( "$.size()" ).value( 2 ) );
+    }
+
+    /*
+     * Tests exporting the order history as newline-delimited JSON
+     */
+    @Test
+    @WithMockUser ( username = "staff", roles = "STAFF" )
+    public void testExportOrderHistoryNdjson () throws Exception {
+        final List<OrderDto> orders = createSampleOrders();
+        exportOrders( orders );
+
+        final String body = mvc.perform( get( API_PATH + "/history/export" ).param( "itemName", "Fries" ) )
+                .andExpect( status().isOk() )
+                .andExpect( header().string( "Content-Type", Matchers.startsWith( "application/x-ndjson" ) ) )
+                .andExpect(
+                        header().string( "Content-Disposition", Matchers.containsString( "order-history.ndjson" ) ) )
+                .andReturn().getResponse().getContentAsString();
+
+        final String[] lines = body.split( "\n" );
+        assertEquals( 2, lines.length );
+        assertEquals( 2, mapper.readValue( lines[1], OrderDto.class ).getItems().get( "Fries" ) );
+        Mockito.verify( orderService ).exportOrderHistory( ArgumentMatchers.eq( List.of( "Fries" ) ),
+                ArgumentMatchers.isNull(), ArgumentMatchers.isNull(), ArgumentMatchers.isNull(),
+                ArgumentMatchers.any() );
+    }
+
+    /*
+     * Tests exporting the order history as CSV
+     */
+    @Test
+    @WithMockUser ( username = "staff", roles = "STAFF" )
+    public void testExportOrderHistoryCsv () throws Exception {
+        final List<OrderDto> orders = createSampleOrders();
+        orders.get( 0 ).setCustomerName( "Smith, \"Jo\"" );
+        orders.get( 1 ).setCustomerName( "=SUM(1,2)" );
+        orders.get( 1 ).setItems( Map.of( "@Fries", 2 ) );
+        exportOrders( orders );
+
+        final String body = mvc.perform( get( API_PATH + "/history/export" ).param( "format", "csv" ) )
+                .andExpect( status().isOk() )
+                .andExpect( header().string( "Content-Type", Matchers.startsWith( "text/csv" ) ) ).andReturn()
+                .getResponse().getContentAsString();
+
+        final String[] lines = body.split( "\r\n" );
+        assertEquals( 3, lines.length );
+        assertEquals( "id,customerId,customerName,status,createdAt,tip,totalPrice,items", lines[0] );
+        assertEquals( ",1,\"Smith, \"\"Jo\"\"\",PLACED,,,,Deluxe Hamburger:1", lines[1] );
+        assertEquals( ",1,\"'=SUM(1,2)\",PLACED,,,,'@Fries:2", lines[2] );
+    }
+
+    /*
+     * Tests that unknown export formats and invalid ranges are rejected before
+     * anything is written
+     */
+    @Test
+    @WithMockUser ( username = "staff", roles = "STAFF" )
+    public void testExportOrderHistoryInvalid () throws Exception {
+        mvc.perform( get( API_PATH + "/history/export" ).param( "format", "xml" ) )
+                .andExpect( status().isBadRequest() )
+                .andExpect( jsonPath( "$.message" ).value( "Unsupported export format: xml" ) );
+
+        Mockito.doThrow( new WolfCafeAPIException( HttpStatus.BAD_REQUEST, "Bad range" ) ).when( orderService )
+                .exportOrderHistory( ArgumentMatchers.any(), ArgumentMatchers.any(), ArgumentMatchers.any(),
+                        ArgumentMatchers.any(), ArgumentMatchers.any() );
+        mvc.perform( get( API_PATH + "/history/export" ).param( "format", "csv" ) )
+                .andExpect( status().isBadRequest() ).andExpect( jsonPath( "$.message" ).value( "Bad range" ) );
+    }
+
+    /*
+     * Makes the mocked service hand the given orders to the export sink
+     */
+    @SuppressWarnings ( "unchecked" )
+    private void exportOrders ( final List<OrderDto> orders ) {
+        Mockito.doAnswer( invocation -> {
+            orders.forEach( invocation.getArgument( 4, Consumer.class ) );
+            return null;
+        } ).when( orderService ).exportOrderHistory( ArgumentMatchers.any(), ArgumentMatchers.any(),
+                ArgumentMatchers.any(), ArgumentMatchers.any(), ArgumentMatchers.any() );
+    }
+
+    /*
+     * Tests getting the sales stats for a range of days
+     */
+    @Test
+    @WithMockUser ( username = "staff", roles = "STAFF" )
+    public void testGetSalesStats () throws Exception {
+        final LocalDate from = LocalDate.of( 2024, 1, 1 );
+        final LocalDate to = LocalDate.of( 2024, 1, 31 );
+        Mockito.when( salesStatsService.getStats( from, to ) ).thenReturn( new SalesStatsDto( from, to, 3, 22.0, 1.5,
+                List.of( new ItemSalesDto( "Fries", 5, 7.5 ), new ItemSalesDto( "Deluxe Hamburger", 3, 9.0 ) ) ) );
+
+        mvc.perform( get( API_PATH + "/stats" ).param( "from", "2024-01-01" ).param( "to", "2024-01-31" ) )
+                .andExpect( status().isOk() ).andExpect( jsonPath( "$.orders" ).value( 3 ) )
+                .andExpect( jsonPath( "$.revenue" ).value( 22.0 ) )
+                .andExpect( jsonPath( "$.items[0].name" ).value( "Fries" ) )
+                .andExpect( jsonPath( "$.items[0].units" ).value( 5 ) )
+                .andExpect( jsonPath( "$.items[1].revenue" ).value( 9.0 ) );
+    }
+
+    /*
+     * Tests that customers cannot see the sales stats
+     */
+    @Test
+    @WithMockUser ( username = "customer", roles = "CUSTOMER" )
+    public void testGetSalesStatsAsCustomer () throws Exception {
+        mvc.perform( get( API_PATH + "/stats" ) ).andExpect( status().isForbidden() );
+    }
+
+    /*
+     * Tests that a staff member reconnecting to the order events is sent the
+     * change they missed
+     */
+    @Test
+    @WithMockUser ( username = "staff", roles = "STAFF" )
+    public void testStreamOrderEvents () throws Exception {
+        final OrderDto orderDto = new OrderDto();
+        orderDto.setId( 42L );
+        orderDto.setStatus( OrderStatus.FULFILLED );
+        orderEventHub.publish( orderDto );
+        final long last = orderEventHub.lastEventId();
+
+        final MvcResult result = mvc
+                .perform( get( API_PATH + "/events" ).header( "Last-Event-ID", orderEventHub.eventId( last - 1 ) ) )
+                .andExpect( request().asyncStarted() ).andReturn();
+
+        final String body = awaitBody( result, "id:" + orderEventHub.eventId( last ) );
+        assertTrue( body.contains( "id:" + orderEventHub.eventId( last ) ), body );
+        assertTrue( body.contains( "event:" + OrderEventHub.ORDER_EVENT ), body );
+        assertTrue( body.contains( "\"id\":42" ), body );
+        assertTrue( body.contains( "\"status\":\"FULFILLED\"" ), body );
+    }
+
+    /*
+     * Tests that a staff member reconnecting with an id handed out before the
+     * application restarted is told to reload instead of being sent the
+     * changes after that id
+     */
+    @Test
+    @WithMockUser ( username = "staff", roles = "STAFF" )
+    public void testStreamOrderEventsAfterRestart () throws Exception {
+        final OrderDto orderDto = new OrderDto();
+        orderDto.setId( 43L );
+        orderDto.setStatus( OrderStatus.FULFILLED );
+        orderEventHub.publish( orderDto );
+
+        final MvcResult result = mvc
+                .perform( get( API_PATH + "/events" ).header( "Last-Event-ID", "earlier-start-0" ) )
+                .andExpect( request().asyncStarted() ).andReturn();
+
+        final String body = awaitBody( result, "event:" + OrderEventHub.RESET_EVENT );
+        assertTrue( body.contains( "event:" + OrderEventHub.RESET_EVENT ), body );
+        assertFalse( body.contains( "\"id\":43" ), body );
+    }
+
+    /*
+     * Waits up to five seconds for a streamed response to contain some text
+     * (helper)
+     */
+    private static String awaitBody ( final MvcResult result, final String expected ) throws Exception {
+        final long deadline = System.currentTimeMillis() + 5000;
+        while ( !result.getResponse().getContentAsString().contains( expected )
+                && System.currentTimeMillis() < deadline ) {
+            Thread.sleep( 10 );
+        }
+        return result.getResponse().getContentAsString();
+    }
+
     /*
      * Tests viewOrderHistory when an unexpected error occurs
      */
@@ -374,7 +802,8 @@ public class OrderControllerTest {
     @WithMockUser ( username = "staff", roles = "STAFF" )
     public void testViewOrderHistoryFailure () throws Exception {
         // Mock service call to throw a generic exception
-        Mockito.when( orderService.viewOrderHistory( ArgumentMatchers.anyString() ) )
+        Mockito.when( orderService.viewOrderHistory( ArgumentMatchers.anyList(), ArgumentMatchers.any(),
+                ArgumentMatchers.any(), ArgumentMatchers.any(), ArgumentMatchers.any( Pageable.class ) ) )
                 .thenThrow( new RuntimeException( "Unexpected error" ) );
 
         // Perform GET request to the history endpoint
@@ -503,7 +932,7 @@ public class OrderControllerTest {
     @WithMockUser ( username = "customer", roles = "CUSTOMER" )
     public void testGetOrdersForCurrentUserResourceNotFound () throws Exception {
         // Simulate the user not being found
-        Mockito.when( orderService.getOrdersForCurrentUser() )
+        Mockito.when( orderService.getOrdersForCurrentUser( null, 50 ) )
                 .thenThrow( new ResourceNotFoundException( "User not found" ) );
 
         mvc.perform( get( API_PATH + "/customer" ).contentType( MediaType.APPLICATION_JSON ) )
@@ -614,7 +1043,8 @@ public class OrderControllerTest {
     @WithMockUser ( username = "staff", roles = "STAFF" )
     public void testViewOrderHistoryResourceNotFound () throws Exception {
         // Simulate resource not found when filtering order history
-        Mockito.when( orderService.viewOrderHistory( ArgumentMatchers.anyString() ) )
+        Mockito.when( orderService.viewOrderHistory( ArgumentMatchers.anyList(), ArgumentMatchers.any(),
+                ArgumentMatchers.any(), ArgumentMatchers.any(), ArgumentMatchers.any( Pageable.class ) ) )
                 .thenThrow( new ResourceNotFoundException( "Item not found in order history" ) );
 
         mvc.perform( get( API_PATH + "/history" ).param( "itemName", "Nonexistent Item" )
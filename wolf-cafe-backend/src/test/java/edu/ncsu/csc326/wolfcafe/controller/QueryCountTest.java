@@ -0,0 +1,187 @@
+package edu.ncsu.csc326.wolfcafe.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.transaction.annotation.Transactional;
+
+import edu.ncsu.csc326.wolfcafe.entity.Order;
+import edu.ncsu.csc326.wolfcafe.entity.OrderStatus;
+import edu.ncsu.csc326.wolfcafe.entity.User;
+import edu.ncsu.csc326.wolfcafe.repository.OrderRepository;
+import edu.ncsu.csc326.wolfcafe.repository.UserRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+
+/*
+ * Counts the SQL statements each listing endpoint runs, using the Hibernate
+ * statistics, so a listing that starts loading customers, roles or items one
+ * order at a time fails the build. The counts must not depend on how many
+ * orders or customers are on the page.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@Transactional
+public class QueryCountTest {
+
+    /*
+     * Number of customers the orders are spread across
+     */
+    private static final int     CUSTOMERS           = 3;
+
+    /*
+     * Number of orders placed by each customer
+     */
+    private static final int     ORDERS_PER_CUSTOMER = 4;
+
+    /*
+     * Reference to MVC for HTTP requests
+     */
+    @Autowired
+    private MockMvc              mvc;
+
+    /*
+     * Reference to order repository
+     */
+    @Autowired
+    private OrderRepository      orderRepository;
+
+    /*
+     * Reference to user repository
+     */
+    @Autowired
+    private UserRepository       userRepository;
+
+    /*
+     * Reference to the entity manager shared with the requests
+     */
+    @Autowired
+    private EntityManager        entityManager;
+
+    /*
+     * Reference to the entity manager factory holding the statistics
+     */
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    /*
+     * Id of one of the orders
+     */
+    private Long                 orderId;
+
+    /*
+     * Creates customers with a few orders each and turns the statistics on
+     */
+    @BeforeEach
+    public void setUp () {
+        LocalDateTime createdAt = LocalDateTime.now().truncatedTo( ChronoUnit.MICROS );
+        for ( int c = 1; c <= CUSTOMERS; c++ ) {
+            final User customer = new User();
+            customer.setName( "Query Count " + c );
+            customer.setUsername( "querycount" + c );
+            customer.setEmail( "querycount" + c + "@example.com" );
+            customer.setPassword( "password" );
+            userRepository.save( customer );
+
+            for ( int o = 0; o < ORDERS_PER_CUSTOMER; o++ ) {
+                final Map<String, Integer> items = new HashMap<>();
+                items.put( "Coffee", 1 + o );
+                items.put( "Milk", 1 );
+
+                final Order order = new Order();
+                order.setCustomer( customer );
+                order.setItems( items );
+                order.setStatus( OrderStatus.PLACED );
+                order.setCreatedAt( createdAt );
+                order.setTotalPrice( 5.0 );
+                order.setTip( 0.0 );
+                orderId = orderRepository.save( order ).getId();
+                createdAt = createdAt.plusSeconds( 1 );
+            }
+        }
+
+        entityManagerFactory.unwrap( SessionFactory.class ).getStatistics().setStatisticsEnabled( true );
+    }
+
+    /*
+     * Tests that listing all orders reads the ids on the page, then the
+     * columns the listing returns, one query each
+     */
+    @Test
+    @WithMockUser ( username = "staff", roles = "STAFF" )
+    public void testGetAllOrdersQueryCount () throws Exception {
+        assertEquals( 2, countQueries( get( "/api/orders" ).param( "size", "10" ) ) );
+    }
+
+    /*
+     * Tests that a customer's orders take one query for the customer's id and
+     * the same two as listing all orders
+     */
+    @Test
+    @WithMockUser ( username = "querycount1", roles = "CUSTOMER" )
+    public void testGetOrdersForCurrentUserQueryCount () throws Exception {
+        assertEquals( 3, countQueries( get( "/api/orders/customer" ).param( "size", "10" ) ) );
+    }
+
+    /*
+     * Tests that a full page of the order history reads the orders with their
+     * customers, then the items, then the count, one query each. The fetch
+     * graph leaves the customers' roles unread, and placed orders are never
+     * archived, so the archive adds no queries
+     */
+    @Test
+    @WithMockUser ( username = "staff", roles = "STAFF" )
+    public void testViewOrderHistoryQueryCount () throws Exception {
+        assertEquals( 3, countQueries( get( "/api/orders/history" ).param( "status", "PLACED" ).param( "size",
+                "5" ) ) );
+    }
+
+    /*
+     * Tests that one order is read with its customer and items in one query
+     */
+    @Test
+    @WithMockUser ( username = "staff", roles = "STAFF" )
+    public void testGetOrderQueryCount () throws Exception {
+        assertEquals( 1, countQueries( get( "/api/orders/" + orderId ) ) );
+    }
+
+    /*
+     * Tests that listing the users reads them with their roles in one query
+     */
+    @Test
+    @WithMockUser ( username = "admin", roles = "ADMIN" )
+    public void testGetAllUsersQueryCount () throws Exception {
+        assertEquals( 1, countQueries( get( "/api/auth" ) ) );
+    }
+
+    /*
+     * Sends a request with nothing loaded yet and counts the statements it
+     * prepares (helper)
+     */
+    private long countQueries ( final RequestBuilder request ) throws Exception {
+        entityManager.flush();
+        entityManager.clear();
+        final Statistics statistics = entityManagerFactory.unwrap( SessionFactory.class ).getStatistics();
+        statistics.clear();
+
+        mvc.perform( request ).andExpect( status().isOk() );
+        return statistics.getPrepareStatementCount();
+    }
+
+}
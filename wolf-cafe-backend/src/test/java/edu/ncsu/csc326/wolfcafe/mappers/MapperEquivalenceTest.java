@@ -0,0 +1,152 @@
+package edu.ncsu.csc326.wolfcafe.mappers;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.modelmapper.ModelMapper;
+
+import edu.ncsu.csc326.wolfcafe.dto.ItemDto;
+import edu.ncsu.csc326.wolfcafe.dto.OrderDto;
+import edu.ncsu.csc326.wolfcafe.dto.RegisterDto;
+import edu.ncsu.csc326.wolfcafe.entity.Item;
+import edu.ncsu.csc326.wolfcafe.entity.Order;
+import edu.ncsu.csc326.wolfcafe.entity.OrderStatus;
+import edu.ncsu.csc326.wolfcafe.entity.User;
+import edu.ncsu.csc326.wolfcafe.mapper.ItemMapper;
+import edu.ncsu.csc326.wolfcafe.mapper.OrderMapper;
+import edu.ncsu.csc326.wolfcafe.mapper.UserMapper;
+
+/*
+ * Checks that the hand-written mappers produce the same objects, field for
+ * field, as the ModelMapper configuration they replaced
+ */
+public class MapperEquivalenceTest {
+
+    /*
+     * The mapper the services used before, with its default configuration
+     */
+    private final ModelMapper modelMapper = new ModelMapper();
+
+    /*
+     * Tests Order to OrderDto
+     */
+    @Test
+    public void testOrderToOrderDto () {
+        final User customer = new User();
+        customer.setId( 7L );
+        customer.setName( "Jordan Estes" );
+        customer.setUsername( "jestes" );
+        customer.setEmail( "jestes@example.com" );
+
+        final Map<String, Integer> items = new HashMap<>();
+        items.put( "Coffee", 2 );
+        items.put( "Muffin", 1 );
+        final Order order = new Order( 42L, customer, 1.5, items, OrderStatus.FULFILLED,
+                LocalDateTime.of( 2024, 11, 5, 9, 30 ), 10.85, null, null, null );
+
+        final OrderDto expected = modelMapper.map( order, OrderDto.class );
+        final OrderDto actual = OrderMapper.mapToOrderDto( order );
+
+        assertOrderDtoEquals( expected, actual );
+        assertNotSame( order.getItems(), actual.getItems() );
+    }
+
+    /*
+     * Tests Order to OrderDto for a new order with defaults left in place
+     */
+    @Test
+    public void testNewOrderToOrderDto () {
+        final Order order = new Order();
+        order.setCustomer( new User() );
+
+        assertOrderDtoEquals( modelMapper.map( order, OrderDto.class ), OrderMapper.mapToOrderDto( order ) );
+    }
+
+    /*
+     * Tests OrderDto to Order
+     */
+    @Test
+    public void testOrderDtoToOrder () {
+        final OrderDto orderDto = new OrderDto();
+        orderDto.setCustomerId( 7L );
+        orderDto.setCustomerName( "Jordan Estes" );
+        orderDto.setItems( Map.of( "Coffee", 2, "Muffin", 1 ) );
+        orderDto.setTip( 2.0 );
+
+        final Order expected = modelMapper.map( orderDto, Order.class );
+        final Order actual = OrderMapper.mapToOrder( orderDto );
+
+        assertAll( "Order fields", () -> assertEquals( expected.getId(), actual.getId() ),
+                () -> assertEquals( expected.getCustomer().getId(), actual.getCustomer().getId() ),
+                () -> assertEquals( expected.getCustomer().getName(), actual.getCustomer().getName() ),
+                () -> assertEquals( expected.getItems(), actual.getItems() ),
+                () -> assertEquals( expected.getStatus(), actual.getStatus() ),
+                () -> assertEquals( expected.getCreatedAt(), actual.getCreatedAt() ),
+                () -> assertEquals( expected.getTotalPrice(), actual.getTotalPrice() ),
+                () -> assertEquals( expected.getTip(), actual.getTip() ) );
+    }
+
+    /*
+     * Tests Item to ItemDto and back
+     */
+    @Test
+    public void testItemMapping () {
+        final Item item = new Item( 3L, "Coffee", "Freshly ground coffee", 3.25 );
+        final ItemDto expectedDto = modelMapper.map( item, ItemDto.class );
+        final ItemDto actualDto = ItemMapper.mapToItemDto( item );
+
+        assertAll( "ItemDto fields", () -> assertEquals( expectedDto.getId(), actualDto.getId() ),
+                () -> assertEquals( expectedDto.getName(), actualDto.getName() ),
+                () -> assertEquals( expectedDto.getDescription(), actualDto.getDescription() ),
+                () -> assertEquals( expectedDto.getPrice(), actualDto.getPrice() ) );
+
+        final ItemDto itemDto = new ItemDto( null, "Muffin", null, 2.5 );
+        final Item expected = modelMapper.map( itemDto, Item.class );
+        final Item actual = ItemMapper.mapToItem( itemDto );
+
+        assertAll( "Item fields", () -> assertEquals( expected.getId(), actual.getId() ),
+                () -> assertEquals( expected.getName(), actual.getName() ),
+                () -> assertEquals( expected.getDescription(), actual.getDescription() ),
+                () -> assertEquals( expected.getPrice(), actual.getPrice() ) );
+    }
+
+    /*
+     * Tests RegisterDto to User
+     */
+    @Test
+    public void testRegisterDtoToUser () {
+        final RegisterDto registerDto = new RegisterDto( 5L, "Staff Name", "staffuser", "staffuser@example.com",
+                "password" );
+
+        final User expected = modelMapper.map( registerDto, User.class );
+        final User actual = UserMapper.mapToUser( registerDto );
+
+        assertAll( "User fields", () -> assertEquals( expected.getId(), actual.getId() ),
+                () -> assertEquals( expected.getName(), actual.getName() ),
+                () -> assertEquals( expected.getUsername(), actual.getUsername() ),
+                () -> assertEquals( expected.getEmail(), actual.getEmail() ),
+                () -> assertEquals( expected.getPassword(), actual.getPassword() ),
+                () -> assertEquals( expected.getRoles(), actual.getRoles() ) );
+    }
+
+    /*
+     * Compares every field of two OrderDtos
+     */
+    private void assertOrderDtoEquals ( final OrderDto expected, final OrderDto actual ) {
+        assertAll( "OrderDto fields", () -> assertEquals( expected.getId(), actual.getId() ),
+                () -> assertEquals( expected.getCustomerId(), actual.getCustomerId() ),
+                () -> assertEquals( expected.getCustomerName(), actual.getCustomerName() ),
+                () -> assertEquals( expected.getItems(), actual.getItems() ),
+                () -> assertEquals( expected.getStatus(), actual.getStatus() ),
+                () -> assertEquals( expected.getCreatedAt(), actual.getCreatedAt() ),
+                () -> assertEquals( expected.getTotalPrice(), actual.getTotalPrice() ),
+                () -> assertEquals( expected.getTip(), actual.getTip() ) );
+    }
+
+}
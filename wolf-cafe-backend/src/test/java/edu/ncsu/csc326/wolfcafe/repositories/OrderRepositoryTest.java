@@ -3,6 +3,7 @@ package edu.ncsu.csc326.wolfcafe.repositories;
 import static org.junit.jupiter.api.Assertions.assertAll;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.time.LocalDateTime;
@@ -22,6 +23,7 @@ import org.springframework.security.test.context.support.WithMockUser;
 
 import edu.ncsu.csc326.wolfcafe.entity.Order;
 import edu.ncsu.csc326.wolfcafe.entity.OrderStatus;
+import edu.ncsu.csc326.wolfcafe.entity.OrderTransition;
 import edu.ncsu.csc326.wolfcafe.entity.User;
 import edu.ncsu.csc326.wolfcafe.repository.OrderRepository;
 import jakarta.persistence.EntityManager;
@@ -152,6 +154,26 @@ public class OrderRepositoryTest {
 
     }
 
+    /*
+     * Tests that a status update only applies to orders still in the expected
+     * status and records when the order reached the new one
+     */
+    @Test
+    public void testUpdateStatus () {
+        final LocalDateTime at = LocalDateTime.of( 2024, 11, 5, 9, 30 );
+        assertEquals( 0, orderRepository.updateStatus( List.of( order.getId() ), OrderTransition.PICK_UP, at ) );
+        assertEquals( 1, orderRepository.updateStatus( List.of( order.getId() ), OrderTransition.FULFILL, at ) );
+        assertEquals( 0, orderRepository.updateStatus( List.of( order.getId() ), OrderTransition.CANCEL, at ) );
+
+        // The update bypasses the persistence context, which still holds the
+        // order persisted in setUp
+        testEntityManager.refresh( order );
+        final Order updatedOrder = orderRepository.findById( order.getId() ).get();
+        assertAll( "Updated Order status", () -> assertEquals( OrderStatus.FULFILLED, updatedOrder.getStatus() ),
+                () -> assertEquals( at, updatedOrder.getFulfilledAt() ),
+                () -> assertNull( updatedOrder.getPickedUpAt() ), () -> assertNull( updatedOrder.getCancelledAt() ) );
+    }
+
     /**
      * Test finding orders by customer ID.
      */
@@ -0,0 +1,245 @@
+package edu.ncsu.csc326.wolfcafe.repositories;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.flywaydb.core.Flyway;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase.Replace;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import edu.ncsu.csc326.wolfcafe.entity.OrderStatus;
+import edu.ncsu.csc326.wolfcafe.repository.OrderRepository;
+
+/*
+ * Runs the schema migrations against an embedded H2 database in MySQL mode and
+ * checks that the plans of the SQL Hibernate generates for the hot order
+ * queries use the indexes the migrations define
+ */
+@DataJpaTest ( properties = { "spring.datasource.url=" + SchemaMigrationTest.URL,
+        "spring.datasource.driver-class-name=org.h2.Driver", "spring.datasource.username=sa",
+        "spring.datasource.password=", "spring.flyway.enabled=false", "spring.jpa.hibernate.ddl-auto=none",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+                + "edu.ncsu.csc326.wolfcafe.repositories.SchemaMigrationTest$SqlRecorder" } )
+@AutoConfigureTestDatabase ( replace = Replace.NONE )
+@Transactional ( propagation = Propagation.NOT_SUPPORTED )
+public class SchemaMigrationTest {
+
+    /*
+     * Embedded database, kept until the last connection is closed
+     */
+    static final String                URL       = "jdbc:h2:mem:schema-migration;MODE=MySQL;DATABASE_TO_LOWER=TRUE";
+
+    /*
+     * Number of customers the orders are spread across
+     */
+    private static final int           CUSTOMERS = 20;
+
+    /*
+     * Number of orders
+     */
+    private static final int           ORDERS    = 2000;
+
+    /*
+     * Position of the 1000th order, the middle of the table
+     */
+    private static final LocalDateTime MIDDLE    = LocalDateTime.of( 2024, 1, 1, 8, 0 ).plusMinutes( 1000 );
+
+    /*
+     * Reference to the repository whose queries are explained
+     */
+    @Autowired
+    private OrderRepository            orderRepository;
+
+    /*
+     * Connection to the embedded database
+     */
+    private Connection                 connection;
+
+    /*
+     * Migrates a new database and fills it with enough orders for the
+     * statistics to favour the indexes
+     */
+    @BeforeEach
+    public void setUp () throws SQLException {
+        connection = DriverManager.getConnection( URL, "sa", "" );
+        assertEquals( 5, Flyway.configure().dataSource( URL, "sa", "" ).load().migrate().migrationsExecuted );
+
+        try ( PreparedStatement user = connection.prepareStatement(
+                "INSERT INTO users ( id, name, username, email, password ) VALUES ( ?, ?, ?, ?, 'password' )" ) ) {
+            for ( int c = 1; c <= CUSTOMERS; c++ ) {
+                user.setLong( 1, c );
+                user.setString( 2, "Customer " + c );
+                user.setString( 3, "customer" + c );
+                user.setString( 4, "customer" + c + "@example.com" );
+                user.executeUpdate();
+            }
+        }
+
+        final String[] statuses = { "PLACED", "FULFILLED", "PICKED_UP", "CANCELLED" };
+        final String[] itemNames = { "Coffee", "Milk", "Tea", "Muffin", "Bagel" };
+        final LocalDateTime start = LocalDateTime.of( 2024, 1, 1, 8, 0 );
+        try ( PreparedStatement order = connection.prepareStatement( "INSERT INTO customer_order"
+                + " ( id, customer_id, tip, status, created_at, total_price ) VALUES ( ?, ?, 0, ?, ?, 5 )" );
+                PreparedStatement item = connection.prepareStatement(
+                        "INSERT INTO order_items ( order_id, item_name, quantity ) VALUES ( ?, ?, 1 )" ) ) {
+            for ( int o = 1; o <= ORDERS; o++ ) {
+                order.setLong( 1, o );
+                order.setLong( 2, 1 + o % CUSTOMERS );
+                order.setString( 3, statuses[o % statuses.length] );
+                order.setTimestamp( 4, Timestamp.valueOf( start.plusMinutes( o ) ) );
+                order.executeUpdate();
+
+                item.setLong( 1, o );
+                item.setString( 2, itemNames[o % itemNames.length] );
+                item.executeUpdate();
+                item.setString( 2, itemNames[( o + 1 ) % itemNames.length] );
+                item.executeUpdate();
+            }
+        }
+
+        try ( Statement statement = connection.createStatement() ) {
+            statement.execute( "ANALYZE" );
+        }
+        SqlRecorder.STATEMENTS.clear();
+    }
+
+    /*
+     * Drops the embedded database
+     */
+    @AfterEach
+    public void tearDown () throws SQLException {
+        try ( Statement statement = connection.createStatement() ) {
+            statement.execute( "DROP ALL OBJECTS" );
+        }
+        connection.close();
+    }
+
+    /*
+     * Tests that the first page of the order listing reads the newest orders
+     * from the listing index
+     */
+    @Test
+    public void testFirstListingPageUsesIndex () throws SQLException {
+        orderRepository.findPageIdsBefore( null, null, Limit.of( 50 ) );
+        assertGeneratedUsesIndex( "idx_customer_order_created_at_id", null, null, null, null, 50 );
+    }
+
+    /*
+     * Tests that a later page of the order listing seeks from the last order
+     * seen with the listing index
+     */
+    @Test
+    public void testListingPageUsesIndex () throws SQLException {
+        orderRepository.findPageIdsBefore( MIDDLE, 1000L, Limit.of( 50 ) );
+        assertGeneratedUsesIndex( "idx_customer_order_created_at_id", MIDDLE, MIDDLE, MIDDLE, 1000L, 50 );
+    }
+
+    /*
+     * Tests that a page of a customer's orders seeks by customer and creation
+     * time
+     */
+    @Test
+    public void testCustomerListingPageUsesIndex () throws SQLException {
+        orderRepository.findCustomerPageIdsBefore( 7L, MIDDLE, 1000L, Limit.of( 50 ) );
+        assertGeneratedUsesIndex( "idx_customer_order_customer_created_at", 7L, MIDDLE, MIDDLE, MIDDLE, 1000L, 50 );
+    }
+
+    /*
+     * Tests that an order history page filtered by item seeks by status and
+     * creation time
+     */
+    @Test
+    public void testHistoryUsesIndex () throws SQLException {
+        orderRepository.findHistory( OrderStatus.PLACED, List.of( "Coffee" ), 1, null, MIDDLE,
+                PageRequest.of( 0, 50, Sort.by( Sort.Direction.DESC, "createdAt", "id" ) ) );
+        assertGeneratedUsesIndex( "idx_customer_order_status_created_at", OrderStatus.PLACED.name(), null, null,
+                MIDDLE, MIDDLE, 1L, "Coffee", 1L, 50 );
+    }
+
+    /*
+     * Tests that filtering orders by item looks the item up by name
+     */
+    @Test
+    public void testItemFilterUsesIndex () throws SQLException {
+        assertUsesIndex( "idx_order_items_item_name",
+                "SELECT order_id FROM order_items WHERE item_name IN ( 'Coffee', 'Milk' )" );
+    }
+
+    /*
+     * Checks that the plan of the first statement Hibernate sent names an
+     * index, binding the parameters in the order they appear in it (helper)
+     */
+    private void assertGeneratedUsesIndex ( final String index, final Object... parameters ) throws SQLException {
+        assertTrue( !SqlRecorder.STATEMENTS.isEmpty(), "Hibernate sent no statement" );
+        final String sql = SqlRecorder.STATEMENTS.get( 0 );
+        try ( PreparedStatement statement = connection.prepareStatement( "EXPLAIN " + sql ) ) {
+            for ( int p = 0; p < parameters.length; p++ ) {
+                statement.setObject( p + 1, parameters[p] );
+            }
+            try ( ResultSet plan = statement.executeQuery() ) {
+                assertTrue( plan.next() );
+                final String text = plan.getString( 1 ).toLowerCase();
+                assertTrue( text.contains( index ), "Expected " + index + " in the plan of " + sql + ": " + text );
+            }
+        }
+    }
+
+    /*
+     * Checks that the plan of a query names an index (helper)
+     */
+    private void assertUsesIndex ( final String index, final String query ) throws SQLException {
+        try ( Statement statement = connection.createStatement();
+                ResultSet plan = statement.executeQuery( "EXPLAIN " + query ) ) {
+            assertTrue( plan.next() );
+            final String text = plan.getString( 1 ).toLowerCase();
+            assertTrue( text.contains( index ), "Expected " + index + " in the plan: " + text );
+        }
+    }
+
+    /*
+     * Keeps every statement Hibernate prepares, so the tests explain the SQL
+     * the repository really sends
+     */
+    public static class SqlRecorder implements StatementInspector {
+
+        /*
+         * Statements prepared since the last test started, oldest first
+         */
+        static final List<String> STATEMENTS       = new CopyOnWriteArrayList<>();
+
+        /*
+         * Serial version, since StatementInspector is serializable
+         */
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public String inspect ( final String sql ) {
+            STATEMENTS.add( sql );
+            return sql;
+        }
+
+    }
+
+}
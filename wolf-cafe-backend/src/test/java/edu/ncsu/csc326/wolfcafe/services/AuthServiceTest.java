@@ -15,6 +15,7 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.transaction.annotation.Transactional;
 
 import edu.ncsu.csc326.wolfcafe.dto.RegisterDto;
+import edu.ncsu.csc326.wolfcafe.dto.UserDto;
 import edu.ncsu.csc326.wolfcafe.entity.User;
 import edu.ncsu.csc326.wolfcafe.exception.ResourceNotFoundException;
 import edu.ncsu.csc326.wolfcafe.exception.WolfCafeAPIException;
@@ -104,7 +105,7 @@ class AuthServiceTest {
         authService.createStaff( registerDto1 );
         authService.createStaff( registerDto2 );
 
-        final List<User> users = authService.getAllUsers();
+        final List<UserDto> users = authService.getAllUsers();
 
         assertEquals( 2, users.size(), "There should be 2 users in the system." );
     }
@@ -0,0 +1,86 @@
+package edu.ncsu.csc326.wolfcafe.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import edu.ncsu.csc326.wolfcafe.cache.CustomerOrderCache;
+import edu.ncsu.csc326.wolfcafe.dto.OrderPageDto;
+
+/*
+ * Tests CustomerOrderCache, read and invalidated directly rather than through
+ * the OrderService
+ */
+@SpringBootTest
+public class CustomerOrderCacheTest {
+
+    /*
+     * A customer id no other test uses
+     */
+    private static final Long  CUSTOMER       = 960001L;
+
+    /*
+     * Another customer id no other test uses
+     */
+    private static final Long  OTHER_CUSTOMER = 960002L;
+
+    /*
+     * Reference to the cache
+     */
+    @Autowired
+    private CustomerOrderCache customerOrderCache;
+
+    /*
+     * Tests that a page read while another customer's orders changed is kept
+     */
+    @Test
+    public void testOtherCustomerInvalidationKeepsPage () {
+        final AtomicInteger reads = new AtomicInteger();
+        customerOrderCache.get( CUSTOMER, null, 10, () -> {
+            reads.incrementAndGet();
+            customerOrderCache.invalidate( OTHER_CUSTOMER );
+            return page();
+        } );
+        customerOrderCache.get( CUSTOMER, null, 10, () -> {
+            reads.incrementAndGet();
+            return page();
+        } );
+
+        assertEquals( 1, reads.get() );
+        customerOrderCache.invalidate( CUSTOMER );
+    }
+
+    /*
+     * Tests that a page read while the same customer's orders changed is not
+     * kept
+     */
+    @Test
+    public void testOwnInvalidationDropsPage () {
+        final AtomicInteger reads = new AtomicInteger();
+        customerOrderCache.get( CUSTOMER, "cursor", 10, () -> {
+            reads.incrementAndGet();
+            customerOrderCache.invalidate( CUSTOMER );
+            return page();
+        } );
+        customerOrderCache.get( CUSTOMER, "cursor", 10, () -> {
+            reads.incrementAndGet();
+            return page();
+        } );
+
+        assertEquals( 2, reads.get() );
+        customerOrderCache.invalidate( CUSTOMER );
+    }
+
+    /*
+     * Builds an empty page (helper)
+     */
+    private static OrderPageDto page () {
+        return new OrderPageDto( List.of(), null );
+    }
+
+}
@@ -0,0 +1,122 @@
+package edu.ncsu.csc326.wolfcafe.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.test.context.support.WithMockUser;
+
+import edu.ncsu.csc326.wolfcafe.dto.OrderDto;
+import edu.ncsu.csc326.wolfcafe.service.IdempotencyService;
+
+/*
+ * Tests IdempotencyService
+ */
+@SpringBootTest
+public class IdempotencyServiceTest {
+
+    /*
+     * Reference to IdempotencyService
+     */
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    /*
+     * Tests that concurrent requests with the same key place the order once
+     * and all get the same order back
+     */
+    @Test
+    public void testConcurrentDuplicatesWaitForFirstRequest () throws Exception {
+        final AtomicInteger placed = new AtomicInteger();
+        final CountDownLatch start = new CountDownLatch( 1 );
+        final ExecutorService executor = Executors.newFixedThreadPool( 8 );
+        final List<Future<OrderDto>> results = new ArrayList<>();
+
+        for ( int i = 0; i < 8; i++ ) {
+            results.add( executor.submit( () -> {
+                SecurityContextHolder.getContext().setAuthentication(
+                        new UsernamePasswordAuthenticationToken( "customer1", "password", List.of() ) );
+                start.await();
+                return idempotencyService.placeOnce( "concurrent-key", order( 1 ), key -> {
+                    try {
+                        Thread.sleep( 100 );
+                    }
+                    catch ( final InterruptedException e ) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return placedOrder( (long) placed.incrementAndGet() );
+                } );
+            } ) );
+        }
+        start.countDown();
+
+        for ( final Future<OrderDto> result : results ) {
+            assertEquals( 1L, result.get().getId() );
+        }
+        executor.shutdown();
+        assertEquals( 1, placed.get() );
+    }
+
+    /*
+     * Tests that a failed request does not keep its key, so it can be retried
+     */
+    @Test
+    @WithMockUser ( username = "customer1", roles = "CUSTOMER" )
+    public void testFailedRequestCanBeRetried () {
+        assertThrows( IllegalStateException.class, () -> idempotencyService.placeOnce( "failing-key", order( 1 ),
+                key -> {
+                    throw new IllegalStateException( "Insufficient inventory" );
+                } ) );
+
+        assertEquals( 7L, idempotencyService.placeOnce( "failing-key", order( 1 ), key -> placedOrder( 7L ) ).getId() );
+    }
+
+    /*
+     * Tests that keys are kept apart per customer
+     */
+    @Test
+    public void testKeysAreScopedToCustomer () {
+        SecurityContextHolder.getContext()
+                .setAuthentication( new UsernamePasswordAuthenticationToken( "customer1", "password", List.of() ) );
+        assertEquals( 1L, idempotencyService.placeOnce( "shared-key", order( 1 ), key -> placedOrder( 1L ) ).getId() );
+
+        SecurityContextHolder.getContext()
+                .setAuthentication( new UsernamePasswordAuthenticationToken( "customer2", "password", List.of() ) );
+        assertEquals( 2L, idempotencyService.placeOnce( "shared-key", order( 1 ), key -> placedOrder( 2L ) ).getId() );
+
+        SecurityContextHolder.clearContext();
+    }
+
+    /*
+     * Creates an order request for the given number of coffees
+     */
+    private OrderDto order ( final int coffees ) {
+        final OrderDto orderDto = new OrderDto();
+        orderDto.setItems( Map.of( "Coffee", coffees ) );
+        orderDto.setTip( 1.0 );
+        return orderDto;
+    }
+
+    /*
+     * Creates a placed order with the given id
+     */
+    private OrderDto placedOrder ( final Long id ) {
+        final OrderDto orderDto = order( 1 );
+        orderDto.setId( id );
+        return orderDto;
+    }
+
+}
@@ -0,0 +1,93 @@
+package edu.ncsu.csc326.wolfcafe.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.security.test.context.support.WithMockUser;
+
+import edu.ncsu.csc326.wolfcafe.dto.OrderDto;
+import edu.ncsu.csc326.wolfcafe.entity.IdempotencyRecord;
+import edu.ncsu.csc326.wolfcafe.repository.IdempotencyRecordRepository;
+import edu.ncsu.csc326.wolfcafe.service.IdempotencyService;
+
+/*
+ * Tests IdempotencyService with the database store enabled but failing
+ */
+@SpringBootTest ( properties = "app.orders.idempotency.database-enabled=true" )
+public class IdempotencyStoreFailureTest {
+
+    /*
+     * Reference to IdempotencyService
+     */
+    @Autowired
+    private IdempotencyService          idempotencyService;
+
+    /*
+     * Stand-in for the stored keys that cannot be written
+     */
+    @MockBean
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+
+    /*
+     * Tests that the key is handed to the placement to store with the order,
+     * and that when it cannot be stored the placement fails as a whole, the
+     * key is forgotten and a retry places the order
+     */
+    @Test
+    @WithMockUser ( username = "customer1", roles = "CUSTOMER" )
+    public void testPlacementFailsWhenKeyCannotBeStored () {
+        Mockito.when( idempotencyRecordRepository.findById( ArgumentMatchers.anyString() ) )
+                .thenReturn( Optional.empty() );
+        Mockito.when( idempotencyRecordRepository.save( ArgumentMatchers.any( IdempotencyRecord.class ) ) )
+                .thenThrow( new DataAccessResourceFailureException( "Database unavailable" ) )
+                .thenAnswer( invocation -> invocation.getArgument( 0 ) );
+        final AtomicInteger placed = new AtomicInteger();
+        final List<String> keys = new ArrayList<>();
+
+        assertThrows( DataAccessResourceFailureException.class,
+                () -> idempotencyService.placeOnce( "store-failure-key", order(), key -> place( key, placed, keys ) ) );
+        assertEquals( 2L, idempotencyService.placeOnce( "store-failure-key", order(),
+                key -> place( key, placed, keys ) ).getId() );
+        assertEquals( 2L, idempotencyService.placeOnce( "store-failure-key", order(),
+                key -> place( key, placed, keys ) ).getId() );
+        assertEquals( 2, placed.get() );
+        assertEquals( List.of( "customer1:store-failure-key", "customer1:store-failure-key" ), keys );
+    }
+
+    /*
+     * Places an order the way the order service does, storing the key in the
+     * order's transaction, so a failure to store it fails the placement
+     */
+    private OrderDto place ( final String key, final AtomicInteger placed, final List<String> keys ) {
+        keys.add( key );
+        final OrderDto orderDto = order();
+        orderDto.setId( (long) placed.incrementAndGet() );
+        idempotencyRecordRepository.save( new IdempotencyRecord( key, orderDto.getId(), LocalDateTime.now() ) );
+        return orderDto;
+    }
+
+    /*
+     * Creates an order request for one coffee
+     */
+    private OrderDto order () {
+        final OrderDto orderDto = new OrderDto();
+        orderDto.setItems( Map.of( "Coffee", 1 ) );
+        orderDto.setTip( 1.0 );
+        return orderDto;
+    }
+
+}
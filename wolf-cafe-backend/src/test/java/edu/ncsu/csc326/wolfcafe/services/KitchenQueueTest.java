@@ -0,0 +1,136 @@
+package edu.ncsu.csc326.wolfcafe.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import edu.ncsu.csc326.wolfcafe.dto.OrderDto;
+import edu.ncsu.csc326.wolfcafe.entity.OrderStatus;
+import edu.ncsu.csc326.wolfcafe.events.OrderEventHub;
+import edu.ncsu.csc326.wolfcafe.kitchen.KitchenQueue;
+
+/*
+ * Tests KitchenQueue, fed with order changes published straight to the
+ * OrderEventHub
+ */
+@SpringBootTest
+public class KitchenQueueTest {
+
+    /*
+     * Reference to the queue
+     */
+    @Autowired
+    private KitchenQueue  kitchenQueue;
+
+    /*
+     * Reference to the hub the queue follows
+     */
+    @Autowired
+    private OrderEventHub orderEventHub;
+
+    /*
+     * Empties the queue of orders left by other tests
+     */
+    @BeforeEach
+    public void setUp () {
+        for ( Long id = kitchenQueue.claim(); id != null; id = kitchenQueue.claim() ) {
+            change( id, OrderStatus.CANCELLED );
+        }
+    }
+
+    /*
+     * Tests that orders are claimed oldest first, each once, and that orders
+     * that leave the queue are not handed out
+     */
+    @Test
+    public void testClaimInOrder () {
+        change( 9001L, OrderStatus.PLACED );
+        change( 9002L, OrderStatus.PLACED );
+        change( 9003L, OrderStatus.PLACED );
+        change( 9002L, OrderStatus.PLACED );
+        change( 9003L, OrderStatus.CANCELLED );
+
+        assertEquals( 9001L, kitchenQueue.claim() );
+        assertEquals( 9002L, kitchenQueue.claim() );
+        assertNull( kitchenQueue.claim() );
+    }
+
+    /*
+     * Tests that orders whose claims run out go back to the front of the
+     * queue unless they were fulfilled
+     */
+    @Test
+    public void testExpiredClaimsReturn () {
+        change( 9011L, OrderStatus.PLACED );
+        change( 9012L, OrderStatus.PLACED );
+        change( 9013L, OrderStatus.PLACED );
+        assertEquals( 9011L, kitchenQueue.claim() );
+        assertEquals( 9012L, kitchenQueue.claim() );
+        change( 9012L, OrderStatus.FULFILLED );
+
+        assertEquals( 0, kitchenQueue.releaseExpiredClaims( System.currentTimeMillis() ) );
+        assertEquals( 1, kitchenQueue.releaseExpiredClaims( System.currentTimeMillis() + 24 * 60 * 60 * 1000L ) );
+
+        assertEquals( 9011L, kitchenQueue.claim() );
+        assertEquals( 9013L, kitchenQueue.claim() );
+        assertNull( kitchenQueue.claim() );
+    }
+
+    /*
+     * Tests that staff claiming at the same time are each given different
+     * orders and that every order is handed out
+     */
+    @Test
+    public void testConcurrentClaims () throws Exception {
+        final int orders = 1000;
+        for ( long id = 0; id < orders; id++ ) {
+            change( 10000L + id, OrderStatus.PLACED );
+        }
+
+        final ExecutorService staff = Executors.newFixedThreadPool( 8 );
+        final List<Future<List<Long>>> results = new ArrayList<>();
+        for ( int s = 0; s < 8; s++ ) {
+            results.add( staff.submit( () -> {
+                final List<Long> claimed = new ArrayList<>();
+                for ( Long id = kitchenQueue.claim(); id != null; id = kitchenQueue.claim() ) {
+                    claimed.add( id );
+                }
+                return claimed;
+            } ) );
+        }
+
+        final List<Long> claimed = new ArrayList<>();
+        for ( final Future<List<Long>> result : results ) {
+            claimed.addAll( result.get() );
+        }
+        staff.shutdown();
+
+        assertEquals( orders, claimed.size() );
+        assertEquals( orders, new HashSet<>( claimed ).size() );
+        for ( final Long id : claimed ) {
+            change( id, OrderStatus.FULFILLED );
+        }
+    }
+
+    /*
+     * Publishes a committed change to an order (helper)
+     */
+    private void change ( final Long id, final OrderStatus status ) {
+        final OrderDto order = new OrderDto();
+        order.setId( id );
+        order.setStatus( status );
+        orderEventHub.publish( order );
+    }
+
+}
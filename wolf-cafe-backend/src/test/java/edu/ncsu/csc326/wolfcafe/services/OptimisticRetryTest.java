@@ -0,0 +1,208 @@
+package edu.ncsu.csc326.wolfcafe.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+
+import edu.ncsu.csc326.wolfcafe.dto.InventoryDto;
+import edu.ncsu.csc326.wolfcafe.entity.Inventory;
+import edu.ncsu.csc326.wolfcafe.entity.Item;
+import edu.ncsu.csc326.wolfcafe.exception.WolfCafeAPIException;
+import edu.ncsu.csc326.wolfcafe.repository.InventoryRepository;
+import edu.ncsu.csc326.wolfcafe.repository.ItemRepository;
+import edu.ncsu.csc326.wolfcafe.service.InventoryService;
+import edu.ncsu.csc326.wolfcafe.service.StockReservationService;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/*
+ * Tests that concurrent inventory changes are checked against the inventory
+ * version and retried instead of overwriting each other. These tests are not
+ * transactional, so every change commits on its own.
+ */
+@SpringBootTest
+public class OptimisticRetryTest {
+
+    /*
+     * Number of items added at the same time
+     */
+    private static final int        THREADS = 8;
+
+    /*
+     * Reference to inventory service
+     */
+    @Autowired
+    private InventoryService        inventoryService;
+
+    /*
+     * Reference to inventory repository
+     */
+    @Autowired
+    private InventoryRepository     inventoryRepository;
+
+    /*
+     * Reference to item repository
+     */
+    @Autowired
+    private ItemRepository          itemRepository;
+
+    /*
+     * Reference to stock reservation service
+     */
+    @Autowired
+    private StockReservationService stockReservationService;
+
+    /*
+     * Reference to the metrics registry
+     */
+    @Autowired
+    private MeterRegistry           meterRegistry;
+
+    /*
+     * Items that are not in the inventory yet
+     */
+    private final List<Item>        items   = new ArrayList<>();
+
+    /*
+     * Creates an empty inventory and the items to add to it
+     */
+    @BeforeEach
+    public void setUp () {
+        inventoryRepository.deleteAll();
+        itemRepository.deleteAll();
+        items.clear();
+        for ( int i = 0; i < THREADS; i++ ) {
+            items.add( itemRepository.save( new Item( null, "Item " + i, "Item number " + i, 1.0 + i ) ) );
+        }
+        inventoryRepository.save( new Inventory() );
+    }
+
+    /*
+     * Tests that items added at the same time are all kept, or rejected with a
+     * conflict, and never silently lost
+     */
+    @Test
+    public void testConcurrentAddsAreNotLost () throws Exception {
+        final double attemptsBefore = attempts();
+        final ExecutorService executor = Executors.newFixedThreadPool( THREADS );
+        final CountDownLatch start = new CountDownLatch( 1 );
+        final List<Future<Boolean>> futures = new ArrayList<>();
+        for ( final Item item : items ) {
+            futures.add( executor.submit( () -> {
+                start.await();
+                return inventoryService.addItemToInventory( item );
+            } ) );
+        }
+        start.countDown();
+
+        final Set<String> added = new HashSet<>();
+        for ( int i = 0; i < THREADS; i++ ) {
+            try {
+                assertTrue( futures.get( i ).get() );
+                added.add( items.get( i ).getName() );
+            }
+            catch ( final ExecutionException e ) {
+                final WolfCafeAPIException conflict = assertInstanceOf( WolfCafeAPIException.class, e.getCause() );
+                assertEquals( HttpStatus.CONFLICT, conflict.getStatus() );
+            }
+        }
+        executor.shutdown();
+
+        assertEquals( added, inventoryService.getInventory().getItems().keySet() );
+        assertTrue( attempts() - attemptsBefore >= THREADS );
+    }
+
+    /*
+     * Tests that an update based on an old version of the inventory is
+     * rejected
+     */
+    @Test
+    public void testStaleUpdateIsRejected () {
+        final InventoryDto read = inventoryService.getInventory();
+
+        final Map<String, Integer> first = new HashMap<>();
+        first.put( items.get( 0 ).getName(), 10 );
+        final InventoryDto firstUpdate = new InventoryDto( read.getId(), first );
+        firstUpdate.setVersion( read.getVersion() );
+        final InventoryDto updated = inventoryService.updateInventory( firstUpdate );
+        assertTrue( updated.getVersion() > read.getVersion() );
+
+        final Map<String, Integer> second = new HashMap<>();
+        second.put( items.get( 0 ).getName(), 3 );
+        final InventoryDto staleUpdate = new InventoryDto( read.getId(), second );
+        staleUpdate.setVersion( read.getVersion() );
+        final WolfCafeAPIException e = assertThrows( WolfCafeAPIException.class,
+                () -> inventoryService.updateInventory( staleUpdate ) );
+        assertEquals( HttpStatus.CONFLICT, e.getStatus() );
+        assertEquals( 10, inventoryService.getInventory().getItems().get( items.get( 0 ).getName() ) );
+    }
+
+    /*
+     * Tests that an update read before an order took stock is rejected
+     * instead of putting the stock back
+     */
+    @Test
+    public void testUpdateAfterReservationIsRejected () {
+        final Map<String, Integer> stock = new HashMap<>();
+        stock.put( items.get( 0 ).getName(), 10 );
+        final InventoryDto stocked = new InventoryDto( inventoryService.getInventory().getId(), stock );
+        final InventoryDto read = inventoryService.updateInventory( stocked );
+
+        stockReservationService.reserve( Map.of( items.get( 0 ), 4 ) );
+
+        final Map<String, Integer> edit = new HashMap<>( read.getItems() );
+        edit.put( items.get( 1 ).getName(), 5 );
+        final InventoryDto staleUpdate = new InventoryDto( read.getId(), edit );
+        staleUpdate.setVersion( read.getVersion() );
+        final WolfCafeAPIException e = assertThrows( WolfCafeAPIException.class,
+                () -> inventoryService.updateInventory( staleUpdate ) );
+        assertEquals( HttpStatus.CONFLICT, e.getStatus() );
+        assertEquals( 6, inventoryService.getInventory().getItems().get( items.get( 0 ).getName() ) );
+    }
+
+    /*
+     * Tests that removing an item whose stock orders changed many times still
+     * moves the inventory to a version it never had before
+     */
+    @Test
+    public void testRemovingStockKeepsVersionIncreasing () {
+        final Map<String, Integer> stock = new HashMap<>();
+        stock.put( items.get( 0 ).getName(), 10 );
+        final InventoryDto stocked = inventoryService
+                .updateInventory( new InventoryDto( inventoryService.getInventory().getId(), stock ) );
+        for ( int i = 0; i < 5; i++ ) {
+            stockReservationService.reserve( Map.of( items.get( 0 ), 1 ) );
+        }
+        final long beforeRemoval = inventoryService.getInventory().getVersion();
+        assertEquals( stocked.getVersion() + 5, beforeRemoval );
+
+        assertTrue( inventoryService.removeItemFromInventory( items.get( 0 ) ) );
+        assertTrue( inventoryService.getInventory().getVersion() > beforeRemoval );
+    }
+
+    /*
+     * Returns the number of addItemToInventory transactions started so far
+     */
+    private double attempts () {
+        return meterRegistry.counter( "wolfcafe.optimistic.attempts", "operation", "addItemToInventory" ).count();
+    }
+
+}
@@ -0,0 +1,180 @@
+package edu.ncsu.csc326.wolfcafe.services;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import edu.ncsu.csc326.wolfcafe.archive.OrderArchive;
+import edu.ncsu.csc326.wolfcafe.dto.OrderDto;
+import edu.ncsu.csc326.wolfcafe.entity.OrderStatus;
+
+/*
+ * Tests OrderArchive against segment files in a temporary directory
+ */
+public class OrderArchiveTest {
+
+    /*
+     * Creation time of the first order in each test
+     */
+    private static final LocalDateTime START = LocalDateTime.of( 2020, 1, 1, 8, 0, 0, 123_456_000 );
+
+    /*
+     * Directory the segment files are written to
+     */
+    @TempDir
+    private Path                       directory;
+
+    /*
+     * Tests that archived orders spanning many blocks are read back exactly,
+     * including after the archive is opened again, and that the filters apply
+     */
+    @Test
+    public void testAppendAndRead () throws IOException {
+        final OrderArchive archive = open();
+        assertFalse( archive.mayHold( OrderStatus.PICKED_UP ) );
+
+        final List<OrderDto> orders = new ArrayList<>();
+        for ( int i = 0; i < 1200; i++ ) {
+            final Map<String, Integer> items = i % 3 == 0 ? Map.of( "Coffee", 1, "Milk", 2 ) : Map.of( "Coffee", 1 );
+            orders.add( new OrderDto( 1000L + i, 7L, items, i % 2 == 0 ? OrderStatus.PICKED_UP : OrderStatus.CANCELLED,
+                    i % 5 == 0 ? null : "customer", START.plusMinutes( i ), 4.5 + i, 0.5 ) );
+        }
+        assertEquals( 1200, archive.append( orders.iterator() ).getLongCardinality() );
+
+        for ( final OrderArchive reader : List.of( archive, open() ) ) {
+            assertTrue( reader.mayHold( OrderStatus.PICKED_UP ) );
+            assertFalse( reader.mayHold( OrderStatus.PLACED ) );
+            assertTrue( reader.contains( 1000L ) );
+            assertFalse( reader.contains( 999L ) );
+
+            final List<OrderDto> pickedUp = new ArrayList<>();
+            assertEquals( 600, reader.forEach( List.of(), OrderStatus.PICKED_UP, null, null, pickedUp::add ) );
+            assertEquals( orders.get( 0 ), pickedUp.get( 0 ) );
+            assertEquals( orders.get( 1198 ), pickedUp.get( 599 ) );
+
+            // Milk is in every third order, and only the even ones are picked up
+            assertEquals( 200, reader.forEach( List.of( "Coffee", "Milk" ), OrderStatus.PICKED_UP, null, null,
+                    order -> assertTrue( order.getItems().containsKey( "Milk" ) ) ) );
+
+            // The range includes its start and stops before its end
+            final List<OrderDto> inRange = new ArrayList<>();
+            reader.forEach( List.of(), OrderStatus.CANCELLED, START.plusMinutes( 601 ), START.plusMinutes( 605 ),
+                    inRange::add );
+            assertEquals( List.of( orders.get( 601 ), orders.get( 603 ) ), inRange );
+        }
+    }
+
+    /*
+     * Tests that the first orders of a page and the counts match reading
+     * every order, across blocks and segments, with and without filters
+     */
+    @Test
+    public void testFirstAndCount () throws IOException {
+        final OrderArchive archive = open();
+        final List<OrderDto> orders = new ArrayList<>();
+        for ( int i = 0; i < 1500; i++ ) {
+            final Map<String, Integer> items = i % 3 == 0 ? Map.of( "Coffee", 1, "Milk", 2 ) : Map.of( "Coffee", 1 );
+            orders.add( new OrderDto( 1L + i, 7L, items, OrderStatus.PICKED_UP, "customer", START.plusMinutes( i ),
+                    3.15, (double) ( i % 7 ) ) );
+        }
+        archive.append( orders.subList( 0, 1000 ).iterator() );
+        archive.append( orders.subList( 1000, 1500 ).iterator() );
+
+        final Comparator<OrderDto> newestFirst = Comparator.comparing( OrderDto::getCreatedAt ).reversed();
+        assertEquals( List.of( orders.get( 1499 ), orders.get( 1498 ), orders.get( 1497 ) ), archive.first( List.of(),
+                OrderStatus.PICKED_UP, null, null, newestFirst, Sort.Direction.DESC, 3 ) );
+        assertEquals( List.of( orders.get( 0 ), orders.get( 3 ) ), archive.first( List.of( "Milk" ),
+                OrderStatus.PICKED_UP, null, null, Comparator.comparing( OrderDto::getCreatedAt ),
+                Sort.Direction.ASC, 2 ) );
+        assertEquals( List.of( orders.get( 599 ), orders.get( 598 ) ), archive.first( List.of(),
+                OrderStatus.PICKED_UP, null, START.plusMinutes( 600 ), newestFirst, Sort.Direction.DESC, 2 ) );
+
+        // Not sorted by creation time, so every block is read
+        final Comparator<OrderDto> byTip = Comparator.comparing( OrderDto::getTip ).reversed()
+                .thenComparing( OrderDto::getId );
+        assertEquals( List.of( orders.get( 6 ), orders.get( 13 ) ),
+                archive.first( List.of(), OrderStatus.PICKED_UP, null, null, byTip, null, 2 ) );
+
+        // Counted twice, so the second count uses the block summaries
+        for ( int pass = 0; pass < 2; pass++ ) {
+            assertEquals( 1500, archive.count( List.of(), OrderStatus.PICKED_UP, null, null ) );
+            assertEquals( 500, archive.count( List.of( "Milk" ), OrderStatus.PICKED_UP, null, null ) );
+            assertEquals( 0, archive.count( List.of( "Tea" ), OrderStatus.PICKED_UP, null, null ) );
+            assertEquals( 0, archive.count( List.of(), OrderStatus.CANCELLED, null, null ) );
+            assertEquals( 700, archive.count( List.of(), OrderStatus.PICKED_UP, START.plusMinutes( 300 ),
+                    START.plusMinutes( 1000 ) ) );
+        }
+    }
+
+    /*
+     * Tests that orders from several segments are read back oldest first
+     */
+    @Test
+    public void testOldestFirstAcrossSegments () throws IOException {
+        final OrderArchive archive = open();
+        archive.append( List.of( order( 1L, 0 ), order( 2L, 2 ), order( 3L, 4 ) ).iterator() );
+        archive.append( List.of( order( 4L, 1 ), order( 5L, 3 ) ).iterator() );
+
+        final List<Long> ids = new ArrayList<>();
+        archive.oldestFirst( List.of(), OrderStatus.PICKED_UP, null, null )
+                .forEachRemaining( order -> ids.add( order.getId() ) );
+        assertEquals( List.of( 1L, 4L, 2L, 5L, 3L ), ids );
+        assertArrayEquals( new long[] { 4L, 5L }, archive.newestSegmentIds().toArray() );
+    }
+
+    /*
+     * Tests that a segment whose orders are out of order is never published
+     * and leaves no file behind
+     */
+    @Test
+    public void testOutOfOrderSegmentIsDiscarded () throws IOException {
+        final OrderArchive archive = open();
+        assertThrows( IllegalArgumentException.class,
+                () -> archive.append( List.of( order( 1L, 5 ), order( 2L, 1 ) ).iterator() ) );
+        assertFalse( archive.mayHold( OrderStatus.PICKED_UP ) );
+        try ( Stream<Path> files = Files.list( directory ) ) {
+            assertEquals( 0, files.count() );
+        }
+
+        // Nothing to archive writes no segment
+        assertEquals( 0, archive.append( List.<OrderDto> of().iterator() ).getLongCardinality() );
+        assertFalse( archive.mayHold( OrderStatus.PICKED_UP ) );
+    }
+
+    /*
+     * Opens an archive on the temporary directory
+     */
+    private OrderArchive open () throws IOException {
+        final OrderArchive archive = new OrderArchive();
+        ReflectionTestUtils.setField( archive, "directory", directory.toString() );
+        archive.open();
+        return archive;
+    }
+
+    /*
+     * Builds a picked up order created the given number of minutes after the
+     * start
+     */
+    private static OrderDto order ( final long id, final int minutes ) {
+        return new OrderDto( id, 7L, Map.of( "Coffee", 1 ), OrderStatus.PICKED_UP, "customer",
+                START.plusMinutes( minutes ), 3.15, 0.0 );
+    }
+
+}
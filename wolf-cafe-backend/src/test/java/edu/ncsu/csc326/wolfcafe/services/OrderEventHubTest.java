@@ -0,0 +1,171 @@
+package edu.ncsu.csc326.wolfcafe.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import edu.ncsu.csc326.wolfcafe.dto.OrderDto;
+import edu.ncsu.csc326.wolfcafe.dto.OrderEventDto;
+import edu.ncsu.csc326.wolfcafe.entity.OrderStatus;
+import edu.ncsu.csc326.wolfcafe.events.OrderEventHub;
+import edu.ncsu.csc326.wolfcafe.exception.ResourceNotFoundException;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/*
+ * Tests OrderEventHub, with a replay buffer small enough to overflow
+ */
+@SpringBootTest ( properties = "app.orders.events.replay-size=3" )
+public class OrderEventHubTest {
+
+    /*
+     * Reference to the hub
+     */
+    @Autowired
+    private OrderEventHub              orderEventHub;
+
+    /*
+     * Reference to the transaction manager
+     */
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    /*
+     * Reference to the meter registry
+     */
+    @Autowired
+    private MeterRegistry              meterRegistry;
+
+    /*
+     * Tests that a change is only published once its transaction commits
+     */
+    @Test
+    public void testPublishAfterCommit () {
+        final long start = orderEventHub.lastEventId();
+        new TransactionTemplate( transactionManager ).executeWithoutResult( transaction -> {
+            orderEventHub.publish( order( 1L, OrderStatus.FULFILLED ) );
+            assertEquals( start, orderEventHub.lastEventId() );
+        } );
+
+        assertEquals( start + 1, orderEventHub.lastEventId() );
+        final List<OrderEventDto> events = orderEventHub.eventsAfter( start ).get();
+        assertEquals( 1, events.size() );
+        assertEquals( start + 1, events.get( 0 ).getId() );
+        assertEquals( 1L, events.get( 0 ).getOrder().getId() );
+        assertEquals( OrderStatus.FULFILLED, events.get( 0 ).getOrder().getStatus() );
+    }
+
+    /*
+     * Tests that a change made in a transaction that rolls back is never
+     * published
+     */
+    @Test
+    public void testRollbackNotPublished () {
+        final long start = orderEventHub.lastEventId();
+        new TransactionTemplate( transactionManager ).executeWithoutResult( transaction -> {
+            orderEventHub.publish( order( 2L, OrderStatus.CANCELLED ) );
+            transaction.setRollbackOnly();
+        } );
+
+        assertEquals( start, orderEventHub.lastEventId() );
+        assertTrue( orderEventHub.eventsAfter( start ).get().isEmpty() );
+    }
+
+    /*
+     * Tests that only the latest changes are kept, and that asking for changes
+     * that are no longer kept or were never published gives nothing
+     */
+    @Test
+    public void testReplayBounded () {
+        for ( long id = 10; id < 15; id++ ) {
+            orderEventHub.publish( order( id, OrderStatus.PLACED ) );
+        }
+        final long last = orderEventHub.lastEventId();
+
+        final List<OrderEventDto> events = orderEventHub.eventsAfter( last - 3 ).get();
+        assertEquals( 3, events.size() );
+        assertEquals( 12L, events.get( 0 ).getOrder().getId() );
+        assertEquals( 14L, events.get( 2 ).getOrder().getId() );
+
+        assertTrue( orderEventHub.eventsAfter( last ).get().isEmpty() );
+        assertTrue( orderEventHub.eventsAfter( last - 4 ).isEmpty() );
+        assertTrue( orderEventHub.eventsAfter( last + 1 ).isEmpty() );
+    }
+
+    /*
+     * Tests that subscriptions are counted until they complete
+     */
+    @Test
+    public void testSubscribe () {
+        final double subscribers = meterRegistry.get( "wolfcafe.orders.events.subscribers" ).gauge().value();
+        final SseEmitter emitter = orderEventHub.subscribe( "not a number" );
+        assertEquals( subscribers + 1, meterRegistry.get( "wolfcafe.orders.events.subscribers" ).gauge().value() );
+        assertEquals( 1800000L, emitter.getTimeout() );
+    }
+
+    /*
+     * Tests that a parked request is only answered by a committed change to
+     * its order's status
+     */
+    @Test
+    @SuppressWarnings ( "unchecked" )
+    public void testAwaitChange () {
+        final DeferredResult<ResponseEntity<OrderDto>> result = orderEventHub.awaitChange( 20L, OrderStatus.PLACED,
+                () -> order( 20L, OrderStatus.PLACED ) );
+        assertFalse( result.hasResult() );
+
+        orderEventHub.publish( order( 21L, OrderStatus.FULFILLED ) );
+        orderEventHub.publish( order( 20L, OrderStatus.PLACED ) );
+        new TransactionTemplate( transactionManager ).executeWithoutResult( transaction -> {
+            orderEventHub.publish( order( 20L, OrderStatus.CANCELLED ) );
+            transaction.setRollbackOnly();
+        } );
+        assertFalse( result.hasResult() );
+
+        orderEventHub.publish( order( 20L, OrderStatus.FULFILLED ) );
+        final ResponseEntity<OrderDto> response = (ResponseEntity<OrderDto>) result.getResult();
+        assertEquals( HttpStatus.OK, response.getStatusCode() );
+        assertEquals( OrderStatus.FULFILLED, response.getBody().getStatus() );
+    }
+
+    /*
+     * Tests that a request is answered straight away when the order has
+     * already moved on, and that one for an order the caller may not see is
+     * refused
+     */
+    @Test
+    @SuppressWarnings ( "unchecked" )
+    public void testAwaitChangeImmediate () {
+        final DeferredResult<ResponseEntity<OrderDto>> result = orderEventHub.awaitChange( 30L, OrderStatus.PLACED,
+                () -> order( 30L, OrderStatus.PICKED_UP ) );
+        assertEquals( OrderStatus.PICKED_UP,
+                ( (ResponseEntity<OrderDto>) result.getResult() ).getBody().getStatus() );
+
+        assertThrows( ResourceNotFoundException.class, () -> orderEventHub.awaitChange( 31L, null, () -> {
+            throw new ResourceNotFoundException( "Order not found with id: 31" );
+        } ) );
+    }
+
+    /*
+     * Builds an order with an id and a status (helper)
+     */
+    private static OrderDto order ( final Long id, final OrderStatus status ) {
+        final OrderDto order = new OrderDto();
+        order.setId( id );
+        order.setStatus( status );
+        return order;
+    }
+
+}
@@ -0,0 +1,110 @@
+package edu.ncsu.csc326.wolfcafe.services;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import edu.ncsu.csc326.wolfcafe.cache.OrderItemIndex;
+import edu.ncsu.csc326.wolfcafe.entity.Order;
+import edu.ncsu.csc326.wolfcafe.entity.OrderStatus;
+
+/*
+ * Tests OrderItemIndex, changed directly rather than through saved orders
+ */
+@SpringBootTest
+public class OrderItemIndexTest {
+
+    /*
+     * An item no other test orders
+     */
+    private static final String        ITEM = "Index Scone";
+
+    /*
+     * Reference to the index
+     */
+    @Autowired
+    private OrderItemIndex             orderItemIndex;
+
+    /*
+     * Reference to the transaction manager
+     */
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    /*
+     * Tests that a rolled back transaction only takes back its own changes,
+     * newest first, and leaves the rest of the index alone
+     */
+    @Test
+    public void testRollbackUndoesOwnChanges () {
+        final Order committed = order( 950001L, OrderStatus.PLACED );
+        orderItemIndex.add( committed );
+
+        new TransactionTemplate( transactionManager ).executeWithoutResult( transaction -> {
+            orderItemIndex.add( order( 950002L, OrderStatus.PLACED ) );
+            orderItemIndex.statusChanged( order( 950001L, OrderStatus.FULFILLED ) );
+            orderItemIndex.statusChanged( order( 950001L, OrderStatus.PICKED_UP ) );
+            assertTrue( found( 950002L, OrderStatus.PLACED ) );
+            assertTrue( found( 950001L, OrderStatus.PICKED_UP ) );
+            transaction.setRollbackOnly();
+        } );
+
+        assertTrue( found( 950001L, OrderStatus.PLACED ) );
+        assertFalse( found( 950001L, OrderStatus.FULFILLED ) );
+        assertFalse( found( 950001L, OrderStatus.PICKED_UP ) );
+        assertFalse( found( 950002L, OrderStatus.PLACED ) );
+
+        orderItemIndex.remove( committed );
+        assertFalse( found( 950001L, OrderStatus.PLACED ) );
+    }
+
+    /*
+     * Tests that an order deleted in a transaction that rolls back is put
+     * back in the index
+     */
+    @Test
+    public void testRollbackRestoresRemoved () {
+        final Order order = order( 950011L, OrderStatus.FULFILLED );
+        orderItemIndex.add( order );
+
+        new TransactionTemplate( transactionManager ).executeWithoutResult( transaction -> {
+            orderItemIndex.remove( order );
+            assertFalse( found( 950011L, OrderStatus.FULFILLED ) );
+            transaction.setRollbackOnly();
+        } );
+
+        assertTrue( found( 950011L, OrderStatus.FULFILLED ) );
+        orderItemIndex.remove( order );
+    }
+
+    /*
+     * Whether the index holds the order under the test item and the status
+     * (helper)
+     */
+    private boolean found ( final long id, final OrderStatus status ) {
+        return orderItemIndex.find( List.of( ITEM ), status ).contains( id );
+    }
+
+    /*
+     * Builds an order for one of the test item (helper)
+     */
+    private static Order order ( final Long id, final OrderStatus status ) {
+        final Map<String, Integer> items = new HashMap<>();
+        items.put( ITEM, 1 );
+        final Order order = new Order();
+        order.setId( id );
+        order.setStatus( status );
+        order.setItems( items );
+        return order;
+    }
+
+}
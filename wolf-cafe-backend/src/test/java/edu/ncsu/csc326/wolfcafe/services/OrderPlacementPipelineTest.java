@@ -0,0 +1,77 @@
+package edu.ncsu.csc326.wolfcafe.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.test.context.support.WithMockUser;
+
+import edu.ncsu.csc326.wolfcafe.dto.OrderDto;
+import edu.ncsu.csc326.wolfcafe.exception.WolfCafeAPIException;
+import edu.ncsu.csc326.wolfcafe.pipeline.OrderPlacementPipeline;
+import edu.ncsu.csc326.wolfcafe.pipeline.PendingOrder;
+import edu.ncsu.csc326.wolfcafe.service.OrderService;
+
+/*
+ * Tests OrderPlacementPipeline with group commit enabled and the batches
+ * placed by a stand-in OrderService
+ */
+@SpringBootTest ( properties = { "app.orders.group-commit.enabled=true",
+        "app.orders.group-commit.result-timeout-milliseconds=5000" } )
+public class OrderPlacementPipelineTest {
+
+    /*
+     * Reference to the pipeline
+     */
+    @Autowired
+    private OrderPlacementPipeline orderPlacementPipeline;
+
+    /*
+     * Stand-in for the service placing the batches
+     */
+    @MockBean
+    private OrderService           orderService;
+
+    /*
+     * Tests that a batch failing with an Error fails its callers and leaves
+     * the worker running for the next batch
+     */
+    @Test
+    @WithMockUser ( username = "customer1", roles = "CUSTOMER" )
+    @SuppressWarnings ( "unchecked" )
+    public void testWorkerSurvivesError () {
+        Mockito.doThrow( new AssertionError( "Batch failed" ) ).doAnswer( invocation -> {
+            for ( final PendingOrder pending : (List<PendingOrder>) invocation.getArgument( 0 ) ) {
+                final OrderDto placed = new OrderDto();
+                placed.setId( 42L );
+                pending.accept( placed );
+            }
+            return null;
+        } ).when( orderService ).placeOrders( ArgumentMatchers.anyList() );
+
+        final WolfCafeAPIException e = assertThrows( WolfCafeAPIException.class,
+                () -> orderPlacementPipeline.place( order() ) );
+        assertEquals( HttpStatus.INTERNAL_SERVER_ERROR, e.getStatus() );
+
+        assertEquals( 42L, orderPlacementPipeline.place( order() ).getId() );
+    }
+
+    /*
+     * Creates an order request for one coffee
+     */
+    private OrderDto order () {
+        final OrderDto orderDto = new OrderDto();
+        orderDto.setItems( Map.of( "Coffee", 1 ) );
+        return orderDto;
+    }
+
+}
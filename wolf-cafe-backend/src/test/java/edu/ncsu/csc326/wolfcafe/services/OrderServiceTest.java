@@ -2,10 +2,15 @@ package edu.ncsu.csc326.wolfcafe.services;
 
 import static org.junit.jupiter.api.Assertions.assertAll;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -14,24 +19,36 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.transaction.annotation.Transactional;
 
 import edu.ncsu.csc326.wolfcafe.dto.OrderDto;
+import edu.ncsu.csc326.wolfcafe.dto.OrderPageDto;
+import edu.ncsu.csc326.wolfcafe.dto.OrderTransitionResultDto;
 import edu.ncsu.csc326.wolfcafe.entity.Inventory;
 import edu.ncsu.csc326.wolfcafe.entity.Item;
 import edu.ncsu.csc326.wolfcafe.entity.OrderStatus;
+import edu.ncsu.csc326.wolfcafe.entity.OrderTransition;
 import edu.ncsu.csc326.wolfcafe.entity.TaxRate;
 import edu.ncsu.csc326.wolfcafe.entity.User;
 import edu.ncsu.csc326.wolfcafe.exception.ResourceNotFoundException;
 import edu.ncsu.csc326.wolfcafe.exception.WolfCafeAPIException;
+import edu.ncsu.csc326.wolfcafe.pipeline.PendingOrder;
+import edu.ncsu.csc326.wolfcafe.repository.IdempotencyRecordRepository;
 import edu.ncsu.csc326.wolfcafe.repository.InventoryRepository;
 import edu.ncsu.csc326.wolfcafe.repository.ItemRepository;
 import edu.ncsu.csc326.wolfcafe.repository.TaxRateRepository;
 import edu.ncsu.csc326.wolfcafe.repository.UserRepository;
+import edu.ncsu.csc326.wolfcafe.service.ItemService;
 import edu.ncsu.csc326.wolfcafe.service.OrderService;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManager;
 
 /*
  * Tests OrderService
@@ -43,36 +60,60 @@ public class OrderServiceTest {
      * Reference to OrderService
      */
     @Autowired
-    private OrderService        orderService;
+    private OrderService                orderService;
 
     /**
      * Reference to item repository
      */
     @Autowired
-    private ItemRepository      itemRepository;
+    private ItemRepository              itemRepository;
+
+    /**
+     * Reference to ItemService
+     */
+    @Autowired
+    private ItemService                 itemService;
 
     /**
      * Reference to inventory repository
      */
     @Autowired
-    private InventoryRepository inventoryRepository;
+    private InventoryRepository         inventoryRepository;
 
     /**
      * Reference to user repository
      */
     @Autowired
-    private UserRepository      userRepository;
+    private UserRepository              userRepository;
 
     /**
      * Reference to tax rate repository
      */
     @Autowired
-    private TaxRateRepository   taxRateRepository;
+    private TaxRateRepository           taxRateRepository;
+
+    /**
+     * Reference to the meter registry
+     */
+    @Autowired
+    private MeterRegistry               meterRegistry;
+
+    /**
+     * Reference to the entity manager
+     */
+    @Autowired
+    private EntityManager               entityManager;
+
+    /**
+     * Reference to the stored Idempotency-Keys
+     */
+    @Autowired
+    private IdempotencyRecordRepository idempotencyRecordRepository;
 
     /**
      * Represents a customer user in the system
      */
-    private User                customer1;
+    private User                        customer1;
 
     /*
      * Clear all the information before the tests. And set necessary information
@@ -163,6 +204,31 @@ public class OrderServiceTest {
         assertThrows( ResourceNotFoundException.class, () -> orderService.placeOrder( orderDto ) );
     }
 
+    /*
+     * Tests that an Idempotency-Key is stored with the order it placed, both
+     * for a single order and for a batch
+     */
+    @Test
+    @Transactional
+    @WithMockUser ( username = "customer1", roles = "CUSTOMER" )
+    public void testPlaceOrderStoresIdempotencyKey () {
+        final OrderDto orderDto = new OrderDto();
+        orderDto.setCustomerId( customer1.getId() );
+        orderDto.setItems( new HashMap<>( Map.of( "Coffee", 1 ) ) );
+
+        final OrderDto placed = orderService.placeOrder( orderDto, "customer1:single-key" );
+        assertEquals( placed.getId(),
+                idempotencyRecordRepository.findById( "customer1:single-key" ).get().getOrderId() );
+
+        final PendingOrder withKey = new PendingOrder( orderDto, "customer1", "customer1:batch-key" );
+        final PendingOrder withoutKey = new PendingOrder( orderDto, "customer1" );
+        orderService.placeOrders( List.of( withoutKey, withKey ) );
+        assertEquals( withKey.getPlaced().getId(),
+                idempotencyRecordRepository.findById( "customer1:batch-key" ).get().getOrderId() );
+        assertEquals( 2, idempotencyRecordRepository.findAllById(
+                List.of( "customer1:single-key", "customer1:batch-key" ) ).size() );
+    }
+
     /*
      * Tests placing an order when there is insufficient inventory
      */
@@ -192,7 +258,7 @@ public class OrderServiceTest {
 
         placeOrderForMultipleUsers( userToItem );
 
-        final List<OrderDto> orders = orderService.getAllOrders();
+        final List<OrderDto> orders = orderService.getAllOrders( null, 50 ).getOrders();
 
         assertEquals( 2, orders.size() );
         assertTrue( orders.stream().anyMatch( order -> order.getItems().containsKey( "Coffee" ) ) );
@@ -232,12 +298,75 @@ public class OrderServiceTest {
     public void testGetOrdersForCurrentUser () {
         placeOrderForUser( "customer1", Map.of( "Coffee", 2 ) );
 
-        final List<OrderDto> orders = orderService.getOrdersForCurrentUser();
+        final List<OrderDto> orders = orderService.getOrdersForCurrentUser( null, 50 ).getOrders();
 
         assertEquals( 1, orders.size() );
         assertEquals( "Coffee", orders.get( 0 ).getItems().keySet().iterator().next() );
     }
 
+    /*
+     * Tests that customers can read their own orders but not other customers'
+     */
+    @Test
+    @Transactional
+    @WithMockUser ( username = "customer1", roles = "CUSTOMER" )
+    public void testGetOrderForCurrentUser () {
+        placeOrderForUser( "customer1", Map.of( "Coffee", 2 ) );
+        final Long id = orderService.getOrdersForCurrentUser( null, 50 ).getOrders().get( 0 ).getId();
+
+        final OrderDto order = orderService.getOrderForCurrentUser( id );
+        assertEquals( OrderStatus.PLACED, order.getStatus() );
+        assertEquals( 2, order.getItems().get( "Coffee" ) );
+
+        SecurityContextHolder.getContext()
+                .setAuthentication( new UsernamePasswordAuthenticationToken( "customer2", "password" ) );
+        assertThrows( ResourceNotFoundException.class, () -> orderService.getOrderForCurrentUser( id ) );
+        assertThrows( ResourceNotFoundException.class, () -> orderService.getOrderForCurrentUser( id + 1000 ) );
+    }
+
+    /*
+     * Test that refreshing the customer's orders is served from the cache until
+     * one of their orders is placed, fulfilled, picked up or cancelled
+     */
+    @Test
+    @Transactional
+    @WithMockUser ( username = "customer1", roles = "CUSTOMER" )
+    public void testGetOrdersForCurrentUserCached () {
+        placeOrderForUser( "customer1", Map.of( "Coffee", 1 ) );
+        final OrderPageDto first = orderService.getOrdersForCurrentUser( null, 50 );
+        final double hits = cacheLookups( "hit" );
+        final double misses = cacheLookups( "miss" );
+
+        assertEquals( first, orderService.getOrdersForCurrentUser( null, 50 ) );
+        assertEquals( hits + 1, cacheLookups( "hit" ) );
+        assertEquals( misses, cacheLookups( "miss" ) );
+
+        final Long id = first.getOrders().get( 0 ).getId();
+        orderService.fulfillOrder( id );
+        assertEquals( OrderStatus.FULFILLED, orderService.getOrdersForCurrentUser( null, 50 ).getOrders().get( 0 )
+                .getStatus() );
+
+        orderService.pickupOrder( id );
+        assertEquals( OrderStatus.PICKED_UP, orderService.getOrdersForCurrentUser( null, 50 ).getOrders().get( 0 )
+                .getStatus() );
+
+        placeOrderForUser( "customer1", Map.of( "Milk", 1 ) );
+        final List<OrderDto> orders = orderService.getOrdersForCurrentUser( null, 50 ).getOrders();
+        assertEquals( 2, orders.size() );
+
+        orderService.cancelOrder( orders.get( 0 ).getId() );
+        assertEquals( OrderStatus.CANCELLED, orderService.getOrdersForCurrentUser( null, 50 ).getOrders().get( 0 )
+                .getStatus() );
+        assertEquals( misses + 4, cacheLookups( "miss" ) );
+    }
+
+    /*
+     * Counts the lookups of customer order pages with a result (helper)
+     */
+    private double cacheLookups ( final String result ) {
+        return meterRegistry.counter( "wolfcafe.customer.orders.cache", "result", result ).count();
+    }
+
     /*
      * Places an order for the user (helper)
      */
@@ -465,6 +594,130 @@ public class OrderServiceTest {
         assertEquals( OrderStatus.PLACED, pickedupOrderDto.getStatus(), "Order status should remain PLACED" );
     }
 
+    /*
+     * Tests fulfilling and then picking up a batch of orders, with each order
+     * only changed once however often it is listed
+     */
+    @Test
+    @Transactional
+    @WithMockUser ( username = "customer1", roles = "CUSTOMER" )
+    public void testTransitionOrders () {
+        final Long first = placeCoffee( 1 ).getId();
+        final Long second = placeCoffee( 2 ).getId();
+
+        final List<OrderTransitionResultDto> fulfilled = orderService
+                .transitionOrders( List.of( first, second, first ), OrderTransition.FULFILL );
+        assertEquals( 2, fulfilled.size() );
+        assertEquals( first, fulfilled.get( 0 ).getId() );
+        assertTrue( fulfilled.get( 0 ).isSuccess() );
+        assertEquals( OrderStatus.FULFILLED, fulfilled.get( 0 ).getStatus() );
+        assertEquals( second, fulfilled.get( 1 ).getId() );
+        assertTrue( fulfilled.get( 1 ).isSuccess() );
+
+        final List<OrderTransitionResultDto> pickedUp = orderService.transitionOrders( List.of( second, first ),
+                OrderTransition.PICK_UP );
+        assertTrue( pickedUp.stream().allMatch( OrderTransitionResultDto::isSuccess ) );
+        assertEquals( OrderStatus.PICKED_UP, orderService.getOrder( first ).getStatus() );
+        assertEquals( OrderStatus.PICKED_UP, orderService.getOrder( second ).getStatus() );
+
+        assertThrows( WolfCafeAPIException.class,
+                () -> orderService.transitionOrders( List.of(), OrderTransition.PICK_UP ) );
+        assertThrows( WolfCafeAPIException.class,
+                () -> orderService.transitionOrders( Arrays.asList( first, null ), OrderTransition.PICK_UP ) );
+    }
+
+    /*
+     * Tests that a batch change of status leaves the entities the transaction
+     * already holds managed, and brings the orders it placed up to date
+     */
+    @Test
+    @Transactional
+    @WithMockUser ( username = "customer1", roles = "CUSTOMER" )
+    public void testTransitionOrdersKeepsEntitiesManaged () {
+        final Inventory inventory = inventoryRepository.findAll().get( 0 );
+        final Long id = placeCoffee( 1 ).getId();
+
+        assertTrue( orderService.transitionOrders( List.of( id ), OrderTransition.FULFILL ).get( 0 ).isSuccess() );
+        assertTrue( entityManager.contains( inventory ) );
+        final OrderDto order = orderService.getOrder( id );
+        assertEquals( OrderStatus.FULFILLED, order.getStatus() );
+    }
+
+    /*
+     * Tests cancelling a batch of orders where some cannot be cancelled: only
+     * the placed orders are cancelled, their stock is returned, and the others
+     * are reported as failed and left alone
+     */
+    @Test
+    @Transactional
+    @WithMockUser ( username = "customer1", roles = "CUSTOMER" )
+    public void testTransitionOrdersCancel () {
+        final Long first = placeCoffee( 2 ).getId();
+        final Long second = placeCoffee( 3 ).getId();
+        final Long fulfilled = placeCoffee( 4 ).getId();
+        orderService.fulfillOrder( fulfilled );
+
+        final List<OrderTransitionResultDto> results = orderService
+                .transitionOrders( List.of( first, fulfilled, 999999L, second ), OrderTransition.CANCEL );
+        assertEquals( 4, results.size() );
+        assertTrue( results.get( 0 ).isSuccess() );
+        assertEquals( OrderStatus.CANCELLED, results.get( 0 ).getStatus() );
+        assertFalse( results.get( 1 ).isSuccess() );
+        assertEquals( OrderStatus.FULFILLED, results.get( 1 ).getStatus() );
+        assertEquals( "Order with ID " + fulfilled + " is not in PLACED status and cannot be moved to CANCELLED.",
+                results.get( 1 ).getMessage() );
+        assertFalse( results.get( 2 ).isSuccess() );
+        assertEquals( "Order not found with id: 999999", results.get( 2 ).getMessage() );
+        assertTrue( results.get( 3 ).isSuccess() );
+
+        assertEquals( OrderStatus.CANCELLED, orderService.getOrder( second ).getStatus() );
+        assertEquals( OrderStatus.FULFILLED, orderService.getOrder( fulfilled ).getStatus() );
+        final Inventory inventory = inventoryRepository.findAll().get( 0 );
+        assertEquals( 16, inventory.getItems().get( itemRepository.findByName( "Coffee" ).get() ) );
+    }
+
+    /*
+     * Tests that an order holding an item taken off the menu is reported as
+     * failed and left placed, while the rest of the batch is cancelled
+     */
+    @Test
+    @Transactional
+    @WithMockUser ( username = "customer1", roles = "CUSTOMER" )
+    public void testTransitionOrdersCancelMissingItem () {
+        final Long coffee = placeCoffee( 2 ).getId();
+        final OrderDto withMilk = new OrderDto();
+        withMilk.setCustomerId( customer1.getId() );
+        withMilk.setItems( new HashMap<>( Map.of( "Coffee", 1, "Milk", 1 ) ) );
+        final Long milk = orderService.placeOrder( withMilk ).getId();
+        itemService.deleteItem( itemRepository.findByName( "Milk" ).get().getId() );
+        itemRepository.flush();
+
+        final List<OrderTransitionResultDto> results = orderService.transitionOrders( List.of( coffee, milk ),
+                OrderTransition.CANCEL );
+        assertTrue( results.get( 0 ).isSuccess() );
+        assertFalse( results.get( 1 ).isSuccess() );
+        assertEquals( OrderStatus.PLACED, results.get( 1 ).getStatus() );
+        assertEquals( "Item not found in inventory: Milk", results.get( 1 ).getMessage() );
+
+        assertEquals( OrderStatus.CANCELLED, orderService.getOrder( coffee ).getStatus() );
+        assertEquals( OrderStatus.PLACED, orderService.getOrder( milk ).getStatus() );
+        final Inventory inventory = inventoryRepository.findAll().get( 0 );
+        assertEquals( 19, inventory.getItems().get( itemRepository.findByName( "Coffee" ).get() ) );
+    }
+
+    /*
+     * Places an order for the given number of coffees (helper)
+     */
+    private OrderDto placeCoffee ( final int quantity ) {
+        final Map<String, Integer> orderItems = new HashMap<>();
+        orderItems.put( "Coffee", quantity );
+
+        final OrderDto orderDto = new OrderDto();
+        orderDto.setCustomerId( customer1.getId() );
+        orderDto.setItems( orderItems );
+        return orderService.placeOrder( orderDto );
+    }
+
     /*
      * Tests viewOrderHistory
      */
@@ -529,7 +782,8 @@ public class OrderServiceTest {
         orderService.pickupOrder( orderDto2_placed.getId() );
 
         // Retrieve order history without filtering
-        final List<OrderDto> orderHistory = orderService.viewOrderHistory( null );
+        final List<OrderDto> orderHistory = orderService
+                .viewOrderHistory( null, null, null, null, Pageable.unpaged() ).getContent();
 
         assertNotNull( orderHistory, "Order history should not be null" );
         assertEquals( 2, orderHistory.size(), "Order history should contain 2 orders" );
@@ -542,11 +796,203 @@ public class OrderServiceTest {
         }
 
         // Retrieve order history filtered by "Milk"
-        final List<OrderDto> filteredHistory = orderService.viewOrderHistory( "Milk" );
+        final List<OrderDto> filteredHistory = orderService
+                .viewOrderHistory( List.of( "Milk" ), null, null, null, Pageable.unpaged() ).getContent();
 
         assertNotNull( filteredHistory, "Filtered order history should not be null" );
         assertEquals( 1, filteredHistory.size(), "Filtered order history should contain 1 order" );
         assertTrue( filteredHistory.get( 0 ).getItems().containsKey( "Milk" ), "Filtered order should contain 'Milk'" );
     }
 
+    /*
+     * Tests that viewOrderHistory filters by status and date range and returns
+     * the requested page
+     */
+    @Test
+    @WithMockUser ( username = "customer1", roles = "CUSTOMER" )
+    @Transactional
+    public void testViewOrderHistoryPagingAndFilters () {
+        final LocalDateTime start = LocalDateTime.now().minusSeconds( 1 );
+
+        final List<Long> ids = new ArrayList<>();
+        for ( int i = 0; i < 3; i++ ) {
+            final OrderDto orderDto = new OrderDto();
+            orderDto.setItems( Map.of( "Coffee", 1 ) );
+            ids.add( orderService.placeOrder( orderDto ).getId() );
+        }
+        for ( final Long id : ids ) {
+            orderService.fulfillOrder( id );
+            orderService.pickupOrder( id );
+        }
+
+        final OrderDto placed = new OrderDto();
+        placed.setItems( Map.of( "Milk", 1 ) );
+        orderService.placeOrder( placed );
+
+        // First page of two, newest first
+        final Page<OrderDto> firstPage = orderService.viewOrderHistory( null, null, start, null,
+                PageRequest.of( 0, 2, Sort.by( Sort.Direction.DESC, "createdAt", "id" ) ) );
+        assertEquals( 3, firstPage.getTotalElements() );
+        assertEquals( 2, firstPage.getContent().size() );
+        assertEquals( ids.get( 2 ), firstPage.getContent().get( 0 ).getId() );
+
+        // Second page holds the oldest order
+        final Page<OrderDto> secondPage = orderService.viewOrderHistory( null, null, start, null,
+                PageRequest.of( 1, 2, Sort.by( Sort.Direction.DESC, "createdAt", "id" ) ) );
+        assertEquals( 1, secondPage.getContent().size() );
+        assertEquals( ids.get( 0 ), secondPage.getContent().get( 0 ).getId() );
+
+        // Other statuses can be asked for
+        final Page<OrderDto> placedOrders = orderService.viewOrderHistory( null, OrderStatus.PLACED, start, null,
+                PageRequest.of( 0, 10 ) );
+        assertEquals( 1, placedOrders.getTotalElements() );
+        assertTrue( placedOrders.getContent().get( 0 ).getItems().containsKey( "Milk" ) );
+
+        // Nothing was picked up after the range ends
+        assertEquals( 0, orderService
+                .viewOrderHistory( null, null, start, start.plusNanos( 1 ), PageRequest.of( 0, 10 ) )
+                .getTotalElements() );
+
+        // Invalid ranges and sorts are rejected
+        assertThrows( WolfCafeAPIException.class,
+                () -> orderService.viewOrderHistory( null, null, start, start, PageRequest.of( 0, 10 ) ) );
+        assertThrows( WolfCafeAPIException.class, () -> orderService.viewOrderHistory( null, null, null, null,
+                PageRequest.of( 0, 10, Sort.by( "items" ) ) ) );
+    }
+
+    /*
+     * Tests that the order history can be filtered to the orders containing
+     * every one of several items, and that orders moving between statuses are
+     * found under their new status
+     */
+    @Test
+    @WithMockUser ( username = "customer1", roles = "CUSTOMER" )
+    @Transactional
+    public void testViewOrderHistoryContainingAllItems () {
+        final LocalDateTime start = LocalDateTime.now().minusSeconds( 1 );
+
+        final List<Long> ids = new ArrayList<>();
+        for ( final Map<String, Integer> items : List.of( Map.of( "Coffee", 1 ), Map.of( "Coffee", 1, "Milk", 1 ),
+                Map.of( "Milk", 2 ) ) ) {
+            final OrderDto orderDto = new OrderDto();
+            orderDto.setItems( items );
+            ids.add( orderService.placeOrder( orderDto ).getId() );
+        }
+
+        // Still placed, so not in the picked up history yet
+        assertEquals( 0, orderService.viewOrderHistory( List.of( "Coffee", "Milk" ), null, start, null,
+                PageRequest.of( 0, 10 ) ).getTotalElements() );
+        assertEquals( 1, orderService.viewOrderHistory( List.of( "Coffee", "Milk" ), OrderStatus.PLACED, start,
+                null, PageRequest.of( 0, 10 ) ).getTotalElements() );
+
+        for ( final Long id : ids ) {
+            orderService.fulfillOrder( id );
+            orderService.pickupOrder( id );
+        }
+
+        final List<OrderDto> both = orderService
+                .viewOrderHistory( List.of( "Coffee", "Milk", "Milk" ), null, start, null, PageRequest.of( 0, 10 ) )
+                .getContent();
+        assertEquals( 1, both.size() );
+        assertEquals( ids.get( 1 ), both.get( 0 ).getId() );
+
+        assertEquals( 2, orderService
+                .viewOrderHistory( List.of( "Milk" ), null, start, null, PageRequest.of( 0, 10 ) ).getTotalElements() );
+        assertEquals( 0, orderService.viewOrderHistory( List.of( "Coffee", "Tea" ), null, start, null,
+                PageRequest.of( 0, 10 ) ).getTotalElements() );
+        assertEquals( 0, orderService.viewOrderHistory( List.of( "Coffee", "Milk" ), OrderStatus.PLACED, start,
+                null, PageRequest.of( 0, 10 ) ).getTotalElements() );
+
+        final List<OrderDto> exported = new ArrayList<>();
+        orderService.exportOrderHistory( List.of( "Coffee", "Milk" ), null, start, null, exported::add );
+        assertEquals( 1, exported.size() );
+        assertEquals( Map.of( "Coffee", 1, "Milk", 1 ), exported.get( 0 ).getItems() );
+    }
+
+    /*
+     * Tests walking through a customer's orders page by page with cursors
+     */
+    @Test
+    @WithMockUser ( username = "customer1", roles = "CUSTOMER" )
+    @Transactional
+    public void testGetOrdersForCurrentUserWithCursor () {
+        final List<Long> ids = new ArrayList<>();
+        for ( int i = 0; i < 5; i++ ) {
+            final OrderDto orderDto = new OrderDto();
+            orderDto.setItems( Map.of( "Coffee", 1 ) );
+            ids.add( orderService.placeOrder( orderDto ).getId() );
+        }
+
+        final List<Long> seen = new ArrayList<>();
+        final List<Integer> pageSizes = new ArrayList<>();
+        String cursor = null;
+        do {
+            final OrderPageDto page = orderService.getOrdersForCurrentUser( cursor, 2 );
+            pageSizes.add( page.getOrders().size() );
+            page.getOrders().forEach( order -> seen.add( order.getId() ) );
+            cursor = page.getNextCursor();
+        }
+        while ( cursor != null );
+
+        // Every order exactly once, newest first
+        assertEquals( List.of( 2, 2, 1 ), pageSizes );
+        Collections.reverse( ids );
+        assertEquals( ids, seen );
+
+        // The staff listing pages the same way
+        final OrderPageDto firstPage = orderService.getAllOrders( null, 4 );
+        assertEquals( 4, firstPage.getOrders().size() );
+        assertNotNull( firstPage.getNextCursor() );
+        assertEquals( ids.get( 4 ),
+                orderService.getAllOrders( firstPage.getNextCursor(), 4 ).getOrders().get( 0 ).getId() );
+
+        // Bad cursors and sizes are rejected
+        assertThrows( WolfCafeAPIException.class, () -> orderService.getAllOrders( "not a cursor", 2 ) );
+        assertThrows( WolfCafeAPIException.class, () -> orderService.getAllOrders( null, 0 ) );
+    }
+
+    /*
+     * Tests that exporting the order history streams the same orders as the
+     * history, oldest first, with all of their items
+     */
+    @Test
+    @WithMockUser ( username = "customer1", roles = "CUSTOMER" )
+    @Transactional
+    public void testExportOrderHistory () {
+        final LocalDateTime start = LocalDateTime.now().minusSeconds( 1 );
+
+        final List<Long> ids = new ArrayList<>();
+        for ( int i = 0; i < 3; i++ ) {
+            final OrderDto orderDto = new OrderDto();
+            orderDto.setItems( i == 1 ? Map.of( "Coffee", 1, "Milk", 2 ) : Map.of( "Coffee", 1 ) );
+            ids.add( orderService.placeOrder( orderDto ).getId() );
+        }
+        for ( final Long id : ids ) {
+            orderService.fulfillOrder( id );
+            orderService.pickupOrder( id );
+        }
+
+        final List<OrderDto> exported = new ArrayList<>();
+        orderService.exportOrderHistory( null, null, start, null, exported::add );
+
+        assertEquals( 3, exported.size() );
+        for ( int i = 0; i < 3; i++ ) {
+            assertEquals( ids.get( i ), exported.get( i ).getId() );
+            assertEquals( OrderStatus.PICKED_UP, exported.get( i ).getStatus() );
+            assertNotNull( exported.get( i ).getCreatedAt() );
+            assertNotNull( exported.get( i ).getTotalPrice() );
+        }
+        assertEquals( Map.of( "Coffee", 1, "Milk", 2 ), exported.get( 1 ).getItems() );
+        assertEquals( customer1.getId(), exported.get( 1 ).getCustomerId() );
+
+        // Filtering by item keeps every item of the matching orders
+        final List<OrderDto> withMilk = new ArrayList<>();
+        orderService.exportOrderHistory( List.of( "Milk" ), null, start, null, withMilk::add );
+        assertEquals( 1, withMilk.size() );
+        assertEquals( 2, withMilk.get( 0 ).getItems().size() );
+
+        assertThrows( WolfCafeAPIException.class,
+                () -> orderService.exportOrderHistory( null, null, start, start, exported::add ) );
+    }
+
 }
@@ -0,0 +1,141 @@
+package edu.ncsu.csc326.wolfcafe.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import edu.ncsu.csc326.wolfcafe.dto.ItemSalesDto;
+import edu.ncsu.csc326.wolfcafe.dto.SalesStatsDto;
+import edu.ncsu.csc326.wolfcafe.entity.Item;
+import edu.ncsu.csc326.wolfcafe.entity.Order;
+import edu.ncsu.csc326.wolfcafe.entity.OrderStatus;
+import edu.ncsu.csc326.wolfcafe.exception.WolfCafeAPIException;
+import edu.ncsu.csc326.wolfcafe.repository.DailySalesRepository;
+import edu.ncsu.csc326.wolfcafe.repository.ItemRepository;
+import edu.ncsu.csc326.wolfcafe.service.SalesStatsService;
+
+/*
+ * Tests SalesStatsService
+ */
+@SpringBootTest
+public class SalesStatsServiceTest {
+
+    /*
+     * A day no other test places orders on
+     */
+    private static final LocalDate     DAY = LocalDate.of( 2001, 3, 14 );
+
+    /*
+     * Reference to SalesStatsService
+     */
+    @Autowired
+    private SalesStatsService          salesStatsService;
+
+    /*
+     * Reference to item repository
+     */
+    @Autowired
+    private ItemRepository             itemRepository;
+
+    /*
+     * Reference to the daily sales rollup
+     */
+    @Autowired
+    private DailySalesRepository       dailySalesRepository;
+
+    /*
+     * Reference to the transaction manager
+     */
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    /*
+     * Tests that picked up orders are added to the rollups for the day they
+     * were placed and that ranges add up their days
+     */
+    @Test
+    @Transactional
+    public void testRecordPickup () {
+        saveItems();
+
+        salesStatsService.recordPickup( order( DAY, Map.of( "Stats Coffee", 2, "Stats Milk", 1 ), 10.0, 1.0 ) );
+        salesStatsService.recordPickup( order( DAY, Map.of( "Stats Coffee", 1 ), 4.0, 0.5 ) );
+        salesStatsService.recordPickup( order( DAY.plusDays( 1 ), Map.of( "Stats Milk", 4 ), 8.0, 0.0 ) );
+
+        final SalesStatsDto day = salesStatsService.getStats( DAY, DAY );
+        assertEquals( 2, day.getOrders() );
+        assertEquals( 14.0, day.getRevenue(), 0.001 );
+        assertEquals( 1.5, day.getTips(), 0.001 );
+        assertEquals( List.of( new ItemSalesDto( "Stats Coffee", 3, 9.0 ), new ItemSalesDto( "Stats Milk", 1, 1.5 ) ),
+                day.getItems() );
+
+        // Both days, with milk now the best seller
+        final SalesStatsDto range = salesStatsService.getStats( DAY, DAY.plusDays( 1 ) );
+        assertEquals( 3, range.getOrders() );
+        assertEquals( 22.0, range.getRevenue(), 0.001 );
+        assertEquals( List.of( new ItemSalesDto( "Stats Milk", 5, 7.5 ), new ItemSalesDto( "Stats Coffee", 3, 9.0 ) ),
+                range.getItems() );
+
+        // The rollup table matches the in-memory rollup
+        assertEquals( 2, dailySalesRepository.findById( DAY ).orElseThrow().getOrders() );
+    }
+
+    /*
+     * Tests that a pickup is taken back out of the rollups when its
+     * transaction rolls back
+     */
+    @Test
+    public void testRollbackReversesPickup () {
+        final SalesStatsDto before = salesStatsService.getStats( DAY, DAY );
+
+        final TransactionTemplate transaction = new TransactionTemplate( transactionManager );
+        transaction.executeWithoutResult( status -> {
+            saveItems();
+            salesStatsService.recordPickup( order( DAY, Map.of( "Stats Coffee", 2 ), 6.0, 0.0 ) );
+            assertEquals( before.getOrders() + 1, salesStatsService.getStats( DAY, DAY ).getOrders() );
+            status.setRollbackOnly();
+        } );
+
+        final SalesStatsDto after = salesStatsService.getStats( DAY, DAY );
+        assertEquals( before.getOrders(), after.getOrders() );
+        assertEquals( before.getRevenue(), after.getRevenue(), 0.001 );
+        assertEquals( before.getItems(), after.getItems() );
+        assertEquals( dailySalesRepository.findById( DAY ).isPresent(), before.getOrders() > 0 );
+    }
+
+    /*
+     * Tests that a range ending before it starts is rejected
+     */
+    @Test
+    public void testInvalidRange () {
+        assertThrows( WolfCafeAPIException.class, () -> salesStatsService.getStats( DAY, DAY.minusDays( 1 ) ) );
+    }
+
+    /*
+     * Saves the items the test orders refer to
+     */
+    private void saveItems () {
+        itemRepository.save( new Item( null, "Stats Coffee", "Coffee for the sales tests", 3.0 ) );
+        itemRepository.save( new Item( null, "Stats Milk", "Milk for the sales tests", 1.5 ) );
+    }
+
+    /*
+     * Creates a picked up order placed on the given day
+     */
+    private Order order ( final LocalDate day, final Map<String, Integer> items, final double total,
+            final double tip ) {
+        return new Order( null, null, tip, items, OrderStatus.PICKED_UP, day.atTime( 12, 0 ), total, null, null,
+                null );
+    }
+
+}
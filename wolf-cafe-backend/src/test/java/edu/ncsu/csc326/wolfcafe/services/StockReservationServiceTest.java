@@ -0,0 +1,205 @@
+package edu.ncsu.csc326.wolfcafe.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import edu.ncsu.csc326.wolfcafe.entity.Inventory;
+import edu.ncsu.csc326.wolfcafe.entity.Item;
+import edu.ncsu.csc326.wolfcafe.repository.InventoryRepository;
+import edu.ncsu.csc326.wolfcafe.repository.ItemRepository;
+import edu.ncsu.csc326.wolfcafe.service.StockReservationService;
+
+/*
+ * Tests StockReservationService. These tests are not transactional so that
+ * every thread commits its own reservations against the shared inventory.
+ */
+@SpringBootTest
+public class StockReservationServiceTest {
+
+    /*
+     * Amount of each item in stock at the start of every test
+     */
+    private static final int        STOCK    = 50;
+
+    /*
+     * Number of threads reserving at the same time
+     */
+    private static final int        THREADS  = 8;
+
+    /*
+     * Number of reservations each thread attempts
+     */
+    private static final int        ATTEMPTS = 20;
+
+    /*
+     * Reference to stock reservation service
+     */
+    @Autowired
+    private StockReservationService stockReservationService;
+
+    /*
+     * Reference to inventory repository
+     */
+    @Autowired
+    private InventoryRepository     inventoryRepository;
+
+    /*
+     * Reference to item repository
+     */
+    @Autowired
+    private ItemRepository          itemRepository;
+
+    /*
+     * Represents a coffee item
+     */
+    private Item                    coffee;
+
+    /*
+     * Represents a milk item
+     */
+    private Item                    milk;
+
+    /*
+     * Clears the inventory and stocks coffee and milk
+     */
+    @BeforeEach
+    public void setUp () {
+        inventoryRepository.deleteAll();
+        itemRepository.deleteAll();
+
+        coffee = itemRepository.save( new Item( null, "Coffee", "Freshly ground coffee", 3.0 ) );
+        milk = itemRepository.save( new Item( null, "Milk", "Whole milk", 1.5 ) );
+
+        final Inventory inventory = new Inventory();
+        final Map<Item, Integer> items = new HashMap<>();
+        items.put( coffee, STOCK );
+        items.put( milk, STOCK );
+        inventory.setItems( items );
+        inventoryRepository.save( inventory );
+    }
+
+    /*
+     * Tests reserving and releasing stock for a single item
+     */
+    @Test
+    public void testReserveAndRelease () {
+        stockReservationService.reserve( Map.of( coffee, 5 ) );
+        assertEquals( STOCK - 5, stockOf( coffee ) );
+        assertEquals( STOCK, stockOf( milk ) );
+
+        stockReservationService.release( Map.of( coffee, 5 ) );
+        assertEquals( STOCK, stockOf( coffee ) );
+    }
+
+    /*
+     * Tests that a short item rolls back the items reserved before it
+     */
+    @Test
+    public void testReserveInsufficientRollsBack () {
+        final Map<Item, Integer> amounts = new HashMap<>();
+        amounts.put( coffee, 1 );
+        amounts.put( milk, STOCK + 1 );
+
+        final Exception exception = assertThrows( IllegalStateException.class,
+                () -> stockReservationService.reserve( amounts ) );
+        assertEquals( "Insufficient inventory for item: Milk. Available: " + STOCK + ", Required: " + ( STOCK + 1 ),
+                exception.getMessage() );
+
+        assertEquals( STOCK, stockOf( coffee ) );
+        assertEquals( STOCK, stockOf( milk ) );
+    }
+
+    /*
+     * Tests that many threads reserving the same item never take more than is
+     * in stock
+     */
+    @Test
+    public void testConcurrentReservationsNeverOversell () throws Exception {
+        final AtomicInteger reserved = runConcurrently( Map.of( coffee, 1 ), Map.of( coffee, 1 ) );
+
+        assertEquals( STOCK, reserved.get() );
+        assertEquals( 0, stockOf( coffee ) );
+        assertEquals( STOCK, stockOf( milk ) );
+    }
+
+    /*
+     * Tests that orders taking the same items in different orders neither
+     * deadlock nor oversell
+     */
+    @Test
+    public void testConcurrentMultiItemReservationsNeverOversell () throws Exception {
+        final Map<Item, Integer> coffeeFirst = new HashMap<>();
+        coffeeFirst.put( coffee, 1 );
+        coffeeFirst.put( milk, 2 );
+        final Map<Item, Integer> milkFirst = new HashMap<>();
+        milkFirst.put( milk, 2 );
+        milkFirst.put( coffee, 1 );
+
+        final AtomicInteger reserved = runConcurrently( coffeeFirst, milkFirst );
+
+        assertEquals( STOCK / 2, reserved.get() );
+        assertEquals( STOCK - STOCK / 2, stockOf( coffee ) );
+        assertEquals( 0, stockOf( milk ) );
+    }
+
+    /*
+     * Starts every thread at once, alternating between the two reservations,
+     * and counts how many reservations succeeded
+     */
+    private AtomicInteger runConcurrently ( final Map<Item, Integer> even, final Map<Item, Integer> odd )
+            throws Exception {
+        final ExecutorService executor = Executors.newFixedThreadPool( THREADS );
+        final CountDownLatch start = new CountDownLatch( 1 );
+        final AtomicInteger reserved = new AtomicInteger();
+        final List<Future<Object>> futures = new ArrayList<>();
+
+        for ( int i = 0; i < THREADS; i++ ) {
+            final Map<Item, Integer> amounts = i % 2 == 0 ? even : odd;
+            futures.add( executor.submit( () -> {
+                start.await();
+                for ( int j = 0; j < ATTEMPTS; j++ ) {
+                    try {
+                        stockReservationService.reserve( amounts );
+                        reserved.incrementAndGet();
+                    }
+                    catch ( final IllegalStateException e ) {
+                        // Sold out, which is expected once stock runs low
+                    }
+                }
+                return null;
+            } ) );
+        }
+
+        start.countDown();
+        for ( final Future<Object> future : futures ) {
+            future.get();
+        }
+        executor.shutdown();
+
+        return reserved;
+    }
+
+    /*
+     * Reads the committed stock of an item
+     */
+    private int stockOf ( final Item item ) {
+        final Long inventoryId = inventoryRepository.findInventoryId().orElseThrow();
+        return inventoryRepository.findStock( inventoryId, item.getId() ).orElseThrow();
+    }
+
+}
@@ -0,0 +1,59 @@
+package edu.ncsu.csc326.wolfcafe.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import edu.ncsu.csc326.wolfcafe.cache.TaxRateCache;
+import edu.ncsu.csc326.wolfcafe.entity.TaxRate;
+
+/*
+ * Tests TaxRateCache, set directly rather than through the TaxRateService
+ */
+@SpringBootTest
+public class TaxRateCacheTest {
+
+    /*
+     * Reference to the cache
+     */
+    @Autowired
+    private TaxRateCache taxRateCache;
+
+    /*
+     * Drops the snapshots set by the tests so other tests read the database
+     */
+    @AfterEach
+    public void tearDown () {
+        taxRateCache.invalidate();
+    }
+
+    /*
+     * Tests that a rate saved before the cached one does not replace it
+     */
+    @Test
+    public void testOlderVersionIgnored () {
+        taxRateCache.set( new TaxRate( 1L, 0.05, 4L ) );
+        taxRateCache.set( new TaxRate( 1L, 0.02, 3L ) );
+
+        final TaxRateCache.Snapshot snapshot = taxRateCache.get().get();
+        assertEquals( 0.05, snapshot.getRate() );
+        assertEquals( 4L, snapshot.getVersion() );
+    }
+
+    /*
+     * Tests that a newer rate replaces the cached one
+     */
+    @Test
+    public void testNewerVersionReplaces () {
+        taxRateCache.set( new TaxRate( 1L, 0.02, 3L ) );
+        taxRateCache.set( new TaxRate( 1L, 0.05, 4L ) );
+
+        final TaxRateCache.Snapshot snapshot = taxRateCache.get().get();
+        assertEquals( 0.05, snapshot.getRate() );
+        assertEquals( 4L, snapshot.getVersion() );
+    }
+
+}
@@ -8,6 +8,7 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 
+import edu.ncsu.csc326.wolfcafe.dto.TaxRateDto;
 import edu.ncsu.csc326.wolfcafe.entity.TaxRate;
 import edu.ncsu.csc326.wolfcafe.repository.TaxRateRepository;
 import edu.ncsu.csc326.wolfcafe.service.TaxRateService;
@@ -65,6 +66,20 @@ class TaxRateServiceTest {
         assertEquals( 0.05, taxRateService.getTaxRate() );
     }
 
+    /*
+     * Tests that setting the rate increases its version
+     */
+    @Test
+    void testSetTaxRateIncreasesVersion () {
+        final long before = taxRateService.getCurrentTaxRate().getVersion();
+
+        taxRateService.setTaxRate( 0.07 );
+
+        final TaxRateDto after = taxRateService.getCurrentTaxRate();
+        assertEquals( 0.07, after.getRate() );
+        assertEquals( before + 1, after.getVersion() );
+    }
+
     /*
      * Error Tests setRate. Tries to set a negative number as the rate
      */
@@ -0,0 +1,146 @@
+package edu.ncsu.csc326.wolfcafe.benchmarks;
+
+import java.lang.reflect.Field;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import edu.ncsu.csc326.wolfcafe.entity.Inventory;
+import edu.ncsu.csc326.wolfcafe.entity.Item;
+import edu.ncsu.csc326.wolfcafe.entity.Order;
+import edu.ncsu.csc326.wolfcafe.entity.OrderStatus;
+import edu.ncsu.csc326.wolfcafe.entity.User;
+
+/**
+ * Builds realistic data for the benchmarks: a cafe menu, an inventory holding
+ * every item, customers, and orders of one to six lines. A fixed seed keeps
+ * every run on the same data.
+ */
+final class Fixtures {
+
+    /** Seed for the generated data */
+    private static final long SEED      = 326L;
+
+    /** Number of customers the orders are spread over */
+    private static final int  CUSTOMERS = 200;
+
+    /**
+     * Not meant to be constructed.
+     */
+    private Fixtures () {
+    }
+
+    /**
+     * Creates a menu with the given number of items.
+     *
+     * @param size
+     *            number of items on the menu
+     * @return the items, with ids starting at 1
+     */
+    static List<Item> menu ( final int size ) {
+        final Random random = new Random( SEED );
+        final List<Item> items = new ArrayList<>( size );
+        for ( int i = 0; i < size; i++ ) {
+            items.add( new Item( (long) i + 1, "Menu Item " + i, "Description of menu item " + i,
+                    1.0 + random.nextInt( 800 ) / 100.0 ) );
+        }
+        return items;
+    }
+
+    /**
+     * Creates an inventory holding every item on the menu.
+     *
+     * @param menu
+     *            the items to stock
+     * @return the inventory
+     */
+    static Inventory inventory ( final List<Item> menu ) {
+        final Random random = new Random( SEED );
+        final Map<Item, Integer> items = new HashMap<>();
+        for ( final Item item : menu ) {
+            items.put( item, random.nextInt( 500 ) );
+        }
+        final Inventory inventory = new Inventory();
+        inventory.setId( 1L );
+        inventory.setItems( items );
+        inventory.setVersion( 1L );
+        return inventory;
+    }
+
+    /**
+     * Creates placed orders for items on the menu.
+     *
+     * @param menu
+     *            the items the orders refer to
+     * @param count
+     *            number of orders
+     * @return the orders
+     */
+    static List<Order> orders ( final List<Item> menu, final int count ) {
+        final Random random = new Random( SEED );
+        final List<User> customers = new ArrayList<>( CUSTOMERS );
+        for ( int i = 0; i < CUSTOMERS; i++ ) {
+            final User customer = new User();
+            customer.setId( (long) i + 1 );
+            customer.setName( "Customer " + i );
+            customer.setUsername( "customer" + i );
+            customer.setEmail( "customer" + i + "@example.com" );
+            customers.add( customer );
+        }
+
+        final OrderStatus[] statuses = OrderStatus.values();
+        final LocalDateTime start = LocalDateTime.of( 2024, 1, 1, 7, 0 );
+        final List<Order> orders = new ArrayList<>( count );
+        for ( int i = 0; i < count; i++ ) {
+            final Map<String, Integer> items = orderItems( menu, random );
+            orders.add( new Order( (long) i + 1, customers.get( random.nextInt( CUSTOMERS ) ),
+                    random.nextInt( 300 ) / 100.0, items, statuses[random.nextInt( statuses.length )],
+                    start.plusMinutes( i ), 4.0 + random.nextInt( 4000 ) / 100.0 ) );
+        }
+        return orders;
+    }
+
+    /**
+     * Picks one to six distinct items with quantities of one to three.
+     *
+     * @param menu
+     *            the items to pick from
+     * @param random
+     *            source of randomness
+     * @return quantity of each picked item, by name
+     */
+    static Map<String, Integer> orderItems ( final List<Item> menu, final Random random ) {
+        final int lines = Math.min( menu.size(), 1 + random.nextInt( 6 ) );
+        final Map<String, Integer> items = new HashMap<>();
+        while ( items.size() < lines ) {
+            items.put( menu.get( random.nextInt( menu.size() ) ).getName(), 1 + random.nextInt( 3 ) );
+        }
+        return items;
+    }
+
+    /**
+     * Sets a private field the way Spring would inject it, so backend
+     * components can be benchmarked without starting the application.
+     *
+     * @param target
+     *            object to set the field on
+     * @param name
+     *            name of the field
+     * @param value
+     *            value to set
+     */
+    static void inject ( final Object target, final String name, final Object value ) {
+        try {
+            final Field field = target.getClass().getDeclaredField( name );
+            field.setAccessible( true );
+            field.set( target, value );
+        }
+        catch ( final ReflectiveOperationException e ) {
+            throw new IllegalStateException( "Cannot set " + name + " on " + target.getClass().getName(), e );
+        }
+    }
+
+}
@@ -0,0 +1,108 @@
+package edu.ncsu.csc326.wolfcafe.benchmarks;
+
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import edu.ncsu.csc326.wolfcafe.cache.ItemIndex;
+import edu.ncsu.csc326.wolfcafe.dto.InventoryDto;
+import edu.ncsu.csc326.wolfcafe.entity.Inventory;
+import edu.ncsu.csc326.wolfcafe.entity.Item;
+import edu.ncsu.csc326.wolfcafe.mapper.InventoryMapper;
+import edu.ncsu.csc326.wolfcafe.repository.ItemRepository;
+
+/**
+ * Measures InventoryMapper in both directions for menus of different sizes.
+ * The item index is backed by an in-memory repository, so mapping a DTO back
+ * to an entity resolves every name from the index snapshot.
+ */
+@State ( Scope.Benchmark )
+@BenchmarkMode ( Mode.AverageTime )
+@OutputTimeUnit ( TimeUnit.MICROSECONDS )
+@Warmup ( iterations = 3, time = 2 )
+@Measurement ( iterations = 5, time = 2 )
+@Fork ( 1 )
+public class InventoryMapperBenchmark {
+
+    /** Number of items on the menu */
+    @Param ( { "10", "100", "1000" } )
+    private int          size;
+
+    /** Inventory holding every item */
+    private Inventory    inventory;
+
+    /** The same inventory as a DTO */
+    private InventoryDto inventoryDto;
+
+    /** Index of the menu, already loaded */
+    private ItemIndex    itemIndex;
+
+    /**
+     * Builds the inventory and loads the item index.
+     */
+    @Setup
+    public void setup () {
+        final List<Item> menu = Fixtures.menu( size );
+        inventory = Fixtures.inventory( menu );
+        inventoryDto = InventoryMapper.mapToInventoryDto( inventory );
+
+        itemIndex = new ItemIndex();
+        Fixtures.inject( itemIndex, "itemRepository", repository( menu ) );
+        itemIndex.findAllByName( List.of() );
+    }
+
+    /**
+     * Maps the inventory to a DTO.
+     *
+     * @return the DTO
+     */
+    @Benchmark
+    public InventoryDto mapToInventoryDto () {
+        return InventoryMapper.mapToInventoryDto( inventory );
+    }
+
+    /**
+     * Maps the DTO back to an inventory.
+     *
+     * @return the inventory
+     */
+    @Benchmark
+    public Inventory mapToInventory () {
+        return InventoryMapper.mapToInventory( inventoryDto, itemIndex );
+    }
+
+    /**
+     * Creates an item repository that only answers the queries ItemIndex
+     * makes.
+     *
+     * @param menu
+     *            the items in the repository
+     * @return the repository
+     */
+    private static ItemRepository repository ( final List<Item> menu ) {
+        return (ItemRepository) Proxy.newProxyInstance( ItemRepository.class.getClassLoader(),
+                new Class< ? >[] { ItemRepository.class }, ( proxy, method, args ) -> {
+                    switch ( method.getName() ) {
+                        case "findAll":
+                            return menu;
+                        case "findByNameIn":
+                            return List.of();
+                        default:
+                            throw new UnsupportedOperationException( method.getName() );
+                    }
+                } );
+    }
+
+}
@@ -0,0 +1,89 @@
+package edu.ncsu.csc326.wolfcafe.benchmarks;
+
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+
+import edu.ncsu.csc326.wolfcafe.security.JwtTokenProvider;
+
+/**
+ * Measures the JWT work done on every authenticated request: the filter
+ * validates the bearer token and then parses it again for the username.
+ */
+@State ( Scope.Benchmark )
+@BenchmarkMode ( Mode.AverageTime )
+@OutputTimeUnit ( TimeUnit.MICROSECONDS )
+@Warmup ( iterations = 3, time = 2 )
+@Measurement ( iterations = 5, time = 2 )
+@Fork ( 1 )
+public class JwtTokenProviderBenchmark {
+
+    /** Token lifetime used by the default configuration */
+    private static final long EXPIRATION = 604800000L;
+
+    /** Provider configured with a random key */
+    private JwtTokenProvider  provider;
+
+    /** Token issued by the provider */
+    private String            token;
+
+    /**
+     * Configures the provider and issues a token for a customer.
+     */
+    @Setup
+    public void setup () {
+        final byte[] secret = new byte[64];
+        new SecureRandom().nextBytes( secret );
+
+        provider = new JwtTokenProvider();
+        Fixtures.inject( provider, "jwtSecret", Base64.getEncoder().encodeToString( secret ) );
+        Fixtures.inject( provider, "jwtExpirationDate", EXPIRATION );
+
+        token = provider.generateToken( new UsernamePasswordAuthenticationToken( "customer1", null, List.of() ) );
+    }
+
+    /**
+     * Validates the token.
+     *
+     * @return whether the token is valid
+     */
+    @Benchmark
+    public boolean validateToken () {
+        return provider.validateToken( token );
+    }
+
+    /**
+     * Parses the username out of the token.
+     *
+     * @return the username
+     */
+    @Benchmark
+    public String getUsername () {
+        return provider.getUsername( token );
+    }
+
+    /**
+     * Does what JwtAuthenticationFilter does for one request.
+     *
+     * @return the username
+     */
+    @Benchmark
+    public String authenticateRequest () {
+        provider.validateToken( token );
+        return provider.getUsername( token );
+    }
+
+}
@@ -0,0 +1,141 @@
+package edu.ncsu.csc326.wolfcafe.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.modelmapper.ModelMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import edu.ncsu.csc326.wolfcafe.dto.OrderDto;
+import edu.ncsu.csc326.wolfcafe.entity.Order;
+import edu.ncsu.csc326.wolfcafe.mapper.OrderMapper;
+
+/**
+ * Measures what the order listing endpoints do after the query returns:
+ * mapping each order to a DTO and writing the list as JSON. The object mapper
+ * is built the same way Spring Boot builds the one used by the controllers.
+ * Mapping with ModelMapper, which OrderMapper replaced, is measured as a
+ * baseline; run with -prof gc to compare the bytes allocated per operation.
+ */
+@State ( Scope.Benchmark )
+@BenchmarkMode ( Mode.AverageTime )
+@OutputTimeUnit ( TimeUnit.MICROSECONDS )
+@Warmup ( iterations = 3, time = 2 )
+@Measurement ( iterations = 5, time = 2 )
+@Fork ( 1 )
+public class OrderMappingBenchmark {
+
+    /** Number of orders in the listing */
+    @Param ( { "10", "100", "1000" } )
+    private int            size;
+
+    /** Orders as loaded from the database */
+    private List<Order>    orders;
+
+    /** The same orders as DTOs */
+    private List<OrderDto> orderDtos;
+
+    /** Writes the DTOs as JSON */
+    private ObjectMapper   objectMapper;
+
+    /** Maps orders by reflection, as the listings did before OrderMapper */
+    private ModelMapper    modelMapper;
+
+    /**
+     * Builds the orders and the object mapper.
+     */
+    @Setup
+    public void setup () {
+        orders = Fixtures.orders( Fixtures.menu( 40 ), size );
+        orderDtos = new ArrayList<>( size );
+        for ( final Order order : orders ) {
+            orderDtos.add( OrderMapper.mapToOrderDto( order ) );
+        }
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        modelMapper = new ModelMapper();
+    }
+
+    /**
+     * Maps every order to a DTO.
+     *
+     * @return the DTOs
+     */
+    @Benchmark
+    public List<OrderDto> mapToOrderDto () {
+        final List<OrderDto> dtos = new ArrayList<>( orders.size() );
+        for ( final Order order : orders ) {
+            dtos.add( OrderMapper.mapToOrderDto( order ) );
+        }
+        return dtos;
+    }
+
+    /**
+     * Maps every order to a DTO with ModelMapper, the baseline for
+     * mapToOrderDto.
+     *
+     * @return the DTOs
+     */
+    @Benchmark
+    public List<OrderDto> mapToOrderDtoModelMapper () {
+        final List<OrderDto> dtos = new ArrayList<>( orders.size() );
+        for ( final Order order : orders ) {
+            dtos.add( modelMapper.map( order, OrderDto.class ) );
+        }
+        return dtos;
+    }
+
+    /**
+     * Maps every DTO back to an order.
+     *
+     * @return the orders
+     */
+    @Benchmark
+    public List<Order> mapToOrder () {
+        final List<Order> mapped = new ArrayList<>( orderDtos.size() );
+        for ( final OrderDto dto : orderDtos ) {
+            mapped.add( OrderMapper.mapToOrder( dto ) );
+        }
+        return mapped;
+    }
+
+    /**
+     * Writes the DTOs as JSON.
+     *
+     * @return the JSON bytes
+     * @throws JsonProcessingException
+     *             if the DTOs cannot be written
+     */
+    @Benchmark
+    public byte[] writeJson () throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes( orderDtos );
+    }
+
+    /**
+     * Maps every order to a DTO and writes the list as JSON, as a listing
+     * request does.
+     *
+     * @return the JSON bytes
+     * @throws JsonProcessingException
+     *             if the DTOs cannot be written
+     */
+    @Benchmark
+    public byte[] mapAndWriteJson () throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes( mapToOrderDto() );
+    }
+
+}
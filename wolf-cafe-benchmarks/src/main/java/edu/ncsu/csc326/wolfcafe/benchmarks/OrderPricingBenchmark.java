@@ -0,0 +1,89 @@
+package edu.ncsu.csc326.wolfcafe.benchmarks;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import edu.ncsu.csc326.wolfcafe.entity.Item;
+import edu.ncsu.csc326.wolfcafe.service.impl.OrderPricing;
+
+/**
+ * Measures the pricing loop OrderServiceImpl runs for every order: resolving
+ * each line against the menu, adding up the subtotal, and applying tax and
+ * tip. Orders cycle through a fixed set so the branch predictor does not see
+ * the same order every time.
+ */
+@State ( Scope.Thread )
+@BenchmarkMode ( Mode.AverageTime )
+@OutputTimeUnit ( TimeUnit.NANOSECONDS )
+@Warmup ( iterations = 3, time = 2 )
+@Measurement ( iterations = 5, time = 2 )
+@Fork ( 1 )
+public class OrderPricingBenchmark {
+
+    /** Number of items on the menu */
+    private static final int           MENU_SIZE = 40;
+
+    /** Number of distinct orders to cycle through */
+    private static final int           ORDERS    = 1024;
+
+    /** Tax rate applied to the subtotal */
+    private static final double        TAX_RATE  = 0.02;
+
+    /** The menu, by name */
+    private Map<String, Item>          menu;
+
+    /** Items of each order, by name */
+    private List<Map<String, Integer>> orders;
+
+    /** Index of the next order to price */
+    private int                        next;
+
+    /**
+     * Builds the menu and the orders.
+     */
+    @Setup
+    public void setup () {
+        final List<Item> items = Fixtures.menu( MENU_SIZE );
+        menu = new HashMap<>();
+        for ( final Item item : items ) {
+            menu.put( item.getName(), item );
+        }
+
+        final Random random = new Random( 326L );
+        orders = new ArrayList<>( ORDERS );
+        for ( int i = 0; i < ORDERS; i++ ) {
+            orders.add( Fixtures.orderItems( items, random ) );
+        }
+    }
+
+    /**
+     * Prices the next order.
+     *
+     * @return the total price
+     */
+    @Benchmark
+    public double priceOrder () {
+        final Map<String, Integer> requested = orders.get( next );
+        next = ( next + 1 ) % ORDERS;
+
+        final Map<Item, Integer> amounts = new HashMap<>();
+        final double subtotal = OrderPricing.subtotal( requested, menu, amounts );
+        return OrderPricing.total( subtotal, TAX_RATE, subtotal * 0.15 );
+    }
+
+}